@@ -4,13 +4,28 @@
 
 package org.xuyh.concurrent;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Callable;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.Semaphore;
 import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
 
@@ -18,9 +33,35 @@ import java.util.function.Supplier;
  * This is a scheduler to schedule tasks who can release thread pool resources
  * by self when there is no more tasks to run. If uses a loop task, don't forget
  * to cancel it when stop it, or this scheduler won't release by itself.
+ * <p>
+ * The tasks are scheduled in a {@link ScheduledThreadPoolExecutor} by default.
+ * A scheduler created with a tick duration schedules them in a
+ * {@link HashedWheelScheduledExecutor} instead, who fits the masses of short
+ * delayed tasks mostly cancelled, at the cost of running up to a tick late.
+ * <p>
+ * The tasks are counted on the executor without any lock. Each executor comes
+ * with a count of its tasks, and is closed by the one who counts it down to
+ * zero, after which a new executor is created for the next task.
+ * <p>
+ * A scheduler created with a {@link Config} bounds the tasks submitted to run
+ * now and not started yet. A task over the bound is handled by the
+ * {@link OverflowPolicy}, and the pool grows up to the max pool size while the
+ * tasks queue over its size, and shrinks back once they are drained. The
+ * delayed and periodic tasks are timers rather than a backlog, and are never
+ * bounded.
+ * <p>
+ * A {@link Config} with a {@link Config#setParallelism(int) parallelism} runs
+ * the tasks to run now in a work-stealing {@link ForkJoinPool} instead, while
+ * the delayed and periodic tasks stay on the timer. A task submitted from a
+ * task in the pool is forked into the queue of its thread, and waiting its
+ * result helps to run the tasks queued rather than blocks a thread, so that
+ * the recursive divide-and-conquer jobs don't serialize on one queue. The
+ * {@link #fanOut(List)} and {@link #invokeAll(List)} fan out the subtasks in
+ * this way.
  *
  * @author XuYanhang
  * @see ScheduledThreadPoolExecutor
+ * @see HashedWheelScheduledExecutor
  * @since 2020-11-02
  */
 public class AutoPoolScheduler {
@@ -31,25 +72,43 @@ public class AutoPoolScheduler {
 
     /**
      * Factory scheduler factory to generate a current
-     * {@link ScheduledThreadPoolExecutor executor} at {@link #executor}
+     * {@link ScheduledExecutorService executor} at {@link #pool}
      */
-    private final Supplier<ScheduledThreadPoolExecutor> executorFactory;
+    private final Supplier<? extends ScheduledExecutorService> executorFactory;
 
     /**
-     * Lock on this scheduler to schedule tasks and check {@link #counter} changed
+     * Current {@link Pool pool} to execute tasks who will be dynamically created
+     * or destroyed, or <code>null</code> if no task
      */
-    private final Object lock = new Object();
+    private final AtomicReference<Pool> pool = new AtomicReference<>();
 
     /**
-     * Current {@link ScheduledThreadPoolExecutor executor} to execute tasks who
-     * will be dynamically created or destroyed
+     * A copy of the configuration, or <code>null</code> if the tasks are not
+     * bounded
      */
-    private ScheduledThreadPoolExecutor executor;
+    private final Config config;
 
     /**
-     * Current handle tasks count and monitor on {@link #executor} status
+     * Permits of the tasks to queue, or <code>null</code> if no bound
      */
-    private int counter;
+    private final Semaphore queueSlots;
+
+    /**
+     * The tasks queued in order to drop the oldest, or <code>null</code> if not
+     * {@link OverflowPolicy#DROP_OLDEST}
+     */
+    private final ConcurrentLinkedQueue<Admission> queuedTasks;
+
+    /**
+     * Count of the tasks submitted to run now and not started yet
+     */
+    private final AtomicInteger queueDepth = new AtomicInteger();
+
+    private final LongAdder rejectedCount = new LongAdder();
+
+    private final LongAdder callerRunsCount = new LongAdder();
+
+    private final LongAdder droppedCount = new LongAdder();
 
     /**
      * Creates a new {@code AutoCloseScheduler} with the given core pool size for
@@ -63,6 +122,9 @@ public class AutoPoolScheduler {
         super();
         if (corePoolSize < 0) throw new IllegalArgumentException();
         executorFactory = () -> new ScheduledThreadPoolExecutor(corePoolSize);
+        config = null;
+        queueSlots = null;
+        queuedTasks = null;
     }
 
     /**
@@ -80,6 +142,65 @@ public class AutoPoolScheduler {
         if (corePoolSize < 0) throw new IllegalArgumentException();
         if (null == threadFactory) throw new NullPointerException();
         executorFactory = () -> new ScheduledThreadPoolExecutor(corePoolSize, threadFactory);
+        config = null;
+        queueSlots = null;
+        queuedTasks = null;
+    }
+
+    /**
+     * Creates a new {@code AutoCloseScheduler} on a
+     * {@link HashedWheelScheduledExecutor hashed timing wheel} with the given
+     * initial parameters.
+     *
+     * @param corePoolSize  the number of threads to run the tasks in this
+     *                      scheduler
+     * @param threadFactory the factory to use when the thread pool in this
+     *                      scheduler creates a new thread
+     * @param tickDuration  the duration of a tick of the wheel
+     * @param tickUnit      the time unit of the tickDuration parameter
+     * @param wheelSize     the count of the buckets in a wheel, rounded up to a
+     *                      power of two
+     * @throws IllegalArgumentException if {@code corePoolSize < 0}, the
+     *                                  tickDuration is not positive, or the
+     *                                  wheelSize is not in
+     *                                  <code>[2, 65536]</code>
+     * @throws NullPointerException     if {@code threadFactory} or
+     *                                  {@code tickUnit} is null
+     */
+    public AutoPoolScheduler(int corePoolSize, ThreadFactory threadFactory, long tickDuration, TimeUnit tickUnit,
+                             int wheelSize) {
+        super();
+        if (corePoolSize < 0) throw new IllegalArgumentException();
+        if (null == threadFactory || null == tickUnit) throw new NullPointerException();
+        if (tickDuration <= 0L || wheelSize < 2 || wheelSize > 1 << 16) throw new IllegalArgumentException();
+        executorFactory = () -> new HashedWheelScheduledExecutor(corePoolSize, threadFactory, tickDuration, tickUnit,
+                wheelSize);
+        config = null;
+        queueSlots = null;
+        queuedTasks = null;
+    }
+
+    /**
+     * Creates a new {@code AutoCloseScheduler} whose tasks to run now are bounded
+     * by the given configuration.
+     *
+     * @param config configuration of the scheduler, who is copied so that later
+     *               changes on it make no effect
+     * @throws IllegalArgumentException if the config is illegal
+     * @throws NullPointerException     if {@code config} is null
+     */
+    public AutoPoolScheduler(Config config) {
+        super();
+        if (null == config) throw new NullPointerException("config");
+        this.config = config.clone();
+        this.config.check();
+        int corePoolSize = this.config.corePoolSize;
+        ThreadFactory threadFactory = null == this.config.threadFactory ? Executors.defaultThreadFactory()
+                : this.config.threadFactory;
+        executorFactory = () -> new ScheduledThreadPoolExecutor(corePoolSize, threadFactory);
+        queueSlots = this.config.queueCapacity > 0 ? new Semaphore(this.config.queueCapacity) : null;
+        queuedTasks = null != queueSlots && this.config.overflowPolicy == OverflowPolicy.DROP_OLDEST
+                ? new ConcurrentLinkedQueue<>() : null;
     }
 
     /**
@@ -112,7 +233,7 @@ public class AutoPoolScheduler {
      * @see ScheduledThreadPoolExecutor#submit(Callable)
      */
     public <V> Future<V> submit(Callable<V> task) {
-        return schedule0(wrapperTask(task), 0, TimeUnit.MILLISECONDS);
+        return schedule0(task, 0, TimeUnit.MILLISECONDS);
     }
 
     /**
@@ -143,7 +264,7 @@ public class AutoPoolScheduler {
      * @see ScheduledThreadPoolExecutor#schedule(Callable, long, TimeUnit)
      */
     public <V> Future<V> schedule(Callable<V> task, long delay, TimeUnit timeunit) {
-        return schedule0(wrapperTask(task), delay, timeunit);
+        return schedule0(task, delay, timeunit);
     }
 
     /**
@@ -220,19 +341,17 @@ public class AutoPoolScheduler {
      */
     public Cancellable scheduleAtFixedRate(Runnable task, long initialDelay, long period, TimeUnit timeunit,
                                            Consumer<? super RuntimeException> exceptionHandler) {
-        Runnable wrapperTask = wrapperPeriodTask(task, exceptionHandler);
+        if (null == task || null == exceptionHandler) throw new NullPointerException();
+        Pool current = acquire();
+        Ticket ticket = new Ticket(current);
         Future<?> future;
-        synchronized (lock) {
-            checkInitial();
-            try {
-                future = executor.scheduleAtFixedRate(wrapperTask, initialDelay, period, timeunit);
-            } catch (Throwable e) {
-                checkDestroy();
-                throw e;
-            }
-            counter++;
+        try {
+            future = current.executor.scheduleAtFixedRate(wrapperPeriodTask(task, exceptionHandler, ticket), initialDelay, period, timeunit);
+        } catch (Throwable e) {
+            ticket.done();
+            throw e;
         }
-        return wrapperCancellable(future);
+        return wrapperCancellable(future, ticket);
     }
 
     /**
@@ -259,91 +378,256 @@ public class AutoPoolScheduler {
      */
     public Cancellable scheduleWithFixedDelay(Runnable task, long initialDelay, long delay, TimeUnit timeunit,
                                               Consumer<? super RuntimeException> exceptionHandler) {
-        Runnable wrapperTask = wrapperPeriodTask(task, exceptionHandler);
+        if (null == task || null == exceptionHandler) throw new NullPointerException();
+        Pool current = acquire();
+        Ticket ticket = new Ticket(current);
         Future<?> future;
-        synchronized (lock) {
-            checkInitial();
-            try {
-                future = executor.scheduleWithFixedDelay(wrapperTask, initialDelay, delay, timeunit);
-            } catch (Throwable e) {
-                checkDestroy();
-                throw e;
-            }
-            counter++;
+        try {
+            future = current.executor.scheduleWithFixedDelay(wrapperPeriodTask(task, exceptionHandler, ticket), initialDelay, delay, timeunit);
+        } catch (Throwable e) {
+            ticket.done();
+            throw e;
         }
-        return wrapperCancellable(future);
+        return wrapperCancellable(future, ticket);
     }
 
     /**
      * Real schedules a task.
      */
     private <V> Future<V> schedule0(Callable<V> task, long delay, TimeUnit timeunit) {
-        Future<V> future;
-        synchronized (lock) {
-            checkInitial();
-            try {
-                future = executor.schedule(task, delay, timeunit);
-            } catch (Throwable e) {
-                checkDestroy();
-                throw e;
+        if (null == task || null == timeunit) throw new NullPointerException();
+        Admission admission = null;
+        if (null != config && delay <= 0L) {
+            if (null == (admission = admit())) {
+                // Run in the caller on overflow
+                FutureTask<V> ran = new FutureTask<>(task);
+                ran.run();
+                return ran;
             }
-            counter++;
         }
-        return wrapperFuture(future);
+        Pool current = acquire();
+        Ticket ticket = new Ticket(current);
+        Future<V> future;
+        try {
+            if (null != current.workers && delay <= 0L)
+                future = fork(current.workers, wrapperTask(task, current, ticket, admission));
+            else
+                future = current.executor.schedule(wrapperTask(task, current, ticket, admission), delay, timeunit);
+        } catch (Throwable e) {
+            if (null != admission) admission.abandon();
+            ticket.cancel();
+            throw e;
+        }
+        if (null != admission) {
+            admission.schedule(future, ticket);
+            grow(current);
+        }
+        return wrapperFuture(future, ticket, admission);
     }
 
     /**
-     * Before each task scheduled, sure there exists an available executor
+     * Runs a task in the work-stealing pool, forked into the queue of the current
+     * thread if it's a thread of the pool.
      */
-    private void checkInitial() {
-        if (null == executor) {
-            executor = executorFactory.get();
-            counter = 0;
+    private static <V> Future<V> fork(ForkJoinPool workers, Callable<V> task) {
+        if (ForkJoinTask.getPool() == workers) return ForkJoinTask.adapt(task).fork();
+        return workers.submit(task);
+    }
+
+    /**
+     * Submits the tasks to run now, and returns their futures in the same order.
+     * In the work-stealing mode, the tasks submitted from a thread of the pool
+     * are forked into the queue of the thread, where the other threads steal
+     * them from.
+     *
+     * @param tasks the tasks to submit
+     * @param <V>   the type of the tasks' result
+     * @return the futures of the tasks in the same order
+     * @throws NullPointerException if any task is null
+     */
+    public <V> List<Future<V>> fanOut(List<? extends Callable<V>> tasks) {
+        List<Future<V>> futures = new ArrayList<>(tasks.size());
+        try {
+            for (Callable<V> task : tasks)
+                futures.add(submit(task));
+        } catch (Throwable e) {
+            for (Future<V> future : futures)
+                future.cancel(false);
+            throw e;
         }
+        return futures;
     }
 
     /**
-     * Checks if there is no task here so that shutdown current executor
+     * Submits the tasks to run now, and waits all of them done to return their
+     * results in the same order. If any task fails, the ones not started are
+     * cancelled. In the work-stealing mode, the waiting thread of the pool helps
+     * to run the tasks rather than blocks.
+     *
+     * @param tasks the tasks to run
+     * @param <V>   the type of the tasks' result
+     * @return the results of the tasks in the same order
+     * @throws InterruptedException if interrupted while waiting
+     * @throws ExecutionException   if any task threw an exception
+     * @throws NullPointerException if any task is null
+     * @see #fanOut(List)
      */
-    private void checkDestroy() {
-        if (counter <= 0 && null != executor) {
-            executor.shutdown();
-            executor = null;
-            counter = 0;
+    public <V> List<V> invokeAll(List<? extends Callable<V>> tasks) throws InterruptedException, ExecutionException {
+        List<Future<V>> futures = fanOut(tasks);
+        List<V> results = new ArrayList<>(futures.size());
+        boolean done = false;
+        try {
+            // Join in the reverse order, so the last forked is taken back first
+            for (int i = futures.size() - 1; i >= 0; i--)
+                futures.get(i).get();
+            for (Future<V> future : futures)
+                results.add(future.get());
+            done = true;
+        } finally {
+            if (!done)
+                for (Future<V> future : futures)
+                    future.cancel(false);
+        }
+        return results;
+    }
+
+    /**
+     * Takes a place in the queue for a task to run now, or handles the overflow
+     * by the policy.
+     *
+     * @return the place taken, or <code>null</code> if the task should run in the
+     * caller
+     * @throws RejectedExecutionException if the task is rejected
+     */
+    private Admission admit() {
+        if (null != queueSlots && !queueSlots.tryAcquire()) {
+            switch (config.overflowPolicy) {
+                case CALLER_RUNS:
+                    callerRunsCount.increment();
+                    return null;
+                case BLOCK:
+                    try {
+                        boolean acquired;
+                        if (config.maxWaitMillis < 0L) {
+                            queueSlots.acquire();
+                            acquired = true;
+                        } else {
+                            acquired = queueSlots.tryAcquire(config.maxWaitMillis, TimeUnit.MILLISECONDS);
+                        }
+                        if (!acquired) throw reject("Timeout waiting for the queue");
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        rejectedCount.increment();
+                        throw new RejectedExecutionException("Interrupted waiting for the queue", e);
+                    }
+                    break;
+                case DROP_OLDEST:
+                    do {
+                        Admission oldest = queuedTasks.poll();
+                        if (null == oldest) throw reject("Queue full with nothing to drop");
+                        if (oldest.drop()) droppedCount.increment();
+                    } while (!queueSlots.tryAcquire());
+                    break;
+                default:
+                    throw reject("Queue full");
+            }
+        }
+        queueDepth.incrementAndGet();
+        Admission admission = new Admission();
+        if (null != queuedTasks) {
+            // Prune the head started, as the tasks start nearly in order
+            for (Admission head; null != (head = queuedTasks.peek()) && !head.isQueued(); )
+                queuedTasks.remove(head);
+            queuedTasks.offer(admission);
+        }
+        return admission;
+    }
+
+    private RejectedExecutionException reject(String message) {
+        rejectedCount.increment();
+        return new RejectedExecutionException(message);
+    }
+
+    /**
+     * Grows the pool by a thread when the tasks queued over its size.
+     */
+    private void grow(Pool current) {
+        if (config.maxPoolSize <= config.corePoolSize || null != current.workers
+                || !(current.executor instanceof ThreadPoolExecutor)) return;
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) current.executor;
+        int size = executor.getCorePoolSize();
+        if (size < config.maxPoolSize && queueDepth.get() > size)
+            executor.setCorePoolSize(size + 1);
+    }
+
+    /**
+     * Shrinks the pool to the core size when no task queued.
+     */
+    private void shrink(Pool current) {
+        if (config.maxPoolSize <= config.corePoolSize || null != current.workers
+                || !(current.executor instanceof ThreadPoolExecutor)) return;
+        ThreadPoolExecutor executor = (ThreadPoolExecutor) current.executor;
+        if (queueDepth.get() == 0 && executor.getCorePoolSize() > config.corePoolSize)
+            executor.setCorePoolSize(config.corePoolSize);
+    }
+
+    /**
+     * Before each task scheduled, counts the task on an available pool, who is
+     * created if no pool or the pool is closing.
+     */
+    private Pool acquire() {
+        Pool current = pool.get();
+        while (true) {
+            if (null == current) {
+                Pool created = new Pool(executorFactory.get(), null != config && config.parallelism > 0
+                        ? new ForkJoinPool(config.parallelism) : null);
+                created.count.set(1);
+                if (pool.compareAndSet(null, created))
+                    return created;
+                // Another thread created one first
+                created.shutdown();
+            } else if (current.tryAcquire()) {
+                return current;
+            } else {
+                // Help to remove the pool closing
+                pool.compareAndSet(current, null);
+            }
+            current = pool.get();
         }
     }
 
     /**
      * Wrappers the {@link Runnable task} so gets a new one of {@link Callable}
      */
-    private Callable<Void> wrapperTask(final Runnable task) {
+    private static Callable<Void> wrapperTask(final Runnable task) {
         if (null == task) throw new NullPointerException();
         return () -> {
-            try {
-                task.run();
-            } finally {
-                synchronized (lock) {
-                    counter--;
-                    checkDestroy();
-                }
-            }
+            task.run();
             return null;
         };
     }
 
     /**
      * Wrappers the {@link Callable task} so gets a new one of {@link Callable}
+     * who leaves the queue before run and counts off on the pool after done
      */
-    private <V> Callable<V> wrapperTask(final Callable<V> task) {
-        if (null == task) throw new NullPointerException();
+    private <V> Callable<V> wrapperTask(final Callable<V> task, final Pool pool, final Ticket ticket,
+                                        final Admission admission) {
         return () -> {
+            // Cancelled before run, counted off by the cancel
+            if (!ticket.start()) throw new CancellationException();
             try {
+                if (null != admission) {
+                    if (!admission.start()) {
+                        // Dropped before the future was attached to cancel
+                        if (admission.isDropped()) admission.cancelStarted();
+                        throw new CancellationException("Dropped on overflow");
+                    }
+                    shrink(pool);
+                }
                 return task.call();
             } finally {
-                synchronized (lock) {
-                    counter--;
-                    checkDestroy();
-                }
+                ticket.done();
             }
         };
     }
@@ -351,17 +635,16 @@ public class AutoPoolScheduler {
     /**
      * Wrappers the {@link Future future} so gets a new one of {@link Future}
      */
-    private <V> Future<V> wrapperFuture(final Future<V> future) {
+    private static <V> Future<V> wrapperFuture(final Future<V> future, final Ticket ticket, final Admission admission) {
         if (null == future) throw new NullPointerException();
         return new Future<V>() {
             @Override
             public boolean cancel(boolean mayInterruptIfRunning) {
                 boolean cancel = future.cancel(mayInterruptIfRunning);
                 if (cancel) {
-                    synchronized (lock) {
-                        counter--;
-                        checkDestroy();
-                    }
+                    if (null != admission) admission.abandon();
+                    // A task cancelled while running counts off when it's done
+                    ticket.cancel();
                 }
                 return cancel;
             }
@@ -392,8 +675,8 @@ public class AutoPoolScheduler {
     /**
      * Wrappers the {@link Runnable task} so gets a new one of {@link Runnable}
      */
-    private Runnable wrapperPeriodTask(final Runnable task, Consumer<? super RuntimeException> exceptionHandler) {
-        if (null == task || null == exceptionHandler) throw new NullPointerException();
+    private static Runnable wrapperPeriodTask(final Runnable task, Consumer<? super RuntimeException> exceptionHandler,
+                                              final Ticket ticket) {
         return () -> {
             RuntimeException error = null;
             try {
@@ -401,20 +684,14 @@ public class AutoPoolScheduler {
             } catch (RuntimeException e) {
                 error = e;
             } catch (Throwable e) {
-                synchronized (lock) {
-                    counter--;
-                    checkDestroy();
-                }
+                ticket.done();
                 throw e;
             }
             if (null != error)
                 try {
                     exceptionHandler.accept(error);
                 } catch (Throwable e) {
-                    synchronized (lock) {
-                        counter--;
-                        checkDestroy();
-                    }
+                    ticket.done();
                     throw e;
                 }
         };
@@ -423,14 +700,395 @@ public class AutoPoolScheduler {
     /**
      * Wrappers the {@link Future future} so gets a new one of {@link Cancellable}
      */
-    private Cancellable wrapperCancellable(final Future<?> future) {
+    private static Cancellable wrapperCancellable(final Future<?> future, final Ticket ticket) {
         return () -> {
-            if (future.cancel(false)) {
-                synchronized (lock) {
-                    counter--;
-                    checkDestroy();
-                }
-            }
+            // The execution running stops the period, so it's done either way
+            if (future.cancel(false)) ticket.done();
         };
     }
+
+    /**
+     * Returns the count of the tasks submitted to run now and not started yet.
+     * Only counted on a scheduler created with a {@link Config}.
+     *
+     * @return the count of the tasks queued
+     */
+    public int readQueueDepth() {
+        return queueDepth.get();
+    }
+
+    /**
+     * Returns the count of the tasks rejected on overflow.
+     *
+     * @return the count of the tasks rejected
+     */
+    public long readRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    /**
+     * Returns the count of the tasks run in the caller on overflow.
+     *
+     * @return the count of the tasks run in the caller
+     */
+    public long readCallerRunsCount() {
+        return callerRunsCount.sum();
+    }
+
+    /**
+     * Returns the count of the queued tasks dropped on overflow.
+     *
+     * @return the count of the tasks dropped
+     */
+    public long readDroppedCount() {
+        return droppedCount.sum();
+    }
+
+    /**
+     * Returns the count of the threads kept in the current pool, or
+     * <code>0</code> if no pool now or the size is unknown.
+     *
+     * @return the pool size
+     */
+    public int readPoolSize() {
+        Pool current = pool.get();
+        return null != current && current.executor instanceof ThreadPoolExecutor
+                ? ((ThreadPoolExecutor) current.executor).getCorePoolSize() : 0;
+    }
+
+    /**
+     * A place in the queue of a task to run now, who is left exactly once when
+     * the task starts, is cancelled or is dropped.
+     *
+     * @author XuYanhang
+     */
+    private final class Admission {
+        private static final int QUEUED = 0;
+        private static final int LEFT = 1;
+        private static final int DROPPED = 2;
+
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+
+        private volatile Future<?> future;
+
+        private volatile Ticket ticket;
+
+        private boolean isQueued() {
+            return state.get() == QUEUED;
+        }
+
+        private boolean isDropped() {
+            return state.get() == DROPPED;
+        }
+
+        /**
+         * Attach the future, who is cancelled at once if dropped before
+         */
+        private void schedule(Future<?> future, Ticket ticket) {
+            this.ticket = ticket;
+            this.future = future;
+            if (isDropped()) cancelScheduled();
+        }
+
+        private boolean leave(int to) {
+            if (!state.compareAndSet(QUEUED, to)) return false;
+            queueDepth.decrementAndGet();
+            if (null != queueSlots) queueSlots.release();
+            return true;
+        }
+
+        /**
+         * Leave the queue as the task starts
+         */
+        private boolean start() {
+            return leave(LEFT);
+        }
+
+        /**
+         * Leave the queue as the task is cancelled or failed to schedule
+         */
+        private void abandon() {
+            leave(LEFT);
+        }
+
+        /**
+         * Leave the queue and cancel the task, who is never run then
+         */
+        private boolean drop() {
+            if (!leave(DROPPED)) return false;
+            // Cancelled on the attach if not attached yet
+            cancelScheduled();
+            return true;
+        }
+
+        /**
+         * Cancel the future of a task dropped, either here or on the attach
+         */
+        private void cancelScheduled() {
+            Future<?> scheduled = future;
+            if (null != scheduled && scheduled.cancel(false)) ticket.cancel();
+        }
+
+        /**
+         * Cancel the future of a task dropped but started before the attach,
+         * waiting the caller scheduling it to attach the future
+         */
+        private void cancelStarted() {
+            Future<?> scheduled;
+            while (null == (scheduled = future))
+                Thread.yield();
+            scheduled.cancel(false);
+        }
+    }
+
+    /**
+     * The policy on a task to run now when the queue is full.
+     *
+     * @author XuYanhang
+     */
+    public enum OverflowPolicy {
+        /**
+         * Throws a {@link RejectedExecutionException}.
+         */
+        REJECT,
+        /**
+         * Runs the task in the caller thread at once, and returns a done future.
+         */
+        CALLER_RUNS,
+        /**
+         * Waits for a place in the queue up to the
+         * {@link Config#setMaxWaitMillis(long) max wait}, and then rejects.
+         */
+        BLOCK,
+        /**
+         * Cancels the oldest task in the queue to make room.
+         */
+        DROP_OLDEST
+    }
+
+    /**
+     * Configuration of a bounded {@link AutoPoolScheduler}.
+     *
+     * @author XuYanhang
+     */
+    public static class Config implements Cloneable {
+        private int corePoolSize = 1;
+        private int maxPoolSize = 1;
+        private int queueCapacity = 0;
+        private OverflowPolicy overflowPolicy = OverflowPolicy.REJECT;
+        private int parallelism = 0;
+        private long maxWaitMillis = -1L;
+        private ThreadFactory threadFactory;
+
+        /**
+         * Create a configuration in default values.
+         */
+        public Config() {
+            super();
+        }
+
+        /**
+         * @param corePoolSize count of threads to keep in the pool, even if they are
+         *                     idle, <code>1</code> in default
+         * @return this
+         */
+        public Config setCorePoolSize(int corePoolSize) {
+            this.corePoolSize = corePoolSize;
+            return this;
+        }
+
+        /**
+         * @param maxPoolSize max count of threads the pool grows to when the tasks
+         *                    queue over its size, no more than the core pool size
+         *                    to never grow and so in default
+         * @return this
+         */
+        public Config setMaxPoolSize(int maxPoolSize) {
+            this.maxPoolSize = maxPoolSize;
+            return this;
+        }
+
+        /**
+         * @param queueCapacity max count of the tasks to run now and not started
+         *                      yet, non-positive value for no bound and so in
+         *                      default
+         * @return this
+         */
+        public Config setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+            return this;
+        }
+
+        /**
+         * @param overflowPolicy policy on a task when the queue is full,
+         *                       {@link OverflowPolicy#REJECT} in default
+         * @return this
+         */
+        public Config setOverflowPolicy(OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+            return this;
+        }
+
+        /**
+         * @param maxWaitMillis max milliseconds a task waits for the queue in
+         *                      {@link OverflowPolicy#BLOCK}, negative value to wait
+         *                      forever and so in default
+         * @return this
+         */
+        public Config setMaxWaitMillis(long maxWaitMillis) {
+            this.maxWaitMillis = maxWaitMillis;
+            return this;
+        }
+
+        /**
+         * @param parallelism parallelism of a work-stealing {@link ForkJoinPool}
+         *                    to run the tasks to run now, where the pool sizes
+         *                    and the thread factory apply to the timer only,
+         *                    non-positive value to run them on the timer and so
+         *                    in default
+         * @return this
+         */
+        public Config setParallelism(int parallelism) {
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * @param threadFactory factory of the threads in the pool, or
+         *                      <code>null</code> for the default one and so in
+         *                      default
+         * @return this
+         */
+        public Config setThreadFactory(ThreadFactory threadFactory) {
+            this.threadFactory = threadFactory;
+            return this;
+        }
+
+        /**
+         * Checks the values.
+         */
+        void check() {
+            if (corePoolSize < 0) throw new IllegalArgumentException("corePoolSize");
+            if (maxPoolSize < 0) throw new IllegalArgumentException("maxPoolSize");
+            if (parallelism > 0x7fff) throw new IllegalArgumentException("parallelism");
+            if (null == overflowPolicy) throw new NullPointerException("overflowPolicy");
+        }
+
+        /**
+         * Returns a copy of this configuration.
+         *
+         * @return a copy of this configuration
+         */
+        @Override
+        public Config clone() {
+            try {
+                return (Config) super.clone();
+            } catch (CloneNotSupportedException e) {
+                // this shouldn't happen, since we are Cloneable
+                throw new InternalError(e);
+            }
+        }
+    }
+
+    /**
+     * The count of a task on its pool, who is counted off exactly once, by the
+     * task when it's done if it has started, or else by the cancel.
+     * {@link Future#cancel(boolean)} returns <tt>true</tt> on a task running,
+     * so a cancel alone can't tell whether the task counts off itself.
+     *
+     * @author XuYanhang
+     */
+    private static final class Ticket {
+        private static final int NEW = 0;
+        private static final int STARTED = 1;
+        private static final int RELEASED = 2;
+
+        private final Pool pool;
+
+        private final AtomicInteger state = new AtomicInteger(NEW);
+
+        private Ticket(Pool pool) {
+            super();
+            this.pool = pool;
+        }
+
+        /**
+         * Marks the task started unless it's cancelled
+         */
+        private boolean start() {
+            return state.compareAndSet(NEW, STARTED);
+        }
+
+        /**
+         * Counts off as the task is done
+         */
+        private void done() {
+            if (state.getAndSet(RELEASED) != RELEASED) pool.release();
+        }
+
+        /**
+         * Counts off as the task is cancelled, unless it has started
+         */
+        private void cancel() {
+            if (state.compareAndSet(NEW, RELEASED)) pool.release();
+        }
+    }
+
+    /**
+     * An executor with the count of its tasks. The count goes
+     * {@link Pool#CLOSED} once it goes down to zero, and never goes up then, so
+     * the executor is shut down exactly once with no task on it.
+     *
+     * @author XuYanhang
+     */
+    private final class Pool {
+        /**
+         * Count of a pool closed
+         */
+        private static final int CLOSED = -1;
+
+        private final ScheduledExecutorService executor;
+
+        /**
+         * The work-stealing pool to run the tasks to run now, or <code>null</code>
+         * if they run in the {@link #executor}
+         */
+        private final ForkJoinPool workers;
+
+        /**
+         * Count of the tasks scheduled and not done
+         */
+        private final AtomicInteger count = new AtomicInteger();
+
+        private Pool(ScheduledExecutorService executor, ForkJoinPool workers) {
+            super();
+            this.executor = executor;
+            this.workers = workers;
+        }
+
+        /**
+         * Count a task unless the pool is closed
+         */
+        private boolean tryAcquire() {
+            for (int c = count.get(); c > 0; c = count.get())
+                if (count.compareAndSet(c, c + 1))
+                    return true;
+            return false;
+        }
+
+        /**
+         * Count off a task, and close the pool when no task
+         */
+        private void release() {
+            if (count.decrementAndGet() == 0 && count.compareAndSet(0, CLOSED)) {
+                pool.compareAndSet(this, null);
+                shutdown();
+            }
+        }
+
+        private void shutdown() {
+            executor.shutdown();
+            if (null != workers) workers.shutdown();
+        }
+    }
 }
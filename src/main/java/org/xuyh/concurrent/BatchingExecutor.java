@@ -0,0 +1,224 @@
+/*
+ * Copyright (c) 2020-2023 XuYanhang
+ */
+
+package org.xuyh.concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * An executor who coalesces the small items submitted into batches on their
+ * keys, and hands each batch to a consumer as a whole, so that the cost to
+ * schedule is paid once a batch rather than once an item.
+ * <p>
+ * A batch of a key is opened by its first item, and is flushed once it reaches
+ * the max batch size or the max delay after it's opened, whichever comes first.
+ * The batches flushed are consumed in the threads of an
+ * {@link AutoPoolScheduler}, who also times the max delay, so that no thread is
+ * kept when nothing to batch. The batches of a key keep the order of the items
+ * submitted, but may be consumed in parallel and out of order when there are
+ * more than one consumer threads.
+ * <p>
+ * An exception from the consumer goes to the uncaught exception handler of
+ * the consumer thread, and the other batches are not affected.
+ *
+ * @param <K> type of the keys to batch on
+ * @param <T> type of the items
+ * @author XuYanhang
+ * @see AutoPoolScheduler
+ * @since 2020-11-05
+ */
+public class BatchingExecutor<K, T> {
+    /**
+     * The consumer of the batches
+     */
+    private final Consumer<? super List<T>> consumer;
+
+    /**
+     * Max count of the items in a batch
+     */
+    private final int maxBatchSize;
+
+    /**
+     * Max nanoseconds a batch waits after it's opened
+     */
+    private final long maxDelayNanos;
+
+    /**
+     * The scheduler to time the batches and consume them
+     */
+    private final AutoPoolScheduler scheduler;
+
+    /**
+     * The batches open on the keys
+     */
+    private final ConcurrentHashMap<K, Batch<T>> batches = new ConcurrentHashMap<>();
+
+    private final LongAdder itemCount = new LongAdder();
+
+    private final LongAdder batchCount = new LongAdder();
+
+    /**
+     * Creates an executor with a consumer thread.
+     *
+     * @param consumer     the consumer of the batches
+     * @param maxBatchSize max count of the items in a batch
+     * @param maxDelay     max time a batch waits after it's opened
+     * @param unit         the time unit of the maxDelay parameter
+     * @throws IllegalArgumentException if the maxBatchSize is not positive or the
+     *                                  maxDelay is negative
+     * @throws NullPointerException     if the consumer or the unit is null
+     */
+    public BatchingExecutor(Consumer<? super List<T>> consumer, int maxBatchSize, long maxDelay, TimeUnit unit) {
+        this(consumer, maxBatchSize, maxDelay, unit, 1, new NamedThreadFactory("batching"));
+    }
+
+    /**
+     * Creates an executor with the given initial parameters.
+     *
+     * @param consumer        the consumer of the batches
+     * @param maxBatchSize    max count of the items in a batch
+     * @param maxDelay        max time a batch waits after it's opened
+     * @param unit            the time unit of the maxDelay parameter
+     * @param consumerThreads count of the threads to consume the batches
+     * @param threadFactory   the factory of the consumer threads
+     * @throws IllegalArgumentException if the maxBatchSize or the consumerThreads
+     *                                  is not positive, or the maxDelay is
+     *                                  negative
+     * @throws NullPointerException     if the consumer, the unit or the
+     *                                  threadFactory is null
+     */
+    public BatchingExecutor(Consumer<? super List<T>> consumer, int maxBatchSize, long maxDelay, TimeUnit unit,
+                            int consumerThreads, ThreadFactory threadFactory) {
+        super();
+        if (null == consumer || null == unit || null == threadFactory) throw new NullPointerException();
+        if (maxBatchSize <= 0 || maxDelay < 0L || consumerThreads <= 0) throw new IllegalArgumentException();
+        this.consumer = consumer;
+        this.maxBatchSize = maxBatchSize;
+        this.maxDelayNanos = unit.toNanos(maxDelay);
+        this.scheduler = new AutoPoolScheduler(consumerThreads, threadFactory);
+    }
+
+    /**
+     * Adds an item to the batch of the key, who is flushed at once if it's full
+     * then.
+     *
+     * @param key  the key to batch on
+     * @param item the item to add
+     * @throws NullPointerException if the key is null
+     */
+    public void submit(K key, T item) {
+        if (null == key) throw new NullPointerException("key");
+        itemCount.increment();
+        // Both set in the mapping function, under the lock of the key's bin
+        @SuppressWarnings({"unchecked", "rawtypes"})
+        final Batch<T>[] opened = new Batch[1], full = new Batch[1];
+        batches.compute(key, (k, batch) -> {
+            if (null == batch) opened[0] = batch = new Batch<>(maxBatchSize);
+            batch.items.add(item);
+            if (batch.items.size() < maxBatchSize) return batch;
+            full[0] = batch;
+            return null;
+        });
+        if (null != full[0]) {
+            Future<?> timer = full[0].timer;
+            if (null != timer) timer.cancel(false);
+            dispatch(full[0]);
+        } else if (null != opened[0]) {
+            Batch<T> batch = opened[0];
+            batch.timer = scheduler.schedule(() -> {
+                if (batches.remove(key, batch)) consume(batch);
+            }, maxDelayNanos, TimeUnit.NANOSECONDS);
+        }
+    }
+
+    /**
+     * Flushes the batch of the key now if any.
+     *
+     * @param key the key to flush on
+     */
+    public void flush(K key) {
+        Batch<T> batch = batches.remove(key);
+        if (null == batch) return;
+        Future<?> timer = batch.timer;
+        if (null != timer) timer.cancel(false);
+        dispatch(batch);
+    }
+
+    /**
+     * Flushes all the batches now.
+     */
+    public void flushAll() {
+        for (K key : batches.keySet())
+            flush(key);
+    }
+
+    private void dispatch(Batch<T> batch) {
+        scheduler.submit(() -> consume(batch));
+    }
+
+    private void consume(Batch<T> batch) {
+        batchCount.increment();
+        try {
+            consumer.accept(batch.items);
+        } catch (Throwable e) {
+            Thread thread = Thread.currentThread();
+            thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+        }
+    }
+
+    /**
+     * Returns the count of the batches open and not flushed yet.
+     *
+     * @return the count of the batches open
+     */
+    public int readOpenBatchCount() {
+        return batches.size();
+    }
+
+    /**
+     * Returns the count of the items submitted.
+     *
+     * @return the count of the items submitted
+     */
+    public long readItemCount() {
+        return itemCount.sum();
+    }
+
+    /**
+     * Returns the count of the batches handed to the consumer.
+     *
+     * @return the count of the batches consumed
+     */
+    public long readBatchCount() {
+        return batchCount.sum();
+    }
+
+    /**
+     * The items of a key in a batch. The items are added under the lock of the
+     * bin in the map, and visible to the consumer once the batch is removed from
+     * the map.
+     *
+     * @author XuYanhang
+     */
+    private static final class Batch<T> {
+        private final List<T> items;
+
+        /**
+         * The timer of the max delay, or <code>null</code> before it's scheduled
+         */
+        private volatile Future<?> timer;
+
+        private Batch(int maxBatchSize) {
+            super();
+            items = new ArrayList<>(Math.min(maxBatchSize, 16));
+        }
+    }
+}
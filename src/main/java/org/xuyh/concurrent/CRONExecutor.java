@@ -4,23 +4,23 @@
 
 package org.xuyh.concurrent;
 
-import java.util.LinkedList;
-import java.util.UUID;
-
-import org.quartz.CronExpression;
-import org.quartz.CronScheduleBuilder;
-import org.quartz.CronTrigger;
-import org.quartz.Job;
-import org.quartz.JobBuilder;
-import org.quartz.JobDetail;
-import org.quartz.JobExecutionContext;
-import org.quartz.JobKey;
-import org.quartz.Scheduler;
-import org.quartz.TriggerBuilder;
-import org.quartz.TriggerKey;
-import org.quartz.impl.DirectSchedulerFactory;
-import org.quartz.simpl.RAMJobStore;
-import org.quartz.simpl.SimpleThreadPool;
+import java.beans.ConstructorProperties;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * Executor to execute task in CRON expression trigger. It's necessary to hold
@@ -38,59 +38,85 @@ import org.quartz.simpl.SimpleThreadPool;
  *         executor.shutdown();
  *     }
  * </pre>
+ * <p>
+ * The expressions are compiled by {@link CRONExpression}. Each expression is a
+ * job on a single timer thread, who hands the tasks of the expression to a
+ * pool of worker threads on each fire and then schedules its next fire. The
+ * threads are created on demand, and the workers idle for a while are
+ * released. A fire missed when the timer is late is skipped rather than
+ * caught up.
+ * <p>
+ * On each fire, the tasks on an expression run one by one in the order they
+ * were added, on a worker thread of the fire, and the fires overlapping run
+ * at the same time. The tasks needn't start at the same time: each task may
+ * have a jitter window to start at a random delay in, and a {@link Config}
+ * may spread the tasks on an expression evenly across a window, no longer
+ * than the period to the next fire, where a task delayed starts on its own.
+ * A task may also be skipped on a fire while it's still queued or running
+ * from a previous fire, and the runs of an expression at the same time may be
+ * limited, both in the defaults of the {@link Config} or on each
+ * {@link #execute(String, Runnable, long, int, boolean)}. The lag of each
+ * start from its planned time is recorded in {@link #readFireStats()}.
  *
  * @author XuYanhang
+ * @see CRONExpression
  * @since 2020-10-30
  */
 public final class CRONExecutor {
+    /**
+     * Seconds a worker thread is kept idle
+     */
+    private static final long WORKER_KEEP_ALIVE_SECONDS = 60L;
 
     /**
-     * Scheduler on this executor
+     * A copy of the configuration
      */
-    private final Scheduler scheduler;
+    private final Config config;
 
     /**
-     * Locker to lock different expressions
+     * Timer to fire the jobs
      */
-    private final ObjectLockManager lockManager;
+    private final ScheduledThreadPoolExecutor timer;
+
+    /**
+     * Workers to run the tasks on fire
+     */
+    private final ThreadPoolExecutor workers;
+
+    /**
+     * The jobs on the expressions
+     */
+    private final ConcurrentHashMap<String, Job> jobs = new ConcurrentHashMap<>();
 
     /**
      * Create an instance of {@link CRONExecutor}. Remember to shutdown it when
      * never use it again
-     *
-     * @throws IllegalStateException on any exception happens
      */
     public CRONExecutor() {
+        this(new Config());
+    }
+
+    /**
+     * Create an instance of {@link CRONExecutor} in the configuration. Remember
+     * to shutdown it when never use it again
+     *
+     * @param config configuration of the executor, who is copied so that later
+     *               changes on it make no effect
+     * @throws IllegalArgumentException when the config is illegal
+     * @throws NullPointerException     when the config is null
+     */
+    public CRONExecutor(Config config) {
         super();
-        // Runnable the executor name
-        String id = UUID.randomUUID().toString().replace("-", "");
-        // Create factory
-        DirectSchedulerFactory factory = DirectSchedulerFactory.getInstance();
-        // Create thread pool
-        SimpleThreadPool threadPool = new SimpleThreadPool(10, Thread.NORM_PRIORITY);
-        threadPool.setInstanceId(id);
-        threadPool.setInstanceName(id);
-        threadPool.setMakeThreadsDaemons(false);
-        threadPool.setThreadNamePrefix(getClass().getSimpleName() + "_" + id);
-        // Create scheduler
-        try {
-            factory.createScheduler(id, id, threadPool, new RAMJobStore(), null, null, 0, -1, -1, false, null);
-            scheduler = factory.getScheduler(id);
-        } catch (Exception e) {
-            threadPool.shutdown(false);
-            throw new IllegalStateException(e);
-        }
-        // Start scheduler
-        try {
-            scheduler.start();
-        } catch (Exception e) {
-            try {
-                scheduler.shutdown(false);
-            } catch (Exception ignore) {
-            }
-            throw new IllegalStateException(e);
-        }
-        lockManager = new ObjectLockManager();
+        if (null == config) throw new NullPointerException("config");
+        this.config = config.clone();
+        this.config.check();
+        String name = getClass().getSimpleName();
+        timer = new ScheduledThreadPoolExecutor(1, new NamedThreadFactory(name + "-timer"));
+        timer.setRemoveOnCancelPolicy(true);
+        int threads = this.config.workerThreads;
+        workers = new ThreadPoolExecutor(threads, threads, WORKER_KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<>(), new NamedThreadFactory(name + "-worker"));
+        workers.allowCoreThreadTimeOut(true);
     }
 
     /**
@@ -103,258 +129,598 @@ public final class CRONExecutor {
      * @throws IllegalStateException    when the executor has been shutdown
      */
     public Cancellable execute(final String expression, final Runnable task) {
+        return execute(expression, task, 0L);
+    }
+
+    /**
+     * Add a task into this executor, who starts at a random delay in the jitter
+     * window on each fire
+     *
+     * @param expression   CRON expression
+     * @param task         runnable task
+     * @param jitterMillis milliseconds of the jitter window, <code>0</code> for
+     *                     no jitter
+     * @return a {@link Cancellable} to cancel this task for repeat running
+     * @throws IllegalArgumentException when the expression is illegal or the
+     *                                  jitter is negative
+     * @throws IllegalStateException    when the executor has been shutdown
+     */
+    public Cancellable execute(final String expression, final Runnable task, final long jitterMillis) {
+        return execute(expression, task, jitterMillis, config.maxConcurrency, config.skipOverlapping, false);
+    }
+
+    /**
+     * Add a task into this executor, who starts at a random delay in the jitter
+     * window on each fire, in the limit of the runs on the expression at the
+     * same time. The limit replaces the one of the expression from the tasks
+     * added before, and stays for the tasks added later without a limit.
+     *
+     * @param expression      CRON expression
+     * @param task            runnable task
+     * @param jitterMillis    milliseconds of the jitter window, <code>0</code>
+     *                        for no jitter
+     * @param maxConcurrency  max count of the runs on the expression at the
+     *                        same time, non-positive value for no limit but
+     *                        the worker threads
+     * @param skipOverlapping <tt>true</tt> to skip this task on a fire if it's
+     *                        still queued or running from a previous fire
+     * @return a {@link Cancellable} to cancel this task for repeat running
+     * @throws IllegalArgumentException when the expression is illegal or the
+     *                                  jitter is negative
+     * @throws IllegalStateException    when the executor has been shutdown
+     * @see Config#setMaxConcurrency(int)
+     * @see Config#setSkipOverlapping(boolean)
+     */
+    public Cancellable execute(final String expression, final Runnable task, final long jitterMillis,
+                               final int maxConcurrency, final boolean skipOverlapping) {
+        return execute(expression, task, jitterMillis, maxConcurrency, skipOverlapping, true);
+    }
+
+    /**
+     * Add a task, and the job on the expression if not yet
+     */
+    private Cancellable execute(String expression, Runnable task, long jitterMillis, int maxConcurrency,
+                                boolean skipOverlapping, boolean limited) {
         if (null == expression || null == task)
             throw new NullPointerException();
-        final JobKey jobKey = new JobKey(expression);
-        final TriggerKey triggerKey = new TriggerKey(expression);
-        final CronScheduleBuilder scheduleBuilder;
-        try {
-            scheduleBuilder = CronScheduleBuilder.cronSchedule(new CronExpression(expression));
-        } catch (Exception e) {
-            // Happens when this expression is illegal
-            throw new IllegalArgumentException(e);
+        if (jitterMillis < 0L)
+            throw new IllegalArgumentException("jitterMillis");
+        if (timer.isShutdown())
+            throw new IllegalStateException("Shutdown");
+        final Task added = new Task(task, jitterMillis, skipOverlapping);
+        final Job[] created = new Job[1];
+        // The expression is compiled only once for all the tasks on it
+        jobs.compute(expression, (key, job) -> {
+            if (null == job) job = created[0] = new Job(CRONExpression.compile(key), maxConcurrency);
+            else if (limited) job.maxConcurrency = maxConcurrency;
+            job.tasks.add(added);
+            return job;
+        });
+        // Start the runs pending if the limit is raised
+        if (limited && null == created[0]) {
+            Job job = jobs.get(expression);
+            if (null != job) job.drain();
         }
-        Cancellable cancellable;
-        // Lock
-        final ObjectLock lock = lockManager.lock(expression);
-        try {
-            if (scheduler.checkExists(jobKey)) {
-                cancellable = appendTask(scheduler.getJobDetail(jobKey), task);
-            } else {
-                // Build trigger
-                CronTrigger trigger = TriggerBuilder.newTrigger() // Create trigger
-                        .withSchedule(scheduleBuilder).withIdentity(triggerKey) // Key on expression
-                        .startNow() // start from now
-                        .build();
-                // Build job detail
-                JobDetail jobDetail = JobBuilder.newJob() // Create jobbuilder
-                        .ofType(ExecutorJob.class) // Job class map
-                        .withIdentity(jobKey) // Key on expression
-                        .build();
-                jobDetail.getJobDataMap().put(Tasks.DATA_KEY, new Tasks());
-                cancellable = appendTask(jobDetail, task);
-                scheduler.scheduleJob(jobDetail, trigger);
-            }
-        } catch (Exception e) {
-            try {
-                if (scheduler.isShutdown()) {
-                    throw new IllegalStateException(e);
-                }
-            } catch (Exception ignore) {
-            }
-            return () -> {
-            };
-        } finally {
-            lock.unlock();
-        }
-        return cancellable;
+        if (null != created[0] && !created[0].scheduleNext(System.currentTimeMillis()))
+            jobs.remove(expression, created[0]);
+        return () -> cancel(expression, added);
     }
 
     /**
-     * Add a task into job detail data
+     * Remove a task, and the job on the expression if no more task
      */
-    private Cancellable appendTask(JobDetail jobDetail, Runnable runTask) {
-        final Task task = new Task(runTask);
-        ((Tasks) jobDetail.getJobDataMap().get(Tasks.DATA_KEY)).put(task);
-        return new TaskCancellable(jobDetail.getKey(), task);
+    private void cancel(String expression, Task task) {
+        task.cancelled = true;
+        jobs.computeIfPresent(expression, (key, job) -> {
+            if (!job.tasks.remove(task) || !job.tasks.isEmpty()) return job;
+            job.cancel();
+            return null;
+        });
     }
 
     /**
-     * Shutdown this executor. Never throws any {@link Exception} here.
+     * Returns the statistics of the fires on each expression.
+     *
+     * @return the statistics of the fires
+     */
+    public List<FireStats> readFireStats() {
+        List<FireStats> stats = new ArrayList<>(jobs.size());
+        for (Job job : jobs.values()) {
+            long starts = job.starts.sum();
+            stats.add(new FireStats(job.expression.readExpression(), job.tasks.size(), job.fires.sum(), starts,
+                    job.skipped.sum(), job.running.get(), job.pending.size(),
+                    starts == 0L ? 0L : job.lagTotal.sum() / starts, job.maxLag.get()));
+        }
+        return stats;
+    }
+
+    /**
+     * Shutdown this executor and wait for the tasks running to complete. Never
+     * throws any {@link Exception} here.
      */
     public void shutdown() {
+        timer.shutdownNow();
+        for (Job job : jobs.values())
+            job.cancel();
+        jobs.clear();
+        workers.shutdown();
         try {
-            scheduler.shutdown(true);
-        } catch (Exception ignore) {
+            while (!workers.awaitTermination(1L, TimeUnit.MINUTES)) ;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
         }
     }
 
     /**
-     * A {@link Cancellable} implementation on tasks.
+     * The tasks on an expression, fired on the timer.
      *
      * @author XuYanhang
      */
-    private class TaskCancellable implements Cancellable {
+    private final class Job implements Runnable {
+
+        final CRONExpression expression;
 
-        final JobKey jobKey;
-        final Task task;
+        final CopyOnWriteArrayList<Task> tasks = new CopyOnWriteArrayList<>();
 
         /**
-         * Initialize this {@link Cancellable}
+         * The runs to start, in the limit of the concurrency
          */
-        TaskCancellable(JobKey jobKey, Task task) {
+        final ConcurrentLinkedQueue<Run> pending = new ConcurrentLinkedQueue<>();
+
+        /**
+         * Count of the runs started and not done
+         */
+        final AtomicInteger running = new AtomicInteger();
+
+        /**
+         * Max count of the runs at the same time, non-positive for no limit
+         */
+        volatile int maxConcurrency;
+
+        final LongAdder fires = new LongAdder();
+
+        final LongAdder starts = new LongAdder();
+
+        final LongAdder skipped = new LongAdder();
+
+        /**
+         * Total milliseconds of the starts late from the planned time
+         */
+        final LongAdder lagTotal = new LongAdder();
+
+        final AtomicLong maxLag = new AtomicLong();
+
+        /**
+         * The time of the next fire, guarded by this
+         */
+        private long nextFireTime;
+
+        /**
+         * The next fire on the timer, guarded by this
+         */
+        private ScheduledFuture<?> future;
+
+        /**
+         * Never fires once cancelled, guarded by this
+         */
+        private boolean cancelled;
+
+        /**
+         * Initialize this job
+         */
+        Job(CRONExpression expression, int maxConcurrency) {
             super();
-            this.jobKey = jobKey;
-            this.task = task;
+            this.expression = expression;
+            this.maxConcurrency = maxConcurrency;
         }
 
         /**
-         * @see Cancellable#cancel()
+         * Schedule the next fire after the time.
+         *
+         * @return <tt>false</tt> if never fires again
          */
-        @Override
-        public void cancel() {
-            // Check shutdown and exists
+        synchronized boolean scheduleNext(long afterMillis) {
+            if (cancelled) return true;
+            long next = expression.nextFireTime(afterMillis);
+            if (next < 0L) return false;
+            nextFireTime = next;
             try {
-                if (scheduler.isShutdown() || !scheduler.checkExists(jobKey)) {
-                    return;
-                }
-            } catch (Exception e) {
-                return;
+                future = timer.schedule(this, next - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+            } catch (RejectedExecutionException e) {
+                // The executor is shutdown
+                cancelled = true;
             }
-            // Lock on id and expression
-            ObjectLock lock = lockManager.lock(jobKey.getName());
-            try {
-                // Fetch tasks
-                final Tasks tasks;
-                try {
-                    if (scheduler.checkExists(jobKey)) {
-                        tasks = (Tasks) scheduler.getJobDetail(jobKey).getJobDataMap().get(Tasks.DATA_KEY);
-                    } else {
+            return true;
+        }
+
+        synchronized void cancel() {
+            cancelled = true;
+            if (null != future) future.cancel(false);
+        }
+
+        /**
+         * Fire on the timer thread
+         */
+        @Override
+        public void run() {
+            long fireTime, next;
+            synchronized (this) {
+                if (cancelled) return;
+                fireTime = nextFireTime;
+            }
+            fires.increment();
+            // Skip the fires missed if the timer is late
+            boolean more = scheduleNext(Math.max(fireTime, System.currentTimeMillis()));
+            synchronized (this) {
+                next = nextFireTime;
+            }
+            long window = more ? Math.min(config.spreadMillis, next - fireTime) : config.spreadMillis;
+            Task[] fired = tasks.toArray(new Task[0]);
+            // The tasks due now run one by one in a single run
+            List<Task> due = new ArrayList<>(fired.length);
+            long now = System.currentTimeMillis();
+            for (int i = 0; i < fired.length; i++) {
+                Task task = fired[i];
+                long delay = window * i / fired.length;
+                if (task.jitterMillis > 0L) delay += ThreadLocalRandom.current().nextLong(task.jitterMillis);
+                long planned = fireTime + delay;
+                if (planned <= now) {
+                    due.add(task);
+                } else {
+                    try {
+                        timer.schedule(() -> offer(new Task[]{task}, planned), planned - now,
+                                TimeUnit.MILLISECONDS);
+                    } catch (RejectedExecutionException e) {
                         return;
                     }
-                } catch (Exception e) {
+                }
+            }
+            if (!due.isEmpty())
+                offer(due.toArray(new Task[0]), fireTime);
+            if (!more)
+                jobs.remove(expression.readExpression(), this);
+        }
+
+        /**
+         * Queue a run of the tasks to start at the planned time, without the ones
+         * queued or running from a previous fire if they're skipped
+         */
+        private void offer(Task[] fired, long planned) {
+            List<Task> claimed = new ArrayList<>(fired.length);
+            for (Task task : fired) {
+                if (task.cancelled) continue;
+                if (task.skipOverlapping && !task.queued.compareAndSet(false, true)) {
+                    skipped.increment();
+                    continue;
+                }
+                claimed.add(task);
+            }
+            if (claimed.isEmpty()) return;
+            pending.offer(new Run(claimed.toArray(new Task[0]), planned));
+            drain();
+        }
+
+        /**
+         * Start the tasks pending in the limit of the concurrency
+         */
+        void drain() {
+            while (!pending.isEmpty()) {
+                int limit = maxConcurrency;
+                int count = running.get();
+                if (limit > 0 && count >= limit) return;
+                if (!running.compareAndSet(count, count + 1)) continue;
+                Run run = pending.poll();
+                if (null == run) {
+                    running.decrementAndGet();
+                    continue;
+                }
+                try {
+                    workers.execute(() -> runTasks(run));
+                } catch (RejectedExecutionException e) {
+                    // The executor is shutdown
+                    running.decrementAndGet();
+                    for (Task task : run.tasks)
+                        task.queued.set(false);
                     return;
                 }
-                // Delete
-                tasks.del(task);
-                if (tasks.isEmpty()) {
+            }
+        }
+
+        /**
+         * Run the tasks of a run one by one on a worker thread
+         */
+        private void runTasks(Run run) {
+            try {
+                for (Task task : run.tasks) {
                     try {
-                        if (!scheduler.isShutdown()) {
-                            scheduler.deleteJob(jobKey);
-                        }
-                    } catch (Exception ignore) {
+                        if (task.cancelled) continue;
+                        long lag = Math.max(0L, System.currentTimeMillis() - run.plannedTime);
+                        starts.increment();
+                        lagTotal.add(lag);
+                        maxLag.accumulateAndGet(lag, Math::max);
+                        task.task.run();
+                    } catch (Throwable e) {
+                        Thread thread = Thread.currentThread();
+                        thread.getUncaughtExceptionHandler().uncaughtException(thread, e);
+                    } finally {
+                        task.queued.set(false);
                     }
                 }
             } finally {
-                // Release lock
-                lock.unlock();
+                running.decrementAndGet();
+                drain();
             }
         }
 
     }
 
     /**
-     * Shouldn't be held on client. An inner implementation on {@link Job} to run
-     * tasks.
+     * Task data wrapper on a {@link Runnable} task but hold the equals and hashCode
+     * with no relation with the origin task.
      *
      * @author XuYanhang
      */
-    public static final class ExecutorJob implements Job {
+    private static class Task {
+
+        /**
+         * Original task
+         */
+        final Runnable task;
+
+        /**
+         * Milliseconds of the jitter window
+         */
+        final long jitterMillis;
+
+        /**
+         * Skip this task on a fire if it's still queued or running
+         */
+        final boolean skipOverlapping;
+
+        /**
+         * The task is queued or running, only set when the overlapping fires are
+         * skipped
+         */
+        final AtomicBoolean queued = new AtomicBoolean();
+
+        volatile boolean cancelled;
 
         /**
-         * Initialize in thread pool
+         * Initialize this task
          */
-        public ExecutorJob() {
+        Task(Runnable task, long jitterMillis, boolean skipOverlapping) {
             super();
+            this.task = task;
+            this.jitterMillis = jitterMillis;
+            this.skipOverlapping = skipOverlapping;
         }
 
         /**
-         * @see Job#execute(JobExecutionContext)
+         * @see java.lang.Object#hashCode()
          */
         @Override
-        public void execute(JobExecutionContext context) {
-            Task[] tasks = ((Tasks) context.getJobDetail().getJobDataMap().get(Tasks.DATA_KEY)).get();
-            for (int i = 0, l = tasks.length; i < l; i++)
-                tasks[i].task.run();
+        public final int hashCode() {
+            return super.hashCode();
+        }
+
+        /**
+         * @see java.lang.Object#equals(java.lang.Object)
+         */
+        @Override
+        public final boolean equals(Object obj) {
+            return this == obj;
         }
 
     }
 
     /**
-     * Tasks data wrapper mapped for each CRON expression on each
-     * {@link CRONExecutor}.
+     * The tasks of an expression to run one by one from a fire.
+     *
+     * @author XuYanhang
+     */
+    private static final class Run {
+        final Task[] tasks;
+
+        /**
+         * The time planned to start
+         */
+        final long plannedTime;
+
+        Run(Task[] tasks, long plannedTime) {
+            super();
+            this.tasks = tasks;
+            this.plannedTime = plannedTime;
+        }
+    }
+
+    /**
+     * The statistics of the fires on an expression.
      *
      * @author XuYanhang
      */
-    private static class Tasks {
+    public static final class FireStats {
+        private final String expression;
+        private final int tasks;
+        private final long fires;
+        private final long starts;
+        private final long skipped;
+        private final int running;
+        private final int pending;
+        private final long averageLagMillis;
+        private final long maxLagMillis;
+
+        @ConstructorProperties({"expression", "tasks", "fires", "starts", "skipped", "running", "pending",
+                "averageLagMillis", "maxLagMillis"})
+        public FireStats(String expression, int tasks, long fires, long starts, long skipped, int running,
+                         int pending, long averageLagMillis, long maxLagMillis) {
+            super();
+            this.expression = expression;
+            this.tasks = tasks;
+            this.fires = fires;
+            this.starts = starts;
+            this.skipped = skipped;
+            this.running = running;
+            this.pending = pending;
+            this.averageLagMillis = averageLagMillis;
+            this.maxLagMillis = maxLagMillis;
+        }
 
-        final static String DATA_KEY = "tasks";
+        /**
+         * @return the CRON expression
+         */
+        public String getExpression() {
+            return expression;
+        }
 
-        final LinkedList<Task> tasks;
+        /**
+         * @return the count of the tasks on the expression
+         */
+        public int getTasks() {
+            return tasks;
+        }
 
         /**
-         * Initialize this class
+         * @return the count of the fires
          */
-        Tasks() {
-            super();
-            this.tasks = new LinkedList<>();
+        public long getFires() {
+            return fires;
         }
 
         /**
-         * Fetch all tasks to run
+         * @return the count of the tasks started
          */
-        Task[] get() {
-            synchronized (tasks) {
-                return tasks.toArray(new Task[tasks.size()]);
-            }
+        public long getStarts() {
+            return starts;
         }
 
         /**
-         * Add a task
+         * @return the count of the tasks skipped as still queued or running, only
+         * when the overlapping fires are skipped
          */
-        void put(Task task) {
-            synchronized (tasks) {
-                tasks.add(task);
-            }
+        public long getSkipped() {
+            return skipped;
         }
 
         /**
-         * Remove a task
+         * @return the count of the runs started and not done now
          */
-        void del(Task task) {
-            synchronized (tasks) {
-                tasks.remove(task);
-            }
+        public int getRunning() {
+            return running;
         }
 
         /**
-         * Analyze if this tasks is empty
+         * @return the count of the runs waiting for the concurrency limit now
          */
-        boolean isEmpty() {
-            synchronized (tasks) {
-                return tasks.isEmpty();
-            }
+        public int getPending() {
+            return pending;
         }
 
+        /**
+         * @return the average milliseconds a task started late from its planned
+         * time
+         */
+        public long getAverageLagMillis() {
+            return averageLagMillis;
+        }
+
+        /**
+         * @return the max milliseconds a task started late from its planned time
+         */
+        public long getMaxLagMillis() {
+            return maxLagMillis;
+        }
     }
 
     /**
-     * Task data wrapper on a {@link Runnable} task but hold the equals and hashCode
-     * with no relation with the origin task.
+     * Configuration of a {@link CRONExecutor}.
      *
      * @author XuYanhang
      */
-    private static class Task {
+    public static class Config implements Cloneable {
+        private int workerThreads = 10;
+        private long spreadMillis = 0L;
+        private int maxConcurrency = 0;
+        private boolean skipOverlapping = false;
 
         /**
-         * Original task
+         * Create a configuration in default values.
          */
-        final Runnable task;
+        public Config() {
+            super();
+        }
 
         /**
-         * Initialize this task
+         * @param workerThreads max count of the threads to run the tasks,
+         *                      <code>10</code> in default
+         * @return this
          */
-        Task(Runnable task) {
-            super();
-            this.task = task;
+        public Config setWorkerThreads(int workerThreads) {
+            this.workerThreads = workerThreads;
+            return this;
         }
 
         /**
-         * @see java.lang.Object#hashCode()
+         * @param spreadMillis milliseconds of the window to spread the tasks on
+         *                     an expression evenly in, cut to the period to the
+         *                     next fire, <code>0</code> to start them all on
+         *                     fire and so in default
+         * @return this
          */
-        @Override
-        public final int hashCode() {
-            return super.hashCode();
+        public Config setSpreadMillis(long spreadMillis) {
+            this.spreadMillis = spreadMillis;
+            return this;
         }
 
         /**
-         * @see java.lang.Object#equals(java.lang.Object)
+         * @param maxConcurrency max count of the runs on an expression at the same
+         *                       time, each as the tasks due together on a fire or
+         *                       a task delayed, non-positive value for no limit
+         *                       but the worker threads and so in default, used for
+         *                       the expressions with no limit on
+         *                       {@link CRONExecutor#execute(String, Runnable, long, int, boolean)}
+         * @return this
          */
-        @Override
-        public final boolean equals(Object obj) {
-            return this == obj;
+        public Config setMaxConcurrency(int maxConcurrency) {
+            this.maxConcurrency = maxConcurrency;
+            return this;
+        }
+
+        /**
+         * @param skipOverlapping <tt>true</tt> to skip a task on a fire if it's
+         *                        still queued or running from a previous fire,
+         *                        <tt>false</tt> to run it again anyway and so in
+         *                        default, used for the tasks added with no
+         *                        option on
+         *                        {@link CRONExecutor#execute(String, Runnable, long, int, boolean)}
+         * @return this
+         */
+        public Config setSkipOverlapping(boolean skipOverlapping) {
+            this.skipOverlapping = skipOverlapping;
+            return this;
+        }
+
+        /**
+         * Checks the values.
+         */
+        void check() {
+            if (workerThreads <= 0) throw new IllegalArgumentException("workerThreads");
+            if (spreadMillis < 0L) throw new IllegalArgumentException("spreadMillis");
         }
 
+        /**
+         * Returns a copy of this configuration.
+         *
+         * @return a copy of this configuration
+         */
+        @Override
+        public Config clone() {
+            try {
+                return (Config) super.clone();
+            } catch (CloneNotSupportedException e) {
+                // this shouldn't happen, since we are Cloneable
+                throw new InternalError(e);
+            }
+        }
     }
 
 }
@@ -0,0 +1,426 @@
+/*
+ * Copyright (c) 2020-2023 XuYanhang
+ */
+
+package org.xuyh.concurrent;
+
+import java.time.DayOfWeek;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.BitSet;
+import java.util.Locale;
+
+/**
+ * A CRON expression compiled into bit masks, who computes the next fire time
+ * by looking up the next bit set in each field instead of stepping the time.
+ * <p>
+ * The expression is in the Quartz syntax, in the fields of seconds, minutes,
+ * hours, day-of-month, month, day-of-week and an optional year, split by
+ * blanks. Each field is a list split by <code>','</code> of the values, the
+ * ranges <code>a-b</code> and the increments <code>a/n</code> or
+ * <code>a-b/n</code>, where <code>'*'</code> is all the values. The months
+ * and the days of week accept the names in three letters, where
+ * <code>SUN</code> is the day <code>1</code>. One of the day-of-month and the
+ * day-of-week must be <code>'?'</code>. Besides:
+ * <ul>
+ * <li>the day-of-month accepts <code>L</code> and <code>L-n</code> for the
+ * last day and the n-th day before it, <code>nW</code> for the weekday
+ * nearest to the day n in the month, and <code>LW</code> for the last
+ * weekday;</li>
+ * <li>the day-of-week accepts <code>L</code> for <code>SAT</code>,
+ * <code>dL</code> for the last day d of the month, and <code>d#n</code> for
+ * the n-th day d of the month.</li>
+ * </ul>
+ * The expression is immutable and safe to share in threads.
+ *
+ * @author XuYanhang
+ * @see CRONExecutor
+ * @since 2020-11-06
+ */
+public final class CRONExpression {
+    /**
+     * The max year to fire
+     */
+    static final int MAX_YEAR = 2199;
+
+    private static final int MIN_YEAR = 1970;
+
+    private static final String[] MONTH_NAMES = {"JAN", "FEB", "MAR", "APR", "MAY", "JUN", "JUL", "AUG", "SEP",
+            "OCT", "NOV", "DEC"};
+
+    private static final String[] DAY_NAMES = {"SUN", "MON", "TUE", "WED", "THU", "FRI", "SAT"};
+
+    private final String expression;
+
+    private final ZoneId zone;
+
+    private final long seconds;
+
+    private final long minutes;
+
+    private final long hours;
+
+    private final long months;
+
+    /**
+     * The days of month in bits, or <code>0</code> if on the days of week
+     */
+    private final long daysOfMonth;
+
+    /**
+     * The days before the last day of month to fire, or <code>-1</code> if none
+     */
+    private final int lastDayOffset;
+
+    /**
+     * Fires on the last weekday of month
+     */
+    private final boolean lastWeekday;
+
+    /**
+     * The day of month whose nearest weekday to fire, or <code>0</code> if none
+     */
+    private final int nearestWeekday;
+
+    /**
+     * The days of week in bits, or <code>0</code> if on the days of month
+     */
+    private final long daysOfWeek;
+
+    /**
+     * The day of week whose last in month to fire, or <code>0</code> if none
+     */
+    private final int lastDayOfWeek;
+
+    /**
+     * The day of week and its ordinal in month to fire, or <code>0</code> if
+     * none
+     */
+    private final int nthDayOfWeek;
+
+    private final int nthOrdinal;
+
+    /**
+     * The years to fire, or <code>null</code> for any year
+     */
+    private final BitSet years;
+
+    private CRONExpression(String expression, ZoneId zone) {
+        super();
+        this.expression = expression;
+        this.zone = zone;
+        String[] fields = expression.trim().toUpperCase(Locale.ROOT).split("\\s+");
+        if (fields.length != 6 && fields.length != 7)
+            throw new IllegalArgumentException("Need 6 or 7 fields: " + expression);
+        seconds = parseField(fields[0], 0, 59, null);
+        minutes = parseField(fields[1], 0, 59, null);
+        hours = parseField(fields[2], 0, 23, null);
+        months = parseField(fields[4], 1, 12, MONTH_NAMES);
+        String dom = fields[3], dow = fields[5];
+        boolean domAny = "?".equals(dom), dowAny = "?".equals(dow);
+        if (domAny == dowAny)
+            throw new IllegalArgumentException("Need '?' in exactly one of day-of-month and day-of-week: "
+                    + expression);
+        // Day of month
+        int lastOffset = -1, nearest = 0;
+        boolean lastWeek = false;
+        long domBits = 0L;
+        if (!domAny) {
+            if ("L".equals(dom)) {
+                lastOffset = 0;
+            } else if ("LW".equals(dom)) {
+                lastWeek = true;
+            } else if (dom.startsWith("L-")) {
+                lastOffset = parseNumber(dom.substring(2), 0, 30);
+            } else if (dom.endsWith("W")) {
+                nearest = parseNumber(dom.substring(0, dom.length() - 1), 1, 31);
+            } else {
+                domBits = parseField(dom, 1, 31, null);
+            }
+        }
+        daysOfMonth = domBits;
+        lastDayOffset = lastOffset;
+        lastWeekday = lastWeek;
+        nearestWeekday = nearest;
+        // Day of week
+        int lastDow = 0, nthDow = 0, nth = 0;
+        long dowBits = 0L;
+        if (!dowAny) {
+            int sharp = dow.indexOf('#');
+            if ("L".equals(dow)) {
+                dowBits = 1L << 7;
+            } else if (sharp > 0) {
+                nthDow = parseValue(dow.substring(0, sharp), 1, 7, DAY_NAMES);
+                nth = parseNumber(dow.substring(sharp + 1), 1, 5);
+            } else if (dow.length() > 1 && dow.endsWith("L")) {
+                lastDow = parseValue(dow.substring(0, dow.length() - 1), 1, 7, DAY_NAMES);
+            } else {
+                dowBits = parseField(dow, 1, 7, DAY_NAMES);
+            }
+        }
+        daysOfWeek = dowBits;
+        lastDayOfWeek = lastDow;
+        nthDayOfWeek = nthDow;
+        nthOrdinal = nth;
+        // Year
+        if (fields.length == 7 && !"*".equals(fields[6])) {
+            BitSet bits = new BitSet();
+            for (String item : fields[6].split(",", -1))
+                parseItem(item, MIN_YEAR, MAX_YEAR, null, (from, to, step) -> {
+                    if (from > to) throw new IllegalArgumentException("Illegal range: " + item);
+                    for (int y = from; y <= to; y += step)
+                        bits.set(y - MIN_YEAR);
+                });
+            years = bits;
+        } else {
+            years = null;
+        }
+    }
+
+    /**
+     * Compile the expression in the default time zone.
+     *
+     * @param expression the CRON expression
+     * @return the compiled expression
+     * @throws IllegalArgumentException if the expression is illegal
+     * @throws NullPointerException     if the expression is null
+     */
+    public static CRONExpression compile(String expression) {
+        return compile(expression, ZoneId.systemDefault());
+    }
+
+    /**
+     * Compile the expression in the time zone.
+     *
+     * @param expression the CRON expression
+     * @param zone       the time zone to fire in
+     * @return the compiled expression
+     * @throws IllegalArgumentException if the expression is illegal
+     * @throws NullPointerException     if the expression or the zone is null
+     */
+    public static CRONExpression compile(String expression, ZoneId zone) {
+        if (null == expression) throw new NullPointerException("expression");
+        if (null == zone) throw new NullPointerException("zone");
+        return new CRONExpression(expression, zone);
+    }
+
+    /**
+     * Returns the expression compiled.
+     *
+     * @return the CRON expression
+     */
+    public String readExpression() {
+        return expression;
+    }
+
+    /**
+     * Returns the time zone to fire in.
+     *
+     * @return the time zone
+     */
+    public ZoneId readZone() {
+        return zone;
+    }
+
+    /**
+     * Returns the first fire time after the given time, in seconds.
+     *
+     * @param afterMillis the time to fire after in milliseconds since the epoch
+     * @return the next fire time in milliseconds since the epoch, or
+     * <code>-1</code> if never fires again
+     */
+    public long nextFireTime(long afterMillis) {
+        // Fire in whole seconds, so start from the next second
+        long start = Math.floorDiv(afterMillis, 1000L) + 1L;
+        LocalDateTime from = LocalDateTime.ofInstant(Instant.ofEpochSecond(start), zone);
+        int y = from.getYear(), mo = from.getMonthValue(), d = from.getDayOfMonth();
+        int h = from.getHour(), mi = from.getMinute(), s = from.getSecond();
+        while (true) {
+            if (y > MAX_YEAR) return -1L;
+            if (null != years && (y < MIN_YEAR || !years.get(y - MIN_YEAR))) {
+                int next = years.nextSetBit(Math.max(0, y - MIN_YEAR));
+                if (next < 0) return -1L;
+                y = next + MIN_YEAR;
+                mo = d = 1;
+                h = mi = s = 0;
+            }
+            int next = nextBit(months, mo);
+            if (next < 0) {
+                y++;
+                mo = d = 1;
+                h = mi = s = 0;
+                continue;
+            } else if (next != mo) {
+                mo = next;
+                d = 1;
+                h = mi = s = 0;
+            }
+            next = nextBit(daysOf(y, mo), d);
+            if (next < 0) {
+                mo++;
+                d = 1;
+                h = mi = s = 0;
+                continue;
+            } else if (next != d) {
+                d = next;
+                h = mi = s = 0;
+            }
+            next = nextBit(hours, h);
+            if (next < 0) {
+                d++;
+                h = mi = s = 0;
+                continue;
+            } else if (next != h) {
+                h = next;
+                mi = s = 0;
+            }
+            next = nextBit(minutes, mi);
+            if (next < 0) {
+                h++;
+                mi = s = 0;
+                continue;
+            } else if (next != mi) {
+                mi = next;
+                s = 0;
+            }
+            next = nextBit(seconds, s);
+            if (next < 0) {
+                mi++;
+                s = 0;
+                continue;
+            }
+            s = next;
+            // A time in the gap of a DST moves forward, and may go back to the time passed
+            ZonedDateTime fire = LocalDateTime.of(y, mo, d, h, mi, s).atZone(zone);
+            long fireSecond = fire.toEpochSecond();
+            if (fireSecond >= start) return fireSecond * 1000L;
+            s++;
+        }
+    }
+
+    /**
+     * Returns the index of the first bit set in the mask from the index, or
+     * <code>-1</code> if none.
+     */
+    private static int nextBit(long mask, int from) {
+        if (from > 63) return -1;
+        long bits = mask & (-1L << from);
+        return bits == 0L ? -1 : Long.numberOfTrailingZeros(bits);
+    }
+
+    /**
+     * Returns the days to fire in the month in bits.
+     */
+    private long daysOf(int year, int month) {
+        LocalDate first = LocalDate.of(year, month, 1);
+        int length = first.lengthOfMonth();
+        long inMonth = (1L << (length + 1)) - 2L;
+        if (0L != daysOfMonth) return daysOfMonth & inMonth;
+        if (lastDayOffset >= 0) return lastDayOffset < length ? 1L << (length - lastDayOffset) : 0L;
+        if (lastWeekday) return 1L << weekdayNear(first, length, length);
+        if (nearestWeekday > 0) return nearestWeekday <= length ? 1L << weekdayNear(first, length, nearestWeekday) : 0L;
+        // The day of week of the first day, where SUN is 1
+        int firstDow = first.getDayOfWeek().getValue() % 7 + 1;
+        if (0L != daysOfWeek) {
+            long days = 0L;
+            for (int day = 1; day <= length; day++)
+                if ((daysOfWeek & 1L << ((firstDow + day - 2) % 7 + 1)) != 0L)
+                    days |= 1L << day;
+            return days;
+        }
+        int firstDay = (nthDayOfWeek > 0 ? nthDayOfWeek : lastDayOfWeek) - firstDow;
+        if (firstDay < 0) firstDay += 7;
+        firstDay++;
+        if (nthDayOfWeek > 0) {
+            int day = firstDay + 7 * (nthOrdinal - 1);
+            return day <= length ? 1L << day : 0L;
+        }
+        return 1L << (firstDay + (length - firstDay) / 7 * 7);
+    }
+
+    /**
+     * Returns the weekday nearest to the day in the month, never out of the month.
+     */
+    private static int weekdayNear(LocalDate first, int length, int day) {
+        DayOfWeek dayOfWeek = first.plusDays(day - 1L).getDayOfWeek();
+        if (dayOfWeek == DayOfWeek.SATURDAY) return day == 1 ? 3 : day - 1;
+        if (dayOfWeek == DayOfWeek.SUNDAY) return day == length ? day - 2 : day + 1;
+        return day;
+    }
+
+    /*
+     * Parsing
+     */
+
+    /**
+     * Action on a range parsed, in the step.
+     */
+    @FunctionalInterface
+    private interface RangeConsumer {
+        void accept(int from, int to, int step);
+    }
+
+    /**
+     * Parses a field of the values in <code>[min, max]</code> into bits.
+     */
+    private static long parseField(String field, int min, int max, String[] names) {
+        long[] bits = {0L};
+        for (String item : field.split(",", -1))
+            parseItem(item, min, max, names, (from, to, step) -> {
+                // A range across the max wraps to the min
+                int count = (to >= from ? to - from : to - from + max - min + 1) / step;
+                for (int i = 0, v = from; i <= count; i++, v += step)
+                    bits[0] |= 1L << (v > max ? v - (max - min + 1) : v);
+            });
+        return bits[0];
+    }
+
+    private static void parseItem(String item, int min, int max, String[] names, RangeConsumer consumer) {
+        int slash = item.indexOf('/');
+        String range = slash < 0 ? item : item.substring(0, slash);
+        int step = slash < 0 ? 1 : parseNumber(item.substring(slash + 1), 1, max - min + 1);
+        int from, to;
+        if ("*".equals(range)) {
+            from = min;
+            to = max;
+        } else {
+            int dash = range.indexOf('-');
+            if (dash < 0) {
+                from = parseValue(range, min, max, names);
+                // A start with a step runs to the max
+                to = slash < 0 ? from : max;
+            } else {
+                from = parseValue(range.substring(0, dash), min, max, names);
+                to = parseValue(range.substring(dash + 1), min, max, names);
+            }
+        }
+        consumer.accept(from, to, step);
+    }
+
+    private static int parseValue(String value, int min, int max, String[] names) {
+        if (null != names)
+            for (int i = 0; i < names.length; i++)
+                if (names[i].equals(value)) return i + min;
+        return parseNumber(value, min, max);
+    }
+
+    private static int parseNumber(String value, int min, int max) {
+        int number;
+        try {
+            number = Integer.parseInt(value);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Illegal value: " + value, e);
+        }
+        if (number < min || number > max)
+            throw new IllegalArgumentException("Value " + number + " out of [" + min + ", " + max + "]");
+        return number;
+    }
+
+    @Override
+    public String toString() {
+        return expression;
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2020-2023 XuYanhang
+ */
+
+package org.xuyh.concurrent;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * A map of counters on keys for the high concurrency. Each counter is a
+ * {@link LongAdder}, who spreads the updates of the threads in contention
+ * into cells, so that a hot key never retries as the CAS loop of
+ * {@link ConcurrentMaps#swapAndGet(java.util.concurrent.ConcurrentMap, Object, java.util.function.UnaryOperator)}
+ * does. The cost is that a sum is not an atomic snapshot when the counter is
+ * updated concurrently.
+ * <p>
+ * A counter is created on its first update, and stays till it's removed. A
+ * removal races with the updates on the counter removed, who may be lost, so
+ * prefer {@link #sumThenReset(Object)} to read and clear a counter in use.
+ *
+ * @param <K> type of the keys
+ * @author XuYanhang
+ * @see ConcurrentMaps#createCounterMap()
+ * @see LongAdder
+ * @since 2020-11-08
+ */
+public class ConcurrentCounterMap<K> {
+    private final ConcurrentHashMap<K, LongAdder> counters = new ConcurrentHashMap<>();
+
+    /**
+     * Creates an empty counter map.
+     */
+    public ConcurrentCounterMap() {
+        super();
+    }
+
+    /**
+     * Returns the counter of the key, who is created if absent.
+     */
+    private LongAdder counter(K key) {
+        LongAdder counter = counters.get(key);
+        return null != counter ? counter : counters.computeIfAbsent(key, k -> new LongAdder());
+    }
+
+    /**
+     * Adds one to the counter of the key.
+     *
+     * @param key the key to count
+     * @throws NullPointerException if the key is null
+     */
+    public void increment(K key) {
+        counter(key).increment();
+    }
+
+    /**
+     * Subtracts one from the counter of the key.
+     *
+     * @param key the key to count
+     * @throws NullPointerException if the key is null
+     */
+    public void decrement(K key) {
+        counter(key).decrement();
+    }
+
+    /**
+     * Adds the value to the counter of the key.
+     *
+     * @param key   the key to count
+     * @param delta the value to add
+     * @throws NullPointerException if the key is null
+     */
+    public void add(K key, long delta) {
+        counter(key).add(delta);
+    }
+
+    /**
+     * Returns the sum of the counter of the key.
+     *
+     * @param key the key counted
+     * @return the sum, or <code>0</code> if no counter on the key
+     */
+    public long sum(K key) {
+        LongAdder counter = counters.get(key);
+        return null == counter ? 0L : counter.sum();
+    }
+
+    /**
+     * Returns the sum of the counter of the key and resets it to zero. An update
+     * concurrent with it is either in the sum or left in the counter.
+     *
+     * @param key the key counted
+     * @return the sum, or <code>0</code> if no counter on the key
+     */
+    public long sumThenReset(K key) {
+        LongAdder counter = counters.get(key);
+        return null == counter ? 0L : counter.sumThenReset();
+    }
+
+    /**
+     * Removes the counter of the key and returns its sum.
+     *
+     * @param key the key counted
+     * @return the sum, or <code>0</code> if no counter on the key
+     */
+    public long remove(K key) {
+        LongAdder counter = counters.remove(key);
+        return null == counter ? 0L : counter.sum();
+    }
+
+    /**
+     * Returns the sum of all the counters.
+     *
+     * @return the sum of all the counters
+     */
+    public long sumAll() {
+        long sum = 0L;
+        for (LongAdder counter : counters.values())
+            sum += counter.sum();
+        return sum;
+    }
+
+    /**
+     * Returns the count of the counters.
+     *
+     * @return the count of the counters
+     */
+    public int size() {
+        return counters.size();
+    }
+
+    /**
+     * Returns the keys counted, a view who changes with the counters.
+     *
+     * @return the keys counted
+     */
+    public Set<K> keySet() {
+        return counters.keySet();
+    }
+
+    /**
+     * Iterates the counters with their sums, weakly consistent as the iteration
+     * on a {@link ConcurrentHashMap}.
+     *
+     * @param action the action on each key and its sum
+     * @throws NullPointerException if the action is null
+     */
+    public void forEach(ObjLongConsumer<? super K> action) {
+        if (null == action) throw new NullPointerException("action");
+        counters.forEach((key, counter) -> action.accept(key, counter.sum()));
+    }
+
+    /**
+     * Returns a snapshot of the sums of the counters.
+     *
+     * @return a new map of the keys to their sums
+     */
+    public Map<K, Long> snapshot() {
+        Map<K, Long> sums = new HashMap<>(Math.max(16, (int) (counters.size() / .75f) + 1));
+        counters.forEach((key, counter) -> sums.put(key, counter.sum()));
+        return sums;
+    }
+
+    /**
+     * Returns a snapshot of the sums of the counters, and resets each counter
+     * summed to zero, for the periodic flush of the counts.
+     *
+     * @return a new map of the keys to their sums
+     */
+    public Map<K, Long> snapshotThenReset() {
+        Map<K, Long> sums = new HashMap<>(Math.max(16, (int) (counters.size() / .75f) + 1));
+        counters.forEach((key, counter) -> sums.put(key, counter.sumThenReset()));
+        return sums;
+    }
+
+    /**
+     * Removes all the counters.
+     */
+    public void clear() {
+        counters.clear();
+    }
+
+    @Override
+    public String toString() {
+        return snapshot().toString();
+    }
+}
@@ -27,6 +27,16 @@ public final class ConcurrentMaps {
         return new ConcurrentHashMap<>();
     }
 
+    /**
+     * Creates a new {@link ConcurrentCounterMap}, who counts on the hot keys
+     * without the CAS retries of {@link #swapAndGet(ConcurrentMap, Object, UnaryOperator)}.
+     *
+     * @return an instance of {@link ConcurrentCounterMap}.
+     */
+    public static <K> ConcurrentCounterMap<K> createCounterMap() {
+        return new ConcurrentCounterMap<>();
+    }
+
     /**
      * Compare-And-Set(CAS) for a {@link ConcurrentMap}. In a map, both key and value shouldn't be
      * <code>null</code> when a <code>null</code> value means not exist. So in this CAS operation, a
@@ -0,0 +1,652 @@
+/*
+ * Copyright (c) 2020-2023 XuYanhang
+ */
+
+package org.xuyh.concurrent;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.AbstractExecutorService;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A {@link ScheduledExecutorService} on a hierarchical hashed timing wheel, for
+ * the masses of delayed tasks who are mostly cancelled before due, like the
+ * timeouts. Scheduling and cancelling cost only an offer to a concurrent queue
+ * while the {@link ScheduledThreadPoolExecutor} sorts its tasks in a heap under
+ * a lock.
+ * <p>
+ * A single tick thread owns the wheels. On each tick it unlinks the tasks
+ * cancelled, links the tasks scheduled into the buckets, cascades the buckets
+ * of the upper wheels down at their boundaries, and hands the tasks in the
+ * bucket due to the worker pool all at once. So a task runs no earlier than its
+ * delay, and late by up to a tick. Each wheel has the same count of buckets,
+ * while a bucket of an upper wheel spans a whole round of the wheel below. The
+ * tick thread parks when no task is scheduled.
+ * <p>
+ * Like the {@link ScheduledThreadPoolExecutor}, the delayed tasks still run
+ * after {@link #shutdown()} while the periodic tasks are cancelled.
+ *
+ * @author XuYanhang
+ * @see AutoPoolScheduler
+ * @since 2020-11-02
+ */
+public class HashedWheelScheduledExecutor extends AbstractExecutorService implements ScheduledExecutorService {
+    private static final int RUNNING = 0;
+    private static final int SHUTDOWN = 1;
+    private static final int STOP = 2;
+
+    /**
+     * Maximum delay in nanoseconds, so that the deadline never overflows.
+     */
+    private static final long MAX_DELAY = Long.MAX_VALUE >>> 2;
+
+    /**
+     * Duration of a tick in nanoseconds
+     */
+    private final long tickNanos;
+
+    /**
+     * Bits of the bucket index in a wheel
+     */
+    private final int wheelBits;
+
+    /**
+     * The wheels from the lowest, each in the buckets of the same count.
+     */
+    private final Bucket[][] wheels;
+
+    /**
+     * The time of tick <code>0</code>
+     */
+    private final long startNanos;
+
+    /**
+     * The tasks scheduled but not linked into a bucket yet
+     */
+    private final ConcurrentLinkedQueue<WheelTask<?>> scheduled = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The tasks cancelled who are linked in a bucket
+     */
+    private final ConcurrentLinkedQueue<WheelTask<?>> cancelled = new ConcurrentLinkedQueue<>();
+
+    /**
+     * The pool to run the tasks due
+     */
+    private final ThreadPoolExecutor workers;
+
+    private final Thread tickThread;
+
+    /**
+     * The tasks left on {@link #shutdownNow()}, set by the tick thread on exit
+     */
+    private final List<Runnable> drained = new ArrayList<>();
+
+    private volatile int state;
+
+    /**
+     * Whether the tick thread is parking for a task scheduled
+     */
+    private volatile boolean idle;
+
+    /*
+     * Visited only by the tick thread
+     */
+    /**
+     * The last tick handled
+     */
+    private long tick;
+
+    /**
+     * Count of the tasks linked in the buckets
+     */
+    private int size;
+
+    /**
+     * Creates a new executor with the default thread factory, of 1 millisecond
+     * tick and 512 buckets a wheel.
+     *
+     * @param corePoolSize the number of threads to run the tasks due
+     * @throws IllegalArgumentException if {@code corePoolSize < 0}
+     */
+    public HashedWheelScheduledExecutor(int corePoolSize) {
+        this(corePoolSize, Executors.defaultThreadFactory(), 1L, TimeUnit.MILLISECONDS, 512);
+    }
+
+    /**
+     * Creates a new executor with the given initial parameters.
+     *
+     * @param corePoolSize  the number of threads to run the tasks due, at least
+     *                      one thread is used
+     * @param threadFactory the factory to create the tick thread and the worker
+     *                      threads
+     * @param tickDuration  the duration of a tick
+     * @param tickUnit      the time unit of the tickDuration parameter
+     * @param wheelSize     the count of the buckets in a wheel, rounded up to a
+     *                      power of two
+     * @throws IllegalArgumentException if {@code corePoolSize < 0}, the
+     *                                  tickDuration is not positive, or the
+     *                                  wheelSize is not in
+     *                                  <code>[2, 65536]</code>
+     * @throws NullPointerException     if the threadFactory or tickUnit is null
+     */
+    public HashedWheelScheduledExecutor(int corePoolSize, ThreadFactory threadFactory, long tickDuration,
+                                        TimeUnit tickUnit, int wheelSize) {
+        super();
+        if (corePoolSize < 0) throw new IllegalArgumentException("corePoolSize");
+        if (null == threadFactory) throw new NullPointerException("threadFactory");
+        if (null == tickUnit) throw new NullPointerException("tickUnit");
+        if (tickDuration <= 0L) throw new IllegalArgumentException("tickDuration");
+        if (wheelSize < 2 || wheelSize > 1 << 16) throw new IllegalArgumentException("wheelSize");
+        this.tickNanos = Math.max(1L, tickUnit.toNanos(tickDuration));
+        this.wheelBits = Integer.SIZE - Integer.numberOfLeadingZeros(wheelSize - 1);
+        // Enough wheels to hold any delay
+        int levels = (Long.SIZE - 2 + wheelBits - 1) / wheelBits;
+        this.wheels = new Bucket[levels][1 << wheelBits];
+        for (Bucket[] wheel : wheels)
+            for (int i = 0; i < wheel.length; i++)
+                wheel[i] = new Bucket();
+        int threads = Math.max(1, corePoolSize);
+        this.workers = new ThreadPoolExecutor(threads, threads, 0L, TimeUnit.MILLISECONDS,
+                new LinkedBlockingQueue<>(), threadFactory);
+        this.startNanos = System.nanoTime();
+        this.tickThread = threadFactory.newThread(this::runTicks);
+        if (null == tickThread) throw new IllegalStateException("No tick thread");
+        tickThread.start();
+    }
+
+    /**
+     * Returns the duration of a tick.
+     *
+     * @param unit the time unit of the result
+     * @return the duration of a tick
+     */
+    public long readTickDuration(TimeUnit unit) {
+        return unit.convert(tickNanos, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the count of the buckets in a wheel.
+     *
+     * @return the count of the buckets in a wheel
+     */
+    public int readWheelSize() {
+        return 1 << wheelBits;
+    }
+
+    /*
+     * ScheduledExecutorService
+     */
+
+    @Override
+    public void execute(Runnable command) {
+        schedule(command, 0L, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public Future<?> submit(Runnable task) {
+        return schedule(task, 0L, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public <T> Future<T> submit(Runnable task, T result) {
+        if (null == task) throw new NullPointerException();
+        return schedule(Executors.callable(task, result), 0L, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public <T> Future<T> submit(Callable<T> task) {
+        return schedule(task, 0L, TimeUnit.NANOSECONDS);
+    }
+
+    @Override
+    public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+        if (null == command || null == unit) throw new NullPointerException();
+        return enqueue(new WheelTask<Void>(Executors.callable(command, null), deadline(delay, unit), 0L));
+    }
+
+    @Override
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+        if (null == callable || null == unit) throw new NullPointerException();
+        return enqueue(new WheelTask<>(callable, deadline(delay, unit), 0L));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+        if (null == command || null == unit) throw new NullPointerException();
+        if (period <= 0L) throw new IllegalArgumentException();
+        long periodNanos = Math.max(1L, Math.min(MAX_DELAY, unit.toNanos(period)));
+        return enqueue(new WheelTask<Void>(Executors.callable(command, null), deadline(initialDelay, unit),
+                periodNanos));
+    }
+
+    @Override
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay,
+                                                     TimeUnit unit) {
+        if (null == command || null == unit) throw new NullPointerException();
+        if (delay <= 0L) throw new IllegalArgumentException();
+        long delayNanos = Math.max(1L, Math.min(MAX_DELAY, unit.toNanos(delay)));
+        return enqueue(new WheelTask<Void>(Executors.callable(command, null), deadline(initialDelay, unit),
+                -delayNanos));
+    }
+
+    @Override
+    public void shutdown() {
+        if (state == RUNNING) state = SHUTDOWN;
+        LockSupport.unpark(tickThread);
+    }
+
+    @Override
+    public List<Runnable> shutdownNow() {
+        state = STOP;
+        LockSupport.unpark(tickThread);
+        List<Runnable> tasks = new ArrayList<>();
+        if (Thread.currentThread() != tickThread) {
+            boolean interrupted = false;
+            while (tickThread.isAlive()) {
+                try {
+                    tickThread.join();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) Thread.currentThread().interrupt();
+            synchronized (drained) {
+                tasks.addAll(drained);
+                drained.clear();
+            }
+        }
+        tasks.addAll(workers.shutdownNow());
+        return tasks;
+    }
+
+    @Override
+    public boolean isShutdown() {
+        return state != RUNNING;
+    }
+
+    @Override
+    public boolean isTerminated() {
+        return !tickThread.isAlive() && workers.isTerminated();
+    }
+
+    @Override
+    public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        long nanos;
+        while (tickThread.isAlive()) {
+            if ((nanos = deadline - System.nanoTime()) <= 0L) return false;
+            TimeUnit.NANOSECONDS.timedJoin(tickThread, nanos);
+        }
+        return workers.awaitTermination(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+    }
+
+    /*
+     * Scheduling
+     */
+
+    private static long deadline(long delay, TimeUnit unit) {
+        return System.nanoTime() + Math.max(0L, Math.min(MAX_DELAY, unit.toNanos(delay)));
+    }
+
+    private <V> WheelTask<V> enqueue(WheelTask<V> task) {
+        if (state != RUNNING) throw new RejectedExecutionException("Executor shutdown");
+        // A task due runs at once rather than waiting for a tick
+        if (task.deadline - System.nanoTime() <= 0L) {
+            workers.execute(task);
+            return task;
+        }
+        scheduled.offer(task);
+        // The tick thread may quit on shutdown before it sees the task
+        if (state != RUNNING && scheduled.remove(task))
+            throw new RejectedExecutionException("Executor shutdown");
+        if (idle) LockSupport.unpark(tickThread);
+        return task;
+    }
+
+    /**
+     * Schedule the next run of a periodic task
+     */
+    private void reschedule(WheelTask<?> task) {
+        if (state != RUNNING) {
+            task.cancel(false);
+            return;
+        }
+        scheduled.offer(task);
+        if (state != RUNNING && scheduled.remove(task))
+            task.cancel(false);
+        else if (idle)
+            LockSupport.unpark(tickThread);
+    }
+
+    /*
+     * Tick thread
+     */
+
+    private long tickOf(long nanos) {
+        return (nanos - startNanos) / tickNanos;
+    }
+
+    private void runTicks() {
+        try {
+            boolean periodicCancelled = false;
+            while (true) {
+                unlinkCancelled();
+                // No need to walk the empty buckets one by one
+                if (size == 0) tick = Math.max(tick, tickOf(System.nanoTime()));
+                linkScheduled();
+                int s = state;
+                if (s == STOP) break;
+                if (s == SHUTDOWN && !periodicCancelled) {
+                    periodicCancelled = true;
+                    cancelPeriodic();
+                    continue;
+                }
+                if (size == 0) {
+                    if (s == SHUTDOWN) break;
+                    idle = true;
+                    if (scheduled.isEmpty() && cancelled.isEmpty() && state == RUNNING) LockSupport.park(this);
+                    idle = false;
+                    continue;
+                }
+                long wait = startNanos + (tick + 1L) * tickNanos - System.nanoTime();
+                if (wait > 0L) {
+                    LockSupport.parkNanos(this, wait);
+                    continue;
+                }
+                for (long now = tickOf(System.nanoTime()); tick < now && size > 0; )
+                    advance(++tick);
+            }
+        } finally {
+            if (state == STOP) {
+                synchronized (drained) {
+                    drainAll();
+                }
+                workers.shutdownNow();
+            } else {
+                workers.shutdown();
+            }
+        }
+    }
+
+    /**
+     * Unlink the tasks cancelled from their buckets.
+     */
+    private void unlinkCancelled() {
+        WheelTask<?> task;
+        while ((task = cancelled.poll()) != null) {
+            if (null != task.bucket) {
+                task.bucket.remove(task);
+                size--;
+            }
+        }
+    }
+
+    /**
+     * Link the tasks scheduled into the buckets.
+     */
+    private void linkScheduled() {
+        WheelTask<?> task;
+        while ((task = scheduled.poll()) != null) {
+            if (task.isCancelled()) continue;
+            long deadlineTick = deadlineTick(task.deadline);
+            if (deadlineTick <= tick) {
+                expire(task);
+                continue;
+            }
+            task.linked = true;
+            // Checked again after marked, so a cancel either sees the mark or is seen
+            if (task.isCancelled()) {
+                task.linked = false;
+                continue;
+            }
+            link(task, deadlineTick, tick);
+        }
+    }
+
+    private long deadlineTick(long deadline) {
+        long nanos = deadline - startNanos;
+        return nanos <= 0L ? 0L : (nanos + tickNanos - 1L) / tickNanos;
+    }
+
+    /**
+     * Link a task into the lowest wheel who can hold the delay from the base.
+     *
+     * @param task         the task
+     * @param deadlineTick the tick the task is due, not before the base
+     * @param base         the tick whose buckets are handled or being handled
+     */
+    private void link(WheelTask<?> task, long deadlineTick, long base) {
+        long delta = deadlineTick - base;
+        int level = 0;
+        while (level < wheels.length - 1) {
+            int shift = (level + 1) * wheelBits;
+            if (shift >= Long.SIZE - 1 || delta >>> shift == 0L) break;
+            level++;
+        }
+        int index = (int) (deadlineTick >>> (level * wheelBits)) & ((1 << wheelBits) - 1);
+        task.deadlineTick = deadlineTick;
+        wheels[level][index].add(task);
+        size++;
+    }
+
+    /**
+     * Handle a tick: cascade the upper buckets at their boundaries from the top,
+     * and then run all the tasks in the lowest bucket.
+     */
+    private void advance(long t) {
+        int mask = (1 << wheelBits) - 1;
+        for (int level = wheels.length - 1; level > 0; level--) {
+            int shift = level * wheelBits;
+            if ((t & ((1L << shift) - 1L)) != 0L) continue;
+            Bucket bucket = wheels[level][(int) (t >>> shift) & mask];
+            WheelTask<?> task = bucket.clear();
+            while (null != task) {
+                WheelTask<?> next = task.next;
+                task.next = null;
+                size--;
+                link(task, task.deadlineTick, t);
+                task = next;
+            }
+        }
+        WheelTask<?> task = wheels[0][(int) t & mask].clear();
+        while (null != task) {
+            WheelTask<?> next = task.next;
+            task.next = null;
+            task.linked = false;
+            size--;
+            expire(task);
+            task = next;
+        }
+    }
+
+    private void expire(WheelTask<?> task) {
+        if (task.isCancelled()) return;
+        try {
+            workers.execute(task);
+        } catch (RejectedExecutionException e) {
+            // Stopped
+            task.cancel(false);
+        }
+    }
+
+    /**
+     * Cancel the periodic tasks on shutdown.
+     */
+    private void cancelPeriodic() {
+        for (Bucket[] wheel : wheels) {
+            for (Bucket bucket : wheel) {
+                for (WheelTask<?> task = bucket.head; null != task; task = task.next)
+                    if (task.isPeriodic()) task.cancel(false);
+            }
+        }
+    }
+
+    /**
+     * Move all the tasks left to the {@link #drained} on stop.
+     */
+    private void drainAll() {
+        for (Bucket[] wheel : wheels) {
+            for (Bucket bucket : wheel) {
+                WheelTask<?> task = bucket.clear();
+                while (null != task) {
+                    WheelTask<?> next = task.next;
+                    task.next = null;
+                    if (!task.isCancelled()) drained.add(task);
+                    task = next;
+                }
+            }
+        }
+        size = 0;
+        WheelTask<?> task;
+        while ((task = scheduled.poll()) != null)
+            if (!task.isCancelled()) drained.add(task);
+        cancelled.clear();
+    }
+
+    /**
+     * A doubly linked list of the tasks in a bucket, visited only by the tick
+     * thread.
+     *
+     * @author XuYanhang
+     */
+    private static final class Bucket {
+        private WheelTask<?> head;
+        private WheelTask<?> tail;
+
+        void add(WheelTask<?> task) {
+            task.bucket = this;
+            task.prev = tail;
+            task.next = null;
+            if (null == tail)
+                head = task;
+            else
+                tail.next = task;
+            tail = task;
+        }
+
+        void remove(WheelTask<?> task) {
+            WheelTask<?> prev = task.prev;
+            WheelTask<?> next = task.next;
+            if (null == prev)
+                head = next;
+            else
+                prev.next = next;
+            if (null == next)
+                tail = prev;
+            else
+                next.prev = prev;
+            task.bucket = null;
+            task.prev = null;
+            task.next = null;
+            task.linked = false;
+        }
+
+        /**
+         * Unlink all the tasks and returns the first, whose {@link WheelTask#next}
+         * links are kept for the walk.
+         */
+        WheelTask<?> clear() {
+            WheelTask<?> first = head;
+            for (WheelTask<?> task = first; null != task; task = task.next) {
+                task.bucket = null;
+                task.prev = null;
+            }
+            head = tail = null;
+            return first;
+        }
+    }
+
+    /**
+     * A task in the wheels.
+     *
+     * @author XuYanhang
+     */
+    private final class WheelTask<V> extends FutureTask<V> implements RunnableScheduledFuture<V> {
+        /**
+         * The time to run in nanoseconds
+         */
+        private volatile long deadline;
+
+        /**
+         * Period in nanoseconds: positive for fixed rate, negative for fixed delay
+         * and <code>0</code> for a one-shot task
+         */
+        private final long period;
+
+        /*
+         * Visited only by the tick thread
+         */
+        private long deadlineTick;
+        private Bucket bucket;
+        private WheelTask<?> prev;
+        private WheelTask<?> next;
+
+        /**
+         * Linked in a bucket, set by the tick thread and read by the cancel
+         */
+        private volatile boolean linked;
+
+        WheelTask(Callable<V> callable, long deadline, long period) {
+            super(callable);
+            this.deadline = deadline;
+            this.period = period;
+        }
+
+        @Override
+        public boolean isPeriodic() {
+            return period != 0L;
+        }
+
+        @Override
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public int compareTo(Delayed other) {
+            if (other == this) return 0;
+            if (other instanceof WheelTask)
+                return Long.signum(deadline - ((WheelTask<?>) other).deadline);
+            return Long.compare(getDelay(TimeUnit.NANOSECONDS), other.getDelay(TimeUnit.NANOSECONDS));
+        }
+
+        @Override
+        public void run() {
+            if (!isPeriodic()) {
+                super.run();
+            } else if (runAndReset()) {
+                deadline = period > 0L ? deadline + period : System.nanoTime() - period;
+                reschedule(this);
+            }
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancel = super.cancel(mayInterruptIfRunning);
+            // A task not linked, such as one run at once, is never in a bucket
+            if (cancel && linked) {
+                cancelled.offer(this);
+                // Unlinked by the tick thread even if it's going idle
+                if (idle) LockSupport.unpark(tickThread);
+            }
+            return cancel;
+        }
+    }
+}
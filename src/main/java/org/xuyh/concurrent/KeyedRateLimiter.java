@@ -0,0 +1,442 @@
+/*
+ * Copyright (c) 2020-2023 XuYanhang
+ */
+
+package org.xuyh.concurrent;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A rate limiter on keys, such as the client addresses, without any lock. Each
+ * key has its own limit state in a {@link ConcurrentHashMap}, updated by CAS,
+ * so that the callers on different keys never wait each other, and the callers
+ * on a same key only retry on the contention.
+ * <p>
+ * Two modes are provided:
+ * <ul>
+ * <li>{@link #tokenBucket(long, long, long, TimeUnit)}: a bucket of a capacity
+ * refilled at a steady rate, who allows a burst up to the capacity. It's kept as
+ * the theoretical arrival time of the generic cell rate algorithm, one
+ * <code>long</code> a key, and the refill is computed from
+ * {@link System#nanoTime()} on each acquire rather than by any timer.</li>
+ * <li>{@link #slidingLog(int, long, TimeUnit)}: at most a count of permits in
+ * any window, exactly, with a log of the times of the last permits a key. It
+ * costs two <code>long</code> a permit a key, so prefer the token bucket on many
+ * keys with large permits.</li>
+ * </ul>
+ * <p>
+ * A key idle long enough that its state is as new is expired, in a sweep
+ * started in {@link Runnables#executeAsync(Runnable)} by an acquire once an
+ * interval, or by {@link #expireIdle()} directly. No timer is kept, so a limiter
+ * no longer used is collected as any object.
+ *
+ * @param <K> type of the keys
+ * @author XuYanhang
+ * @since 2020-11-10
+ */
+public abstract class KeyedRateLimiter<K> {
+    /**
+     * The minimal interval in nanoseconds between the sweeps of the idle keys
+     */
+    private static final long MIN_SWEEP_NANOS = TimeUnit.SECONDS.toNanos(1L);
+
+    /**
+     * Result of an acquire on a state
+     */
+    static final int ACQUIRED = 0, REJECTED = 1, EXPIRED = 2;
+
+    private final ConcurrentHashMap<K, State> states = new ConcurrentHashMap<>();
+
+    /**
+     * Nanoseconds between the sweeps of the idle keys
+     */
+    private final long sweepNanos;
+
+    /**
+     * The time in nanoseconds the next sweep starts after
+     */
+    private final AtomicLong nextSweep;
+
+    private final LongAdder acquiredCount = new LongAdder();
+
+    private final LongAdder rejectedCount = new LongAdder();
+
+    private final LongAdder expiredCount = new LongAdder();
+
+    KeyedRateLimiter(long idleNanos) {
+        super();
+        this.sweepNanos = Math.max(MIN_SWEEP_NANOS, idleNanos);
+        this.nextSweep = new AtomicLong(System.nanoTime() + sweepNanos);
+    }
+
+    /**
+     * Creates a limiter of token buckets. Each key has a bucket of the capacity,
+     * full at first, and refilled with the permits each period, as at most one
+     * permit each <code>period / refillPermits</code>.
+     *
+     * @param <K>           type of the keys
+     * @param capacity      the most permits of a bucket, as the most burst
+     * @param refillPermits the permits refilled each period
+     * @param period        the period to refill the permits
+     * @param unit          the time unit of the period parameter
+     * @return a new limiter of token buckets
+     * @throws IllegalArgumentException if the capacity, the refillPermits or the
+     *                                  period is not positive, or the period is
+     *                                  shorter than a nanosecond a permit
+     * @throws NullPointerException     if the unit is null
+     */
+    public static <K> KeyedRateLimiter<K> tokenBucket(long capacity, long refillPermits, long period, TimeUnit unit) {
+        if (null == unit) throw new NullPointerException("unit");
+        if (capacity <= 0L) throw new IllegalArgumentException("capacity");
+        if (refillPermits <= 0L) throw new IllegalArgumentException("refillPermits");
+        if (period <= 0L) throw new IllegalArgumentException("period");
+        long intervalNanos = unit.toNanos(period) / refillPermits;
+        if (intervalNanos <= 0L) throw new IllegalArgumentException("period");
+        if (capacity > Long.MAX_VALUE / 2L / intervalNanos) throw new IllegalArgumentException("capacity");
+        return new TokenBucketLimiter<>(capacity, intervalNanos);
+    }
+
+    /**
+     * Creates a limiter of sliding logs. Each key is allowed at most the permits
+     * in any window.
+     *
+     * @param <K>     type of the keys
+     * @param permits the most permits in a window
+     * @param window  the window of the permits
+     * @param unit    the time unit of the window parameter
+     * @return a new limiter of sliding logs
+     * @throws IllegalArgumentException if the permits or the window is not
+     *                                  positive
+     * @throws NullPointerException     if the unit is null
+     */
+    public static <K> KeyedRateLimiter<K> slidingLog(int permits, long window, TimeUnit unit) {
+        if (null == unit) throw new NullPointerException("unit");
+        if (permits <= 0 || permits > Integer.MAX_VALUE / 2) throw new IllegalArgumentException("permits");
+        if (window <= 0L) throw new IllegalArgumentException("window");
+        return new SlidingLogLimiter<>(permits, unit.toNanos(window));
+    }
+
+    /**
+     * Creates the state of a new key, as no permit acquired.
+     */
+    abstract State newState(long now);
+
+    /**
+     * Acquires the permits on the state at the time, returns {@link #ACQUIRED},
+     * {@link #REJECTED} or {@link #EXPIRED} if the state is expired.
+     */
+    abstract int acquire(State state, int permits, long now);
+
+    /**
+     * Marks the state expired if it's as new at the time, after which any acquire
+     * on it returns {@link #EXPIRED}.
+     */
+    abstract boolean expire(State state, long now);
+
+    /**
+     * Tries to acquire a permit on the key.
+     *
+     * @param key the key to acquire on
+     * @return <tt>true</tt> if acquired, or <tt>false</tt> if limited
+     * @throws NullPointerException if the key is null
+     */
+    public boolean tryAcquire(K key) {
+        return tryAcquire(key, 1);
+    }
+
+    /**
+     * Tries to acquire the permits on the key, all or none.
+     *
+     * @param key     the key to acquire on
+     * @param permits the permits to acquire
+     * @return <tt>true</tt> if acquired, or <tt>false</tt> if limited
+     * @throws IllegalArgumentException if the permits is not positive
+     * @throws NullPointerException     if the key is null
+     */
+    public boolean tryAcquire(K key, int permits) {
+        if (null == key) throw new NullPointerException("key");
+        if (permits <= 0) throw new IllegalArgumentException("permits");
+        long now = System.nanoTime();
+        int result;
+        while (true) {
+            State state = states.get(key);
+            if (null == state) {
+                State created = newState(now);
+                state = states.putIfAbsent(key, created);
+                if (null == state) state = created;
+            }
+            result = acquire(state, permits, now);
+            if (EXPIRED != result) break;
+            // Expired by a sweep but not removed yet
+            states.remove(key, state);
+        }
+        if (ACQUIRED == result) acquiredCount.increment();
+        else rejectedCount.increment();
+        long sweepAt = nextSweep.get();
+        if (now - sweepAt >= 0L && nextSweep.compareAndSet(sweepAt, now + sweepNanos))
+            Runnables.executeAsync(this::expireIdle);
+        return ACQUIRED == result;
+    }
+
+    /**
+     * Removes the state of the key, as if no permit was acquired on it.
+     *
+     * @param key the key to reset
+     * @throws NullPointerException if the key is null
+     */
+    public void reset(K key) {
+        states.remove(key);
+    }
+
+    /**
+     * Expires the keys idle long enough that their states are as new. This is
+     * called in a sweep once an interval from the acquires, and may be called
+     * directly to release the keys earlier.
+     *
+     * @return the count of the keys expired
+     */
+    public int expireIdle() {
+        long now = System.nanoTime();
+        int expired = 0;
+        for (Map.Entry<K, State> entry : states.entrySet()) {
+            State state = entry.getValue();
+            if (expire(state, now) && states.remove(entry.getKey(), state)) expired++;
+        }
+        expiredCount.add(expired);
+        return expired;
+    }
+
+    /**
+     * Returns the count of the keys with a state now.
+     *
+     * @return the count of the keys
+     */
+    public int readKeyCount() {
+        return states.size();
+    }
+
+    /**
+     * Returns the count of the acquires allowed.
+     *
+     * @return the count of the acquires allowed
+     */
+    public long readAcquiredCount() {
+        return acquiredCount.sum();
+    }
+
+    /**
+     * Returns the count of the acquires limited.
+     *
+     * @return the count of the acquires limited
+     */
+    public long readRejectedCount() {
+        return rejectedCount.sum();
+    }
+
+    /**
+     * Returns the count of the idle keys expired.
+     *
+     * @return the count of the keys expired
+     */
+    public long readExpiredCount() {
+        return expiredCount.sum();
+    }
+
+    /**
+     * The limit state of a key, updated by its limiter.
+     *
+     * @author XuYanhang
+     */
+    abstract static class State {
+        State() {
+            super();
+        }
+    }
+
+    /**
+     * The limiter of the token buckets.
+     *
+     * @author XuYanhang
+     */
+    private static final class TokenBucketLimiter<K> extends KeyedRateLimiter<K> {
+        /**
+         * The arrival time of an expired bucket
+         */
+        private static final long DEAD = Long.MIN_VALUE;
+
+        private static final AtomicLongFieldUpdater<Bucket> ARRIVAL = AtomicLongFieldUpdater
+                .newUpdater(Bucket.class, "arrival");
+
+        private final long capacity;
+
+        /**
+         * Nanoseconds to refill a permit
+         */
+        private final long intervalNanos;
+
+        /**
+         * Nanoseconds of the permits in a full bucket
+         */
+        private final long toleranceNanos;
+
+        TokenBucketLimiter(long capacity, long intervalNanos) {
+            super(capacity * intervalNanos);
+            this.capacity = capacity;
+            this.intervalNanos = intervalNanos;
+            this.toleranceNanos = capacity * intervalNanos;
+        }
+
+        @Override
+        State newState(long now) {
+            return new Bucket(now);
+        }
+
+        @Override
+        int acquire(State state, int permits, long now) {
+            if (permits > capacity) return REJECTED;
+            Bucket bucket = (Bucket) state;
+            long cost = permits * intervalNanos;
+            while (true) {
+                long current = bucket.arrival;
+                if (DEAD == current) return EXPIRED;
+                long next = (current - now < 0L ? now : current) + cost;
+                if (next - now > toleranceNanos) return REJECTED;
+                if (ARRIVAL.compareAndSet(bucket, current, next)) return ACQUIRED;
+            }
+        }
+
+        @Override
+        boolean expire(State state, long now) {
+            Bucket bucket = (Bucket) state;
+            long current = bucket.arrival;
+            return DEAD != current && current - now <= 0L && ARRIVAL.compareAndSet(bucket, current, DEAD);
+        }
+
+        /**
+         * A bucket kept as the theoretical arrival time of the next permit, where
+         * the bucket is full if it's not after now, and empty if it's a full bucket
+         * after now.
+         *
+         * @author XuYanhang
+         */
+        private static final class Bucket extends State {
+            volatile long arrival;
+
+            Bucket(long now) {
+                super();
+                this.arrival = now;
+            }
+        }
+    }
+
+    /**
+     * The limiter of the sliding logs.
+     *
+     * @author XuYanhang
+     */
+    private static final class SlidingLogLimiter<K> extends KeyedRateLimiter<K> {
+        /**
+         * The cursor of an expired log
+         */
+        private static final long DEAD = -1L;
+
+        private static final AtomicLongFieldUpdater<Log> CURSOR = AtomicLongFieldUpdater.newUpdater(Log.class,
+                "cursor");
+
+        private final int permits;
+
+        private final long windowNanos;
+
+        SlidingLogLimiter(int permits, long windowNanos) {
+            super(windowNanos);
+            this.permits = permits;
+            this.windowNanos = windowNanos;
+        }
+
+        @Override
+        State newState(long now) {
+            return new Log(permits);
+        }
+
+        @Override
+        int acquire(State state, int count, long now) {
+            if (count > permits) return REJECTED;
+            Log log = (Log) state;
+            while (true) {
+                long current = log.cursor;
+                if (DEAD == current) return EXPIRED;
+                // The permits to replace are the ones a ring ahead
+                if (!isFree(log, current - permits, current - permits + count, now)) {
+                    if (current == log.cursor) return REJECTED;
+                    continue;
+                }
+                if (CURSOR.compareAndSet(log, current, current + count)) {
+                    for (long seq = current; seq < current + count; seq++) {
+                        int slot = (int) (seq % permits) << 1;
+                        log.slots.lazySet(slot + 1, now);
+                        log.slots.set(slot, seq);
+                    }
+                    return ACQUIRED;
+                }
+            }
+        }
+
+        @Override
+        boolean expire(State state, long now) {
+            Log log = (Log) state;
+            long current = log.cursor;
+            if (DEAD == current) return false;
+            // All the permits are published and out of the window
+            if (!isFree(log, current - permits, current, now)) return false;
+            return CURSOR.compareAndSet(log, current, DEAD);
+        }
+
+        /**
+         * Returns whether the permits in the sequences are all out of the window,
+         * where a permit not published yet is in.
+         */
+        private boolean isFree(Log log, long from, long to, long now) {
+            for (long seq = Math.max(0L, from); seq < to; seq++) {
+                int slot = (int) (seq % permits) << 1;
+                if (log.slots.get(slot) != seq || now - log.slots.get(slot + 1) < windowNanos) return false;
+            }
+            return true;
+        }
+
+        /**
+         * A ring of the last permits acquired, each slot as the sequence and the
+         * time of a permit. A permit is the next of the cursor, who is claimed by
+         * the CAS on the cursor and published by the sequence written after the
+         * time, so that a slot claimed but not published yet is never read as an
+         * old permit.
+         *
+         * @author XuYanhang
+         */
+        private static final class Log extends State {
+            /**
+             * The sequence of the next permit, or {@link #DEAD}
+             */
+            volatile long cursor;
+
+            /**
+             * Slot <code>i</code> at <code>2i</code> as the sequence and
+             * <code>2i+1</code> as the time
+             */
+            final AtomicLongArray slots;
+
+            Log(int permits) {
+                super();
+                slots = new AtomicLongArray(permits << 1);
+                // No permit published in any slot
+                for (int i = 0; i < permits; i++)
+                    slots.lazySet(i << 1, -1L);
+            }
+        }
+    }
+}
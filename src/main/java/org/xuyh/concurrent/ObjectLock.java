@@ -4,6 +4,9 @@
 
 package org.xuyh.concurrent;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
 /**
  * Sometimes, we need a lock but only for same object on
  * {@link Object#equals(Object) equals} as <code>true</code> instead of
@@ -86,10 +89,78 @@ public interface ObjectLock {
         return ObjectLockManager.GLOBAL_MANAGER.lock(lockKey);
     }
 
+    /**
+     * Lock on plural objects in a timeout. The keys are taken as
+     * {@link #lockx(Object...)} does.
+     *
+     * @param timeout the maximum time to wait for the lock
+     * @param unit    the time unit of the timeout argument
+     * @param lockKey the key of the lock who maybe be in plural values
+     * @return the {@link ObjectLock lock} from the key, or <code>null</code> if
+     * the waiting time elapsed before the lock got
+     * @throws InterruptedException if the current thread is interrupted while
+     *                              waiting
+     * @see ObjectLockManager#tryLockx(long, TimeUnit, Object...)
+     */
+    static ObjectLock tryLockx(long timeout, TimeUnit unit, Object... lockKey) throws InterruptedException {
+        return ObjectLockManager.GLOBAL_MANAGER.tryLockx(timeout, unit, lockKey);
+    }
+
+    /**
+     * Lock on an object if the lock is got in the timeout.
+     *
+     * @param lockKey the key of the lock
+     * @param timeout the maximum time to wait for the lock
+     * @param unit    the time unit of the timeout argument
+     * @return the {@link ObjectLock lock} from the key, or <code>null</code> if
+     * the waiting time elapsed before the lock got
+     * @throws InterruptedException if the current thread is interrupted while
+     *                              waiting
+     * @see ObjectLockManager#tryLock(Object, long, TimeUnit)
+     */
+    static ObjectLock tryLock(Object lockKey, long timeout, TimeUnit unit) throws InterruptedException {
+        return ObjectLockManager.GLOBAL_MANAGER.tryLock(lockKey, timeout, unit);
+    }
+
+    /**
+     * Lock on plural objects asynchronously without blocking the caller. The keys
+     * are taken as {@link #lockx(Object...)} does.
+     *
+     * @param lockKey the key of the lock who maybe be in plural values
+     * @return the future completed with the {@link ObjectLock lock} from the key
+     * @see ObjectLockManager#lockxAsync(Object...)
+     */
+    static CompletableFuture<ObjectLock> lockxAsync(Object... lockKey) {
+        return ObjectLockManager.GLOBAL_MANAGER.lockxAsync(lockKey);
+    }
+
+    /**
+     * Lock on an object asynchronously without blocking the caller. The lock
+     * completed belongs to no thread, so it can be released in any thread.
+     *
+     * @param lockKey the key of the lock
+     * @return the future completed with the {@link ObjectLock lock} from the key
+     * @see ObjectLockManager#lockAsync(Object)
+     */
+    static CompletableFuture<ObjectLock> lockAsync(Object lockKey) {
+        return ObjectLockManager.GLOBAL_MANAGER.lockAsync(lockKey);
+    }
+
+    /**
+     * Returns the contention metrics of the locks in the global scope.
+     *
+     * @return the metrics of the global locks
+     * @see ObjectLockManager#readMetrics()
+     */
+    static ObjectLockMetrics metrics() {
+        return ObjectLockManager.GLOBAL_MANAGER.readMetrics();
+    }
+
     /**
      * Release the lock. The unlock operation must be one-to-one for each lock
      * operation, and the current unlock thread must be the locking thread or an
-     * {@link IllegalMonitorStateException} thrown.
+     * {@link IllegalMonitorStateException} thrown. A lock got asynchronously can
+     * be released in any thread, but only once.
      *
      * @throws IllegalMonitorStateException if the current thread does not hold this
      *                                      lock
@@ -4,9 +4,18 @@
 
 package org.xuyh.concurrent;
 
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
-import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.AbstractQueuedSynchronizer;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
+import java.util.function.ObjIntConsumer;
+import java.util.function.Supplier;
 
 /**
  * An {@link ObjectLockManager} is the manager to lock in one key equal or
@@ -14,6 +23,32 @@ import java.util.concurrent.locks.ReentrantLock;
  * <code>true</code>. Different with {@link ObjectLock#lock(Object)} or
  * {@link ObjectLock#lockx(Object...)} where use locks in a global scope, you
  * can use this manager to do lock in no effects on each other.
+ * <p>
+ * By default, the manager creates a lock for each key in use and destroys it
+ * after the last unlock. A manager created by {@link #ObjectLockManager(int)}
+ * works in the striped mode instead: the keys are hashed onto a fixed table of
+ * preallocated locks, so locking allocates nothing, while different keys may
+ * share a stripe and block each other. In the striped mode, the
+ * {@link #lockx(Object...)} locks the stripe of each key in the stable order
+ * of the stripe index, so that it can't deadlock with another
+ * {@link #lockx(Object...)} of the same manager.
+ * <p>
+ * The {@link #readLock(Object)} and {@link #writeLock(Object)} provide shared
+ * and exclusive locks on a key, where the readers of a key don't block each
+ * other. They are created and destroyed with the keys in use like the default
+ * mode, and keep their own keys apart from the {@link #lock(Object)}, so a
+ * read or write lock never blocks a {@link #lock(Object)} of the same key. A
+ * reader tolerating an inconsistent read can also go through
+ * {@link #optimisticRead(Object, Supplier)} without locking at all.
+ * <p>
+ * Besides the blocking {@link #lock(Object)}, a lock can be tried in a timeout
+ * by {@link #tryLock(Object, long, TimeUnit)}, or be queued for without any
+ * thread waiting by {@link #lockAsync(Object)}. The same is provided for the
+ * plural keys by {@link #tryLockx(long, TimeUnit, Object...)} and
+ * {@link #lockxAsync(Object...)}.
+ * <p>
+ * The contention of the locks can be recorded in the {@link #readMetrics()
+ * metrics}, who are off by default.
  *
  * @author XuYanhang
  * @see ObjectLock
@@ -31,12 +66,70 @@ public final class ObjectLockManager {
      */
     private final ConcurrentHashMap<Object, ObjectLockImp> locks;
 
+    /**
+     * The preallocated locks in the striped mode, or <code>null</code> in the
+     * default mode. The length is a power of two.
+     */
+    private final StripeLock[] stripes;
+
+    /**
+     * The storage on all read-write locks.
+     */
+    private final ConcurrentHashMap<Object, ReadWriteLockImp> readWriteLocks;
+
+    /**
+     * The contention metrics of the locks.
+     */
+    private final ObjectLockMetrics metrics = new ObjectLockMetrics(this);
+
     /**
      * Create an instance
      */
     public ObjectLockManager() {
         super();
         locks = new ConcurrentHashMap<>();
+        stripes = null;
+        readWriteLocks = new ConcurrentHashMap<>();
+    }
+
+    /**
+     * Create an instance in the striped mode, whose keys share a fixed table of
+     * locks. The stripe count is rounded up to a power of two.
+     *
+     * @param stripeCount the minimum count of the stripes
+     * @throws IllegalArgumentException when the stripeCount is not positive or
+     *                                  more than <code>2^30</code>
+     */
+    public ObjectLockManager(int stripeCount) {
+        super();
+        if (stripeCount <= 0 || stripeCount > 1 << 30) throw new IllegalArgumentException("stripeCount");
+        int length = stripeCount == 1 ? 1 : Integer.highestOneBit(stripeCount - 1) << 1;
+        locks = null;
+        readWriteLocks = new ConcurrentHashMap<>();
+        stripes = new StripeLock[length];
+        for (int i = 0; i < length; i++)
+            stripes[i] = new StripeLock();
+    }
+
+    /**
+     * Returns the count of the stripes in the striped mode, or <code>0</code> in
+     * the default mode.
+     *
+     * @return the count of the stripes
+     */
+    public int readStripeCount() {
+        return null == stripes ? 0 : stripes.length;
+    }
+
+    /**
+     * Returns the contention metrics of the locks from this manager. The metrics
+     * are recorded only after {@link ObjectLockMetrics#setEnabled(boolean)
+     * enabled}.
+     *
+     * @return the metrics of this manager
+     */
+    public ObjectLockMetrics readMetrics() {
+        return metrics;
     }
 
     /**
@@ -54,6 +147,8 @@ public final class ObjectLockManager {
      * @see #lock(Object)
      */
     public ObjectLock lockx(Object... lockKey) {
+        if (null != stripes && null != lockKey && lockKey.length > 1)
+            return lockStripes(lockKey);
         if (null == lockKey || lockKey.length == 0)
             return lock(ObjectLockKey.EMPTY_KEY);
         if (lockKey.length == 1)
@@ -73,28 +168,444 @@ public final class ObjectLockManager {
     public ObjectLock lock(Object lockKey) {
         if (null == lockKey)
             lockKey = ObjectLockKey.NULL_KEY;
+        long begin = metrics.begin();
+        if (null != stripes) {
+            StripeLock stripe = stripes[stripeIndex(lockKey)];
+            stripe.sync.lock();
+            stripe.locked(lockKey, begin);
+            return stripe;
+        }
+        ObjectLockImp lock = holdLock(lockKey, true);
+        // When the lock is on a locked thread
+        if (lock.sync.isHeldExclusively()) {
+            lock.holdCountCurrentThread++;
+            return lock;
+        }
+        // Try lock this thread and wait until the lock get
+        lock.sync.lock();
+        // Thread locked
+        lock.holdCountCurrentThread = 1;
+        lock.lockedAt = metrics.acquired(lockKey, begin);
+        return lock;
+    }
+
+    /**
+     * Lock on plural objects in a timeout, the same as
+     * {@link #tryLock(Object, long, TimeUnit)} while the keys are taken as
+     * {@link #lockx(Object...)} does.
+     *
+     * @param timeout the maximum time to wait for the lock
+     * @param unit    the time unit of the timeout argument
+     * @param lockKey the key of the lock who maybe be in plural values
+     * @return the {@link ObjectLock lock} from the key, or <code>null</code> if
+     * the waiting time elapsed before the lock got
+     * @throws InterruptedException if the current thread is interrupted while
+     *                              waiting, and no lock is held then
+     * @throws NullPointerException if the unit is <code>null</code>
+     * @see #tryLock(Object, long, TimeUnit)
+     */
+    public ObjectLock tryLockx(long timeout, TimeUnit unit, Object... lockKey) throws InterruptedException {
+        if (null == unit) throw new NullPointerException("unit");
+        if (null != stripes && null != lockKey && lockKey.length > 1)
+            return tryLockStripes(lockKey, unit.toNanos(timeout));
+        if (null == lockKey || lockKey.length == 0)
+            return tryLock(ObjectLockKey.EMPTY_KEY, timeout, unit);
+        if (lockKey.length == 1)
+            return tryLock(lockKey[0], timeout, unit);
+        return tryLock(new ObjectLockKey(lockKey), timeout, unit);
+    }
+
+    /**
+     * Lock on an object if the lock is got in the timeout. The lock is the same
+     * as the one from {@link #lock(Object)}, but the current thread gives up
+     * when the time elapsed. A non-positive timeout never waits.
+     *
+     * @param lockKey the key of the lock
+     * @param timeout the maximum time to wait for the lock
+     * @param unit    the time unit of the timeout argument
+     * @return the {@link ObjectLock lock} from the key, or <code>null</code> if
+     * the waiting time elapsed before the lock got
+     * @throws InterruptedException if the current thread is interrupted while
+     *                              waiting, and no lock is held then
+     * @throws NullPointerException if the unit is <code>null</code>
+     * @see #lock(Object)
+     */
+    public ObjectLock tryLock(Object lockKey, long timeout, TimeUnit unit) throws InterruptedException {
+        if (null == unit) throw new NullPointerException("unit");
+        if (null == lockKey)
+            lockKey = ObjectLockKey.NULL_KEY;
+        long begin = metrics.begin();
+        if (null != stripes) {
+            StripeLock stripe = stripes[stripeIndex(lockKey)];
+            return stripe.tryLock(lockKey, unit.toNanos(timeout), begin);
+        }
+        ObjectLockImp lock = holdLock(lockKey, true);
+        // When the lock is on a locked thread
+        if (lock.sync.isHeldExclusively()) {
+            lock.holdCountCurrentThread++;
+            return lock;
+        }
+        boolean locked = false;
+        try {
+            locked = lock.sync.tryLock(unit.toNanos(timeout));
+        } finally {
+            // Give up the holding on timeout or interruption
+            if (!locked) lock.releaseHolding();
+        }
+        if (!locked) {
+            metrics.timedOut(begin);
+            return null;
+        }
+        lock.holdCountCurrentThread = 1;
+        lock.lockedAt = metrics.acquired(lockKey, begin);
+        return lock;
+    }
+
+    /**
+     * Lock on plural objects asynchronously, the same as
+     * {@link #lockAsync(Object)} while the keys are taken as
+     * {@link #lockx(Object...)} does. In the striped mode, the stripes are
+     * queued for one after another in the ASC order of the stripe index.
+     *
+     * @param lockKey the key of the lock who maybe be in plural values
+     * @return the future completed with the {@link ObjectLock lock} from the key
+     * @see #lockAsync(Object)
+     */
+    public CompletableFuture<ObjectLock> lockxAsync(Object... lockKey) {
+        if (null != stripes && null != lockKey && lockKey.length > 1)
+            return lockStripesAsync(lockKey);
+        if (null == lockKey || lockKey.length == 0)
+            return lockAsync(ObjectLockKey.EMPTY_KEY);
+        if (lockKey.length == 1)
+            return lockAsync(lockKey[0]);
+        return lockAsync(new ObjectLockKey(lockKey));
+    }
+
+    /**
+     * Lock on an object asynchronously. The caller is never blocked: the returned
+     * future is completed with the lock once it is got, in the caller thread if
+     * the lock is free now, or else in the thread who releases the lock, so the
+     * dependent actions not in async mode run in that thread.
+     * <p>
+     * The lock is excluded with the one from {@link #lock(Object)} on the same
+     * key, but it belongs to no thread: it is not reentrant, which means it is
+     * queued for even if the current thread holds the key already, and it can be
+     * released in any thread, but only once. Cancelling the future before it's
+     * completed gives up the queuing, and a lock completed into a cancelled
+     * future is released at once.
+     *
+     * @param lockKey the key of the lock
+     * @return the future completed with the {@link ObjectLock lock} from the key
+     * @see #lock(Object)
+     */
+    public CompletableFuture<ObjectLock> lockAsync(Object lockKey) {
+        if (null == lockKey)
+            lockKey = ObjectLockKey.NULL_KEY;
+        if (null != stripes)
+            return stripes[stripeIndex(lockKey)].sync.lockAsync(lockKey, metrics, null);
+        ObjectLockImp lock = holdLock(lockKey, false);
+        return lock.sync.lockAsync(lockKey, metrics, lock::releaseHolding);
+    }
+
+    /**
+     * Get the lock of a key or create one, and count the current thread in the
+     * holding threads of the lock so that it won't be destroyed. If the current
+     * thread locked the lock already and it's reentrant, the lock is returned
+     * without counting.
+     *
+     * @param lockKey   the key of the lock, never <code>null</code>
+     * @param reentrant whether a lock on the current thread is returned directly
+     * @return the lock of the key
+     */
+    private ObjectLockImp holdLock(Object lockKey, boolean reentrant) {
         ObjectLockImp lock;
         while (true) {
             // Get a lock or create one if it doesn't exist
             while ((lock = locks.get(lockKey)) == null)
                 locks.putIfAbsent(lockKey, new ObjectLockImp(lockKey));
             // When the lock is on a locked thread
-            if (lock.lock.isHeldByCurrentThread()) {
-                lock.holdCountCurrentThread++;
+            if (reentrant && lock.sync.isHeldExclusively())
                 return lock;
-            }
             // When the lock is on a new thread
             lock.holdThreadsCount.getAndIncrement();
             if (!lock.tryDestroying)
-                break;
+                return lock;
             // The lock is trying to do destroy in another thread
             lock.holdThreadsCount.getAndDecrement();
         }
-        // Try lock this thread and wait until the lock get
-        lock.lock.lock();
-        // Thread locked
-        lock.holdCountCurrentThread = 1;
-        return lock;
+    }
+
+    /**
+     * Lock on an object in shared mode and get the lock. Any number of threads can
+     * hold the read lock of a key together while no thread holds its write lock.
+     * The lock is reentrant and unfair. The object is expected to be unchangeable
+     * on the results of {@link #equals(Object)} and {@link #hashCode()}.
+     *
+     * @param lockKey the key of the lock
+     * @return the {@link ObjectLock lock} from the key
+     * @see #writeLock(Object)
+     */
+    public ObjectLock readLock(Object lockKey) {
+        ReadWriteLockImp lock = holdReadWriteLock(lockKey);
+        lock.lock.readLock().lock();
+        return lock.readView;
+    }
+
+    /**
+     * Lock on an object in exclusive mode and get the lock. Only one thread can
+     * hold the write lock of a key, and no thread holds its read lock meanwhile.
+     * The lock is reentrant and unfair, and the writer can take the read lock of
+     * the same key as well. The object is expected to be unchangeable on the
+     * results of {@link #equals(Object)} and {@link #hashCode()}.
+     *
+     * @param lockKey the key of the lock
+     * @return the {@link ObjectLock lock} from the key
+     * @see #readLock(Object)
+     */
+    public ObjectLock writeLock(Object lockKey) {
+        ReadWriteLockImp lock = holdReadWriteLock(lockKey);
+        lock.lock.writeLock().lock();
+        // Only the outermost write opens a new version for the optimistic readers
+        if (lock.lock.getWriteHoldCount() == 1)
+            lock.writeStamp = lock.version.writeLock();
+        return lock.writeView;
+    }
+
+    /**
+     * Read under a key optimistically. The reader runs without locking first, and
+     * its result is returned only if no write lock of the key was held during the
+     * run. Otherwise the reader runs again in the {@link #readLock(Object) read
+     * lock}. So the reader must tolerate the inconsistent state it may see in the
+     * first run, and must have no side effects.
+     *
+     * @param lockKey the key of the lock
+     * @param reader  the reader of the state guarded by the key
+     * @param <T>     Generic type of the result
+     * @return the result of the reader in a consistent state
+     * @throws NullPointerException if the reader is <code>null</code>
+     */
+    public <T> T optimisticRead(Object lockKey, Supplier<T> reader) {
+        if (null == reader) throw new NullPointerException("reader");
+        // Holding the lock keeps it from being destroyed so that the writes can be
+        // seen
+        ReadWriteLockImp lock = holdReadWriteLock(lockKey);
+        try {
+            long stamp = lock.version.tryOptimisticRead();
+            if (stamp != 0L) {
+                T result = reader.get();
+                if (lock.version.validate(stamp)) return result;
+            }
+            lock.lock.readLock().lock();
+            try {
+                return reader.get();
+            } finally {
+                lock.lock.readLock().unlock();
+            }
+        } finally {
+            releaseReadWriteLock(lock);
+        }
+    }
+
+    /**
+     * Get the read-write lock of a key or create one, and count a holding on it
+     * so that it won't be destroyed.
+     *
+     * @param lockKey the key of the lock
+     * @return the lock held
+     */
+    private ReadWriteLockImp holdReadWriteLock(Object lockKey) {
+        if (null == lockKey)
+            lockKey = ObjectLockKey.NULL_KEY;
+        ReadWriteLockImp lock;
+        while (true) {
+            // Get a lock or create one if it doesn't exist
+            while ((lock = readWriteLocks.get(lockKey)) == null)
+                readWriteLocks.putIfAbsent(lockKey, new ReadWriteLockImp(lockKey));
+            lock.holdCount.getAndIncrement();
+            if (!lock.tryDestroying)
+                return lock;
+            // The lock is trying to do destroy in another thread
+            lock.holdCount.getAndDecrement();
+        }
+    }
+
+    /**
+     * Count off a holding on the read-write lock, and destroy it when no more
+     * holding.
+     *
+     * @param lock the lock held
+     */
+    private void releaseReadWriteLock(ReadWriteLockImp lock) {
+        if (lock.holdCount.decrementAndGet() == 0) {
+            lock.tryDestroying = true;
+            // When another thread is trying to grab the lock
+            if (lock.holdCount.get() > 0) {
+                lock.tryDestroying = false;
+            } else {
+                readWriteLocks.remove(lock.lockKey, lock);
+            }
+        }
+    }
+
+    /**
+     * Lock the stripes of all the keys in the ASC order of the stripe index.
+     *
+     * @param lockKey the keys, more than one
+     * @return the lock on all the stripes
+     */
+    private ObjectLock lockStripes(Object[] lockKey) {
+        long begin = metrics.begin();
+        int[] indexes = stripeIndexes(lockKey);
+        if (indexes.length == 1) {
+            StripeLock stripe = stripes[indexes[0]];
+            stripe.sync.lock();
+            stripe.locked(lockKey, begin);
+            return stripe;
+        }
+        for (int i = 0; i < indexes.length; i++) {
+            try {
+                stripes[indexes[i]].sync.lock();
+            } catch (Throwable e) {
+                // Release the stripes locked before the failure
+                while (--i >= 0)
+                    stripes[indexes[i]].sync.unlock();
+                throw e;
+            }
+        }
+        return new MultiStripeLock(indexes, metrics.acquired(lockKey, begin));
+    }
+
+    /**
+     * Lock the stripes of all the keys in the ASC order of the stripe index,
+     * unless the timeout elapsed.
+     *
+     * @param lockKey the keys, more than one
+     * @param nanos   the maximum time to wait in nanoseconds
+     * @return the lock on all the stripes, or <code>null</code> on timeout
+     * @throws InterruptedException if the current thread is interrupted while
+     *                              waiting
+     */
+    private ObjectLock tryLockStripes(Object[] lockKey, long nanos) throws InterruptedException {
+        long begin = metrics.begin();
+        int[] indexes = stripeIndexes(lockKey);
+        if (indexes.length == 1)
+            return stripes[indexes[0]].tryLock(lockKey, nanos, begin);
+        final long deadline = System.nanoTime() + nanos;
+        for (int i = 0; i < indexes.length; i++) {
+            boolean locked = false;
+            try {
+                locked = stripes[indexes[i]].sync.tryLock(deadline - System.nanoTime());
+            } finally {
+                // Release the stripes locked before the timeout or failure
+                if (!locked)
+                    while (--i >= 0)
+                        stripes[indexes[i]].sync.unlock();
+            }
+            if (!locked) {
+                metrics.timedOut(begin);
+                return null;
+            }
+        }
+        return new MultiStripeLock(indexes, metrics.acquired(lockKey, begin));
+    }
+
+    /**
+     * Queue for the stripes of all the keys one after another in the ASC order
+     * of the stripe index.
+     *
+     * @param lockKey the keys, more than one
+     * @return the future completed with the lock on all the stripes
+     */
+    private CompletableFuture<ObjectLock> lockStripesAsync(Object[] lockKey) {
+        int[] indexes = stripeIndexes(lockKey);
+        if (indexes.length == 1)
+            return stripes[indexes[0]].sync.lockAsync(lockKey, metrics, null);
+        CompletableFuture<ObjectLock> result = new CompletableFuture<>();
+        lockStripesAsync(lockKey, indexes, 0, new ObjectLock[indexes.length], result);
+        return result;
+    }
+
+    /**
+     * Queue for the stripe at the position of the indexes, and then the next one
+     * once it's got.
+     */
+    private void lockStripesAsync(Object[] lockKey, int[] indexes, int position, ObjectLock[] held,
+                                  CompletableFuture<ObjectLock> result) {
+        stripes[indexes[position]].sync.lockAsync(lockKey, metrics, null).whenComplete((lock, e) -> {
+            if (null != e) {
+                unlockAll(held, position);
+                result.completeExceptionally(e);
+                return;
+            }
+            held[position] = lock;
+            if (position + 1 < held.length && !result.isDone()) {
+                lockStripesAsync(lockKey, indexes, position + 1, held, result);
+                return;
+            }
+            // Give back all the stripes if the result is cancelled
+            if (result.isDone() || !result.complete(() -> unlockAll(held, held.length)))
+                unlockAll(held, position + 1);
+        });
+    }
+
+    /**
+     * Release the first count of the locks in the reverse order of locking.
+     */
+    private static void unlockAll(ObjectLock[] held, int count) {
+        while (--count >= 0)
+            held[count].unlock();
+    }
+
+    /**
+     * Returns the sorted and distinct stripe indexes of the keys.
+     *
+     * @param lockKey the keys, more than one
+     * @return the stripe indexes in ASC order
+     */
+    private int[] stripeIndexes(Object[] lockKey) {
+        int[] indexes = new int[lockKey.length];
+        for (int i = 0; i < indexes.length; i++)
+            indexes[i] = stripeIndex(null == lockKey[i] ? ObjectLockKey.NULL_KEY : lockKey[i]);
+        Arrays.sort(indexes);
+        int count = 1;
+        for (int i = 1; i < indexes.length; i++)
+            if (indexes[i] != indexes[count - 1]) indexes[count++] = indexes[i];
+        return count == indexes.length ? indexes : Arrays.copyOf(indexes, count);
+    }
+
+    /**
+     * Visit the keys held by more than one thread or asynchronous holder, that's
+     * the ones with the holders waiting, and the count of the holders. In the
+     * striped mode, the stripes are visited instead.
+     *
+     * @param action the action on a key and its count of the holders
+     */
+    void forEachQueued(ObjIntConsumer<Object> action) {
+        if (null != stripes) {
+            for (int i = 0; i < stripes.length; i++) {
+                int count = stripes[i].sync.readQueueLength();
+                if (count > 1) action.accept("stripe#" + i, count);
+            }
+            return;
+        }
+        locks.forEach((lockKey, lock) -> {
+            int count = lock.holdThreadsCount.get();
+            if (count > 1) action.accept(lockKey, count);
+        });
+    }
+
+    /**
+     * Returns the stripe index of a key. The hash is spread so that the keys
+     * differing only in the high bits don't share the stripe.
+     *
+     * @param lockKey the key of the lock, never <code>null</code>
+     * @return the stripe index
+     */
+    private int stripeIndex(Object lockKey) {
+        int h = lockKey.hashCode();
+        h ^= (h >>> 20) ^ (h >>> 12);
+        h ^= (h >>> 7) ^ (h >>> 4);
+        return h & (stripes.length - 1);
     }
 
     /**
@@ -115,9 +626,9 @@ public final class ObjectLockManager {
         private final Object lockKey;
 
         /**
-         * The reentrant lock on this lock. It provides the block action.
+         * The synchronizer on this lock. It provides the block action.
          */
-        private final ReentrantLock lock;
+        private final KeyedSync sync;
 
         /**
          * A statistics value on threads count this lock is holding. It is concurrent
@@ -139,6 +650,12 @@ public final class ObjectLockManager {
          */
         private volatile boolean tryDestroying;
 
+        /**
+         * The time locked for the metrics, or <code>0</code> if not recorded. The
+         * value is visited only by the thread holding the lock.
+         */
+        private long lockedAt;
+
         /**
          * Initialize method but only private.
          *
@@ -147,7 +664,7 @@ public final class ObjectLockManager {
         private ObjectLockImp(Object lockKey) {
             super();
             this.lockKey = lockKey;
-            this.lock = new ReentrantLock();
+            this.sync = new KeyedSync();
             this.holdThreadsCount = new AtomicInteger(0);
             this.holdCountCurrentThread = 0;
             this.tryDestroying = false;
@@ -164,13 +681,24 @@ public final class ObjectLockManager {
         @Override
         public void unlock() {
             // An unlocked thread try release the lock
-            if (!lock.isHeldByCurrentThread())
+            if (!sync.isHeldExclusively())
                 throw new IllegalMonitorStateException(Thread.currentThread().getName());
             // The thread locked more than once and need locked still
             if (--holdCountCurrentThread > 0)
                 return;
             // Release the lock
-            lock.unlock();
+            long locked = lockedAt;
+            lockedAt = 0L;
+            sync.unlock();
+            metrics.released(locked);
+            releaseHolding();
+        }
+
+        /**
+         * Count off a holding thread or asynchronous holder of this lock, and
+         * destroy it when no more holding.
+         */
+        private void releaseHolding() {
             if (holdThreadsCount.decrementAndGet() == 0) {
                 tryDestroying = true;
                 // When another thread is trying to grab the lock
@@ -184,6 +712,380 @@ public final class ObjectLockManager {
 
     }
 
+    /**
+     * A read-write lock on a key with its read and write views.
+     *
+     * @author XuYanhang
+     */
+    private final class ReadWriteLockImp {
+        /**
+         * The key of the lock, never <code>null</code>.
+         */
+        private final Object lockKey;
+
+        /**
+         * The reentrant read-write lock on this lock. It provides the block action.
+         */
+        private final ReentrantReadWriteLock lock;
+
+        /**
+         * The version for the optimistic readers. It's write locked while the write
+         * lock is held.
+         */
+        private final StampedLock version;
+
+        /**
+         * The stamp of the {@link #version} from the outermost write lock. The value
+         * is visited only by the thread holding the write lock.
+         */
+        private long writeStamp;
+
+        /**
+         * A statistics value on the holdings of this lock, including each read or
+         * write lock and each optimistic read in progress.
+         */
+        private final AtomicInteger holdCount;
+
+        /**
+         * A flag on this lock if it is removing from the storage of
+         * {@link #readWriteLocks}.
+         */
+        private volatile boolean tryDestroying;
+
+        /**
+         * The lock to return for a read lock.
+         */
+        private final ObjectLock readView;
+
+        /**
+         * The lock to return for a write lock.
+         */
+        private final ObjectLock writeView;
+
+        private ReadWriteLockImp(Object lockKey) {
+            super();
+            this.lockKey = lockKey;
+            this.lock = new ReentrantReadWriteLock();
+            this.version = new StampedLock();
+            this.holdCount = new AtomicInteger(0);
+            this.tryDestroying = false;
+            this.readView = () -> {
+                if (lock.getReadHoldCount() == 0)
+                    throw new IllegalMonitorStateException(Thread.currentThread().getName());
+                lock.readLock().unlock();
+                releaseReadWriteLock(this);
+            };
+            this.writeView = () -> {
+                if (!lock.isWriteLockedByCurrentThread())
+                    throw new IllegalMonitorStateException(Thread.currentThread().getName());
+                if (lock.getWriteHoldCount() == 1)
+                    version.unlockWrite(writeStamp);
+                lock.writeLock().unlock();
+                releaseReadWriteLock(this);
+            };
+        }
+    }
+
+    /**
+     * A preallocated lock of a stripe, who is returned for all the keys hashed
+     * onto the stripe.
+     *
+     * @author XuYanhang
+     */
+    private final class StripeLock implements ObjectLock {
+        /**
+         * The reentrant synchronizer on this stripe. It provides the block action.
+         */
+        private final KeyedSync sync = new KeyedSync();
+
+        /**
+         * The time locked by the outermost lock for the metrics, or <code>0</code>
+         * if not recorded. The value is visited only by the thread holding the lock.
+         */
+        private long lockedAt;
+
+        /**
+         * Record the lock by the current thread just got.
+         */
+        private void locked(Object lockKey, long begin) {
+            if (sync.getHoldCount() == 1)
+                lockedAt = metrics.acquired(lockKey, begin);
+        }
+
+        /**
+         * Try the lock in the timeout and record it.
+         */
+        private StripeLock tryLock(Object lockKey, long nanos, long begin) throws InterruptedException {
+            if (!sync.tryLock(nanos)) {
+                metrics.timedOut(begin);
+                return null;
+            }
+            locked(lockKey, begin);
+            return this;
+        }
+
+        /**
+         * Release the lock. The unlock operation must be one-to-one for each lock
+         * operation, and the current unlock thread must be the locking thread or an
+         * {@link IllegalMonitorStateException} thrown.
+         *
+         * @throws IllegalMonitorStateException if the current thread does not hold this
+         *                                      lock
+         */
+        @Override
+        public void unlock() {
+            if (!sync.isHeldExclusively())
+                throw new IllegalMonitorStateException(Thread.currentThread().getName());
+            long locked = 0L;
+            if (sync.getHoldCount() == 1) {
+                locked = lockedAt;
+                lockedAt = 0L;
+            }
+            sync.unlock();
+            metrics.released(locked);
+        }
+    }
+
+    /**
+     * A lock on plural stripes from {@link #lockx(Object[])} in the striped mode.
+     *
+     * @author XuYanhang
+     */
+    private final class MultiStripeLock implements ObjectLock {
+        /**
+         * The locked stripe indexes in ASC order.
+         */
+        private final int[] indexes;
+
+        /**
+         * The time locked for the metrics, or <code>0</code> if not recorded.
+         */
+        private final long lockedAt;
+
+        private MultiStripeLock(int[] indexes, long lockedAt) {
+            super();
+            this.indexes = indexes;
+            this.lockedAt = lockedAt;
+        }
+
+        /**
+         * Release all the stripes in the reverse order of locking. The current
+         * thread must hold all of them or an {@link IllegalMonitorStateException}
+         * thrown while nothing released.
+         *
+         * @throws IllegalMonitorStateException if the current thread does not hold this
+         *                                      lock
+         */
+        @Override
+        public void unlock() {
+            for (int index : indexes)
+                if (!stripes[index].sync.isHeldExclusively())
+                    throw new IllegalMonitorStateException(Thread.currentThread().getName());
+            for (int i = indexes.length - 1; i >= 0; i--)
+                stripes[indexes[i]].sync.unlock();
+            metrics.released(lockedAt);
+        }
+    }
+
+    /**
+     * The synchronizer behind a key or a stripe. It's held either by a thread in
+     * reentrant way, or by an {@link AsyncLock} who belongs to no thread, and
+     * the asynchronous holders are queued apart from the waiting threads, who
+     * compete for the lock unfairly once it's released.
+     *
+     * @author XuYanhang
+     */
+    private static final class KeyedSync extends AbstractQueuedSynchronizer {
+        /**
+         * The argument to release the lock held by an asynchronous holder.
+         */
+        private static final int ASYNC_RELEASE = 0;
+
+        /**
+         * The asynchronous holders waiting for the lock.
+         */
+        private final ConcurrentLinkedQueue<AsyncLock> asyncWaiters = new ConcurrentLinkedQueue<>();
+
+        /**
+         * The count of the granting requests not handled, where only the thread
+         * raising it from zero does the granting.
+         */
+        private final AtomicInteger granting = new AtomicInteger();
+
+        @Override
+        protected boolean tryAcquire(int acquires) {
+            Thread current = Thread.currentThread();
+            int c = getState();
+            if (c == 0) {
+                if (compareAndSetState(0, acquires)) {
+                    setExclusiveOwnerThread(current);
+                    return true;
+                }
+            } else if (current == getExclusiveOwnerThread()) {
+                setState(c + acquires);
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        protected boolean tryRelease(int releases) {
+            if (releases == ASYNC_RELEASE) {
+                setState(0);
+                return true;
+            }
+            if (Thread.currentThread() != getExclusiveOwnerThread())
+                throw new IllegalMonitorStateException(Thread.currentThread().getName());
+            int c = getState() - releases;
+            boolean free = c == 0;
+            if (free) setExclusiveOwnerThread(null);
+            setState(c);
+            return free;
+        }
+
+        @Override
+        protected boolean isHeldExclusively() {
+            return getExclusiveOwnerThread() == Thread.currentThread();
+        }
+
+        void lock() {
+            acquire(1);
+        }
+
+        boolean tryLock(long nanos) throws InterruptedException {
+            return tryAcquire(1) || nanos > 0L && tryAcquireNanos(1, nanos);
+        }
+
+        void unlock() {
+            if (release(1)) grantAsync();
+        }
+
+        /**
+         * Returns the count of the current thread holding the lock.
+         */
+        int getHoldCount() {
+            return isHeldExclusively() ? getState() : 0;
+        }
+
+        /**
+         * Returns the count of the holder and the waiters, an estimate.
+         */
+        int readQueueLength() {
+            return (getState() == 0 ? 0 : 1) + getQueueLength() + asyncWaiters.size();
+        }
+
+        /**
+         * Queue an asynchronous holder for the lock.
+         *
+         * @param lockKey   the key to lock, for the metrics
+         * @param metrics   the metrics to record the lock
+         * @param onRelease the action after the holder released or gave up the lock
+         * @return the future completed with the holder once it holds the lock
+         */
+        CompletableFuture<ObjectLock> lockAsync(Object lockKey, ObjectLockMetrics metrics, Runnable onRelease) {
+            AsyncLock waiter = new AsyncLock(this, lockKey, metrics, onRelease);
+            asyncWaiters.add(waiter);
+            waiter.future.whenComplete((lock, e) -> {
+                // Given up before the lock got
+                if (null != e && asyncWaiters.remove(waiter))
+                    waiter.release();
+            });
+            grantAsync();
+            return waiter.future;
+        }
+
+        void unlockAsync() {
+            release(ASYNC_RELEASE);
+            grantAsync();
+        }
+
+        /**
+         * Hand the lock to the queued asynchronous holders while it's free. Every
+         * release and every queuing comes here, so a holder queued is never missed.
+         * A holder may be released in the completion of its future, so the granting
+         * in the completion is left to the outer loop instead of going deeper.
+         */
+        private void grantAsync() {
+            if (granting.getAndIncrement() != 0) return;
+            int missed = 1;
+            do {
+                while (!asyncWaiters.isEmpty() && compareAndSetState(0, 1)) {
+                    AsyncLock waiter = asyncWaiters.poll();
+                    if (null != waiter && waiter.grant())
+                        break;
+                    release(ASYNC_RELEASE);
+                    // The future is completed by others before the lock got
+                    if (null != waiter) waiter.release();
+                }
+            } while ((missed = granting.addAndGet(-missed)) != 0);
+        }
+
+        private static final long serialVersionUID = -2405162813479165023L;
+    }
+
+    /**
+     * A lock from {@link KeyedSync#lockAsync(Object, ObjectLockMetrics, Runnable)}
+     * who belongs to no thread.
+     * It can be released in any thread but only once.
+     *
+     * @author XuYanhang
+     */
+    private static final class AsyncLock implements ObjectLock {
+        private final KeyedSync sync;
+        private final Object lockKey;
+        private final ObjectLockMetrics metrics;
+        private final Runnable onRelease;
+        private final CompletableFuture<ObjectLock> future = new CompletableFuture<>();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        /**
+         * The time queued and the time locked for the metrics, or <code>0</code> if
+         * not recorded.
+         */
+        private final long begin;
+        private volatile long lockedAt;
+
+        private AsyncLock(KeyedSync sync, Object lockKey, ObjectLockMetrics metrics, Runnable onRelease) {
+            super();
+            this.sync = sync;
+            this.lockKey = lockKey;
+            this.metrics = metrics;
+            this.onRelease = onRelease;
+            this.begin = metrics.begin();
+        }
+
+        /**
+         * Complete the future with this lock just got.
+         *
+         * @return <tt>false</tt> if the future is completed by others already
+         */
+        private boolean grant() {
+            if (future.isDone()) return false;
+            lockedAt = metrics.acquired(lockKey, begin);
+            return future.complete(this);
+        }
+
+        /**
+         * Release the lock in any thread. The unlock operation must be called only
+         * once or an {@link IllegalMonitorStateException} thrown.
+         *
+         * @throws IllegalMonitorStateException if the lock is released already
+         */
+        @Override
+        public void unlock() {
+            if (!released.compareAndSet(false, true))
+                throw new IllegalMonitorStateException(Thread.currentThread().getName());
+            long locked = lockedAt;
+            sync.unlockAsync();
+            metrics.released(locked);
+            release();
+        }
+
+        private void release() {
+            if (null != onRelease) onRelease.run();
+        }
+    }
+
     /**
      * The plural object values as a lock key.
      *
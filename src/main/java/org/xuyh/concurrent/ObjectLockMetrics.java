@@ -0,0 +1,395 @@
+/*
+ * Copyright (c) 2020-2023 XuYanhang
+ */
+
+package org.xuyh.concurrent;
+
+import java.beans.ConstructorProperties;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+/**
+ * The contention metrics of the locks from an {@link ObjectLockManager}. The
+ * metrics are off by default, when a lock costs only a volatile read on them.
+ * Once enabled, each lock records:
+ * <ul>
+ * <li>the time waited and the time held, into histograms in power-of-two
+ * buckets of microseconds;</li>
+ * <li>the acquisition, into a counter and a ring of per-second counters for
+ * the recent rate;</li>
+ * <li>one in {@link #SAMPLE_INTERVAL} acquisitions, the key and the time waited
+ * as a sample of the hot keys.</li>
+ * </ul>
+ * The read-write locks from {@link ObjectLockManager#readLock(Object)} and
+ * {@link ObjectLockManager#writeLock(Object)} are not recorded.
+ * <p>
+ * The metrics are exposed in JMX after {@link #registerMBean(ObjectName)}.
+ *
+ * @author XuYanhang
+ * @see ObjectLockManager#readMetrics()
+ * @since 2020-10-30
+ */
+public final class ObjectLockMetrics implements ObjectLockMetricsMXBean {
+    /**
+     * Count of the buckets in a histogram.
+     */
+    static final int BUCKET_COUNT = 32;
+
+    /**
+     * One in the count of acquisitions is sampled for the hot keys.
+     */
+    static final int SAMPLE_INTERVAL = 8;
+
+    /**
+     * Maximum count of the sampled keys tracked. The less sampled half is
+     * dropped once it's full.
+     */
+    static final int MAX_TRACKED_KEYS = 1024;
+
+    /**
+     * Count of the keys listed in the hot keys or the queued keys.
+     */
+    static final int TOP_KEYS = 16;
+
+    /**
+     * Seconds to average the recent acquisitions per second on.
+     */
+    static final int RATE_SECONDS = 10;
+
+    /**
+     * Length of the ring of per-second counters, a power of two larger than the
+     * {@link #RATE_SECONDS}.
+     */
+    private static final int RATE_RING = 16;
+
+    /**
+     * The manager recorded.
+     */
+    private final ObjectLockManager manager;
+
+    private volatile boolean enabled;
+
+    private final LongAdder acquisitions = new LongAdder();
+
+    private final LongAdder timeouts = new LongAdder();
+
+    private final LongAdder[] waitTimes = newBuckets();
+
+    private final LongAdder[] holdTimes = newBuckets();
+
+    /**
+     * The second of each counter in the {@link #secondCounts}.
+     */
+    private final AtomicLongArray seconds = new AtomicLongArray(RATE_RING);
+
+    /**
+     * The acquisitions of each second in the ring.
+     */
+    private final AtomicLongArray secondCounts = new AtomicLongArray(RATE_RING);
+
+    /**
+     * The sampled keys in string, with the samples and the time waited.
+     */
+    private final ConcurrentHashMap<String, AtomicLong[]> sampledKeys = new ConcurrentHashMap<>();
+
+    ObjectLockMetrics(ObjectLockManager manager) {
+        super();
+        this.manager = manager;
+    }
+
+    private static LongAdder[] newBuckets() {
+        LongAdder[] buckets = new LongAdder[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++)
+            buckets[i] = new LongAdder();
+        return buckets;
+    }
+
+    /**
+     * Returns the bucket of a time, where the bucket <code>i</code> holds the
+     * time less than <code>2^i</code> microseconds but not less than
+     * <code>2^(i-1)</code>.
+     */
+    private static int bucketOf(long nanos) {
+        long micros = nanos / 1000L;
+        return Math.min(BUCKET_COUNT - 1, Long.SIZE - Long.numberOfLeadingZeros(micros));
+    }
+
+    /*
+     * Recording from the manager
+     */
+
+    /**
+     * Returns the time to start waiting a lock, or <code>0</code> when the metrics
+     * are not recorded.
+     */
+    long begin() {
+        return enabled ? System.nanoTime() | 1L : 0L;
+    }
+
+    /**
+     * Record an acquisition started at the time from {@link #begin()}.
+     *
+     * @param lockKey the key locked, or the array of the keys
+     * @param begin   the time from {@link #begin()}
+     * @return the time locked to pass to {@link #released(long)}, or
+     * <code>0</code> when not recorded
+     */
+    long acquired(Object lockKey, long begin) {
+        if (begin == 0L) return 0L;
+        long now = System.nanoTime();
+        long waited = now - begin;
+        acquisitions.increment();
+        waitTimes[bucketOf(waited)].increment();
+        long second = TimeUnit.NANOSECONDS.toSeconds(now);
+        int slot = (int) second & (RATE_RING - 1);
+        long slotSecond = seconds.get(slot);
+        // The first in a new second resets the counter, a few racing counts lost
+        if (slotSecond != second && seconds.compareAndSet(slot, slotSecond, second))
+            secondCounts.set(slot, 0L);
+        secondCounts.incrementAndGet(slot);
+        if (ThreadLocalRandom.current().nextInt(SAMPLE_INTERVAL) == 0)
+            sample(lockKey, waited);
+        return now | 1L;
+    }
+
+    /**
+     * Record a release of the lock acquired at the time from
+     * {@link #acquired(Object, long)}.
+     */
+    void released(long lockedAt) {
+        if (lockedAt == 0L) return;
+        holdTimes[bucketOf(System.nanoTime() - lockedAt)].increment();
+    }
+
+    /**
+     * Record a lock not acquired in the timeout.
+     */
+    void timedOut(long begin) {
+        if (begin == 0L) return;
+        timeouts.increment();
+        waitTimes[bucketOf(System.nanoTime() - begin)].increment();
+    }
+
+    private void sample(Object lockKey, long waited) {
+        String key = lockKey instanceof Object[] ? Arrays.deepToString((Object[]) lockKey) : String.valueOf(lockKey);
+        AtomicLong[] counters = sampledKeys.get(key);
+        if (null == counters) {
+            if (sampledKeys.size() >= MAX_TRACKED_KEYS) dropColdKeys();
+            counters = sampledKeys.computeIfAbsent(key, k -> new AtomicLong[]{new AtomicLong(), new AtomicLong()});
+        }
+        counters[0].incrementAndGet();
+        counters[1].addAndGet(waited);
+    }
+
+    /**
+     * Drop the less sampled half of the keys tracked.
+     */
+    private synchronized void dropColdKeys() {
+        if (sampledKeys.size() < MAX_TRACKED_KEYS) return;
+        long[] samples = new long[sampledKeys.size()];
+        int count = 0;
+        for (AtomicLong[] counters : sampledKeys.values())
+            if (count < samples.length) samples[count++] = counters[0].get();
+        Arrays.sort(samples, 0, count);
+        long median = samples[count >>> 1];
+        sampledKeys.values().removeIf(counters -> counters[0].get() <= median);
+    }
+
+    /*
+     * Management
+     */
+
+    @Override
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    @Override
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    @Override
+    public long getAcquisitions() {
+        return acquisitions.sum();
+    }
+
+    @Override
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    @Override
+    public double getAcquisitionsPerSecond() {
+        long current = TimeUnit.NANOSECONDS.toSeconds(System.nanoTime());
+        long total = 0L;
+        // The current second is not complete yet
+        for (long second = current - RATE_SECONDS; second < current; second++) {
+            int slot = (int) second & (RATE_RING - 1);
+            if (seconds.get(slot) == second) total += secondCounts.get(slot);
+        }
+        return (double) total / RATE_SECONDS;
+    }
+
+    @Override
+    public long[] getHistogramBoundsMicros() {
+        long[] bounds = new long[BUCKET_COUNT - 1];
+        for (int i = 0; i < bounds.length; i++)
+            bounds[i] = 1L << i;
+        return bounds;
+    }
+
+    @Override
+    public long[] getWaitTimeHistogram() {
+        return sumBuckets(waitTimes);
+    }
+
+    @Override
+    public long[] getHoldTimeHistogram() {
+        return sumBuckets(holdTimes);
+    }
+
+    private static long[] sumBuckets(LongAdder[] buckets) {
+        long[] sums = new long[BUCKET_COUNT];
+        for (int i = 0; i < BUCKET_COUNT; i++)
+            sums[i] = buckets[i].sum();
+        return sums;
+    }
+
+    @Override
+    public List<HotKey> getHotKeys() {
+        List<HotKey> keys = new ArrayList<>(sampledKeys.size());
+        for (Map.Entry<String, AtomicLong[]> entry : sampledKeys.entrySet()) {
+            AtomicLong[] counters = entry.getValue();
+            keys.add(new HotKey(entry.getKey(), counters[0].get(), TimeUnit.NANOSECONDS.toMicros(counters[1].get())));
+        }
+        keys.sort(Comparator.comparingLong(HotKey::getWaitMicros).thenComparingLong(HotKey::getSamples).reversed());
+        return keys.size() > TOP_KEYS ? new ArrayList<>(keys.subList(0, TOP_KEYS)) : keys;
+    }
+
+    @Override
+    public List<QueuedKey> getQueuedKeys() {
+        List<QueuedKey> keys = new ArrayList<>();
+        manager.forEachQueued((key, queueLength) -> keys.add(new QueuedKey(String.valueOf(key), queueLength)));
+        keys.sort(Comparator.comparingInt(QueuedKey::getQueueLength).reversed());
+        return keys.size() > TOP_KEYS ? new ArrayList<>(keys.subList(0, TOP_KEYS)) : keys;
+    }
+
+    @Override
+    public void reset() {
+        acquisitions.reset();
+        timeouts.reset();
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            waitTimes[i].reset();
+            holdTimes[i].reset();
+        }
+        for (int i = 0; i < RATE_RING; i++)
+            secondCounts.set(i, 0L);
+        sampledKeys.clear();
+    }
+
+    /**
+     * Register the metrics to the platform MBean server.
+     *
+     * @param name the name of the MBean
+     * @throws JMException if the registration failed
+     */
+    public void registerMBean(ObjectName name) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, name);
+    }
+
+    /**
+     * Unregister the metrics from the platform MBean server.
+     *
+     * @param name the name of the MBean
+     * @throws JMException if the registration failed
+     */
+    public void unregisterMBean(ObjectName name) throws JMException {
+        ManagementFactory.getPlatformMBeanServer().unregisterMBean(name);
+    }
+
+    /**
+     * A key sampled with the total time waited in the samples.
+     *
+     * @author XuYanhang
+     */
+    public static final class HotKey {
+        private final String key;
+        private final long samples;
+        private final long waitMicros;
+
+        @ConstructorProperties({"key", "samples", "waitMicros"})
+        public HotKey(String key, long samples, long waitMicros) {
+            super();
+            this.key = key;
+            this.samples = samples;
+            this.waitMicros = waitMicros;
+        }
+
+        /**
+         * @return the key in string
+         */
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * @return the count of the samples on the key
+         */
+        public long getSamples() {
+            return samples;
+        }
+
+        /**
+         * @return the total time waited in the samples in microseconds
+         */
+        public long getWaitMicros() {
+            return waitMicros;
+        }
+    }
+
+    /**
+     * A key with the count of the holders and the waiters on it now. In the
+     * striped mode, the key is a stripe.
+     *
+     * @author XuYanhang
+     */
+    public static final class QueuedKey {
+        private final String key;
+        private final int queueLength;
+
+        @ConstructorProperties({"key", "queueLength"})
+        public QueuedKey(String key, int queueLength) {
+            super();
+            this.key = key;
+            this.queueLength = queueLength;
+        }
+
+        /**
+         * @return the key in string
+         */
+        public String getKey() {
+            return key;
+        }
+
+        /**
+         * @return the count of the holders and the waiters
+         */
+        public int getQueueLength() {
+            return queueLength;
+        }
+    }
+}
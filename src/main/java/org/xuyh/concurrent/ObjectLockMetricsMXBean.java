@@ -0,0 +1,95 @@
+/*
+ * Copyright (c) 2020-2023 XuYanhang
+ */
+
+package org.xuyh.concurrent;
+
+import java.util.List;
+
+/**
+ * The management interface of the {@link ObjectLockMetrics}, who exposes the
+ * contention of the locks from an {@link ObjectLockManager} in JMX.
+ *
+ * @author XuYanhang
+ * @see ObjectLockMetrics
+ * @since 2020-10-30
+ */
+public interface ObjectLockMetricsMXBean {
+    /**
+     * Returns whether the metrics are recorded.
+     *
+     * @return <tt>true</tt> if the metrics are recorded
+     */
+    boolean isEnabled();
+
+    /**
+     * Start or stop recording the metrics. The metrics recorded are kept when
+     * stopped.
+     *
+     * @param enabled <tt>true</tt> to record the metrics
+     */
+    void setEnabled(boolean enabled);
+
+    /**
+     * Returns the count of the locks acquired.
+     *
+     * @return the count of the locks acquired
+     */
+    long getAcquisitions();
+
+    /**
+     * Returns the count of the locks not acquired in the timeout.
+     *
+     * @return the count of the timeout
+     */
+    long getTimeouts();
+
+    /**
+     * Returns the average count of the locks acquired per second in the recent
+     * seconds.
+     *
+     * @return the acquisitions per second
+     */
+    double getAcquisitionsPerSecond();
+
+    /**
+     * Returns the upper bounds in microseconds of the buckets of the
+     * histograms, exclusive. The last bucket has no upper bound.
+     *
+     * @return the upper bounds of the buckets
+     */
+    long[] getHistogramBoundsMicros();
+
+    /**
+     * Returns the histogram of the time waited for the locks.
+     *
+     * @return the count of the acquisitions in each bucket
+     */
+    long[] getWaitTimeHistogram();
+
+    /**
+     * Returns the histogram of the time the locks held.
+     *
+     * @return the count of the releases in each bucket
+     */
+    long[] getHoldTimeHistogram();
+
+    /**
+     * Returns the sampled keys who waited the longest in total.
+     *
+     * @return the statistics of the hot keys in DESC order
+     */
+    List<ObjectLockMetrics.HotKey> getHotKeys();
+
+    /**
+     * Returns the keys with the most holders and waiters now.
+     *
+     * @return the statistics of the keys queued in DESC order
+     */
+    List<ObjectLockMetrics.QueuedKey> getQueuedKeys();
+
+    /**
+     * Clear all the metrics recorded.
+     */
+    void reset();
+}
@@ -0,0 +1,555 @@
+/*
+ * Copyright (c) 2020-2023 XuYanhang
+ */
+
+package org.xuyh.concurrent;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicLongFieldUpdater;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A bounded queue on a ring buffer preallocated, who passes the elements
+ * between threads without any lock or any node allocated per element. The
+ * capacity is rounded up to a power of two, and the sequences of the
+ * producers and the consumers are padded in their own cache lines, so that
+ * the two sides don't invalidate each other by false sharing.
+ * <p>
+ * A queue is created for the count of its producers and consumers:
+ * <ul>
+ * <li>{@link #spsc(int, WaitStrategy)} for one producer thread and one
+ * consumer thread, who only write their own sequence;</li>
+ * <li>{@link #mpsc(int, WaitStrategy)} for any producer threads and one
+ * consumer thread, where the producers claim the slots by CAS;</li>
+ * <li>{@link #mpmc(int, WaitStrategy)} for any threads on both sides, where
+ * each slot has its own sequence.</li>
+ * </ul>
+ * Using a queue with more threads than it's created for corrupts it. The
+ * blocking methods wait in the {@link WaitStrategy} of the queue rather than
+ * on a lock, and the {@link #drainTo(Collection, int)} takes a batch of the
+ * elements with a single update on the sequence where it can.
+ * <p>
+ * The {@link #iterator()} walks a snapshot of the elements from the head to
+ * the tail, weakly consistent as an element may be taken by any thread in the
+ * middle, and the removal of an element inside the queue is not supported, so
+ * neither is {@link #remove(Object)}. The {@link #size()} is an estimate when
+ * the queue is used concurrently.
+ *
+ * @param <E> type of the elements
+ * @author XuYanhang
+ * @since 2020-11-09
+ */
+public abstract class RingBufferQueue<E> extends AbstractQueue<E> implements BlockingQueue<E> {
+    /**
+     * Max capacity of a queue
+     */
+    static final int MAX_CAPACITY = 1 << 30;
+
+    /**
+     * The elements in the slots, <code>null</code> if empty
+     */
+    final AtomicReferenceArray<E> buffer;
+
+    final int mask;
+
+    final WaitStrategy waitStrategy;
+
+    /**
+     * Sequence of the next slot to put
+     */
+    final Sequence tail = new Sequence();
+
+    /**
+     * Sequence of the next slot to take
+     */
+    final Sequence head = new Sequence();
+
+    RingBufferQueue(int capacity, WaitStrategy waitStrategy) {
+        super();
+        if (capacity <= 0 || capacity > MAX_CAPACITY) throw new IllegalArgumentException("capacity");
+        if (null == waitStrategy) throw new NullPointerException("waitStrategy");
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        buffer = new AtomicReferenceArray<>(size);
+        mask = size - 1;
+        this.waitStrategy = waitStrategy;
+    }
+
+    /**
+     * Creates a queue for one producer thread and one consumer thread.
+     *
+     * @param capacity     the min capacity, rounded up to a power of two
+     * @param waitStrategy the way to wait in the blocking methods
+     * @param <E>          type of the elements
+     * @return a new queue
+     * @throws IllegalArgumentException if the capacity is not in
+     *                                  <code>[1, 2^30]</code>
+     * @throws NullPointerException     if the waitStrategy is null
+     */
+    public static <E> RingBufferQueue<E> spsc(int capacity, WaitStrategy waitStrategy) {
+        return new Spsc<>(capacity, waitStrategy);
+    }
+
+    /**
+     * Creates a queue for any producer threads and one consumer thread.
+     *
+     * @param capacity     the min capacity, rounded up to a power of two
+     * @param waitStrategy the way to wait in the blocking methods
+     * @param <E>          type of the elements
+     * @return a new queue
+     * @throws IllegalArgumentException if the capacity is not in
+     *                                  <code>[1, 2^30]</code>
+     * @throws NullPointerException     if the waitStrategy is null
+     */
+    public static <E> RingBufferQueue<E> mpsc(int capacity, WaitStrategy waitStrategy) {
+        return new Mpsc<>(capacity, waitStrategy);
+    }
+
+    /**
+     * Creates a queue for any producer threads and any consumer threads.
+     *
+     * @param capacity     the min capacity, rounded up to a power of two
+     * @param waitStrategy the way to wait in the blocking methods
+     * @param <E>          type of the elements
+     * @return a new queue
+     * @throws IllegalArgumentException if the capacity is not in
+     *                                  <code>[1, 2^30]</code>
+     * @throws NullPointerException     if the waitStrategy is null
+     */
+    public static <E> RingBufferQueue<E> mpmc(int capacity, WaitStrategy waitStrategy) {
+        return new Mpmc<>(capacity, waitStrategy);
+    }
+
+    /**
+     * Returns the count of the slots, a power of two.
+     *
+     * @return the capacity
+     */
+    public int readCapacity() {
+        return mask + 1;
+    }
+
+    @Override
+    public int size() {
+        // Read the head first, so the size is never negative but when it's lapped
+        long h = head.get();
+        long size = tail.get() - h;
+        return (int) Math.max(0L, Math.min(size, mask + 1L));
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return tail.get() == head.get();
+    }
+
+    @Override
+    public int remainingCapacity() {
+        return mask + 1 - size();
+    }
+
+    @Override
+    public E peek() {
+        return buffer.get((int) head.get() & mask);
+    }
+
+    /**
+     * Returns an iterator on a snapshot of the elements from the head to the
+     * tail, read when it's created. It's weakly consistent: an element taken
+     * while reading is left out, and an element put after the tail read is not
+     * seen. The iterator doesn't support the removal.
+     *
+     * @return an iterator on a snapshot of the elements in this queue
+     */
+    @Override
+    public Iterator<E> iterator() {
+        long h = head.get();
+        long t = Math.min(tail.get(), h + mask + 1L);
+        ArrayList<E> snapshot = new ArrayList<>((int) Math.max(0L, t - h));
+        for (long seq = h; seq < t; seq++) {
+            E e = buffer.get((int) seq & mask);
+            // Not published yet, or taken and maybe replaced by a later lap
+            if (null == e || head.get() > seq) continue;
+            snapshot.add(e);
+        }
+        return Collections.unmodifiableList(snapshot).iterator();
+    }
+
+    /**
+     * Not supported, as an element inside the queue can't be removed without a
+     * lock.
+     *
+     * @throws UnsupportedOperationException always
+     */
+    @Override
+    public boolean remove(Object o) {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public String toString() {
+        return getClass().getSuperclass().getSimpleName() + "[size=" + size() + ", capacity=" + (mask + 1) + "]";
+    }
+
+    @Override
+    public void put(E e) throws InterruptedException {
+        if (null == e) throw new NullPointerException();
+        for (int idle = 0; !offer(e); idle = waitStrategy.idle(idle))
+            if (Thread.interrupted()) throw new InterruptedException();
+    }
+
+    @Override
+    public boolean offer(E e, long timeout, TimeUnit unit) throws InterruptedException {
+        if (null == e) throw new NullPointerException();
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (int idle = 0; !offer(e); idle = waitStrategy.idle(idle)) {
+            if (Thread.interrupted()) throw new InterruptedException();
+            if (deadline - System.nanoTime() <= 0L) return false;
+        }
+        return true;
+    }
+
+    @Override
+    public E take() throws InterruptedException {
+        E e;
+        for (int idle = 0; null == (e = poll()); idle = waitStrategy.idle(idle))
+            if (Thread.interrupted()) throw new InterruptedException();
+        return e;
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        E e;
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (int idle = 0; null == (e = poll()); idle = waitStrategy.idle(idle)) {
+            if (Thread.interrupted()) throw new InterruptedException();
+            if (deadline - System.nanoTime() <= 0L) return null;
+        }
+        return e;
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (null == c) throw new NullPointerException();
+        if (c == this) throw new IllegalArgumentException();
+        int count = 0;
+        for (E e; count < maxElements && null != (e = poll()); count++)
+            c.add(e);
+        return count;
+    }
+
+    /**
+     * Takes the elements from the head up to the tail read once, with a single
+     * update on the head, for a single consumer.
+     */
+    int drainSingleConsumer(Collection<? super E> c, int maxElements) {
+        if (null == c) throw new NullPointerException();
+        if (c == this) throw new IllegalArgumentException();
+        long h = head.get();
+        long available = Math.min(tail.get() - h, maxElements);
+        int count = 0;
+        try {
+            for (; count < available; count++) {
+                int index = (int) (h + count) & mask;
+                E e;
+                // The slot is claimed but not written yet
+                while (null == (e = buffer.get(index))) ;
+                buffer.lazySet(index, null);
+                c.add(e);
+            }
+        } finally {
+            head.lazySet(h + count);
+        }
+        return count;
+    }
+
+    /**
+     * The way for a thread to wait on a queue full or empty.
+     *
+     * @author XuYanhang
+     */
+    public enum WaitStrategy {
+        /**
+         * Retries at once, the lowest latency at the cost of a CPU core per thread
+         * waiting.
+         */
+        BUSY_SPIN {
+            @Override
+            int idle(int counter) {
+                return Math.min(counter + 1, SPIN_TRIES);
+            }
+        },
+        /**
+         * Spins for a while, and then yields the CPU to the other threads before
+         * each retry.
+         */
+        YIELD {
+            @Override
+            int idle(int counter) {
+                if (counter >= SPIN_TRIES) Thread.yield();
+                return Math.min(counter + 1, SPIN_TRIES);
+            }
+        },
+        /**
+         * Spins and yields for a while, and then parks for a short time before
+         * each retry, the least CPU used at the cost of the latency.
+         */
+        PARK {
+            @Override
+            int idle(int counter) {
+                if (counter >= SPIN_TRIES << 1)
+                    LockSupport.parkNanos(PARK_NANOS);
+                else if (counter >= SPIN_TRIES)
+                    Thread.yield();
+                return Math.min(counter + 1, SPIN_TRIES << 1);
+            }
+        };
+
+        /**
+         * Retries to spin before yield
+         */
+        static final int SPIN_TRIES = 100;
+
+        /**
+         * Nanoseconds to park
+         */
+        static final long PARK_NANOS = 1000L;
+
+        /**
+         * Waits once before a retry.
+         *
+         * @param counter the count of the retries
+         * @return the counter for the next retry, capped where the strategy stops
+         * changing so it never overflows
+         */
+        abstract int idle(int counter);
+    }
+
+    /*
+     * A sequence padded in a cache line of its own, by the fields before it in
+     * the super class and the ones after it in the sub class.
+     */
+
+    abstract static class LhsPadding {
+        long p01, p02, p03, p04, p05, p06, p07;
+    }
+
+    abstract static class SequenceValue extends LhsPadding {
+        static final AtomicLongFieldUpdater<SequenceValue> VALUE =
+                AtomicLongFieldUpdater.newUpdater(SequenceValue.class, "value");
+
+        volatile long value;
+
+        /**
+         * A cache of the sequence of the other side, read and written only by the
+         * owner side of this sequence
+         */
+        long cache;
+    }
+
+    abstract static class RhsPadding extends SequenceValue {
+        long p11, p12, p13, p14, p15, p16, p17;
+    }
+
+    /**
+     * A sequence of a side of the queue.
+     *
+     * @author XuYanhang
+     */
+    static final class Sequence extends RhsPadding {
+        long get() {
+            return value;
+        }
+
+        void lazySet(long v) {
+            VALUE.lazySet(this, v);
+        }
+
+        boolean compareAndSet(long expect, long update) {
+            return VALUE.compareAndSet(this, expect, update);
+        }
+    }
+
+    /**
+     * A queue for one producer and one consumer. Each side keeps a cache of the
+     * other side's sequence, and reads it again only when the cache says it's
+     * full or empty.
+     *
+     * @author XuYanhang
+     */
+    private static final class Spsc<E> extends RingBufferQueue<E> {
+        Spsc(int capacity, WaitStrategy waitStrategy) {
+            super(capacity, waitStrategy);
+        }
+
+        @Override
+        public boolean offer(E e) {
+            if (null == e) throw new NullPointerException();
+            long t = tail.get();
+            if (t - tail.cache > mask) {
+                tail.cache = head.get();
+                if (t - tail.cache > mask) return false;
+            }
+            buffer.lazySet((int) t & mask, e);
+            tail.lazySet(t + 1);
+            return true;
+        }
+
+        @Override
+        public E poll() {
+            long h = head.get();
+            if (h >= head.cache) {
+                head.cache = tail.get();
+                if (h >= head.cache) return null;
+            }
+            int index = (int) h & mask;
+            E e = buffer.get(index);
+            buffer.lazySet(index, null);
+            head.lazySet(h + 1);
+            return e;
+        }
+
+        @Override
+        public int drainTo(Collection<? super E> c, int maxElements) {
+            return drainSingleConsumer(c, maxElements);
+        }
+    }
+
+    /**
+     * A queue for any producers and one consumer. The producers claim a slot by
+     * CAS on the tail and then publish the element in it, where the consumer
+     * waits on a slot claimed until it's published.
+     *
+     * @author XuYanhang
+     */
+    private static final class Mpsc<E> extends RingBufferQueue<E> {
+        /**
+         * The limit of the tail before reading the head again, shared by the
+         * producers
+         */
+        private final Sequence producerLimit = new Sequence();
+
+        Mpsc(int capacity, WaitStrategy waitStrategy) {
+            super(capacity, waitStrategy);
+            producerLimit.lazySet(mask + 1L);
+        }
+
+        @Override
+        public boolean offer(E e) {
+            if (null == e) throw new NullPointerException();
+            long t;
+            do {
+                t = tail.get();
+                long limit = producerLimit.get();
+                if (t >= limit) {
+                    limit = head.get() + mask + 1;
+                    if (t >= limit) return false;
+                    producerLimit.lazySet(limit);
+                }
+            } while (!tail.compareAndSet(t, t + 1));
+            buffer.lazySet((int) t & mask, e);
+            return true;
+        }
+
+        @Override
+        public E poll() {
+            long h = head.get();
+            int index = (int) h & mask;
+            E e = buffer.get(index);
+            if (null == e) {
+                if (h == tail.get()) return null;
+                // The slot is claimed but not written yet
+                while (null == (e = buffer.get(index))) ;
+            }
+            buffer.lazySet(index, null);
+            head.lazySet(h + 1);
+            return e;
+        }
+
+        @Override
+        public int drainTo(Collection<? super E> c, int maxElements) {
+            return drainSingleConsumer(c, maxElements);
+        }
+    }
+
+    /**
+     * A queue for any producers and any consumers in the way of the bounded
+     * queue by Dmitry Vyukov. Each slot has its own sequence, who tells the lap
+     * the slot is ready to put or take in.
+     *
+     * @author XuYanhang
+     */
+    private static final class Mpmc<E> extends RingBufferQueue<E> {
+        /**
+         * The sequences of the slots, where a slot at <code>s</code> is ready to
+         * put when its sequence is <code>s</code>, and ready to take when
+         * <code>s + 1</code>
+         */
+        private final AtomicLongArray sequences;
+
+        Mpmc(int capacity, WaitStrategy waitStrategy) {
+            super(capacity, waitStrategy);
+            sequences = new AtomicLongArray(mask + 1);
+            for (int i = 0; i <= mask; i++)
+                sequences.lazySet(i, i);
+        }
+
+        @Override
+        public boolean offer(E e) {
+            if (null == e) throw new NullPointerException();
+            while (true) {
+                long t = tail.get();
+                int index = (int) t & mask;
+                long lap = sequences.get(index) - t;
+                if (lap == 0L) {
+                    if (tail.compareAndSet(t, t + 1)) {
+                        buffer.lazySet(index, e);
+                        sequences.lazySet(index, t + 1);
+                        return true;
+                    }
+                } else if (lap < 0L) {
+                    // The slot is not taken from the last lap, so full
+                    return false;
+                }
+            }
+        }
+
+        @Override
+        public E poll() {
+            while (true) {
+                long h = head.get();
+                int index = (int) h & mask;
+                long lap = sequences.get(index) - (h + 1);
+                if (lap == 0L) {
+                    if (head.compareAndSet(h, h + 1)) {
+                        E e = buffer.get(index);
+                        buffer.lazySet(index, null);
+                        sequences.lazySet(index, h + mask + 1);
+                        return e;
+                    }
+                } else if (lap < 0L) {
+                    // The slot is not put in this lap, so empty
+                    return null;
+                }
+            }
+        }
+
+        @Override
+        public E peek() {
+            long h = head.get();
+            int index = (int) h & mask;
+            return sequences.get(index) == h + 1 ? buffer.get(index) : null;
+        }
+    }
+}
@@ -18,9 +18,29 @@ import java.util.concurrent.TimeUnit;
  */
 public final class Runnables {
     /**
-     * Scheduler handle in this class
+     * Capacity of the tasks queued to run now in the {@link #HANDLE_SCHEDULER}
      */
-    private static final AutoPoolScheduler HANDLE_SCHEDULER = new AutoPoolScheduler(1);
+    private static final int ASYNC_QUEUE_CAPACITY = 1 << 16;
+
+    /**
+     * Scheduler handle in this class, who grows up to a thread for each processor
+     * under a burst and runs the tasks in the caller once its queue is full
+     */
+    private static final AutoPoolScheduler HANDLE_SCHEDULER = new AutoPoolScheduler(new AutoPoolScheduler.Config()
+            .setCorePoolSize(1)
+            .setMaxPoolSize(Runtime.getRuntime().availableProcessors())
+            .setQueueCapacity(ASYNC_QUEUE_CAPACITY)
+            .setOverflowPolicy(AutoPoolScheduler.OverflowPolicy.CALLER_RUNS));
+
+    /**
+     * Returns the scheduler of the asynchronous executions, to read its queue
+     * depth and overflow counters.
+     *
+     * @return the scheduler of the asynchronous executions
+     */
+    public static AutoPoolScheduler readAsyncScheduler() {
+        return HANDLE_SCHEDULER;
+    }
 
     /**
      * Execute a {@link Runnable} in current thread
@@ -0,0 +1,242 @@
+/*
+ * Copyright (c) 2020-2023 XuYanhang
+ */
+
+package org.xuyh.concurrent;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Coalesces the concurrent loads on a key into one. The first caller on a key
+ * starts the load, and the callers on the key before it's done share its
+ * result rather than load again, so that a hot key expired in a cache is
+ * loaded once rather than once a thread.
+ * <p>
+ * A result may also be shared in a short window after it's done, to the
+ * callers who just missed the load. A failure is never shared, where the next
+ * caller loads again.
+ * <p>
+ * The loads in flight are kept in a {@link ConcurrentMap} and switched in the
+ * {@link ConcurrentMaps#compareAndSet(ConcurrentMap, Object, Object, Object)}
+ * way, and {@link #getOrLoad(ConcurrentMap, Object, Function)} stores a result
+ * loaded into a cache map by
+ * {@link ConcurrentMaps#swapAndGet(ConcurrentMap, Object, java.util.function.UnaryOperator)}.
+ * A loader shouldn't wait the result of a load on the same key, or it waits
+ * itself.
+ *
+ * @param <K> type of the keys
+ * @param <V> type of the values loaded
+ * @author XuYanhang
+ * @see ConcurrentMaps
+ * @since 2020-11-07
+ */
+public class SingleFlight<K, V> {
+    /**
+     * Nanoseconds a result is shared after it's done
+     */
+    private final long shareNanos;
+
+    /**
+     * The loads in flight or shared on the keys
+     */
+    private final ConcurrentMap<K, Flight<V>> flights = ConcurrentMaps.create();
+
+    private final LongAdder loadCount = new LongAdder();
+
+    private final LongAdder sharedCount = new LongAdder();
+
+    /**
+     * Creates a single flight who shares a result only until it's done.
+     */
+    public SingleFlight() {
+        super();
+        this.shareNanos = 0L;
+    }
+
+    /**
+     * Creates a single flight who shares a result in a window after it's done.
+     *
+     * @param shareWindow the time to share a result after it's done
+     * @param unit        the time unit of the shareWindow parameter
+     * @throws IllegalArgumentException if the shareWindow is negative
+     * @throws NullPointerException     if the unit is null
+     */
+    public SingleFlight(long shareWindow, TimeUnit unit) {
+        super();
+        if (null == unit) throw new NullPointerException("unit");
+        if (shareWindow < 0L) throw new IllegalArgumentException("shareWindow");
+        this.shareNanos = unit.toNanos(shareWindow);
+    }
+
+    /**
+     * Loads the value of the key in the caller thread, or shares the load in
+     * flight on the key.
+     *
+     * @param key    the key to load
+     * @param loader the function to load the value of the key
+     * @return a future of the value loaded, failed if the load throws any
+     * exception
+     * @throws NullPointerException if the key or the loader is null
+     */
+    public CompletableFuture<V> load(K key, Function<? super K, ? extends V> loader) {
+        if (null == loader) throw new NullPointerException("loader");
+        return loadAsync(key, k -> CompletableFuture.completedFuture(loader.apply(k)));
+    }
+
+    /**
+     * Starts to load the value of the key in asynchronous way, or shares the load
+     * in flight on the key.
+     *
+     * @param key    the key to load
+     * @param loader the function to start loading the value of the key
+     * @return a future of the value loaded, failed if the load fails
+     * @throws NullPointerException if the key or the loader is null
+     */
+    public CompletableFuture<V> loadAsync(K key,
+                                          Function<? super K, ? extends CompletionStage<? extends V>> loader) {
+        if (null == key) throw new NullPointerException("key");
+        if (null == loader) throw new NullPointerException("loader");
+        Flight<V> flight = null;
+        while (true) {
+            Flight<V> current = flights.get(key);
+            if (null != current && current.isShared()) {
+                sharedCount.increment();
+                return copy(current.future);
+            }
+            if (null == flight) flight = new Flight<>();
+            // Replace the one done and not shared any more
+            if (ConcurrentMaps.compareAndSet(flights, key, current, flight)) break;
+        }
+        loadCount.increment();
+        CompletionStage<? extends V> stage;
+        try {
+            stage = loader.apply(key);
+            if (null == stage) throw new NullPointerException("stage");
+        } catch (Throwable e) {
+            CompletableFuture<V> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            stage = failed;
+        }
+        final Flight<V> loading = flight;
+        stage.whenComplete((value, error) -> land(key, loading, value, error));
+        return copy(loading.future);
+    }
+
+    /**
+     * Returns the value of the key in the cache, or loads it into the cache in a
+     * single flight when absent. The value loaded is stored unless another value
+     * is stored in the meantime, who is returned then.
+     *
+     * @param cache  the cache of the values
+     * @param key    the key to load
+     * @param loader the function to load the value of the key, never returns
+     *               <code>null</code>
+     * @return a future of the value in the cache
+     * @throws NullPointerException if the cache, the key or the loader is null
+     */
+    public CompletableFuture<V> getOrLoad(ConcurrentMap<K, V> cache, K key, Function<? super K, ? extends V> loader) {
+        if (null == cache) throw new NullPointerException("cache");
+        if (null == loader) throw new NullPointerException("loader");
+        V cached = cache.get(key);
+        if (null != cached) return CompletableFuture.completedFuture(cached);
+        return load(key, k -> {
+            // Stored by the flight just landed
+            V stored = cache.get(k);
+            if (null != stored) return stored;
+            V loaded = loader.apply(k);
+            if (null == loaded) throw new NullPointerException("loaded");
+            return ConcurrentMaps.swapAndGet(cache, k, old -> null == old ? loaded : old);
+        });
+    }
+
+    /**
+     * Completes a flight, who is removed at once if failed or not shared after
+     * done, or after the window to share.
+     */
+    private void land(K key, Flight<V> flight, V value, Throwable error) {
+        if (null != error) {
+            flights.remove(key, flight);
+            flight.future.completeExceptionally(error);
+            return;
+        }
+        if (shareNanos <= 0L) {
+            flights.remove(key, flight);
+        } else {
+            flight.sharedUntil = System.nanoTime() + shareNanos;
+            flight.sharing = true;
+            Runnables.executeAsync(() -> {
+                flights.remove(key, flight);
+            }, Math.max(1L, TimeUnit.NANOSECONDS.toMillis(shareNanos)));
+        }
+        flight.future.complete(value);
+    }
+
+    /**
+     * A future of each caller, so that no caller completes the shared one.
+     */
+    private static <V> CompletableFuture<V> copy(CompletableFuture<V> future) {
+        return future.thenApply(Function.identity());
+    }
+
+    /**
+     * Returns the count of the loads started.
+     *
+     * @return the count of the loads
+     */
+    public long readLoadCount() {
+        return loadCount.sum();
+    }
+
+    /**
+     * Returns the count of the callers who shared a load rather than started
+     * one.
+     *
+     * @return the count of the loads shared
+     */
+    public long readSharedCount() {
+        return sharedCount.sum();
+    }
+
+    /**
+     * Returns the count of the keys loading or sharing a result now.
+     *
+     * @return the count of the keys in flight
+     */
+    public int readInFlightCount() {
+        return flights.size();
+    }
+
+    /**
+     * A load on a key.
+     *
+     * @author XuYanhang
+     */
+    private static final class Flight<V> {
+        private final CompletableFuture<V> future = new CompletableFuture<>();
+
+        /**
+         * The time in nanoseconds to share the result until, set before the future
+         * completes
+         */
+        private long sharedUntil;
+
+        /**
+         * The result is shared after done, set after the {@link #sharedUntil}
+         */
+        private volatile boolean sharing;
+
+        /**
+         * Returns whether the callers share this flight, that's it's not done, or
+         * done successfully in the window to share.
+         */
+        private boolean isShared() {
+            if (!future.isDone()) return true;
+            return sharing && !future.isCompletedExceptionally() && System.nanoTime() - sharedUntil < 0L;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (c) 2020-2023 XuYanhang
+ */
+
+package org.xuyh.config;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.management.JMException;
+import javax.management.ObjectName;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.xuyh.concurrent.ObjectLock;
+
+/**
+ * Configuration on the contention metrics of the global {@link ObjectLock}. The
+ * metrics are registered in JMX, and recorded from the startup if
+ * <code>objectlock.metrics.enable</code> is set.
+ *
+ * @author XuYanhang
+ * @since 2020-12-31
+ */
+@org.springframework.context.annotation.Configuration
+public class ObjectLockMetricsConfig {
+    /**
+     * The name of the MBean on the global metrics.
+     */
+    public static final String MBEAN_NAME = "org.xuyh.concurrent:type=ObjectLockMetrics,name=global";
+
+    @Value("${objectlock.metrics.enable:false}")
+    private boolean enable;
+
+    /**
+     * New instance from Spring Boot
+     */
+    public ObjectLockMetricsConfig() {
+        super();
+    }
+
+    /**
+     * Register the metrics in JMX and enable them if configured.
+     *
+     * @throws JMException when the registration failed
+     */
+    @PostConstruct
+    public void registerMetrics() throws JMException {
+        ObjectLock.metrics().registerMBean(new ObjectName(MBEAN_NAME));
+        if (enable) ObjectLock.metrics().setEnabled(true);
+    }
+
+    /**
+     * Unregister the metrics from JMX.
+     *
+     * @throws JMException when the unregistration failed
+     */
+    @PreDestroy
+    public void unregisterMetrics() throws JMException {
+        ObjectLock.metrics().unregisterMBean(new ObjectName(MBEAN_NAME));
+    }
+}
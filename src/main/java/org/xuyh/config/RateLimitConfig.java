@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2020-2023 XuYanhang
+ */
+
+package org.xuyh.config;
+
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+import org.xuyh.concurrent.KeyedRateLimiter;
+
+/**
+ * Configuration on the rate limit of the REST API per client address, in the
+ * mode <code>token-bucket</code> or <code>sliding-log</code> of a
+ * {@link KeyedRateLimiter}. A request limited is answered with the status
+ * <code>429 Too Many Requests</code>.
+ *
+ * @author XuYanhang
+ * @since 2020-11-10
+ */
+@ConditionalOnProperty("ratelimit.enable")
+@org.springframework.context.annotation.Configuration
+public class RateLimitConfig implements WebMvcConfigurer {
+    @Value("${ratelimit.mode:token-bucket}")
+    private String mode;
+
+    @Value("${ratelimit.permits:100}")
+    private int permits;
+
+    @Value("${ratelimit.period-millis:1000}")
+    private long periodMillis;
+
+    @Value("${ratelimit.path:/api/**}")
+    private String path;
+
+    /**
+     * New instance from Spring Boot
+     */
+    public RateLimitConfig() {
+        super();
+    }
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        KeyedRateLimiter<String> limiter;
+        if (mode.equalsIgnoreCase("token-bucket"))
+            limiter = KeyedRateLimiter.tokenBucket(permits, permits, periodMillis, TimeUnit.MILLISECONDS);
+        else if (mode.equalsIgnoreCase("sliding-log"))
+            limiter = KeyedRateLimiter.slidingLog(permits, periodMillis, TimeUnit.MILLISECONDS);
+        else
+            throw new IllegalStateException("Unknown ratelimit.mode: " + mode);
+        registry.addInterceptor(new RateLimitInterceptor(limiter)).addPathPatterns(path);
+    }
+
+    /**
+     * Interceptor who limits the requests on the client address.
+     *
+     * @author XuYanhang
+     */
+    public static class RateLimitInterceptor implements HandlerInterceptor {
+        private final KeyedRateLimiter<String> limiter;
+
+        /**
+         * Create an interceptor on the limiter.
+         *
+         * @param limiter the limiter on the client addresses
+         * @throws NullPointerException if the limiter is null
+         */
+        public RateLimitInterceptor(KeyedRateLimiter<String> limiter) {
+            super();
+            if (null == limiter) throw new NullPointerException("limiter");
+            this.limiter = limiter;
+        }
+
+        @Override
+        public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+            if (limiter.tryAcquire(request.getRemoteAddr())) return true;
+            response.setStatus(HttpStatus.TOO_MANY_REQUESTS.value());
+            return false;
+        }
+
+        /**
+         * Returns the limiter on the client addresses.
+         *
+         * @return the limiter
+         */
+        public KeyedRateLimiter<String> readLimiter() {
+            return limiter;
+        }
+    }
+}
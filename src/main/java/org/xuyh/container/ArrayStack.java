@@ -0,0 +1,563 @@
+/*
+ * Copyright (c) 2020-2023 XuYanhang
+ */
+
+package org.xuyh.container;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.Consumer;
+
+/**
+ * Resizable-array implementation of the {@link Stack} interface. Implements the
+ * basic optional stack operations, and permits all elements (including
+ * {@code null}). Mention that the {@link #iterator() iterator} from this stack
+ * who doesn't provide the {@link Iterator#remove() remove} implementation.
+ * <p>
+ * The elements are kept from bottom to top in an array, so the
+ * {@link #push(Object) push} and {@link #pop() pop} allocate nothing unless the
+ * array grows, and the {@link #search(Object) search} or
+ * {@link #toArray(Class) toArray} scans a continuous memory instead of chasing
+ * the linked nodes. The array grows by half of its length when it is full, and
+ * optionally shrinks by half when the stack is less than a quarter of it.
+ * <p>
+ * The stack is thread safe in default where any operation is synchronized on
+ * the stack. A non-synchronized mode is provided for a stack used in single
+ * thread, where the iterator fails fast on any update in its iteration.
+ * <p>
+ * The exception throws as less than possible while some strategy will be adapted in
+ * this stack same as {@link LinkedStack}. The check operation is necessary when
+ * programmers use this stack.
+ *
+ * @param <E> Generic type
+ * @author XuYanhang
+ * @see AbstractStack
+ * @see LinkedStack
+ * @since 2020-08-14
+ */
+public class ArrayStack<E> extends AbstractStack<E> implements Stack<E>, java.io.Serializable {
+    /**
+     * The maximum capacity of a {@link ArrayStack stack} in this type.
+     */
+    public static final long MAX_CAPACITY = Integer.MAX_VALUE - 8;
+
+    /**
+     * Default initial array length.
+     */
+    private static final int DEFAULT_ARRAY_LENGTH = 10;
+
+    /**
+     * Shared empty array instance used for empty instances.
+     */
+    private static final Object[] EMPTY_DATA = {};
+
+    /**
+     * Capacity of this stack region from <code>zero</code> to
+     * {@link #MAX_CAPACITY}. The elements count in this stack will be never larger
+     * that it. A stack in capacity of <code>zero</code> means an empty and
+     * unchangeable one.
+     */
+    private final long capacity;
+
+    /**
+     * If all operations are synchronized on this stack.
+     */
+    private final boolean synchronizing;
+
+    /**
+     * If the array shrinks when the stack is less than a quarter of it.
+     */
+    private final boolean shrinking;
+
+    /**
+     * The elements from bottom at index <code>zero</code> to top at index
+     * <code>size - 1</code>.
+     */
+    private transient Object[] data;
+
+    /**
+     * The size of the stack.
+     */
+    private transient int size;
+
+    /**
+     * The number of times this stack has been updated, for the iterator in the
+     * non-synchronized mode.
+     */
+    private transient int modCount;
+
+    /**
+     * Create a synchronized stack in default capacity of {@link #MAX_CAPACITY}.
+     */
+    public ArrayStack() {
+        this(MAX_CAPACITY);
+    }
+
+    /**
+     * Create a synchronized stack in a give capacity. Any input capacity parameter
+     * is allowed while it will be adjusted between <code>zero</code> and
+     * {@link #MAX_CAPACITY}.
+     *
+     * @param capacity the {@link #capacity} to initial
+     */
+    public ArrayStack(long capacity) {
+        this(capacity, true, false);
+    }
+
+    /**
+     * Create a stack in a give capacity and modes. Any input capacity parameter is
+     * allowed while it will be adjusted between <code>zero</code> and
+     * {@link #MAX_CAPACITY}.
+     *
+     * @param capacity      the {@link #capacity} to initial
+     * @param synchronizing <code>true</code> to synchronize all operations for the
+     *                      concurrent use, or <code>false</code> for the use in
+     *                      single thread
+     * @param shrinking     <code>true</code> to shrink the array automatically when
+     *                      the stack is less than a quarter of it
+     */
+    public ArrayStack(long capacity, boolean synchronizing, boolean shrinking) {
+        super();
+        if (capacity <= 0L)
+            this.capacity = 0L;
+        else
+            this.capacity = Long.min(capacity, MAX_CAPACITY);
+        this.synchronizing = synchronizing;
+        this.shrinking = shrinking;
+        this.data = EMPTY_DATA;
+        this.size = 0;
+    }
+
+    /**
+     * Returns the capacity of this stack. The result below for a {@link ArrayStack
+     * stack} will always be <code>true</code>:
+     *
+     * <pre>
+     *     stack.capacity() &gt;= stack.size();
+     * </pre>
+     *
+     * @return the {@link #capacity}
+     */
+    @Override
+    public long capacity() {
+        return capacity;
+    }
+
+    /**
+     * Peek the top element in the stack. When the element not found, a
+     * <code>null</code> value is expected.
+     *
+     * @return the top element or <code>null</code> if the stack is empty
+     */
+    @Override
+    public E peek() {
+        if (!synchronizing) return peek0();
+        synchronized (this) {
+            return peek0();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private E peek0() {
+        return 0 == size ? null : (E) data[size - 1];
+    }
+
+    /**
+     * Push an element on the top of the stack. In this stack strategy, a
+     * <code>null</code> element is allowed. If the stack is full, the operation is
+     * ignored and nothing happens here.
+     *
+     * @param e the element to push
+     */
+    @Override
+    public void push(E e) {
+        tryPush(e);
+    }
+
+    /**
+     * Push an element on the top of the stack. In this stack strategy, a
+     * <code>null</code> element is allowed. If the stack is full, the operation is
+     * failed and a <code>false</code> value returned.
+     *
+     * @param e the element to push
+     * @return <code>true</code> if the push action succeeds
+     */
+    public boolean tryPush(E e) {
+        if (!synchronizing) return tryPush0(e);
+        synchronized (this) {
+            return tryPush0(e);
+        }
+    }
+
+    private boolean tryPush0(E e) {
+        int s = size;
+        if (s >= capacity) return false;
+        if (s == data.length) grow(s + 1);
+        data[s] = e;
+        size = s + 1;
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Pop the top element in the stack. If the stack is empty before, nothing will
+     * happen.
+     *
+     * @return the popped top element or <code>null</code> if failed.
+     */
+    @Override
+    public E pop() {
+        if (!synchronizing) return pop0();
+        synchronized (this) {
+            return pop0();
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private E pop0() {
+        int s = size;
+        if (0 == s) return null;
+        E e = (E) data[--s];
+        data[s] = null;
+        size = s;
+        modCount++;
+        if (shrinking && s < (data.length >> 2) && data.length > DEFAULT_ARRAY_LENGTH)
+            data = Arrays.copyOf(data, Integer.max(data.length >> 1, DEFAULT_ARRAY_LENGTH));
+        return e;
+    }
+
+    /**
+     * Remove the top element in the stack. If the stack is empty before, nothing
+     * will happen.
+     */
+    @Override
+    public void remove() {
+        pop();
+    }
+
+    /**
+     * Search the first element in the stack from top.
+     * <p>
+     * Two elements are same when:<br>
+     * 1. Two elements are both <code>null</code> value <br>
+     * 2. The method of {@link #equals(Object) equals} return <code>true</code>
+     *
+     * @param e the element to search
+     * @return the position by height of the target element in the stack from
+     * <code>1</code> of bottom element to {@link #size()} of top element,
+     * or <code>-1</code> if the target element is not found
+     */
+    @Override
+    public long search(E e) {
+        if (!synchronizing) return search0(e);
+        synchronized (this) {
+            return search0(e);
+        }
+    }
+
+    private long search0(E e) {
+        Object[] d = data;
+        if (null == e) {
+            for (int i = size - 1; i >= 0; i--)
+                if (null == d[i]) return i + 1;
+        } else {
+            for (int i = size - 1; i >= 0; i--)
+                if (e.equals(d[i])) return i + 1;
+        }
+        return -1;
+    }
+
+    /**
+     * Search the first element in the stack from top.
+     * <p>
+     * If the input {@link Comparator comparator} parameter is a <code>null</code>
+     * value, then the default {@link #search(Object) search} method will be used
+     * instead. Otherwise, two elements are same only when a <code>zero</code> value
+     * returned from the {@link Comparator#compare(Object, Object) compare} method.
+     * However, any exception in the {@link Comparator#compare(Object, Object)
+     * compare} won't be resolved in this {@link #search(Object, Comparator) search}
+     * method.
+     *
+     * @param e the element to search
+     * @param c the comparator
+     * @return the position by height of the target element in the stack from
+     * <code>1</code> of bottom element to {@link #size()} of top element,
+     * or <code>-1</code> if the target element is not found
+     * @see #search(Object)
+     */
+    public long search(E e, Comparator<E> c) {
+        if (null == c)
+            return search(e);
+        if (!synchronizing) return search0(e, c);
+        synchronized (this) {
+            return search0(e, c);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private long search0(E e, Comparator<E> c) {
+        Object[] d = data;
+        for (int i = size - 1; i >= 0; i--)
+            if (c.compare(e, (E) d[i]) == 0) return i + 1;
+        return -1;
+    }
+
+    /**
+     * Clear the stack. After the clear action, the size of the stack is
+     * <code>zero</code>.
+     */
+    @Override
+    public void clear() {
+        if (!synchronizing) {
+            clear0();
+            return;
+        }
+        synchronized (this) {
+            clear0();
+        }
+    }
+
+    private void clear0() {
+        if (shrinking) {
+            data = EMPTY_DATA;
+        } else {
+            Arrays.fill(data, 0, size, null);
+        }
+        size = 0;
+        modCount++;
+    }
+
+    /**
+     * Trims the array of this stack to be the stack's current size. An application
+     * can use this operation to minimize the storage of a stack.
+     */
+    public void trimToSize() {
+        if (!synchronizing) {
+            trimToSize0();
+            return;
+        }
+        synchronized (this) {
+            trimToSize0();
+        }
+    }
+
+    private void trimToSize0() {
+        if (size < data.length)
+            data = (size == 0) ? EMPTY_DATA : Arrays.copyOf(data, size);
+    }
+
+    /**
+     * Measure the size of the stack.
+     *
+     * @return the size of the stack
+     * @see #empty()
+     */
+    @Override
+    public long size() {
+        if (!synchronizing) return size;
+        synchronized (this) {
+            return size;
+        }
+    }
+
+    /**
+     * Measure if the stack is empty, or rather if the size of the stack is 0.
+     *
+     * @return <code>true</code> if the stack is empty or <code>false</code> if not
+     * @see #size()
+     */
+    @Override
+    public boolean empty() {
+        return 0 == size();
+    }
+
+    /**
+     * Returns an iterator over elements in the stack from top to bottom. In the
+     * synchronized mode, the result iterator is just a slice of an instant stack
+     * and any update operation in the original {@link ArrayStack stack} has no
+     * effect on it. In the non-synchronized mode, the iterator visits the stack
+     * directly and throws a {@link ConcurrentModificationException} if the stack
+     * is updated during the iteration.
+     *
+     * @return an {@link Iterator} just for query
+     */
+    @Override
+    public Iterator<E> iterator() {
+        if (!synchronizing) return new ASIte();
+        Object[] snapshot;
+        synchronized (this) {
+            snapshot = Arrays.copyOf(data, size);
+        }
+        return new SnapshotIte<>(snapshot);
+    }
+
+    /**
+     * Returns an array containing all the elements in this stack. The array is
+     * in order of the stack from bottom element to top one.
+     *
+     * @param componentType the element type in the array, who are expected to be a
+     *                      super-type of all elements in the stack
+     * @return an array containing all the elements in this stack
+     * @throws ArrayStoreException if the runtime type of the specified array is not
+     *                             a super-type of the runtime type of every element
+     *                             in this list
+     */
+    @Override
+    public <T> T[] toArray(Class<? extends T> componentType) {
+        if (!synchronizing) return toArray0(componentType);
+        synchronized (this) {
+            return toArray0(componentType);
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> T[] toArray0(Class<? extends T> componentType) {
+        Class<?> ctype = null == componentType ? Object.class : componentType;
+        T[] array = ctype == Object.class ? (T[]) new Object[size]
+                : (T[]) java.lang.reflect.Array.newInstance(ctype, size);
+        System.arraycopy(data, 0, array, 0, size);
+        return array;
+    }
+
+    /**
+     * Increases the array length to hold at least the number of elements
+     * specified.
+     *
+     * @param minLength the desired minimum length
+     */
+    private void grow(int minLength) {
+        int oldLength = data.length;
+        int newLength = oldLength + (oldLength >> 1);
+        if (newLength < DEFAULT_ARRAY_LENGTH) newLength = DEFAULT_ARRAY_LENGTH;
+        if (newLength < minLength) newLength = minLength;
+        if (newLength > capacity || newLength < 0) newLength = (int) capacity;
+        data = Arrays.copyOf(data, newLength);
+    }
+
+    /**
+     * Saves the state of this {@code ArrayStack} instance to a stream (that is,
+     * serializes it).
+     *
+     * @serialData The capacity and modes of the stack, the size of it and all of
+     * its elements (each an Object) in the order from bottom to top
+     */
+    private void writeObject(java.io.ObjectOutputStream oos) throws java.io.IOException {
+        Object[] array = toArray(Object.class);
+
+        // Write out any hidden serialization magic and the capacity field
+        oos.defaultWriteObject();
+
+        // Write out size
+        oos.writeInt(array.length);
+
+        // Write out all elements in the proper order.
+        for (Object o : array) oos.writeObject(o);
+    }
+
+    /**
+     * Reconstitutes this {@code ArrayStack} instance from a stream (that is,
+     * deserializes it).
+     */
+    private void readObject(java.io.ObjectInputStream ois) throws java.io.IOException, ClassNotFoundException {
+        // Read in any hidden serialization magic and the capacity field
+        ois.defaultReadObject();
+
+        // Read in size
+        int size = ois.readInt();
+        if (size < 0 || size > capacity) throw new java.io.InvalidObjectException("size");
+
+        // Read in all elements in the proper order
+        Object[] array = size == 0 ? EMPTY_DATA : new Object[size];
+        for (int i = 0; i < size; i++)
+            array[i] = ois.readObject();
+        this.data = array;
+        this.size = size;
+    }
+
+    /**
+     * To serialize or deserialize a {@link ArrayStack}.
+     *
+     * @see #writeObject(java.io.ObjectOutputStream)
+     * @see #readObject(java.io.ObjectInputStream)
+     * @see java.io.Serializable
+     */
+    private static final long serialVersionUID = -1754290135186722371L;
+
+    /**
+     * Iterator on the live stack in the non-synchronized mode.
+     */
+    private class ASIte implements Iterator<E> {
+        private int cursor = size - 1;
+        private final int expectedModCount = modCount;
+
+        @Override
+        public boolean hasNext() {
+            return cursor >= 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public E next() {
+            if (expectedModCount != modCount)
+                throw new ConcurrentModificationException();
+            if (cursor < 0)
+                throw new NoSuchElementException("next");
+            return (E) data[cursor--];
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void forEachRemaining(Consumer<? super E> action) {
+            if (null == action)
+                throw new NullPointerException("action");
+            Object[] d = data;
+            for (; cursor >= 0; cursor--) {
+                if (expectedModCount != modCount)
+                    throw new ConcurrentModificationException();
+                action.accept((E) d[cursor]);
+            }
+        }
+    }
+
+    /**
+     * Iterator on a snapshot of the stack in the synchronized mode.
+     */
+    private static class SnapshotIte<E> implements Iterator<E> {
+        private final Object[] snapshot;
+        private int cursor;
+
+        /**
+         * @param snapshot elements from bottom to top
+         */
+        SnapshotIte(Object[] snapshot) {
+            super();
+            this.snapshot = snapshot;
+            this.cursor = snapshot.length - 1;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return cursor >= 0;
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public E next() {
+            if (cursor < 0)
+                throw new NoSuchElementException("next");
+            return (E) snapshot[cursor--];
+        }
+
+        @SuppressWarnings("unchecked")
+        @Override
+        public void forEachRemaining(Consumer<? super E> action) {
+            if (null == action)
+                throw new NullPointerException("action");
+            for (; cursor >= 0; cursor--)
+                action.accept((E) snapshot[cursor]);
+        }
+    }
+}
@@ -0,0 +1,716 @@
+/*
+ * Copyright (c) 2020-2023 XuYanhang
+ */
+
+package org.xuyh.container;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+import org.xuyh.concurrent.AutoPoolScheduler;
+import org.xuyh.concurrent.Cancellable;
+import org.xuyh.concurrent.Threads;
+
+/**
+ * This is a strict {@link ObjectPool} who never holds more than a maximum total
+ * of objects, no matter idle or borrowed. It's designed for the expensive
+ * objects such as connections, deflaters or ciphers, where a burst of borrows
+ * should wait for a returned object instead of creating thousands of objects.
+ * <p>
+ * All options are set in a {@link Config} when the pool is created:<br>
+ * 1. The max total objects and the max or min idle objects<br>
+ * 2. The default time a {@link #borrowObject()} waits for an available
+ * object<br>
+ * 3. The validators to test an object on borrow, on return or while idle<br>
+ * 4. The destroyer called when an object is dropped from the pool<br>
+ * 5. The period of the background eviction on idle objects
+ * <p>
+ * An object who is broken should be {@link #invalidateObject(Object)
+ * invalidated} so that it's destroyed and its slot is freed for a new one.
+ * Remember to {@link #close()} the pool when it's never used again, or the
+ * background eviction won't stop.
+ *
+ * @param <T> Generic type
+ * @author XuYanhang
+ * @see SimpleObjectPool
+ * @since 2020-08-15
+ */
+public class BoundedObjectPool<T> implements ObjectPool<T> {
+    /**
+     * Scheduler to run the eviction of all pools. It releases its thread by
+     * itself when no pool needs eviction.
+     */
+    private static final AutoPoolScheduler EVICTION_SCHEDULER = new AutoPoolScheduler(1,
+            Threads.newThreadFactory("ObjectPoolEvictor"));
+
+    /**
+     * Factory to produce objects
+     */
+    private final Supplier<T> objectFactory;
+
+    /**
+     * A copy of the configuration
+     */
+    private final Config<T> config;
+
+    /**
+     * Lock on the pool status
+     */
+    private final ReentrantLock lock;
+
+    /**
+     * Condition a borrow waits on until an object is returned or a slot freed
+     */
+    private final Condition available;
+
+    /**
+     * Idle objects where the first one is the latest returned
+     */
+    private final ArrayDeque<IdleObject<T>> idleObjects;
+
+    /**
+     * Borrowed objects in identity
+     */
+    private final IdentityHashMap<T, Boolean> borrowedObjects;
+
+    /**
+     * Count of borrows served by the idle objects
+     */
+    private final LongAdder hitCount;
+
+    /**
+     * Count of borrows who created new objects
+     */
+    private final LongAdder missCount;
+
+    /**
+     * Count of all objects in the pool including the ones on creating
+     */
+    private int totalCount;
+
+    /**
+     * If this pool is closed
+     */
+    private volatile boolean closed;
+
+    /**
+     * Eviction task or <code>null</code> if disabled
+     */
+    private final Cancellable evictor;
+
+    /**
+     * Initialize an instance of the {@link BoundedObjectPool} in the default
+     * {@link Config} but a given max total.
+     *
+     * @param objectFactory factory to produce objects, <code>null</code> value not
+     *                      allowed
+     * @param maxTotal      max count of objects in the pool, no matter idle or
+     *                      borrowed
+     * @throws NullPointerException     when the input objectFactory value is
+     *                                  <code>null</code>
+     * @throws IllegalArgumentException when the input maxTotal is not positive
+     */
+    public BoundedObjectPool(Supplier<T> objectFactory, int maxTotal) {
+        this(objectFactory, new Config<T>().setMaxTotal(maxTotal).setMaxIdle(maxTotal));
+    }
+
+    /**
+     * Initialize an instance of the {@link BoundedObjectPool}.
+     *
+     * @param objectFactory factory to produce objects, <code>null</code> value not
+     *                      allowed
+     * @param config        configuration of the pool, who is copied so that later
+     *                      changes on it have no effect on the pool
+     * @throws NullPointerException     when the input objectFactory or config value
+     *                                  is <code>null</code>
+     * @throws IllegalArgumentException when the config is illegal
+     */
+    public BoundedObjectPool(Supplier<T> objectFactory, Config<T> config) {
+        super();
+        if (null == objectFactory) throw new NullPointerException("objectFactory");
+        if (null == config) throw new NullPointerException("config");
+        this.config = config.clone();
+        this.config.check();
+        this.objectFactory = objectFactory;
+        this.lock = new ReentrantLock();
+        this.available = lock.newCondition();
+        this.idleObjects = new ArrayDeque<>();
+        this.borrowedObjects = new IdentityHashMap<>();
+        this.hitCount = new LongAdder();
+        this.missCount = new LongAdder();
+        this.totalCount = 0;
+        this.closed = false;
+        long period = this.config.timeBetweenEvictionRunsMillis;
+        this.evictor = period > 0
+                ? EVICTION_SCHEDULER.scheduleWithFixedDelay(this::evict, period, period, TimeUnit.MILLISECONDS)
+                : null;
+    }
+
+    /**
+     * Borrow an object from the pool, and wait at most the
+     * {@link Config#setMaxWaitMillis(long) max wait} of the configuration when the
+     * pool is exhausted. The latest returned idle object is preferred, and a new
+     * object is created only when no idle object exists but the max total isn't
+     * reached.
+     *
+     * @return the borrowed object in the pool
+     * @throws NoSuchElementException when no object is available in the max wait
+     *                                time, or the thread is interrupted on waiting
+     *                                where the interrupted status is kept
+     * @throws IllegalStateException  when the pool is closed
+     */
+    @Override
+    public T borrowObject() {
+        long maxWait = config.maxWaitMillis;
+        T obj;
+        try {
+            obj = borrow0(maxWait < 0 ? -1L : TimeUnit.MILLISECONDS.toNanos(maxWait));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new NoSuchElementException("interrupted");
+        }
+        if (null == obj) throw new NoSuchElementException("timeout");
+        return obj;
+    }
+
+    /**
+     * Borrow an object from the pool, and wait at most the given time when the
+     * pool is exhausted.
+     *
+     * @param timeout the max time to wait, or a negative value to wait forever
+     * @param unit    the time unit of the timeout
+     * @return the borrowed object in the pool, or <code>null</code> if timeout
+     * @throws InterruptedException  if interrupted while waiting
+     * @throws IllegalStateException when the pool is closed
+     */
+    public T borrowObject(long timeout, TimeUnit unit) throws InterruptedException {
+        return borrow0(timeout < 0 ? -1L : unit.toNanos(timeout));
+    }
+
+    /**
+     * Real borrows an object.
+     *
+     * @param nanos the max nanoseconds to wait, or negative value to wait forever
+     * @return the object or <code>null</code> if timeout
+     */
+    private T borrow0(long nanos) throws InterruptedException {
+        final long deadline = System.nanoTime() + nanos;
+        while (true) {
+            IdleObject<T> idle = null;
+            boolean create = false;
+            lock.lockInterruptibly();
+            try {
+                while (true) {
+                    if (closed) throw new IllegalStateException("closed");
+                    idle = idleObjects.pollFirst();
+                    if (null != idle) {
+                        borrowedObjects.put(idle.obj, Boolean.TRUE);
+                        break;
+                    }
+                    if (totalCount < config.maxTotal) {
+                        totalCount++;
+                        create = true;
+                        break;
+                    }
+                    if (nanos < 0) {
+                        available.await();
+                    } else {
+                        long remaining = deadline - System.nanoTime();
+                        if (remaining <= 0) return null;
+                        available.awaitNanos(remaining);
+                    }
+                }
+            } finally {
+                lock.unlock();
+            }
+            if (create) {
+                T obj = create();
+                lock.lock();
+                try {
+                    borrowedObjects.put(obj, Boolean.TRUE);
+                } finally {
+                    lock.unlock();
+                }
+                missCount.increment();
+                return obj;
+            }
+            if (test(config.testOnBorrow, idle.obj)) {
+                hitCount.increment();
+                return idle.obj;
+            }
+            // The idle object is broken, drop it and try again
+            invalidateObject(idle.obj);
+        }
+    }
+
+    /**
+     * Return an object into the pool. The object is destroyed instead when it
+     * fails the validation on return, or the idle objects are already as many as
+     * the max idle, or the pool is closed. Any <code>null</code> object or object
+     * not borrowed from this pool is ignored.
+     *
+     * @param obj the object to return into the pool
+     */
+    @Override
+    public void returnObject(T obj) {
+        if (null == obj) return;
+        lock.lock();
+        try {
+            if (!borrowedObjects.containsKey(obj)) return;
+        } finally {
+            lock.unlock();
+        }
+        boolean valid = test(config.testOnReturn, obj);
+        lock.lock();
+        try {
+            if (null == borrowedObjects.remove(obj)) return;
+            if (valid && !closed && idleObjects.size() < config.maxIdle) {
+                idleObjects.offerFirst(new IdleObject<>(obj, System.nanoTime()));
+                available.signal();
+                return;
+            }
+            totalCount--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+        destroy(obj);
+    }
+
+    /**
+     * Invalidate an object borrowed from the pool. The object is destroyed and
+     * its slot is freed so that a waiting borrow can create a new object. Any
+     * <code>null</code> object or object not borrowed from this pool is ignored.
+     *
+     * @param obj the object to invalidate
+     */
+    @Override
+    public void invalidateObject(T obj) {
+        if (null == obj) return;
+        lock.lock();
+        try {
+            if (null == borrowedObjects.remove(obj)) return;
+            totalCount--;
+            available.signal();
+        } finally {
+            lock.unlock();
+        }
+        destroy(obj);
+    }
+
+    /**
+     * Returns capacity of the pool, that's the max total of objects.
+     *
+     * @return the pool capacity
+     */
+    @Override
+    public int readPoolCapacity() {
+        return config.maxTotal;
+    }
+
+    /**
+     * Returns the amount of the idle objects in the pool.
+     *
+     * @return the amount of the idle objects in the pool
+     */
+    @Override
+    public int readIdleObjectAmount() {
+        lock.lock();
+        try {
+            return idleObjects.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the amount of the borrowed objects who are not returned yet.
+     *
+     * @return the amount of the borrowed objects
+     */
+    public int readBorrowedObjectAmount() {
+        lock.lock();
+        try {
+            return borrowedObjects.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Returns the count of borrows who got an idle object from the pool.
+     *
+     * @return the count of borrows served by the idle objects
+     */
+    @Override
+    public long readHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * Returns the count of borrows who found no idle object in the pool and
+     * created a new one by the {@link #objectFactory}.
+     *
+     * @return the count of borrows not served by the idle objects
+     */
+    @Override
+    public long readMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * Clear the idle objects in the pool where they are destroyed. The borrowed
+     * objects are not affected.
+     */
+    @Override
+    public void clear() {
+        ArrayList<IdleObject<T>> drops;
+        lock.lock();
+        try {
+            drops = new ArrayList<>(idleObjects);
+            idleObjects.clear();
+            totalCount -= drops.size();
+            available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        for (IdleObject<T> idle : drops)
+            destroy(idle.obj);
+    }
+
+    /**
+     * Close the pool. The background eviction stops, the idle objects are
+     * destroyed, and the borrowed objects will be destroyed when they are
+     * returned. Any waiting or later borrow fails with an
+     * {@link IllegalStateException}.
+     */
+    @Override
+    public void close() {
+        if (closed) return;
+        closed = true;
+        if (null != evictor) evictor.cancel();
+        clear();
+    }
+
+    /**
+     * Runs an eviction on idle objects: the ones idle longer than the
+     * {@link Config#setMinEvictableIdleTimeMillis(long) min evictable idle time}
+     * or failed on the validation while idle are destroyed from the oldest one,
+     * but at least the min idle objects are kept. Then new objects are created if
+     * the idle objects are fewer than the min idle.
+     * <p>
+     * It's called in background when the
+     * {@link Config#setTimeBetweenEvictionRunsMillis(long) eviction period} is
+     * positive, while it's also allowed to be called at any time.
+     */
+    public void evict() {
+        if (closed) return;
+        ArrayList<T> drops = new ArrayList<>();
+        ArrayList<IdleObject<T>> checks = new ArrayList<>();
+        final long now = System.nanoTime();
+        final long minEvictableNanos = TimeUnit.MILLISECONDS.toNanos(config.minEvictableIdleTimeMillis);
+        lock.lock();
+        try {
+            int evictable = idleObjects.size() - config.minIdle;
+            Iterator<IdleObject<T>> ite = idleObjects.descendingIterator();
+            while (ite.hasNext()) {
+                IdleObject<T> idle = ite.next();
+                if (evictable > 0 && now - idle.idleSince >= minEvictableNanos) {
+                    evictable--;
+                    ite.remove();
+                    totalCount--;
+                    drops.add(idle.obj);
+                } else if (null != config.testWhileIdle) {
+                    // Hold it as borrowed while it's validated out of the lock
+                    ite.remove();
+                    borrowedObjects.put(idle.obj, Boolean.TRUE);
+                    checks.add(idle);
+                }
+            }
+            if (!drops.isEmpty()) available.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        for (T obj : drops)
+            destroy(obj);
+        for (IdleObject<T> idle : checks) {
+            boolean valid = test(config.testWhileIdle, idle.obj);
+            lock.lock();
+            try {
+                if (null == borrowedObjects.remove(idle.obj)) continue;
+                if (valid && !closed) {
+                    idleObjects.offerLast(idle);
+                    available.signal();
+                    continue;
+                }
+                totalCount--;
+                available.signal();
+            } finally {
+                lock.unlock();
+            }
+            destroy(idle.obj);
+        }
+        ensureMinIdle();
+    }
+
+    /**
+     * Creates objects until the idle objects are as many as the min idle or the
+     * max total is reached.
+     */
+    private void ensureMinIdle() {
+        while (true) {
+            lock.lock();
+            try {
+                if (closed || idleObjects.size() >= config.minIdle || totalCount >= config.maxTotal) return;
+                totalCount++;
+            } finally {
+                lock.unlock();
+            }
+            T obj;
+            try {
+                obj = create();
+            } catch (RuntimeException e) {
+                return;
+            }
+            lock.lock();
+            try {
+                idleObjects.offerLast(new IdleObject<>(obj, System.nanoTime()));
+                available.signal();
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Creates an object for a slot taken already, and releases the slot when
+     * failed.
+     */
+    private T create() {
+        T obj = null;
+        try {
+            obj = objectFactory.get();
+        } finally {
+            if (null == obj) {
+                lock.lock();
+                try {
+                    totalCount--;
+                    available.signal();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+        if (null == obj) throw new NullPointerException("objectFactory produced null");
+        return obj;
+    }
+
+    /**
+     * Validates an object, where a <code>null</code> validator passes any object
+     * and any exception from the validator fails it.
+     */
+    private static <T> boolean test(Predicate<? super T> validator, T obj) {
+        if (null == validator) return true;
+        try {
+            return validator.test(obj);
+        } catch (RuntimeException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Destroys an object dropped from the pool where any exception is ignored.
+     */
+    private void destroy(T obj) {
+        Consumer<? super T> destroyer = config.destroyer;
+        if (null == destroyer) return;
+        try {
+            destroyer.accept(obj);
+        } catch (RuntimeException ignore) {
+        }
+    }
+
+    /**
+     * An idle object and the time it became idle.
+     *
+     * @param <T>
+     * @author XuYanhang
+     */
+    private static final class IdleObject<T> {
+        final T obj;
+        final long idleSince;
+
+        IdleObject(T obj, long idleSince) {
+            super();
+            this.obj = obj;
+            this.idleSince = idleSince;
+        }
+    }
+
+    /**
+     * Configuration of a {@link BoundedObjectPool}. All setters return the
+     * configuration itself so that they can be chained.
+     *
+     * @param <T> Generic type
+     * @author XuYanhang
+     */
+    public static class Config<T> implements Cloneable {
+        private int maxTotal = 8;
+        private int maxIdle = 8;
+        private int minIdle = 0;
+        private long maxWaitMillis = -1L;
+        private Predicate<? super T> testOnBorrow;
+        private Predicate<? super T> testOnReturn;
+        private Predicate<? super T> testWhileIdle;
+        private Consumer<? super T> destroyer;
+        private long timeBetweenEvictionRunsMillis = -1L;
+        private long minEvictableIdleTimeMillis = 30L * 60L * 1000L;
+
+        /**
+         * Create a configuration in default values.
+         */
+        public Config() {
+            super();
+        }
+
+        /**
+         * @param maxTotal max count of objects in the pool, no matter idle or
+         *                 borrowed, <code>8</code> in default
+         * @return this
+         */
+        public Config<T> setMaxTotal(int maxTotal) {
+            this.maxTotal = maxTotal;
+            return this;
+        }
+
+        /**
+         * @param maxIdle max count of idle objects, where more returned objects are
+         *                destroyed, <code>8</code> in default
+         * @return this
+         */
+        public Config<T> setMaxIdle(int maxIdle) {
+            this.maxIdle = maxIdle;
+            return this;
+        }
+
+        /**
+         * @param minIdle min count of idle objects kept by the eviction,
+         *                <code>0</code> in default
+         * @return this
+         */
+        public Config<T> setMinIdle(int minIdle) {
+            this.minIdle = minIdle;
+            return this;
+        }
+
+        /**
+         * @param maxWaitMillis default max milliseconds a borrow waits when the pool
+         *                      is exhausted, negative value to wait forever and so
+         *                      in default
+         * @return this
+         */
+        public Config<T> setMaxWaitMillis(long maxWaitMillis) {
+            this.maxWaitMillis = maxWaitMillis;
+            return this;
+        }
+
+        /**
+         * @param testOnBorrow validator on an idle object before it's borrowed, or
+         *                     <code>null</code> for no validation and so in default
+         * @return this
+         */
+        public Config<T> setTestOnBorrow(Predicate<? super T> testOnBorrow) {
+            this.testOnBorrow = testOnBorrow;
+            return this;
+        }
+
+        /**
+         * @param testOnReturn validator on an object when it's returned, or
+         *                     <code>null</code> for no validation and so in default
+         * @return this
+         */
+        public Config<T> setTestOnReturn(Predicate<? super T> testOnReturn) {
+            this.testOnReturn = testOnReturn;
+            return this;
+        }
+
+        /**
+         * @param testWhileIdle validator on the idle objects in the eviction, or
+         *                      <code>null</code> for no validation and so in
+         *                      default
+         * @return this
+         */
+        public Config<T> setTestWhileIdle(Predicate<? super T> testWhileIdle) {
+            this.testWhileIdle = testWhileIdle;
+            return this;
+        }
+
+        /**
+         * @param destroyer action on an object dropped from the pool, or
+         *                  <code>null</code> for nothing and so in default
+         * @return this
+         */
+        public Config<T> setDestroyer(Consumer<? super T> destroyer) {
+            this.destroyer = destroyer;
+            return this;
+        }
+
+        /**
+         * @param timeBetweenEvictionRunsMillis period milliseconds of the
+         *                                      background eviction, non-positive
+         *                                      value to disable it and so in default
+         * @return this
+         */
+        public Config<T> setTimeBetweenEvictionRunsMillis(long timeBetweenEvictionRunsMillis) {
+            this.timeBetweenEvictionRunsMillis = timeBetweenEvictionRunsMillis;
+            return this;
+        }
+
+        /**
+         * @param minEvictableIdleTimeMillis min milliseconds an object stays idle
+         *                                   before it can be evicted, 30 minutes in
+         *                                   default
+         * @return this
+         */
+        public Config<T> setMinEvictableIdleTimeMillis(long minEvictableIdleTimeMillis) {
+            this.minEvictableIdleTimeMillis = minEvictableIdleTimeMillis;
+            return this;
+        }
+
+        /**
+         * Checks the values.
+         */
+        void check() {
+            if (maxTotal <= 0) throw new IllegalArgumentException("maxTotal");
+            if (maxIdle < 0) throw new IllegalArgumentException("maxIdle");
+            if (minIdle < 0 || minIdle > maxIdle || minIdle > maxTotal) throw new IllegalArgumentException("minIdle");
+            if (minEvictableIdleTimeMillis < 0) throw new IllegalArgumentException("minEvictableIdleTimeMillis");
+        }
+
+        /**
+         * Returns a copy of this configuration.
+         *
+         * @return a copy of this configuration
+         */
+        @SuppressWarnings("unchecked")
+        @Override
+        public Config<T> clone() {
+            try {
+                return (Config<T>) super.clone();
+            } catch (CloneNotSupportedException e) {
+                // this shouldn't happen, since we are Cloneable
+                throw new InternalError(e);
+            }
+        }
+    }
+}
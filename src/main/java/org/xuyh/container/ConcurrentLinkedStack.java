@@ -0,0 +1,487 @@
+/*
+ * Copyright (c) 2020-2023 XuYanhang
+ */
+
+package org.xuyh.container;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
+import java.util.function.Consumer;
+
+/**
+ * Lock-free linked stack implementation of the {@link Stack} interface. It is a
+ * variant of {@link LinkedStack} that behaves the same on capacity, height and
+ * <code>null</code> elements, but never blocks on a lock. Mention that the
+ * {@link #iterator() iterator} from this stack who doesn't provide the
+ * {@link Iterator#remove() remove} implementation.
+ * <p>
+ * The top node is updated by CAS (Compare-And-Set) in the way of Treiber
+ * stack. Each node is immutable and keeps its height, so the capacity check
+ * and the node linking happen in one atomic step. When a CAS fails for the
+ * contention, the operation backs off into an elimination array where a push
+ * and a pop meet each other and exchange the element directly without
+ * touching the top node. An eliminated pair is considered as a push followed
+ * by a pop immediately, so the elements really stored in the stack never
+ * exceed the capacity.
+ * <p>
+ * Any query operation is just a slice on an instant stack the same as
+ * {@link LinkedStack}.
+ *
+ * @param <E> Generic type
+ * @author XuYanhang
+ * @see LinkedStack
+ * @since 2020-08-14
+ */
+public class ConcurrentLinkedStack<E> extends AbstractStack<E> implements Stack<E>, java.io.Serializable {
+    /**
+     * The maximum capacity of a {@link ConcurrentLinkedStack stack} in this type.
+     */
+    public static final long MAX_CAPACITY = LinkedStack.MAX_CAPACITY;
+
+    /**
+     * Atomic updater on the {@link #top} node.
+     */
+    @SuppressWarnings("rawtypes")
+    private static final AtomicReferenceFieldUpdater<ConcurrentLinkedStack, Node> TOP_UPDATER =
+            AtomicReferenceFieldUpdater.newUpdater(ConcurrentLinkedStack.class, Node.class, "top");
+
+    /**
+     * Capacity of this stack region from <code>zero</code> to
+     * {@link #MAX_CAPACITY}. The elements count in this stack will be never larger
+     * that it. A stack in capacity of <code>zero</code> means an empty and
+     * unchangeable one.
+     */
+    private final long capacity;
+
+    /**
+     * Slots where a contended push hands its node to a contended pop.
+     */
+    private transient EliminationArray<E> elimination;
+
+    /**
+     * For a {@link ConcurrentLinkedStack stack}, A top node should be keep.
+     */
+    private transient volatile Node<E> top;
+
+    /**
+     * Create a stack in default capacity of {@link #MAX_CAPACITY}.
+     */
+    public ConcurrentLinkedStack() {
+        this(MAX_CAPACITY);
+    }
+
+    /**
+     * Create a stack in a give capacity. Any input capacity parameter is allowed
+     * while it will be adjusted between <code>zero</code> and {@link #MAX_CAPACITY}.
+     *
+     * @param capacity the {@link #capacity} to initial
+     */
+    public ConcurrentLinkedStack(long capacity) {
+        super();
+        if (capacity <= 0L)
+            this.capacity = 0L;
+        else
+            this.capacity = Long.min(capacity, MAX_CAPACITY);
+        this.elimination = new EliminationArray<>();
+    }
+
+    /**
+     * Returns the capacity of this stack. The result below for a
+     * {@link ConcurrentLinkedStack stack} will always be <code>true</code>:
+     *
+     * <pre>
+     *     stack.capacity() &gt;= stack.size();
+     * </pre>
+     *
+     * @return the {@link #capacity}
+     */
+    @Override
+    public long capacity() {
+        return capacity;
+    }
+
+    /**
+     * Peek the top element in the stack. When the element not found, a
+     * <code>null</code> value is expected.
+     *
+     * @return the top element or <code>null</code> if the stack is empty
+     */
+    @Override
+    public E peek() {
+        Node<E> t = this.top;
+        return null == t ? null : t.element;
+    }
+
+    /**
+     * Push an element on the top of the stack. In this stack strategy, a
+     * <code>null</code> element is allowed. If the stack is full, the operation is
+     * ignored and nothing happens here.
+     *
+     * @param e the element to push
+     */
+    @Override
+    public void push(E e) {
+        tryPush(e);
+    }
+
+    /**
+     * Push an element on the top of the stack. In this stack strategy, a
+     * <code>null</code> element is allowed. If the stack is full, the operation is
+     * failed and a <code>false</code> value returned.
+     *
+     * @param e the element to push
+     * @return <code>true</code> if the push action succeeds
+     */
+    public boolean tryPush(E e) {
+        while (true) {
+            Node<E> t = this.top;
+            if ((null == t ? 0 : t.height) >= capacity)
+                return false;
+            Node<E> n = new Node<>(e, t);
+            if (TOP_UPDATER.compareAndSet(this, t, n))
+                return true;
+            // Contended, back off and try to meet a pop
+            if (elimination.offer(n))
+                return true;
+        }
+    }
+
+    /**
+     * Pop the top element in the stack. If the stack is empty before, nothing will
+     * happen.
+     *
+     * @return the popped top element or <code>null</code> if failed.
+     */
+    @Override
+    public E pop() {
+        Node<E> t = unlink();
+        return null == t ? null : t.element;
+    }
+
+    /**
+     * Remove the top element in the stack. If the stack is empty before, nothing
+     * will happen.
+     */
+    @Override
+    public void remove() {
+        unlink();
+    }
+
+    private Node<E> unlink() {
+        while (true) {
+            Node<E> t = this.top;
+            if (null == t)
+                return null;
+            if (TOP_UPDATER.compareAndSet(this, t, t.below))
+                return t;
+            // Contended, back off and try to meet a push
+            Node<E> n = elimination.poll();
+            if (null != n)
+                return n;
+        }
+    }
+
+    /**
+     * Search the first element in the stack from top.
+     * <p>
+     * Two elements are same when:<br>
+     * 1. Two elements are both <code>null</code> value <br>
+     * 2. The method of {@link #equals(Object) equals} return <code>true</code>
+     *
+     * @param e the element to search
+     * @return the position by height of the target element in the stack from
+     * <code>1</code> of bottom element to {@link #size()} of top element,
+     * or <code>-1</code> if the target element is not found
+     */
+    @Override
+    public long search(E e) {
+        Node<E> cur = this.top;
+        while (null != cur) {
+            if (null == cur.element ? null == e : cur.element.equals(e)) {
+                return cur.height;
+            }
+            cur = cur.below;
+        }
+        return -1;
+    }
+
+    /**
+     * Search the first element in the stack from top.
+     * <p>
+     * If the input {@link Comparator comparator} parameter is a <code>null</code>
+     * value, then the default {@link #search(Object) search} method will be used
+     * instead. Otherwise, two elements are same only when a <code>zero</code> value
+     * returned from the {@link Comparator#compare(Object, Object) compare} method.
+     *
+     * @param e the element to search
+     * @param c the comparator
+     * @return the position by height of the target element in the stack from
+     * <code>1</code> of bottom element to {@link #size()} of top element,
+     * or <code>-1</code> if the target element is not found
+     * @see #search(Object)
+     */
+    public long search(E e, Comparator<E> c) {
+        if (null == c)
+            return search(e);
+        Node<E> cur = this.top;
+        while (null != cur) {
+            if (c.compare(e, cur.element) == 0) {
+                return cur.height;
+            }
+            cur = cur.below;
+        }
+        return -1;
+    }
+
+    /**
+     * Clear the stack. After the clear action, the size of the stack is
+     * <code>zero</code>.
+     */
+    @Override
+    public void clear() {
+        this.top = null;
+    }
+
+    /**
+     * Measure the size of the stack. It's the height of the top element, or
+     * <code>zero</code> if the stack is empty.
+     *
+     * @return the size of the stack
+     * @see #empty()
+     */
+    @Override
+    public long size() {
+        Node<E> t = this.top;
+        return null == t ? 0 : t.height;
+    }
+
+    /**
+     * Measure if the stack is empty, or rather if the size of the stack is 0.
+     *
+     * @return <code>true</code> if the stack is empty or <code>false</code> if not
+     * @see #size()
+     */
+    @Override
+    public boolean empty() {
+        return null == this.top;
+    }
+
+    /**
+     * Returns an iterator over elements in the stack. The result iterator is just a
+     * slice of an instant stack and only supply the query methods. After the
+     * iterator is created, any update operation in the original
+     * {@link ConcurrentLinkedStack stack} has no effect on it.
+     *
+     * @return an {@link Iterator} just for query
+     */
+    @Override
+    public Iterator<E> iterator() {
+        return new CLSIte<>(this.top);
+    }
+
+    /**
+     * Returns an array containing all the elements in this stack. The array is
+     * in order of the stack from bottom element to top one.
+     *
+     * @param componentType the element type in the array, who are expected to be a
+     *                      super-type of all elements in the stack
+     * @return an array containing all the elements in this stack
+     * @throws ArrayStoreException if the runtime type of the specified array is not
+     *                             a super-type of the runtime type of every element
+     *                             in this list
+     */
+    @SuppressWarnings("unchecked")
+    @Override
+    public <T> T[] toArray(Class<? extends T> componentType) {
+        Node<E> cur = this.top;
+        int size = null == cur ? 0 : cur.height;
+        Class<?> ctype = null == componentType ? Object.class : componentType;
+        T[] array = ctype == Object.class ? (T[]) new Object[size]
+                : (T[]) java.lang.reflect.Array.newInstance(ctype, size);
+        for (int i = size - 1; i >= 0; i--, cur = cur.below)
+            array[i] = (T) cur.element;
+        return array;
+    }
+
+    /**
+     * Saves the state of this {@code ConcurrentLinkedStack} instance to a stream
+     * (that is, serializes it).
+     *
+     * @serialData The capacity of the stack, the size of it and all of its elements
+     * (each an Object) in the order from bottom to top
+     */
+    private void writeObject(java.io.ObjectOutputStream oos) throws java.io.IOException {
+        // Write out any hidden serialization magic and the capacity field
+        oos.defaultWriteObject();
+
+        // Write out size
+        Object[] array = toArray(Object.class);
+        int size = array.length;
+        oos.writeLong(size);
+
+        // Write out all elements in the proper order.
+        for (Object o : array) oos.writeObject(o);
+    }
+
+    /**
+     * Reconstitutes this {@code ConcurrentLinkedStack} instance from a stream
+     * (that is, deserializes it).
+     */
+    private void readObject(java.io.ObjectInputStream ois) throws java.io.IOException, ClassNotFoundException {
+        // Read in any hidden serialization magic and the capacity field
+        ois.defaultReadObject();
+
+        // Read in size
+        long size = ois.readLong();
+
+        // Read in all elements in the proper order
+        Node<E> t = null;
+        for (long i = 0; i < size; i++) {
+            @SuppressWarnings("unchecked")
+            E e = (E) ois.readObject();
+            t = new Node<E>(e, t);
+        }
+        this.top = t;
+
+        // Restore the transient elimination slots
+        this.elimination = new EliminationArray<>();
+    }
+
+    /**
+     * To serialize or deserialize a {@link ConcurrentLinkedStack}.
+     *
+     * @see #writeObject(java.io.ObjectOutputStream)
+     * @see #readObject(java.io.ObjectInputStream)
+     * @see java.io.Serializable
+     */
+    private static final long serialVersionUID = 6127735487453208532L;
+
+    /**
+     * @param <E>
+     * @author XuYanhang
+     */
+    private static class Node<E> {
+        final E element;
+        final Node<E> below;
+        final int height;
+
+        /**
+         * Initial a {@link Node}.
+         *
+         * @param element the {@link #element} to set
+         * @param below   the {@link #below} to set, and {@link #height} initialize from
+         *                it
+         */
+        Node(E element, Node<E> below) {
+            super();
+            this.element = element;
+            this.below = below;
+            this.height = (null == below) ? 1 : (below.height + 1);
+        }
+    }
+
+    /**
+     * The elimination array where a push and a pop in contention exchange a node
+     * directly. A push publishes its node into a random slot and waits a while for
+     * a pop to take it away, or withdraws it when nobody comes.
+     *
+     * @param <E>
+     * @author XuYanhang
+     */
+    private static class EliminationArray<E> {
+        /**
+         * Spins a push waits in a slot before it withdraws.
+         */
+        private static final int WAIT_SPINS = 64;
+
+        /**
+         * The exchange slots, in size of power of two.
+         */
+        private final AtomicReferenceArray<Node<E>> slots;
+
+        EliminationArray() {
+            super();
+            int cpus = Runtime.getRuntime().availableProcessors();
+            int size = Integer.highestOneBit(Integer.max(1, Integer.min(cpus >> 1, 16)));
+            this.slots = new AtomicReferenceArray<>(size);
+        }
+
+        /**
+         * Offer a node for a pop to take.
+         *
+         * @return <code>true</code> if a pop took it
+         */
+        boolean offer(Node<E> n) {
+            int i = ThreadLocalRandom.current().nextInt() & (slots.length() - 1);
+            if (!slots.compareAndSet(i, null, n))
+                return false;
+            for (int spins = 0; spins < WAIT_SPINS; spins++) {
+                if (slots.get(i) != n)
+                    return true;
+            }
+            // Nobody comes, withdraw it unless just taken
+            return !slots.compareAndSet(i, n, null);
+        }
+
+        /**
+         * Take a node offered from a push.
+         *
+         * @return the offered node or <code>null</code> if none
+         */
+        Node<E> poll() {
+            int i = ThreadLocalRandom.current().nextInt() & (slots.length() - 1);
+            Node<E> n = slots.get(i);
+            if (null != n && slots.compareAndSet(i, n, null))
+                return n;
+            return null;
+        }
+    }
+
+    private static class CLSIte<E> implements Iterator<E> {
+        private Node<E> cur;
+
+        /**
+         * @param top first element
+         */
+        CLSIte(Node<E> top) {
+            super();
+            this.cur = top;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return null != cur;
+        }
+
+        @Override
+        public E next() {
+            Node<E> c = stepIfPossible();
+            if (null == c)
+                throw new java.util.NoSuchElementException("next");
+            return c.element;
+        }
+
+        /**
+         * Step to next node if possible and get the current valid node, or
+         * <code>null</code> if the end node arrived.
+         */
+        private Node<E> stepIfPossible() {
+            Node<E> c;
+            if (null != (c = this.cur))
+                this.cur = c.below;
+            return c;
+        }
+
+        @Override
+        public void forEachRemaining(Consumer<? super E> action) {
+            if (null == action)
+                throw new NullPointerException("action");
+            Node<E> n;
+            while ((n = stepIfPossible()) != null)
+                action.accept(n.element);
+        }
+    }
+}
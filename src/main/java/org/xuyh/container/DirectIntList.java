@@ -0,0 +1,630 @@
+/*
+ * Copyright (c) 2020-2023 XuYanhang
+ */
+
+package org.xuyh.container;
+
+import java.util.ConcurrentModificationException;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
+import java.util.function.IntPredicate;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+import org.xuyh.type.UnionPrimitiveArray;
+
+/**
+ * This integer list keeps its elements out of the JVM heap in the direct
+ * memory from {@link UnionPrimitiveArray#allocDirect(long)}, so that a huge
+ * list costs nothing for the garbage collector. It's a long indexed sibling of
+ * the {@link IntArrayList}, whose size is not limited by the length of an
+ * array.
+ * <p>
+ * The memory grows by {@link UnionPrimitiveArray#rebase(long)} in one and a
+ * half times like the {@link IntArrayList}. The elements are moved between
+ * this list and the heap arrays in bulk by {@link #readInts(long, int[], int,
+ * int)}, {@link #putInts(long, int[], int, int)} and
+ * {@link #addAll(int[], int, int)}.
+ * <p>
+ * The memory should be released by {@link #free()}, or by {@link #close()} in
+ * a try-with-resources statement, as soon as the list is useless. A list never
+ * freed has its memory released only when the garbage collector finalizes
+ * it. Any operation on a freed list fails with an {@link IllegalStateException}.
+ * This list is not thread-safe.
+ *
+ * @author XuYanhang
+ * @see IntArrayList
+ * @see UnionPrimitiveArray
+ * @since 2020-10-24
+ */
+public class DirectIntList implements AutoCloseable {
+    /**
+     * Default initial capacity.
+     */
+    private static final long DEFAULT_CAPACITY = 16L;
+
+    /**
+     * The maximum size of elements whose bits can be counted in a long value.
+     */
+    private static final long MAX_CAPACITY = Long.MAX_VALUE >> 5;
+
+    /**
+     * Length of the heap buffer to move elements in bulk.
+     */
+    private static final int BUFFER_LENGTH = 8192;
+
+    /**
+     * The direct memory, <code>null</code> after freed.
+     */
+    private UnionPrimitiveArray memory;
+
+    /**
+     * The capacity in elements of the memory.
+     */
+    private long capacity;
+
+    /**
+     * The size of the list (the number of elements it contains).
+     */
+    private long size;
+
+    /**
+     * The number of times this list has been <i>structurally modified</i>.
+     */
+    protected transient int modCount = 0;
+
+    /**
+     * Create an empty list in the default initial capacity.
+     */
+    public DirectIntList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Create an empty list in the specified initial capacity.
+     *
+     * @param initialCapacity the initial capacity in elements
+     * @throws IllegalArgumentException when the initialCapacity is negative or
+     *                                  too large
+     */
+    public DirectIntList(long initialCapacity) {
+        super();
+        if (initialCapacity < 0 || initialCapacity > MAX_CAPACITY)
+            throw new IllegalArgumentException("initialCapacity");
+        this.memory = UnionPrimitiveArray.allocDirect(initialCapacity << 5);
+        this.capacity = initialCapacity;
+        this.size = 0L;
+    }
+
+    /**
+     * Create a list in the direct memory holding the elements of an integer list.
+     *
+     * @param o the list to copy elements from
+     * @throws NullPointerException if the list is <code>null</code>
+     */
+    public DirectIntList(IntList o) {
+        this(o.size());
+        int[] values = o.toArray();
+        addAll(values, 0, values.length);
+    }
+
+    /**
+     * Increases the capacity of this list, if necessary, to ensure that it can
+     * hold at least the number of elements specified by the minimum capacity
+     * argument.
+     *
+     * @param minCapacity the desired minimum capacity
+     * @return this
+     * @throws OutOfMemoryError when the minCapacity is too large
+     */
+    public DirectIntList ensureCapacity(long minCapacity) {
+        checkMemory();
+        if (minCapacity < 0 || minCapacity > MAX_CAPACITY) throw new OutOfMemoryError();
+        if (minCapacity > capacity) {
+            long newCapacity = capacity + (capacity >> 1);
+            if (newCapacity > MAX_CAPACITY || newCapacity < 0) newCapacity = MAX_CAPACITY;
+            if (newCapacity < minCapacity) newCapacity = minCapacity;
+            memory.rebase(newCapacity << 5);
+            capacity = newCapacity;
+        }
+        return this;
+    }
+
+    /**
+     * Trims the capacity of this list to be the list's current size, which
+     * releases the unused direct memory.
+     *
+     * @return this
+     */
+    public DirectIntList trimToSize() {
+        checkMemory();
+        if (size < capacity) {
+            memory.rebase(size << 5);
+            capacity = size;
+        }
+        return this;
+    }
+
+    /**
+     * Returns the capacity in elements of the allocated direct memory.
+     *
+     * @return the capacity of this list
+     */
+    public long capacity() {
+        return capacity;
+    }
+
+    /**
+     * Returns the number of elements in this list.
+     *
+     * @return the number of elements in this list
+     */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this list contains no elements.
+     *
+     * @return <tt>true</tt> if this list contains no elements
+     */
+    public boolean isEmpty() {
+        return size == 0L;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this list contains the specified element.
+     *
+     * @param value element whose presence in this list is to be tested
+     * @return <tt>true</tt> if this list contains the specified element
+     */
+    public boolean contains(int value) {
+        return indexOf(value) >= 0L;
+    }
+
+    /**
+     * Returns the index of the first occurrence of the specified element in this
+     * list, or -1 if this list does not contain the element.
+     */
+    public long indexOf(int value) {
+        checkMemory();
+        int[] buffer = newBuffer(size);
+        for (long from = 0L; from < size; from += buffer.length) {
+            int len = (int) Math.min(buffer.length, size - from);
+            memory.readInts(from, buffer, 0, len);
+            for (int i = 0; i < len; i++)
+                if (buffer[i] == value) return from + i;
+        }
+        return -1L;
+    }
+
+    /**
+     * Returns the index of the last occurrence of the specified element in this
+     * list, or -1 if this list does not contain the element.
+     */
+    public long lastIndexOf(int value) {
+        checkMemory();
+        int[] buffer = newBuffer(size);
+        for (long to = size; to > 0L; to -= buffer.length) {
+            int len = (int) Math.min(buffer.length, to);
+            memory.readInts(to - len, buffer, 0, len);
+            for (int i = len - 1; i >= 0; i--)
+                if (buffer[i] == value) return to - len + i;
+        }
+        return -1L;
+    }
+
+    /**
+     * Returns the element at the specified position in this list.
+     *
+     * @param index index of the element to return
+     * @return the element at the specified position in this list
+     * @throws IndexOutOfBoundsException when the index is out
+     */
+    public int get(long index) {
+        checkMemory();
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        return memory.getInt(index);
+    }
+
+    /**
+     * Replaces the element at the specified position in this list with the
+     * specified element.
+     *
+     * @param index index of the element to replace
+     * @param value element to be stored at the specified position
+     * @return this
+     * @throws IndexOutOfBoundsException when the index is out
+     */
+    public DirectIntList set(long index, int value) {
+        checkMemory();
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        memory.setInt(index, value);
+        return this;
+    }
+
+    /**
+     * Appends the specified element to the end of this list.
+     *
+     * @param value element to be appended to this list
+     * @return this
+     */
+    public DirectIntList add(int value) {
+        ensureCapacity(size + 1);
+        modCount++;
+        memory.setInt(size++, value);
+        return this;
+    }
+
+    /**
+     * Appends all of the elements in the specified values to the end of this
+     * list.
+     *
+     * @param values elements to be appended to this list
+     * @return this
+     */
+    public DirectIntList addAll(int... values) {
+        return addAll(values, 0, values.length);
+    }
+
+    /**
+     * Appends a range of the elements in the specified array to the end of this
+     * list in bulk.
+     *
+     * @param values the array of elements to be appended to this list
+     * @param off    the first index in the array
+     * @param len    the count of elements to append
+     * @return this
+     * @throws IndexOutOfBoundsException when the range is out of the array
+     */
+    public DirectIntList addAll(int[] values, int off, int len) {
+        if (off < 0 || len < 0 || off + len > values.length || off + len < 0)
+            throw new IndexOutOfBoundsException("Offset: " + off + ", Length: " + len);
+        ensureCapacity(size + len);
+        modCount++;
+        memory.putInts(size, values, off, len);
+        size += len;
+        return this;
+    }
+
+    /**
+     * Inserts the specified element at the specified position in this list.
+     * Shifts the element currently at that position (if any) and any subsequent
+     * elements to the right (adds one to their indices).
+     *
+     * @param index index at which the specified element is to be inserted
+     * @param value element to be inserted
+     * @return this
+     * @throws IndexOutOfBoundsException when the index is out
+     */
+    public DirectIntList insert(long index, int value) {
+        checkMemory();
+        if (index < 0 || index > size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        ensureCapacity(size + 1);
+        modCount++;
+        move(index, index + 1, size - index);
+        memory.setInt(index, value);
+        size++;
+        return this;
+    }
+
+    /**
+     * Removes the element at the specified position in this list. Shifts any
+     * subsequent elements to the left (subtracts one from their indices).
+     *
+     * @param index the index of the element to be removed
+     * @return this
+     * @throws IndexOutOfBoundsException when the index is out
+     */
+    public DirectIntList del(long index) {
+        checkMemory();
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+        modCount++;
+        move(index + 1, index, size - index - 1);
+        size--;
+        return this;
+    }
+
+    /**
+     * Removes all of the elements of this list that satisfy the given predicate.
+     *
+     * @param filter a predicate which returns {@code true} for elements to be
+     *               removed
+     * @return this
+     * @throws NullPointerException if the specified filter is null
+     */
+    public DirectIntList delIf(IntPredicate filter) {
+        if (null == filter) throw new NullPointerException("filter");
+        checkMemory();
+        int[] buffer = newBuffer(size);
+        long write = 0L;
+        // The elements are compacted forward so that the write never overtakes the read
+        for (long read = 0L; read < size; read += buffer.length) {
+            int len = (int) Math.min(buffer.length, size - read);
+            memory.readInts(read, buffer, 0, len);
+            int kept = 0;
+            for (int i = 0; i < len; i++)
+                if (!filter.test(buffer[i])) buffer[kept++] = buffer[i];
+            memory.putInts(write, buffer, 0, kept);
+            write += kept;
+        }
+        if (write != size) {
+            modCount++;
+            size = write;
+        }
+        return this;
+    }
+
+    /**
+     * Removes all of the elements from this list. The memory is kept.
+     *
+     * @return this
+     */
+    public DirectIntList clear() {
+        checkMemory();
+        modCount++;
+        size = 0L;
+        return this;
+    }
+
+    /**
+     * Reads a range of elements from this list into the array in bulk.
+     *
+     * @param index the first index in this list
+     * @param dst   the array to read elements into
+     * @param off   the first index in the array
+     * @param len   the count of elements to read
+     * @throws IndexOutOfBoundsException when the range is out of this list or the
+     *                                   array
+     */
+    public void readInts(long index, int[] dst, int off, int len) {
+        checkMemory();
+        if (index < 0 || len < 0 || index + len > size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Length: " + len + ", Size: " + size);
+        memory.readInts(index, dst, off, len);
+    }
+
+    /**
+     * Replaces a range of elements in this list by the elements from the array
+     * in bulk. The range must be in this list, and the elements are appended by
+     * {@link #addAll(int[], int, int)}.
+     *
+     * @param index the first index in this list
+     * @param src   the array to put elements from
+     * @param off   the first index in the array
+     * @param len   the count of elements to put
+     * @throws IndexOutOfBoundsException when the range is out of this list or the
+     *                                   array
+     */
+    public void putInts(long index, int[] src, int off, int len) {
+        checkMemory();
+        if (index < 0 || len < 0 || index + len > size)
+            throw new IndexOutOfBoundsException("Index: " + index + ", Length: " + len + ", Size: " + size);
+        memory.putInts(index, src, off, len);
+    }
+
+    /**
+     * Returns an array containing all of the elements in this list in proper
+     * sequence.
+     *
+     * @return an array containing all of the elements in this list
+     * @throws IllegalStateException when the size is more than an array can hold
+     */
+    public int[] toArray() {
+        checkMemory();
+        if (size > Integer.MAX_VALUE - 8) throw new IllegalStateException("Too large for an array: " + size);
+        int[] array = new int[(int) size];
+        memory.readInts(0L, array, 0, array.length);
+        return array;
+    }
+
+    /**
+     * Returns an {@link IntArrayList} on the heap containing the elements of this
+     * list in the specified range.
+     *
+     * @param fromIndex low endpoint (inclusive) of the subList
+     * @param toIndex   high endpoint (exclusive) of the subList
+     * @return a new list in the specified range
+     * @throws IndexOutOfBoundsException when the range is out of this list or too
+     *                                   large for an array
+     */
+    public IntArrayList subList(long fromIndex, long toIndex) {
+        checkMemory();
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex || toIndex - fromIndex > Integer.MAX_VALUE - 8)
+            throw new IndexOutOfBoundsException("From: " + fromIndex + ", To: " + toIndex + ", Size: " + size);
+        int[] array = new int[(int) (toIndex - fromIndex)];
+        memory.readInts(fromIndex, array, 0, array.length);
+        return new IntArrayList(array);
+    }
+
+    /**
+     * Performs the given action for each element of this list in order.
+     *
+     * @param action The action to be performed for each element
+     * @throws NullPointerException            if the specified action is null
+     * @throws ConcurrentModificationException when the list is structurally
+     *                                         modified by the action
+     */
+    public void forEach(IntConsumer action) {
+        if (null == action) throw new NullPointerException("action");
+        checkMemory();
+        int expectedModCount = this.modCount;
+        int[] buffer = newBuffer(size);
+        for (long from = 0L; from < size; from += buffer.length) {
+            int len = (int) Math.min(buffer.length, size - from);
+            memory.readInts(from, buffer, 0, len);
+            for (int i = 0; i < len; i++)
+                action.accept(buffer[i]);
+            if (expectedModCount != this.modCount) throw new ConcurrentModificationException();
+        }
+    }
+
+    /**
+     * Creates a sequential {@link IntStream} over the elements of this list. The
+     * elements are read in bulk into a heap buffer as the stream goes.
+     *
+     * @return the stream of this list
+     */
+    public IntStream stream() {
+        checkMemory();
+        return StreamSupport.intStream(new DirectIntSpliterator(0L, size), false);
+    }
+
+    /**
+     * Free the direct memory of this list. It's harmless to free a list more than
+     * once.
+     */
+    public void free() {
+        UnionPrimitiveArray m = this.memory;
+        if (null != m) {
+            this.memory = null;
+            this.capacity = 0L;
+            this.size = 0L;
+            this.modCount++;
+            m.free();
+        }
+    }
+
+    /**
+     * Returns <tt>true</tt> if the direct memory of this list has been freed.
+     *
+     * @return <tt>true</tt> if this list is freed
+     */
+    public boolean isFreed() {
+        return null == memory;
+    }
+
+    /**
+     * Close this list by free its memory.
+     *
+     * @see #free()
+     */
+    @Override
+    public void close() {
+        free();
+    }
+
+    /**
+     * Create the string of this list. Cast this list to string as [1,2,3,4,5].
+     */
+    @Override
+    public String toString() {
+        if (null == memory) return "[freed]";
+        StringBuilder sb = new StringBuilder();
+        sb.append('[');
+        forEach(v -> sb.append(v).append(','));
+        if (sb.length() > 1) sb.setLength(sb.length() - 1);
+        sb.append(']');
+        return sb.toString();
+    }
+
+    /**
+     * Move a range of elements in the memory, where the ranges may overlap.
+     */
+    private void move(long from, long to, long len) {
+        if (len <= 0L || from == to) return;
+        int[] buffer = newBuffer(len);
+        if (to < from) {
+            for (long done = 0L; done < len; done += buffer.length) {
+                int n = (int) Math.min(buffer.length, len - done);
+                memory.readInts(from + done, buffer, 0, n);
+                memory.putInts(to + done, buffer, 0, n);
+            }
+        } else {
+            // Copy from the tail so that no element is overwritten before read
+            for (long rest = len; rest > 0L; rest -= buffer.length) {
+                int n = (int) Math.min(buffer.length, rest);
+                memory.readInts(from + rest - n, buffer, 0, n);
+                memory.putInts(to + rest - n, buffer, 0, n);
+            }
+        }
+    }
+
+    /**
+     * Check the memory is not freed.
+     */
+    private void checkMemory() {
+        if (null == memory) throw new IllegalStateException("List freed");
+    }
+
+    /**
+     * Create a heap buffer enough for the count of elements but not longer than
+     * {@link #BUFFER_LENGTH}.
+     */
+    private static int[] newBuffer(long count) {
+        return new int[(int) Math.max(1L, Math.min(BUFFER_LENGTH, count))];
+    }
+
+    /**
+     * Spliterator over a range of the list who reads the memory in bulk.
+     *
+     * @author XuYanhang
+     */
+    private final class DirectIntSpliterator implements Spliterator.OfInt {
+        private long index;
+        private final long fence;
+        private final int expectedModCount;
+        private int[] buffer;
+        private int bufferPos;
+        private int bufferLen;
+
+        DirectIntSpliterator(long origin, long fence) {
+            super();
+            this.index = origin;
+            this.fence = fence;
+            this.expectedModCount = DirectIntList.this.modCount;
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            if (null == action) throw new NullPointerException("action");
+            if (bufferPos == bufferLen) {
+                if (index >= fence) return false;
+                fill();
+            }
+            action.accept(buffer[bufferPos++]);
+            return true;
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            if (null == action) throw new NullPointerException("action");
+            while (true) {
+                while (bufferPos < bufferLen)
+                    action.accept(buffer[bufferPos++]);
+                if (index >= fence) return;
+                fill();
+            }
+        }
+
+        @Override
+        public Spliterator.OfInt trySplit() {
+            if (bufferLen != 0) return null;
+            long lo = index, mid = (lo + fence) >>> 1;
+            if (mid - lo < BUFFER_LENGTH) return null;
+            this.index = mid;
+            return new DirectIntSpliterator(lo, mid);
+        }
+
+        @Override
+        public long estimateSize() {
+            return fence - index + bufferLen - bufferPos;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+
+        private void fill() {
+            if (expectedModCount != DirectIntList.this.modCount) throw new ConcurrentModificationException();
+            if (null == buffer) buffer = newBuffer(fence - index);
+            int len = (int) Math.min(buffer.length, fence - index);
+            memory.readInts(index, buffer, 0, len);
+            index += len;
+            bufferPos = 0;
+            bufferLen = len;
+        }
+    }
+}
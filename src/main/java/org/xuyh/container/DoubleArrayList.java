@@ -0,0 +1,1089 @@
+/*
+ * Copyright (c) 2020-2023 XuYanhang
+ */
+
+// Generated from src/template/container/ArrayList.template by PrimitiveListGenerator, do not edit.
+
+package org.xuyh.container;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.DoubleConsumer;
+import java.util.function.DoublePredicate;
+import java.util.stream.DoubleStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * This double list is a list that permits only double values. Some behavior
+ * is simular with {@link ArrayList} when some of these implements are from
+ * {@link ArrayList} while some is different.
+ *
+ * @author XuYanhang
+ * @since 2020-10-06
+ */
+public class DoubleArrayList implements DoubleList, java.util.RandomAccess, Cloneable, java.io.Serializable {
+    /**
+     * Serializable
+     */
+    private static final long serialVersionUID = 2735170915216423950L;
+
+    /**
+     * Default initial capacity.
+     */
+    private static final int DEFAULT_CAPACITY = 10;
+
+    /**
+     * Shared empty array instance used for empty instances.
+     */
+    private static final double[] EMPTY_DATA = {};
+
+    /**
+     * The maximum size of array to allocate. Some VMs reserve some header words in
+     * an array. Attempts to allocate larger arrays may result in OutOfMemoryError:
+     * Requested array size exceeds VM limit
+     */
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    /**
+     * The array buffer into which the elements of the List are stored. The capacity
+     * of the List is the length of this array buffer. Any empty List with
+     * elementData == DEFAULTCAPACITY_EMPTY_ELEMENTDATA will be expanded to
+     * DEFAULT_CAPACITY when the first element is added.
+     */
+    private transient double[] data; // non-private to simplify nested class access
+
+    /**
+     * The size of the List (the number of elements it contains).
+     */
+    private transient int size;
+
+    /**
+     * The number of times this list has been <i>structurally modified</i>.
+     * Structural modifications are those that change the size of the list, or
+     * otherwise perturb it in such a fashion that iterations in progress may yield
+     * incorrect results.
+     */
+    protected transient int modCount = 0;
+
+    /**
+     * Create an empty list.
+     */
+    public DoubleArrayList() {
+        super();
+        this.data = EMPTY_DATA;
+        this.size = 0;
+    }
+
+    /**
+     * Create a list in specified array. The list is "safe" when any modification
+     * has no effect on the origin array.
+     *
+     * @throws NullPointerException if the array is <code>null</code>
+     */
+    public DoubleArrayList(double[] array) {
+        super();
+        this.data = array.length == 0 ? EMPTY_DATA : Arrays.copyOf(array, array.length);
+        this.size = array.length;
+    }
+
+    /**
+     * Create a list in specified collection. The list is "safe" when any
+     * modification has no effect on the origin collection.
+     *
+     * @throws NullPointerException if the collection is <code>null</code> or any of
+     *                              the double value is <code>null</code>
+     */
+    public DoubleArrayList(Collection<? extends Number> c) {
+        super();
+        this.data = collectionToArray(c);
+        this.size = this.data.length;
+    }
+
+    /**
+     * Create a list in specified double list. The list is "safe" when any
+     * modification has no effect on the origin list.
+     *
+     * @throws NullPointerException if the list is <code>null</code>
+     */
+    public DoubleArrayList(DoubleList o) {
+        super();
+        this.data = o.toArray();
+        this.size = this.data.length;
+        if (this.size == 0) this.data = EMPTY_DATA;
+    }
+
+    /**
+     * Increases the capacity of this List, if necessary, to ensure that it can hold
+     * at least the number of elements specified by the minimum capacity argument.
+     *
+     * @param minCapacity the desired minimum capacity
+     * @return this
+     */
+    public DoubleArrayList ensureCapacity(int minCapacity) {
+        if (minCapacity < 0 || minCapacity > MAX_ARRAY_SIZE) throw new OutOfMemoryError();
+        if (data == EMPTY_DATA) minCapacity = Math.max(DEFAULT_CAPACITY, minCapacity);
+        if (minCapacity > data.length) {
+            int oldCapacity = data.length;
+            int newCapacity = oldCapacity + (oldCapacity >> 1);
+            if (newCapacity > MAX_ARRAY_SIZE) newCapacity = MAX_ARRAY_SIZE;
+            if (newCapacity < minCapacity) newCapacity = minCapacity;
+            // minCapacity is usually close to size, so this is a win:
+            data = Arrays.copyOf(data, newCapacity);
+        }
+        return this;
+    }
+
+    /**
+     * Trims the capacity of this <tt>ArrayList</tt> instance to be the list's
+     * current size. An application can use this operation to minimize the storage
+     * of an <tt>ArrayList</tt> instance.
+     *
+     * @return this
+     */
+    public DoubleArrayList trimToSize() {
+        if (size < data.length) data = (size == 0) ? EMPTY_DATA : Arrays.copyOf(data, size);
+        return this;
+    }
+
+    /**
+     * Returns the number of elements in this list.
+     *
+     * @return the number of elements in this list
+     */
+    @Override
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this list contains no elements.
+     *
+     * @return <tt>true</tt> if this list contains no elements
+     */
+    @Override
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this list contains the specified element.
+     *
+     * @param value element whose presence in this list is to be tested
+     * @return <tt>true</tt> if this list contains the specified element
+     */
+    @Override
+    public boolean contains(double value) {
+        return indexOf(value) >= 0;
+    }
+
+    /**
+     * Returns the index of the first occurrence of the specified element in this
+     * list, or -1 if this list does not contain the element.
+     */
+    @Override
+    public int indexOf(double value) {
+        for (int i = 0; i < size; i++)
+            if (Double.doubleToLongBits(value) == Double.doubleToLongBits(data[i])) return i;
+        return -1;
+    }
+
+    /**
+     * Returns the index of the last occurrence of the specified element in this
+     * list, or -1 if this list does not contain the element.
+     */
+    @Override
+    public int lastIndexOf(double value) {
+        for (int i = size - 1; i > -1; i--)
+            if (Double.doubleToLongBits(value) == Double.doubleToLongBits(data[i])) return i;
+        return -1;
+    }
+
+    /**
+     * Returns the element at the specified position in this list.
+     *
+     * @param index index of the element to return
+     * @return the element at the specified position in this list
+     * @throws IndexOutOfBoundsException when the index is out
+     */
+    @Override
+    public double get(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index + " out of [0," + size + ")");
+        return data[index];
+    }
+
+    /**
+     * Replaces the element at the specified position in this list with the
+     * specified element.
+     *
+     * @param index index of the element to replace
+     * @param value element to be stored at the specified position
+     * @return this
+     * @throws IndexOutOfBoundsException when the index is out
+     */
+    @Override
+    public DoubleArrayList set(int index, double value) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index + " out of [0," + size + ")");
+        data[index] = value;
+        return this;
+    }
+
+    /**
+     * Appends the specified element to the end of this list.
+     *
+     * @param value element to be appended to this list
+     * @return this
+     */
+    @Override
+    public DoubleArrayList add(double value) {
+        this.modCount++;
+        ensureCapacity(size + 1); // Increments modCount!!
+        data[size++] = value;
+        return this;
+    }
+
+    /**
+     * Appends the specified elements to the end of this list.
+     *
+     * @param values elements to be appended to this list
+     * @return this
+     * @throws NullPointerException when the input value array is <code>null</code>
+     */
+    @Override
+    public DoubleArrayList addAll(double... values) {
+        if (null == values) throw new NullPointerException("values");
+        if (0 == values.length) return this;
+        this.modCount++;
+        ensureCapacity(size + values.length); // Increments modCount!!
+        System.arraycopy(values, 0, data, size, values.length);
+        size += values.length;
+        return this;
+    }
+
+    /**
+     * Appends the specified elements to the end of this list.
+     *
+     * @param c elements to be appended to this list but in collection way
+     * @return this
+     * @throws NullPointerException when the input collection is <code>null</code>
+     *                              or any element in it is <code>null</code>
+     */
+    @Override
+    public DoubleArrayList addAll(Collection<? extends Number> c) {
+        return addAll(collectionToArray(c));
+    }
+
+    /**
+     * Appends the specified elements to the end of this list.
+     *
+     * @param o elements to be appended to this list but in list way
+     * @return this
+     * @throws NullPointerException when the input list is <code>null</code>
+     */
+    @Override
+    public DoubleArrayList addAll(DoubleList o) {
+        return addAll(o.toArray());
+    }
+
+    /**
+     * Inserts the specified element at the specified position in this list. Shifts
+     * the element currently at that position (if any) and any subsequent elements
+     * to the right (adds one to their indices).
+     *
+     * @param index index at which the specified element is to be inserted
+     * @param value element to be inserted
+     * @return this
+     * @throws IndexOutOfBoundsException when the index is out
+     */
+    @Override
+    public DoubleArrayList insert(int index, double value) {
+        if (index < 0 || index > size) throw new IndexOutOfBoundsException(index + " out of [0," + size + "]");
+        ensureCapacity(size + 1); // Increments modCount!!
+        System.arraycopy(data, index, data, index + 1, size - index);
+        data[index] = value;
+        size++;
+        return this;
+    }
+
+    /**
+     * Inserts the specified elements at the specified position in this list. Shifts
+     * the element currently at that position (if any) and any subsequent elements
+     * to the right (adds one to their indices).
+     *
+     * @param index  index at which the specified element is to be inserted
+     * @param values elements to be inserted
+     * @return this
+     * @throws IndexOutOfBoundsException when the index is out
+     * @throws NullPointerException      when the input value array is
+     *                                   <code>null</code>
+     */
+    @Override
+    public DoubleArrayList insertAll(int index, double... values) {
+        if (index < 0 || index > size) throw new IndexOutOfBoundsException(index + " out of [0," + size + "]");
+        if (0 == values.length) return this;
+        ensureCapacity(size + values.length); // Increments modCount!!
+        System.arraycopy(data, index, data, index + values.length, size - index);
+        System.arraycopy(values, 0, data, index, values.length);
+        size += values.length;
+        return this;
+    }
+
+    /**
+     * Inserts the specified elements at the specified position in this list. Shifts
+     * the element currently at that position (if any) and any subsequent elements
+     * to the right (adds one to their indices).
+     *
+     * @param index index at which the specified element is to be inserted
+     * @param c     elements to be inserted but in in collection way
+     * @return this
+     * @throws IndexOutOfBoundsException when the index is out
+     * @throws NullPointerException      when the input collection is
+     *                                   <code>null</code> or any number in it is
+     *                                   null
+     */
+    @Override
+    public DoubleArrayList insertAll(int index, Collection<? extends Number> c) {
+        return insertAll(index, collectionToArray(c));
+    }
+
+    /**
+     * Inserts the specified elements at the specified position in this list. Shifts
+     * the element currently at that position (if any) and any subsequent elements
+     * to the right (adds one to their indices).
+     *
+     * @param index index at which the specified element is to be inserted
+     * @param o     elements to be inserted but in in list way
+     * @return this
+     * @throws IndexOutOfBoundsException when the index is out
+     * @throws NullPointerException      when the input list is <code>null</code>
+     */
+    @Override
+    public DoubleArrayList insertAll(int index, DoubleList o) {
+        return insertAll(index, o.toArray());
+    }
+
+    /**
+     * Removes the element at the specified position in this list. Shifts any
+     * subsequent elements to the left (subtracts one from their indices).
+     *
+     * @param index the index of the element to be removed
+     * @return this
+     * @throws IndexOutOfBoundsException when the index is out
+     */
+    @Override
+    public DoubleArrayList del(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index + " out of [0," + size + ")");
+        this.modCount++;
+        int numMoved = size - index - 1;
+        if (numMoved > 0) System.arraycopy(data, index + 1, data, index, numMoved);
+        data[--size] = 0;
+        return this;
+    }
+
+    /**
+     * Removes all of the elements of this list that satisfy the given predicate.
+     * Errors or runtime exceptions thrown during iteration or by the predicate are
+     * relayed to the caller.
+     *
+     * @param filter a predicate which returns {@code true} for elements to be
+     *               removed
+     * @return this
+     * @throws NullPointerException if the specified filter is <code>null</code>
+     */
+    @Override
+    public DoubleArrayList delIf(DoublePredicate filter) {
+        if (null == filter) throw new NullPointerException("filter");
+        final int expectedModCount = modCount;
+        final int size = this.size;
+        final BitSet removeSet = new BitSet(size);
+        int removeCount = 0;
+        for (int i = 0; expectedModCount == modCount && i < size; i++) {
+            if (filter.test(data[i])) {
+                removeSet.set(i);
+                removeCount++;
+            }
+        }
+        if (modCount != expectedModCount) throw new ConcurrentModificationException();
+
+        // shift surviving elements left over the spaces left by removed elements
+        final boolean anyToRemove = removeCount > 0;
+        if (anyToRemove) {
+            final int newSize = size - removeCount;
+            for (int i = 0, j = 0; (i < size) && (j < newSize); i++, j++) {
+                i = removeSet.nextClearBit(i);
+                data[j] = data[i];
+            }
+            for (int k = newSize; k < size; k++) data[k] = 0;
+            this.size = newSize;
+            modCount++;
+        }
+        return this;
+    }
+
+    /**
+     * Removes all the elements from this list. The list will be empty after this
+     * call returns.
+     */
+    @Override
+    public DoubleArrayList clear() {
+        if (size != 0) {
+            this.modCount++;
+            for (int i = 0; i < size; i++) data[i] = 0;
+            size = 0;
+        }
+        return this;
+    }
+
+    /**
+     * Sort this list in ASC way. For example, unsorted array of [3, 1, 2, 0] would
+     * be changed as [0, 1, 2, 3] after sort action.
+     *
+     * @return this
+     * @see Arrays#sort(double[], int, int)
+     */
+    @Override
+    public DoubleArrayList sort() {
+        this.modCount++;
+        Arrays.sort(data, 0, size);
+        return this;
+    }
+
+    /**
+     * Sort this list in ASC way like {@link #sort()}, but on the common
+     * {@link java.util.concurrent.ForkJoinPool ForkJoinPool} for a large list. The
+     * list is sorted by {@link Arrays#parallelSort(double[], int, int)}, who sorts
+     * a small one in the caller thread.
+     *
+     * @return this
+     * @see #sort()
+     */
+    public DoubleArrayList parallelSort() {
+        this.modCount++;
+        Arrays.parallelSort(data, 0, size);
+        return this;
+    }
+
+    /**
+     * Sort this list in ASC way and remove the duplicated elements. For example,
+     * unsorted array of [3, 1, 3, 0, 1] would be changed as [0, 1, 3] after this
+     * action. The sort is the one of {@link #parallelSort()}.
+     *
+     * @return this
+     * @see #parallelSort()
+     */
+    public DoubleArrayList sortUnique() {
+        if (size < 2) return this;
+        this.modCount++;
+        Arrays.parallelSort(data, 0, size);
+        double last = data[0];
+        int unique = 1;
+        for (int i = 1; i < size; i++) {
+            double v = data[i];
+            // Equal in bits like indexOf, so that NaNs are merged but not -0.0 and 0.0
+            if (Double.doubleToLongBits(v) != Double.doubleToLongBits(last)) data[unique++] = last = v;
+        }
+        for (int i = unique; i < size; i++) data[i] = 0;
+        size = unique;
+        return this;
+    }
+
+    /**
+     * Reverse all elements in this list. For example, if the original list is [0,
+     * 1, 2]. After reverse operation, it is changed as [2, 1, 0].
+     *
+     * @return this
+     */
+    @Override
+    public DoubleArrayList reverse() {
+        this.modCount++;
+        int mid = size >> 1;
+        for (int i = 0; i < mid; i++) {
+            double t = data[size - 1 - i];
+            data[size - 1 - i] = data[i];
+            data[i] = t;
+        }
+        return this;
+    }
+
+    /**
+     * Create a sub list from a slice in the list. Specially, You can use
+     * fromIndex=size and toIndex=size to create an empty list or parameter of
+     * fromIndex>toIndex to slice this list in a reverse way. This way has no effect
+     * on the origin list of this.
+     *
+     * @param fromIndex The beginning element index to slice the list. Range from -1 to
+     *                  size on step 1 when fromIndex==toIndex or 0 to size-1 on step 1 when
+     *                  fromIndex!=toIndex. Included.
+     * @param toIndex   The end element index to slice the list or size of the list
+     *                  when not set. Range from -1 to size on step 1. Excluded.
+     * @return The sub slice list.
+     * @throws IndexOutOfBoundsException when the from index or to index out of
+     *                                   range.
+     */
+    @Override
+    public DoubleArrayList subList(int fromIndex, int toIndex) {
+        if (toIndex < -1 || toIndex > size) throw new IndexOutOfBoundsException("toIndex=" + toIndex);
+        if (fromIndex == toIndex) return new DoubleArrayList();
+        if (fromIndex < 0 || fromIndex >= size) throw new IndexOutOfBoundsException("fromIndex=" + fromIndex);
+        DoubleArrayList sub = new DoubleArrayList();
+        if (fromIndex < toIndex) {
+            sub.size = toIndex - fromIndex;
+            sub.data = Arrays.copyOfRange(data, fromIndex, toIndex);
+        } else {
+            sub.size = fromIndex - toIndex;
+            sub.data = new double[fromIndex - toIndex];
+            int i = fromIndex, c = 0;
+            while (i != toIndex)
+                sub.data[c++] = data[i--];
+        }
+        return sub;
+    }
+
+    /**
+     * Returns an array containing all the elements in this list in proper
+     * sequence (from first to last element).
+     *
+     * <p>
+     * The returned array will be "safe" in that no references to it are maintained
+     * by this list. (In other words, this method must allocate a new array). The
+     * caller is thus free to modify the returned array.
+     * <p>
+     * This method acts as bridge between array-based and double-list-based APIs.
+     *
+     * @return an array containing all the elements in this list in proper
+     * sequence
+     */
+    @Override
+    public double[] toArray() {
+        return 0 == size ? EMPTY_DATA : Arrays.copyOf(data, size);
+    }
+
+    /**
+     * Returns an array containing all the elements in this list in proper
+     * sequence (from first to last element).
+     *
+     * <p>
+     * The returned array will be "safe" in that no references to it are maintained
+     * by this list. (In other words, this method must allocate a new array). The
+     * caller is thus free to modify the returned array.
+     *
+     * <p>
+     * This method acts as bridge between array-based and double-list-based APIs.
+     *
+     * @return an array containing all of the elements in this list in proper
+     * sequence
+     */
+    @Override
+    public Double[] toRefArray() {
+        Double[] array = new Double[size];
+        for (int i = 0; i < size; i++)
+            array[i] = data[i];
+        return array;
+    }
+
+    /**
+     * Cast this list with primitive double type as reference type of double.
+     *
+     * <p>
+     * The returned list will be "safe" in that no references to it are maintained
+     * by this list. (In other words, this method must allocate a new memory). The
+     * caller is thus free to modify the returned list.
+     *
+     * <p>
+     * This method acts as bridge between double-list-based and collection-based APIs.
+     *
+     * @return a list in double type containing all of the elements in this list in
+     * proper sequence
+     */
+    @Override
+    public ArrayList<Double> toRefList() {
+        ArrayList<Double> list = new ArrayList<>(this.size);
+        for (int i = 0; i < size; i++)
+            list.add(data[i]);
+        return list;
+    }
+
+    /**
+     * Returns a {@link DoubleIterator} over elements in this list, , starting at the
+     * specified position in the list.The specified index indicates the first
+     * element that would be returned by an initial call to {@link DoubleIterator#next
+     * next}. An initial call to {@link DoubleIterator#prev prev} would return the
+     * element with the specified index minus one.
+     *
+     * @param index the starting index of the target iterator
+     * @return a {@link DoubleIterator}.
+     * @throws IndexOutOfBoundsException when the index is out of range
+     */
+    @Override
+    public DoubleIterator doubleIterator(int index) {
+        if (index < 0 || index > size) throw new IndexOutOfBoundsException("Index: " + index);
+        return new DoubleIterator() {
+            int cursor = index;
+            int lastRet = -1;
+            int expectedModCount = DoubleArrayList.this.modCount;
+
+            @Override
+            public boolean hasNext() {
+                return this.cursor < DoubleArrayList.this.size;
+            }
+
+            @Override
+            public double next() {
+                if (this.cursor >= DoubleArrayList.this.size) throw new NoSuchElementException("next");
+                if (this.expectedModCount != DoubleArrayList.this.modCount) throw new ConcurrentModificationException();
+                return DoubleArrayList.this.data[lastRet = cursor++];
+            }
+
+            @Override
+            public boolean hasPrev() {
+                return this.cursor != 0;
+            }
+
+            @Override
+            public double prev() {
+                if (this.cursor == 0) throw new NoSuchElementException("prev");
+                if (this.expectedModCount != DoubleArrayList.this.modCount) throw new ConcurrentModificationException();
+                return DoubleArrayList.this.data[lastRet = --cursor];
+            }
+
+            @Override
+            public int nextIndex() {
+                return cursor;
+            }
+
+            @Override
+            public int prevIndex() {
+                return cursor - 1;
+            }
+
+            @Override
+            public void remove() {
+                if (this.lastRet < 0) throw new IllegalStateException();
+                if (this.expectedModCount != DoubleArrayList.this.modCount) throw new ConcurrentModificationException();
+                del(this.lastRet);
+                this.cursor = this.lastRet;
+                this.lastRet = -1;
+                this.expectedModCount = DoubleArrayList.this.modCount;
+            }
+
+            @Override
+            public void set(double e) {
+                if (lastRet < 0) throw new IllegalStateException();
+                if (this.expectedModCount != DoubleArrayList.this.modCount) throw new ConcurrentModificationException();
+                DoubleArrayList.this.set(lastRet, e);
+                this.expectedModCount = DoubleArrayList.this.modCount;
+            }
+
+            @Override
+            public void add(double e) {
+                if (this.expectedModCount != DoubleArrayList.this.modCount) throw new ConcurrentModificationException();
+                DoubleArrayList.this.insert(cursor, e);
+                cursor++;
+                lastRet = -1;
+                expectedModCount = DoubleArrayList.this.modCount;
+            }
+        };
+    }
+
+    /**
+     * Returns an iterator over elements of type {@link Double}.
+     *
+     * @return an Iterator.
+     */
+    @Override
+    public Iterator<Double> iterator() {
+        return new Iterator<Double>() {
+            int cursor = 0;
+            int lastRet = -1;
+            int expectedModCount = DoubleArrayList.this.modCount;
+
+            @Override
+            public boolean hasNext() {
+                return this.cursor < DoubleArrayList.this.size;
+            }
+
+            @Override
+            public Double next() {
+                if (this.cursor >= DoubleArrayList.this.size) throw new NoSuchElementException("next");
+                if (this.expectedModCount != DoubleArrayList.this.modCount) throw new ConcurrentModificationException();
+                return DoubleArrayList.this.data[lastRet = cursor++];
+            }
+
+            @Override
+            public void remove() {
+                if (this.lastRet < 0) throw new IllegalStateException();
+                if (this.expectedModCount != DoubleArrayList.this.modCount) throw new ConcurrentModificationException();
+                del(this.lastRet);
+                this.cursor = this.lastRet;
+                this.lastRet = -1;
+                this.expectedModCount = DoubleArrayList.this.modCount;
+            }
+        };
+    }
+
+    /**
+     * Creates an instance of {@link DoubleStream};
+     *
+     * @return the stream of this list
+     */
+    @Override
+    public DoubleStream stream() {
+        return StreamSupport.doubleStream(spliterator(), false);
+    }
+
+    /**
+     * Creates a late-binding and fail-fast {@link Spliterator.OfDouble} over the
+     * elements in this list. It reports {@link Spliterator#SIZED},
+     * {@link Spliterator#SUBSIZED} and {@link Spliterator#ORDERED}, and splits
+     * in halves so that a parallel stream spreads evenly.
+     *
+     * @return a spliterator over the elements in this list
+     */
+    @Override
+    public Spliterator.OfDouble spliterator() {
+        return new DoubleArrayListSpliterator(this, 0, -1, 0);
+    }
+
+    /**
+     * Returns the sum of all elements in this list in double.
+     *
+     * @return the sum of the elements, or <code>0</code> for an empty list
+     */
+    @Override
+    public double sum() {
+        final double[] data = this.data;
+        final int size = this.size;
+        // Independent accumulators break the dependency chain of the additions
+        double s0 = 0.0, s1 = 0.0, s2 = 0.0, s3 = 0.0;
+        int i = 0;
+        for (int bound = size - 3; i < bound; i += 4) {
+            s0 += data[i];
+            s1 += data[i + 1];
+            s2 += data[i + 2];
+            s3 += data[i + 3];
+        }
+        for (; i < size; i++) s0 += data[i];
+        return s0 + s1 + s2 + s3;
+    }
+
+    /**
+     * Returns the minimum element in this list.
+     *
+     * @return the minimum element
+     * @throws NoSuchElementException when the list is empty
+     */
+    @Override
+    public double min() {
+        final double[] data = this.data;
+        final int size = this.size;
+        if (size == 0) throw new NoSuchElementException("min");
+        double m0 = data[0], m1 = m0, m2 = m0, m3 = m0;
+        int i = 1;
+        for (int bound = size - 3; i < bound; i += 4) {
+            m0 = Math.min(m0, data[i]);
+            m1 = Math.min(m1, data[i + 1]);
+            m2 = Math.min(m2, data[i + 2]);
+            m3 = Math.min(m3, data[i + 3]);
+        }
+        for (; i < size; i++) m0 = Math.min(m0, data[i]);
+        return Math.min(Math.min(m0, m1), Math.min(m2, m3));
+    }
+
+    /**
+     * Returns the maximum element in this list.
+     *
+     * @return the maximum element
+     * @throws NoSuchElementException when the list is empty
+     */
+    @Override
+    public double max() {
+        final double[] data = this.data;
+        final int size = this.size;
+        if (size == 0) throw new NoSuchElementException("max");
+        double m0 = data[0], m1 = m0, m2 = m0, m3 = m0;
+        int i = 1;
+        for (int bound = size - 3; i < bound; i += 4) {
+            m0 = Math.max(m0, data[i]);
+            m1 = Math.max(m1, data[i + 1]);
+            m2 = Math.max(m2, data[i + 2]);
+            m3 = Math.max(m3, data[i + 3]);
+        }
+        for (; i < size; i++) m0 = Math.max(m0, data[i]);
+        return Math.max(Math.max(m0, m1), Math.max(m2, m3));
+    }
+
+    /**
+     * Searches this list for the specified value using the binary search
+     * algorithm. The list must be sorted prior to making this call, or the result
+     * is undefined.
+     *
+     * @param value the value to be searched for
+     * @return index of the search value, if it is contained in the list;
+     * otherwise, <tt>(-(<i>insertion point</i>) - 1)</tt>
+     * @see Arrays#binarySearch(double[], int, int, double)
+     */
+    @Override
+    public int binarySearch(double value) {
+        return Arrays.binarySearch(data, 0, size, value);
+    }
+
+    /**
+     * Replace each element in this list by the sum of itself and all elements
+     * before it. For example, the list of [1, 2, 3, 4] would be changed as [1, 3,
+     * 6, 10]. The sums round like the double addition.
+     *
+     * @return this
+     */
+    @Override
+    public DoubleArrayList prefixSum() {
+        final double[] data = this.data;
+        final int size = this.size;
+        double sum = 0;
+        for (int i = 0; i < size; i++) data[i] = sum += data[i];
+        return this;
+    }
+
+
+    /**
+     * Performs the given action for each element in the range of this list in
+     * order.
+     *
+     * @param fromIndex the index of the first element, inclusive
+     * @param toIndex   the index of the last element, exclusive
+     * @param action    The action to be performed for each element
+     * @throws IndexOutOfBoundsException       when the range is out of this list
+     * @throws NullPointerException            if the specified action is null
+     * @throws ConcurrentModificationException if the list is structurally
+     *                                         modified by the action
+     */
+    @Override
+    public void forEachRange(int fromIndex, int toIndex, DoubleConsumer action) {
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex)
+            throw new IndexOutOfBoundsException("fromIndex=" + fromIndex + ", toIndex=" + toIndex);
+        if (null == action) throw new NullPointerException("action");
+        final int expectedModCount = this.modCount;
+        final double[] data = this.data;
+        for (int i = fromIndex; i < toIndex; i++) action.accept(data[i]);
+        if (expectedModCount != this.modCount) throw new ConcurrentModificationException();
+    }
+
+    /**
+     * Returns a copy of this List instance.
+     *
+     * @return a clone of this List instance
+     */
+    @Override
+    public DoubleArrayList clone() {
+        try {
+            DoubleArrayList v = (DoubleArrayList) super.clone();
+            v.data = Arrays.copyOf(data, size);
+            return v;
+        } catch (CloneNotSupportedException e) {
+            // this shouldn't happen, since we are Cloneable
+            throw new InternalError(e);
+        }
+    }
+
+    /**
+     * Compares the specified object with this list for equality. Returns
+     * {@code true} if and only if the specified object is also a list, both lists
+     * have the same size, and all corresponding pairs of elements in the two lists
+     * are <i>equal</i>. In other words, two lists are defined to be equal if they
+     * contain the same elements in the same order.
+     * <p>
+     *
+     * @param o the object to be compared for equality with this list
+     * @return {@code true} if the specified object is equal to this list
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (o == null) return false;
+        if (!(o instanceof DoubleList)) return false;
+        DoubleList other = (DoubleList) o;
+        if (this.size != other.size()) return false;
+        DoubleIterator iterator = other.doubleIterator(0);
+        for (int i = 0; i < size; ++i) {
+            if (Double.doubleToLongBits(data[i]) != Double.doubleToLongBits(iterator.next())) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the hash code value for this list. The hash code of a list is defined
+     * to be the result of the following calculation:
+     *
+     * <pre>
+     * {
+     * 	int hashCode = 1;
+     * 	for (Double e : list)
+     * 		hashCode = 31 * hashCode + e.hashCode();
+     * }
+     * </pre>
+     * <p>
+     * This ensures that <tt>list1.equals(list2)</tt> implies that
+     * <tt>list1.hashCode()==list2.hashCode()</tt> for any two lists, <tt>list1</tt>
+     * and <tt>list2</tt>, as required by the general contract of
+     * {@link Object#hashCode}.
+     *
+     * @return the hash code value for this list
+     * @see Object#equals(Object)
+     * @see #equals(Object)
+     */
+    @Override
+    public int hashCode() {
+        int hashCode = 1;
+        for (int i = 0; i < size; i++)
+            hashCode = 31 * hashCode + Double.hashCode(data[i]);
+        return hashCode;
+    }
+
+    /**
+     * Create the string of this list. Cast this list to string as [1,2,3,4,5].
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append('[');
+        for (int i = 0; i < size; i++) {
+            sb.append(data[i]);
+            if (i != size - 1)
+                sb.append(',');
+        }
+        sb.append(']');
+        return sb.toString();
+    }
+
+    /**
+     * Save the state of the list instance to a stream (that is, serialize it).
+     *
+     * @serialData The size and the data in order.
+     */
+    private void writeObject(java.io.ObjectOutputStream s) throws java.io.IOException {
+        // Write out element count, and any hidden stuff
+        s.defaultWriteObject();
+
+        // Write out size as capacity for behavioural compatibility with clone()
+        s.writeInt(size);
+
+        // Write out all elements in the proper order.
+        for (int i = 0; i < size; i++)
+            s.writeDouble(data[i]);
+    }
+
+    /**
+     * Reconstitute the List instance from a stream (that is, deserialize it).
+     */
+    private void readObject(java.io.ObjectInputStream s) throws java.io.IOException, ClassNotFoundException {
+        // Read in any hidden stuff
+        s.defaultReadObject();
+
+        // Read in size
+        size = s.readInt();
+
+        // Read in data
+        data = EMPTY_DATA;
+
+        if (size > 0) {
+            // be like clone(), allocate array based upon size not capacity
+            ensureCapacity(size);
+
+            // Read in all elements in the proper order.
+            for (int i = 0; i < size; i++)
+                data[i] = s.readDouble();
+        }
+    }
+
+    /**
+     * Index-based split-by-two, lazily initialized spliterator like the one of
+     * {@link ArrayList}.
+     *
+     * @author XuYanhang
+     */
+    static final class DoubleArrayListSpliterator implements Spliterator.OfDouble {
+        private final DoubleArrayList list;
+        private int index; // current index, modified on advance/split
+        private int fence; // -1 until used; then one past last index
+        private int expectedModCount; // initialized when fence set
+
+        DoubleArrayListSpliterator(DoubleArrayList list, int origin, int fence, int expectedModCount) {
+            super();
+            this.list = list;
+            this.index = origin;
+            this.fence = fence;
+            this.expectedModCount = expectedModCount;
+        }
+
+        private int getFence() {
+            // initialize fence to size on first use
+            int hi;
+            if ((hi = fence) < 0) {
+                expectedModCount = list.modCount;
+                hi = fence = list.size;
+            }
+            return hi;
+        }
+
+        @Override
+        public DoubleArrayListSpliterator trySplit() {
+            int hi = getFence(), lo = index, mid = (lo + hi) >>> 1;
+            // divide range in half unless too small
+            return (lo >= mid) ? null : new DoubleArrayListSpliterator(list, lo, index = mid, expectedModCount);
+        }
+
+        @Override
+        public boolean tryAdvance(DoubleConsumer action) {
+            if (action == null) throw new NullPointerException();
+            int hi = getFence(), i = index;
+            if (i < hi) {
+                index = i + 1;
+                action.accept(list.data[i]);
+                if (list.modCount != expectedModCount) throw new ConcurrentModificationException();
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(DoubleConsumer action) {
+            if (action == null) throw new NullPointerException();
+            int hi = getFence(), i = index;
+            double[] a = list.data;
+            index = hi;
+            for (; i < hi; ++i) action.accept(a[i]);
+            if (list.modCount != expectedModCount) throw new ConcurrentModificationException();
+        }
+
+        @Override
+        public long estimateSize() {
+            return getFence() - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+    }
+
+    /**
+     * Cast a collection to an array in primitive double type.
+     *
+     * @param c collection to cast array from
+     * @return an array in primitive integer way.
+     * @throws NullPointerException if the collection is <code>null</code> or any
+     *                              element is <code>null</code>
+     */
+    private static double[] collectionToArray(Collection<? extends Number> c) {
+        Number[] ns = c.toArray(new Number[c.size()]);
+        if (0 == ns.length) return EMPTY_DATA;
+        double[] vs = new double[ns.length];
+        for (int i = 0; i < vs.length; i++)
+            vs[i] = ns[i].doubleValue();
+        return vs;
+    }
+}
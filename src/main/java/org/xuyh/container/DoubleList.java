@@ -0,0 +1,445 @@
+/*
+ * Copyright (c) 2020-2023 XuYanhang
+ */
+
+// Generated from src/template/container/List.template by PrimitiveListGenerator, do not edit.
+
+package org.xuyh.container;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.DoubleConsumer;
+import java.util.function.DoublePredicate;
+import java.util.stream.DoubleStream;
+
+/**
+ * This double list is a list that permits only double values. Some behavior
+ * is simular with {@link List} while some is different.
+ *
+ * @author XuYanhang
+ * @since 2020-10-06
+ */
+public interface DoubleList extends Iterable<Double> {
+    /**
+     * Returns the number of elements in this list.
+     *
+     * @return the number of elements in this list
+     */
+    int size();
+
+    /**
+     * Returns <tt>true</tt> if this list contains no elements.
+     *
+     * @return <tt>true</tt> if this list contains no elements
+     */
+    boolean isEmpty();
+
+    /**
+     * Returns <tt>true</tt> if this list contains the specified element.
+     *
+     * @param value element whose presence in this list is to be tested
+     * @return <tt>true</tt> if this list contains the specified element
+     */
+    boolean contains(double value);
+
+    /**
+     * Returns the index of the first occurrence of the specified element in this
+     * list, or -1 if this list does not contain the element.
+     */
+    int indexOf(double value);
+
+    /**
+     * Returns the index of the last occurrence of the specified element in this
+     * list, or -1 if this list does not contain the element.
+     */
+    int lastIndexOf(double value);
+
+    /**
+     * Returns the element at the specified position in this list.
+     *
+     * @param index index of the element to return
+     * @return the element at the specified position in this list
+     * @throws IndexOutOfBoundsException when the index is out
+     */
+    double get(int index);
+
+    /**
+     * Replaces the element at the specified position in this list with the
+     * specified element.
+     *
+     * @param index index of the element to replace
+     * @param value element to be stored at the specified position
+     * @return this
+     * @throws IndexOutOfBoundsException when the index is out
+     */
+    DoubleList set(int index, double value);
+
+    /**
+     * Appends the specified element to the end of this list.
+     *
+     * @param value element to be appended to this list
+     * @return this
+     */
+    DoubleList add(double value);
+
+    /**
+     * Appends the specified elements to the end of this list.
+     *
+     * @param values elements to be appended to this list
+     * @return this
+     * @throws NullPointerException when the input value array is <code>null</code>
+     */
+    DoubleList addAll(double... values);
+
+    /**
+     * Appends the specified elements to the end of this list.
+     *
+     * @param c elements to be appended to this list but in collection way
+     * @return this
+     * @throws NullPointerException when the input collection is <code>null</code>
+     *                              or any element in it is <code>null</code>
+     */
+    DoubleList addAll(Collection<? extends Number> c);
+
+    /**
+     * Appends the specified elements to the end of this list.
+     *
+     * @param o elements to be appended to this list but in list way
+     * @return this
+     * @throws NullPointerException when the input list is <code>null</code>
+     */
+    DoubleList addAll(DoubleList o);
+
+    /**
+     * Inserts the specified element at the specified position in this list. Shifts
+     * the element currently at that position (if any) and any subsequent elements
+     * to the right (adds one to their indices).
+     *
+     * @param index index at which the specified element is to be inserted
+     * @param value element to be inserted
+     * @return this
+     * @throws IndexOutOfBoundsException when the index is out
+     */
+    DoubleList insert(int index, double value);
+
+    /**
+     * Inserts the specified elements at the specified position in this list. Shifts
+     * the element currently at that position (if any) and any subsequent elements
+     * to the right (adds one to their indices).
+     *
+     * @param index  index at which the specified element is to be inserted
+     * @param values elements to be inserted
+     * @return this
+     * @throws IndexOutOfBoundsException when the index is out
+     * @throws NullPointerException      when the input value array is
+     *                                   <code>null</code>
+     */
+    DoubleList insertAll(int index, double... values);
+
+    /**
+     * Inserts the specified elements at the specified position in this list. Shifts
+     * the element currently at that position (if any) and any subsequent elements
+     * to the right (adds one to their indices).
+     *
+     * @param index index at which the specified element is to be inserted
+     * @param c     elements to be inserted but in collection way
+     * @return this
+     * @throws IndexOutOfBoundsException when the index is out
+     * @throws NullPointerException      when the input collection is
+     *                                   <code>null</code> or any number in it is
+     *                                   null
+     */
+    DoubleList insertAll(int index, Collection<? extends Number> c);
+
+    /**
+     * Inserts the specified elements at the specified position in this list. Shifts
+     * the element currently at that position (if any) and any subsequent elements
+     * to the right (adds one to their indices).
+     *
+     * @param index index at which the specified element is to be inserted
+     * @param o     elements to be inserted but in in list way
+     * @return this
+     * @throws IndexOutOfBoundsException when the index is out
+     * @throws NullPointerException      when the input list is <code>null</code>
+     */
+    DoubleList insertAll(int index, DoubleList o);
+
+    /**
+     * Removes the element at the specified position in this list. Shifts any
+     * subsequent elements to the left (subtracts one from their indices).
+     *
+     * @param index the index of the element to be removed
+     * @return this
+     * @throws IndexOutOfBoundsException when the index is out
+     */
+    DoubleList del(int index);
+
+    /**
+     * Removes all the elements of this list that satisfy the given predicate.
+     * Errors or runtime exceptions thrown during iteration or by the predicate are
+     * relayed to the caller.
+     *
+     * @param filter a predicate which returns {@code true} for elements to be
+     *               removed
+     * @return this
+     * @throws NullPointerException if the specified filter is <code>null</code>
+     */
+    DoubleList delIf(DoublePredicate filter);
+
+    /**
+     * Removes all the elements from this list. The list will be empty after this
+     * call returns.
+     *
+     * @return this
+     */
+    DoubleList clear();
+
+    /**
+     * Sort this list in ASC way. For example, unsorted array of [3, 1, 2, 0] would
+     * be changed as [0, 1, 2, 3] after sort action.
+     *
+     * @return this
+     */
+    DoubleList sort();
+
+    /**
+     * Reverse all elements in this list. For example, if the original list is [0,
+     * 1, 2]. After reverse operation, it is changed as [2, 1, 0].
+     *
+     * @return this
+     */
+    DoubleList reverse();
+
+    /**
+     * Create a sub list from a slice in the list. Specially, You can use
+     * fromIndex=size and toIndex=size to create an empty list or parameter of
+     * fromIndex>toIndex to slice this list in a reverse way. This way has no effect
+     * on the origin list of this.
+     *
+     * @param fromIndex The beginning element index to slice the list. Range from -1 to
+     *                  size on step 1 when fromIndex==toIndex or 0 to size-1 on step 1 when
+     *                  fromIndex!=toIndex. Included.
+     * @param toIndex   The end element index to slice the list or size of the list
+     *                  when not set. Range from -1 to size on step 1. Excluded.
+     * @return The sub slice list.
+     * @throws IndexOutOfBoundsException when the from index or to index out of
+     *                                   range.
+     */
+    DoubleList subList(int fromIndex, int toIndex);
+
+    /**
+     * Returns an array containing all the elements in this list in proper
+     * sequence (from first to last element).
+     *
+     * <p>
+     * The returned array will be "safe" in that no references to it are maintained
+     * by this list. (In other words, this method must allocate a new array). The
+     * caller is thus free to modify the returned array.
+     *
+     * <p>
+     * This method acts as bridge between array-based and double-list-based APIs.
+     *
+     * @return an array containing all the elements in this list in proper
+     * sequence
+     */
+    double[] toArray();
+
+    /**
+     * Returns an array containing all the elements in this list in proper
+     * sequence (from first to last element).
+     *
+     * <p>
+     * The returned array will be "safe" in that no references to it are maintained
+     * by this list. (In other words, this method must allocate a new array). The
+     * caller is thus free to modify the returned array.
+     *
+     * <p>
+     * This method acts as bridge between array-based and double-list-based APIs.
+     *
+     * @return an array containing all the elements in this list in proper
+     * sequence
+     */
+    Double[] toRefArray();
+
+    /**
+     * Cast this list with primitive double type as reference type of double.
+     *
+     * <p>
+     * The returned list will be "safe" in that no references to it are maintained
+     * by this list. (In other words, this method must allocate a new memory). The
+     * caller is thus free to modify the returned list.
+     *
+     * <p>
+     * This method acts as bridge between double-list-based and collection-based APIs.
+     *
+     * @return a list in double type containing all the elements in this list in
+     * proper sequence
+     */
+    List<Double> toRefList();
+
+    /**
+     * Returns a {@link DoubleIterator} over elements in this list, starting at the
+     * specified position in the list.The specified index indicates the first
+     * element that would be returned by an initial call to {@link DoubleIterator#next
+     * next}. An initial call to {@link DoubleIterator#prev prev} would return the
+     * element with the specified index minus one.
+     *
+     * @param index the starting index of the target iterator
+     * @return a {@link DoubleIterator}.
+     * @throws IndexOutOfBoundsException when the index is out of range
+     */
+    DoubleIterator doubleIterator(int index);
+
+    /**
+     * Returns an iterator over elements of type {@link Double}.
+     *
+     * @return an Iterator.
+     */
+    Iterator<Double> iterator();
+
+
+    /**
+     * Creates an instance of {@link DoubleStream};
+     *
+     * @return the stream of this list
+     */
+    DoubleStream stream();
+
+    /**
+     * Returns the sum of all elements in this list. The sum rounds like the
+     * double addition.
+     *
+     * @return the sum of the elements, or <code>0</code> for an empty list
+     */
+    default double sum() {
+        double sum = 0.0;
+        DoubleIterator ite = doubleIterator(0);
+        while (ite.hasNext()) sum += ite.next();
+        return sum;
+    }
+
+    /**
+     * Returns the minimum element in this list.
+     *
+     * @return the minimum element
+     * @throws NoSuchElementException when the list is empty
+     */
+    default double min() {
+        DoubleIterator ite = doubleIterator(0);
+        double min = ite.next();
+        while (ite.hasNext()) min = Math.min(min, ite.next());
+        return min;
+    }
+
+    /**
+     * Returns the maximum element in this list.
+     *
+     * @return the maximum element
+     * @throws NoSuchElementException when the list is empty
+     */
+    default double max() {
+        DoubleIterator ite = doubleIterator(0);
+        double max = ite.next();
+        while (ite.hasNext()) max = Math.max(max, ite.next());
+        return max;
+    }
+
+    /**
+     * Searches this list for the specified value using the binary search
+     * algorithm. The list must be sorted as by the {@link #sort()} prior to
+     * making this call, or the result is undefined.
+     *
+     * @param value the value to be searched for
+     * @return index of the search value, if it is contained in the list;
+     * otherwise, <tt>(-(<i>insertion point</i>) - 1)</tt>
+     * @see java.util.Arrays#binarySearch(double[], double)
+     */
+    default int binarySearch(double value) {
+        int low = 0, high = size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            // Ordered like Arrays#binarySearch, -0.0 before 0.0 and NaN at last
+            int cmp = Double.compare(get(mid), value);
+            if (cmp < 0)
+                low = mid + 1;
+            else if (cmp > 0)
+                high = mid - 1;
+            else
+                return mid;
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Replace each element in this list by the sum of itself and all elements
+     * before it. For example, the list of [1, 2, 3, 4] would be changed as [1, 3,
+     * 6, 10]. The sums round like the double addition.
+     *
+     * @return this
+     */
+    default DoubleList prefixSum() {
+        DoubleIterator ite = doubleIterator(0);
+        double sum = 0;
+        while (ite.hasNext()) ite.set(sum += ite.next());
+        return this;
+    }
+
+
+    /**
+     * Performs the given action for each element in the range of this list in
+     * order.
+     *
+     * @param fromIndex the index of the first element, inclusive
+     * @param toIndex   the index of the last element, exclusive
+     * @param action    The action to be performed for each element
+     * @throws IndexOutOfBoundsException when the range is out of this list
+     * @throws NullPointerException      if the specified action is null
+     */
+    default void forEachRange(int fromIndex, int toIndex, DoubleConsumer action) {
+        if (fromIndex < 0 || toIndex > size() || fromIndex > toIndex)
+            throw new IndexOutOfBoundsException("fromIndex=" + fromIndex + ", toIndex=" + toIndex);
+        if (null == action) throw new NullPointerException("action");
+        DoubleIterator ite = doubleIterator(fromIndex);
+        for (int i = fromIndex; i < toIndex; i++) action.accept(ite.next());
+    }
+
+    /**
+     * Compares the specified object with this list for equality. Returns
+     * {@code true} if and only if the specified object is also a list, both lists
+     * have the same size, and all corresponding pairs of elements in the two lists
+     * are <i>equal</i>. In other words, two lists are defined to be equal if they
+     * contain the same elements in the same order.
+     * <p>
+     *
+     * @param o the object to be compared for equality with this list
+     * @return {@code true} if the specified object is equal to this list
+     */
+    @Override
+    boolean equals(Object o);
+
+    /**
+     * Returns the hash code value for this list. The hash code of a list is defined
+     * to be the result of the following calculation:
+     *
+     * <pre>
+     * {
+     * 	int hashCode = 1;
+     * 	for (Double e : list)
+     * 		hashCode = 31 * hashCode + e.hashCode();
+     * }
+     * </pre>
+     * <p>
+     * This ensures that <tt>list1.equals(list2)</tt> implies that
+     * <tt>list1.hashCode()==list2.hashCode()</tt> for any two lists, <tt>list1</tt>
+     * and <tt>list2</tt>, as required by the general contract of
+     * {@link Object#hashCode}.
+     *
+     * @return the hash code value for this list
+     * @see Object#equals(Object)
+     * @see #equals(Object)
+     */
+    @Override
+    int hashCode();
+}
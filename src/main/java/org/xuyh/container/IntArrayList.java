@@ -2,6 +2,8 @@
  * Copyright (c) 2020-2023 XuYanhang
  */
 
+// Generated from src/template/container/ArrayList.template by PrimitiveListGenerator, do not edit.
+
 package org.xuyh.container;
 
 import java.util.ArrayList;
@@ -11,8 +13,11 @@ import java.util.Collection;
 import java.util.ConcurrentModificationException;
 import java.util.Iterator;
 import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.function.IntConsumer;
 import java.util.function.IntPredicate;
 import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
 
 /**
  * This integer list is a list that permits only integer values. Some behavior
@@ -448,6 +453,45 @@ public class IntArrayList implements IntList, java.util.RandomAccess, Cloneable,
         return this;
     }
 
+    /**
+     * Sort this list in ASC way like {@link #sort()}, but on the common
+     * {@link java.util.concurrent.ForkJoinPool ForkJoinPool} for a large list. The
+     * algorithm is picked by the size: a small list is sorted in the caller
+     * thread, a middle one by {@link Arrays#parallelSort(int[], int, int)} and a
+     * large one by a parallel radix sort.
+     *
+     * @return this
+     * @see #sort()
+     */
+    public IntArrayList parallelSort() {
+        this.modCount++;
+        IntArraySorter.parallelSort(data, 0, size);
+        return this;
+    }
+
+    /**
+     * Sort this list in ASC way and remove the duplicated elements. For example,
+     * unsorted array of [3, 1, 3, 0, 1] would be changed as [0, 1, 3] after this
+     * action. The sort is the one of {@link #parallelSort()}.
+     *
+     * @return this
+     * @see #parallelSort()
+     */
+    public IntArrayList sortUnique() {
+        if (size < 2) return this;
+        this.modCount++;
+        IntArraySorter.parallelSort(data, 0, size);
+        int last = data[0];
+        int unique = 1;
+        for (int i = 1; i < size; i++) {
+            int v = data[i];
+            if (v != last) data[unique++] = last = v;
+        }
+        for (int i = unique; i < size; i++) data[i] = 0;
+        size = unique;
+        return this;
+    }
+
     /**
      * Reverse all elements in this list. For example, if the original list is [0,
      * 1, 2]. After reverse operation, it is changed as [2, 1, 0].
@@ -689,7 +733,181 @@ public class IntArrayList implements IntList, java.util.RandomAccess, Cloneable,
      */
     @Override
     public IntStream stream() {
-        return Arrays.stream(data, 0, size);
+        return StreamSupport.intStream(spliterator(), false);
+    }
+
+    /**
+     * Creates a late-binding and fail-fast {@link Spliterator.OfInt} over the
+     * elements in this list. It reports {@link Spliterator#SIZED},
+     * {@link Spliterator#SUBSIZED} and {@link Spliterator#ORDERED}, and splits
+     * in halves so that a parallel stream spreads evenly.
+     *
+     * @return a spliterator over the elements in this list
+     */
+    @Override
+    public Spliterator.OfInt spliterator() {
+        return new IntArrayListSpliterator(this, 0, -1, 0);
+    }
+
+    /**
+     * Returns the sum of all elements in this list in long.
+     *
+     * @return the sum of the elements, or <code>0</code> for an empty list
+     */
+    @Override
+    public long sum() {
+        final int[] data = this.data;
+        final int size = this.size;
+        // Independent accumulators break the dependency chain of the additions
+        long s0 = 0L, s1 = 0L, s2 = 0L, s3 = 0L;
+        int i = 0;
+        for (int bound = size - 3; i < bound; i += 4) {
+            s0 += data[i];
+            s1 += data[i + 1];
+            s2 += data[i + 2];
+            s3 += data[i + 3];
+        }
+        for (; i < size; i++) s0 += data[i];
+        return s0 + s1 + s2 + s3;
+    }
+
+    /**
+     * Returns the minimum element in this list.
+     *
+     * @return the minimum element
+     * @throws NoSuchElementException when the list is empty
+     */
+    @Override
+    public int min() {
+        final int[] data = this.data;
+        final int size = this.size;
+        if (size == 0) throw new NoSuchElementException("min");
+        int m0 = data[0], m1 = m0, m2 = m0, m3 = m0;
+        int i = 1;
+        for (int bound = size - 3; i < bound; i += 4) {
+            m0 = Math.min(m0, data[i]);
+            m1 = Math.min(m1, data[i + 1]);
+            m2 = Math.min(m2, data[i + 2]);
+            m3 = Math.min(m3, data[i + 3]);
+        }
+        for (; i < size; i++) m0 = Math.min(m0, data[i]);
+        return Math.min(Math.min(m0, m1), Math.min(m2, m3));
+    }
+
+    /**
+     * Returns the maximum element in this list.
+     *
+     * @return the maximum element
+     * @throws NoSuchElementException when the list is empty
+     */
+    @Override
+    public int max() {
+        final int[] data = this.data;
+        final int size = this.size;
+        if (size == 0) throw new NoSuchElementException("max");
+        int m0 = data[0], m1 = m0, m2 = m0, m3 = m0;
+        int i = 1;
+        for (int bound = size - 3; i < bound; i += 4) {
+            m0 = Math.max(m0, data[i]);
+            m1 = Math.max(m1, data[i + 1]);
+            m2 = Math.max(m2, data[i + 2]);
+            m3 = Math.max(m3, data[i + 3]);
+        }
+        for (; i < size; i++) m0 = Math.max(m0, data[i]);
+        return Math.max(Math.max(m0, m1), Math.max(m2, m3));
+    }
+
+    /**
+     * Searches this list for the specified value using the binary search
+     * algorithm. The list must be sorted prior to making this call, or the result
+     * is undefined.
+     *
+     * @param value the value to be searched for
+     * @return index of the search value, if it is contained in the list;
+     * otherwise, <tt>(-(<i>insertion point</i>) - 1)</tt>
+     * @see Arrays#binarySearch(int[], int, int, int)
+     */
+    @Override
+    public int binarySearch(int value) {
+        return Arrays.binarySearch(data, 0, size, value);
+    }
+
+    /**
+     * Replace each element in this list by the sum of itself and all elements
+     * before it. For example, the list of [1, 2, 3, 4] would be changed as [1, 3,
+     * 6, 10]. The sums overflow like the integer addition.
+     *
+     * @return this
+     */
+    @Override
+    public IntArrayList prefixSum() {
+        final int[] data = this.data;
+        final int size = this.size;
+        int sum = 0;
+        for (int i = 0; i < size; i++) data[i] = sum += data[i];
+        return this;
+    }
+
+    /**
+     * Count the elements in this list by buckets of the same width. The element
+     * <code>v</code> is counted in the bucket of
+     * <code>(v - origin) / bucketWidth</code>, and the elements out of all the
+     * buckets are ignored.
+     *
+     * @param origin      the lower bound of the first bucket, inclusive
+     * @param bucketWidth the width of each bucket, must be positive
+     * @param bucketCount the count of buckets, must not be negative
+     * @return the counts of the buckets
+     * @throws IllegalArgumentException when the bucketWidth or bucketCount is out
+     *                                  of range
+     */
+    @Override
+    public int[] histogram(int origin, int bucketWidth, int bucketCount) {
+        if (bucketWidth <= 0) throw new IllegalArgumentException("bucketWidth");
+        if (bucketCount < 0) throw new IllegalArgumentException("bucketCount");
+        final int[] data = this.data;
+        final int size = this.size;
+        int[] counts = new int[bucketCount];
+        if (bucketWidth == 1) {
+            // Unsigned compare covers both bounds in one branch
+            for (int i = 0; i < size; i++) {
+                int bucket = data[i] - origin;
+                if (Integer.compareUnsigned(bucket, bucketCount) < 0 && (long) data[i] - origin == bucket)
+                    counts[bucket]++;
+            }
+        } else {
+            for (int i = 0; i < size; i++) {
+                long offset = (long) data[i] - origin;
+                // Skipped before the division, who truncates toward zero
+                if (offset < 0L) continue;
+                long bucket = offset / bucketWidth;
+                if (bucket < bucketCount) counts[(int) bucket]++;
+            }
+        }
+        return counts;
+    }
+
+    /**
+     * Performs the given action for each element in the range of this list in
+     * order.
+     *
+     * @param fromIndex the index of the first element, inclusive
+     * @param toIndex   the index of the last element, exclusive
+     * @param action    The action to be performed for each element
+     * @throws IndexOutOfBoundsException       when the range is out of this list
+     * @throws NullPointerException            if the specified action is null
+     * @throws ConcurrentModificationException if the list is structurally
+     *                                         modified by the action
+     */
+    @Override
+    public void forEachRange(int fromIndex, int toIndex, IntConsumer action) {
+        if (fromIndex < 0 || toIndex > size || fromIndex > toIndex)
+            throw new IndexOutOfBoundsException("fromIndex=" + fromIndex + ", toIndex=" + toIndex);
+        if (null == action) throw new NullPointerException("action");
+        final int expectedModCount = this.modCount;
+        final int[] data = this.data;
+        for (int i = fromIndex; i < toIndex; i++) action.accept(data[i]);
+        if (expectedModCount != this.modCount) throw new ConcurrentModificationException();
     }
 
     /**
@@ -819,6 +1037,77 @@ public class IntArrayList implements IntList, java.util.RandomAccess, Cloneable,
         }
     }
 
+    /**
+     * Index-based split-by-two, lazily initialized spliterator like the one of
+     * {@link ArrayList}.
+     *
+     * @author XuYanhang
+     */
+    static final class IntArrayListSpliterator implements Spliterator.OfInt {
+        private final IntArrayList list;
+        private int index; // current index, modified on advance/split
+        private int fence; // -1 until used; then one past last index
+        private int expectedModCount; // initialized when fence set
+
+        IntArrayListSpliterator(IntArrayList list, int origin, int fence, int expectedModCount) {
+            super();
+            this.list = list;
+            this.index = origin;
+            this.fence = fence;
+            this.expectedModCount = expectedModCount;
+        }
+
+        private int getFence() {
+            // initialize fence to size on first use
+            int hi;
+            if ((hi = fence) < 0) {
+                expectedModCount = list.modCount;
+                hi = fence = list.size;
+            }
+            return hi;
+        }
+
+        @Override
+        public IntArrayListSpliterator trySplit() {
+            int hi = getFence(), lo = index, mid = (lo + hi) >>> 1;
+            // divide range in half unless too small
+            return (lo >= mid) ? null : new IntArrayListSpliterator(list, lo, index = mid, expectedModCount);
+        }
+
+        @Override
+        public boolean tryAdvance(IntConsumer action) {
+            if (action == null) throw new NullPointerException();
+            int hi = getFence(), i = index;
+            if (i < hi) {
+                index = i + 1;
+                action.accept(list.data[i]);
+                if (list.modCount != expectedModCount) throw new ConcurrentModificationException();
+                return true;
+            }
+            return false;
+        }
+
+        @Override
+        public void forEachRemaining(IntConsumer action) {
+            if (action == null) throw new NullPointerException();
+            int hi = getFence(), i = index;
+            int[] a = list.data;
+            index = hi;
+            for (; i < hi; ++i) action.accept(a[i]);
+            if (list.modCount != expectedModCount) throw new ConcurrentModificationException();
+        }
+
+        @Override
+        public long estimateSize() {
+            return getFence() - index;
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED;
+        }
+    }
+
     /**
      * Cast a collection to an array in primitive integer type.
      *
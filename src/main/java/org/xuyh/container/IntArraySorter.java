@@ -0,0 +1,177 @@
+/*
+ * Copyright (c) 2020-2023 XuYanhang
+ */
+
+package org.xuyh.container;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.IntConsumer;
+
+/**
+ * Sorting algorithms on a range of an integer array for the integer lists.
+ * <p>
+ * The {@link #parallelSort(int[], int, int)} picks the algorithm by the size of
+ * the range. A small range is sorted in the caller thread, a middle range by
+ * the {@link Arrays#parallelSort(int[], int, int)}, and a large range by a
+ * least significant digit radix sort whose passes run on the common
+ * {@link ForkJoinPool}.
+ *
+ * @author XuYanhang
+ * @see IntArrayList#parallelSort()
+ * @since 2020-10-06
+ */
+final class IntArraySorter {
+    /**
+     * The range size under which the sort stays in the caller thread.
+     */
+    static final int PARALLEL_SORT_THRESHOLD = 1 << 13;
+
+    /**
+     * The range size from which the radix sort is used.
+     */
+    static final int RADIX_SORT_THRESHOLD = 1 << 20;
+
+    /**
+     * Bits of a digit in the radix sort.
+     */
+    private static final int RADIX_BITS = 8;
+
+    /**
+     * Buckets of a digit in the radix sort.
+     */
+    private static final int RADIX = 1 << RADIX_BITS;
+
+    private IntArraySorter() {
+        throw new IllegalStateException("No instance");
+    }
+
+    /**
+     * Sort the range of the array in ASC way, where the algorithm is picked by
+     * the size of the range.
+     *
+     * @param a         the array to be sorted
+     * @param fromIndex the index of the first element, inclusive
+     * @param toIndex   the index of the last element, exclusive
+     */
+    static void parallelSort(int[] a, int fromIndex, int toIndex) {
+        int n = toIndex - fromIndex;
+        int parallelism = ForkJoinPool.getCommonPoolParallelism();
+        if (n < PARALLEL_SORT_THRESHOLD || parallelism <= 1)
+            Arrays.sort(a, fromIndex, toIndex);
+        else if (n < RADIX_SORT_THRESHOLD)
+            Arrays.parallelSort(a, fromIndex, toIndex);
+        else
+            radixSort(a, fromIndex, toIndex, parallelism << 2);
+    }
+
+    /**
+     * Sort the range of the array in ASC way by a least significant digit radix
+     * sort. The range is cut into chunks, and each pass counts the digits and
+     * then scatters the elements of the chunks in parallel.
+     *
+     * @param a         the array to be sorted
+     * @param fromIndex the index of the first element, inclusive
+     * @param toIndex   the index of the last element, exclusive
+     * @param chunks    the count of chunks to work in parallel
+     */
+    static void radixSort(int[] a, int fromIndex, int toIndex, int chunks) {
+        final int n = toIndex - fromIndex;
+        if (n < 2) return;
+        chunks = Math.max(1, Math.min(chunks, n / PARALLEL_SORT_THRESHOLD));
+        final int chunkSize = (n + chunks - 1) / chunks;
+        final int chunkCount = (n + chunkSize - 1) / chunkSize;
+        final int[][] counts = new int[chunkCount][RADIX];
+        int[] src = a, dst = new int[n];
+        int srcOff = fromIndex, dstOff = 0;
+        for (int shift = 0; shift < Integer.SIZE; shift += RADIX_BITS) {
+            final int[] from = src, to = dst;
+            final int fromOff = srcOff, toOff = dstOff, s = shift;
+            // The last digit holds the sign bit, flip it to order the negatives first
+            final int flip = shift + RADIX_BITS == Integer.SIZE ? RADIX >> 1 : 0;
+            invoke(chunkCount, c -> {
+                int[] count = counts[c];
+                Arrays.fill(count, 0);
+                for (int i = fromOff + c * chunkSize, end = fromOff + Math.min(n, (c + 1) * chunkSize); i < end; i++)
+                    count[((from[i] >>> s) & (RADIX - 1)) ^ flip]++;
+            });
+            if (isSingleDigit(counts, n)) continue;
+            // Turn the counts into the start offsets of each chunk in each bucket
+            int offset = toOff;
+            for (int d = 0; d < RADIX; d++) {
+                for (int c = 0; c < chunkCount; c++) {
+                    int count = counts[c][d];
+                    counts[c][d] = offset;
+                    offset += count;
+                }
+            }
+            invoke(chunkCount, c -> {
+                int[] position = counts[c];
+                for (int i = fromOff + c * chunkSize, end = fromOff + Math.min(n, (c + 1) * chunkSize); i < end; i++) {
+                    int v = from[i];
+                    to[position[((v >>> s) & (RADIX - 1)) ^ flip]++] = v;
+                }
+            });
+            src = to;
+            srcOff = toOff;
+            dst = from;
+            dstOff = fromOff;
+        }
+        if (src != a) System.arraycopy(src, srcOff, a, fromIndex, n);
+    }
+
+    /**
+     * Returns whether all the elements fall into one bucket, so that the pass
+     * changes nothing.
+     */
+    private static boolean isSingleDigit(int[][] counts, int n) {
+        for (int d = 0; d < RADIX; d++) {
+            int total = 0;
+            for (int[] count : counts)
+                total += count[d];
+            if (total != 0) return total == n;
+        }
+        return true;
+    }
+
+    /**
+     * Run the action for each chunk index on the common {@link ForkJoinPool}.
+     */
+    private static void invoke(int chunkCount, IntConsumer action) {
+        if (chunkCount == 1)
+            action.accept(0);
+        else
+            ForkJoinPool.commonPool().invoke(new ChunkAction(action, 0, chunkCount));
+    }
+
+    /**
+     * Task to run an action on a range of chunks, who splits itself in halves.
+     *
+     * @author XuYanhang
+     */
+    private static final class ChunkAction extends RecursiveAction {
+        private static final long serialVersionUID = 6016217393306187441L;
+
+        private final IntConsumer action;
+        private final int lo;
+        private final int hi;
+
+        ChunkAction(IntConsumer action, int lo, int hi) {
+            super();
+            this.action = action;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        @Override
+        protected void compute() {
+            if (hi - lo == 1) {
+                action.accept(lo);
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new ChunkAction(action, lo, mid), new ChunkAction(action, mid, hi));
+        }
+    }
+}
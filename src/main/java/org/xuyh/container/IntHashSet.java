@@ -0,0 +1,553 @@
+/*
+ * Copyright (c) 2020-2023 XuYanhang
+ */
+
+package org.xuyh.container;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.HashSet;
+import java.util.NoSuchElementException;
+
+/**
+ * This set is a hash set of primitive integer values. It works like a
+ * {@link HashSet HashSet&lt;Integer&gt;} but never boxes a value, and keeps no
+ * entry object for an element.
+ * <p>
+ * The elements are stored in an array whose length is a power of two, and a
+ * collision is resolved by linear probing. The value <code>0</code> marks a
+ * free slot, so the element <code>0</code> is kept aside from the array. A
+ * removal shifts the following elements of the probe chain backward instead of
+ * leaving a tombstone, so the lookup never degrades after many removals.
+ * <p>
+ * The set grows to double slots when the used slots reaches the load factor. A
+ * smaller load factor makes the probe chains shorter in more memory. The
+ * elements can be traversed by a reusable {@link Cursor} without any
+ * allocation. This set is not thread-safe.
+ *
+ * @author XuYanhang
+ * @see IntIntMap
+ * @see HashSet
+ * @since 2020-10-06
+ */
+public class IntHashSet implements Cloneable, java.io.Serializable {
+    /**
+     * Serializable
+     */
+    private static final long serialVersionUID = -7785150341926130645L;
+
+    /**
+     * Default expected size of elements.
+     */
+    public static final int DEFAULT_EXPECTED_SIZE = 16;
+
+    /**
+     * Default load factor.
+     */
+    public static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    /**
+     * Minimum slots of the table.
+     */
+    private static final int MIN_CAPACITY = 4;
+
+    /**
+     * Maximum slots of the table.
+     */
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    /**
+     * The load factor of the table.
+     *
+     * @serial
+     */
+    private final float loadFactor;
+
+    /**
+     * The elements in slots, the <code>0</code> value means a free slot.
+     */
+    private transient int[] keys;
+
+    /**
+     * Whether the element <code>0</code> is present.
+     */
+    private transient boolean hasZeroKey;
+
+    /**
+     * Count of the used slots, which excludes the element <code>0</code>.
+     */
+    private transient int assigned;
+
+    /**
+     * The used slots to grow the table at.
+     */
+    private transient int resizeAt;
+
+    /**
+     * The number of times this set has been <i>structurally modified</i>.
+     * Structural modifications are those that change the elements of the set.
+     */
+    protected transient int modCount = 0;
+
+    /**
+     * Create an empty set in default expected size and load factor.
+     */
+    public IntHashSet() {
+        this(DEFAULT_EXPECTED_SIZE, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Create an empty set holding the expected size of elements without growing.
+     *
+     * @param expectedSize the expected size of elements
+     * @throws IllegalArgumentException when the expectedSize is negative
+     */
+    public IntHashSet(int expectedSize) {
+        this(expectedSize, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Create an empty set holding the expected size of elements without growing.
+     *
+     * @param expectedSize the expected size of elements
+     * @param loadFactor   the load factor between <code>0</code> and
+     *                     <code>1</code>, both exclusive
+     * @throws IllegalArgumentException when the expectedSize is negative or the
+     *                                  loadFactor is out of range
+     */
+    public IntHashSet(int expectedSize, float loadFactor) {
+        super();
+        if (expectedSize < 0) throw new IllegalArgumentException("expectedSize");
+        if (!(loadFactor > 0f && loadFactor < 1f)) throw new IllegalArgumentException("loadFactor");
+        this.loadFactor = loadFactor;
+        allocate(tableSize(expectedSize, loadFactor));
+    }
+
+    /**
+     * Returns the load factor of this set.
+     *
+     * @return the load factor
+     */
+    public float loadFactor() {
+        return loadFactor;
+    }
+
+    /**
+     * Returns the number of elements in this set.
+     *
+     * @return the number of elements in this set
+     */
+    public int size() {
+        return hasZeroKey ? assigned + 1 : assigned;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this set contains no elements.
+     *
+     * @return <tt>true</tt> if this set contains no elements
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this set contains the specified element.
+     *
+     * @param key element whose presence in this set is to be tested
+     * @return <tt>true</tt> if this set contains the specified element
+     */
+    public boolean contains(int key) {
+        if (key == 0) return hasZeroKey;
+        return slotOf(key) >= 0;
+    }
+
+    /**
+     * Adds the specified element to this set if it is not already present.
+     *
+     * @param key element to be added to this set
+     * @return <tt>true</tt> if this set did not already contain the element
+     * @throws IllegalStateException when the set can't grow any more
+     */
+    public boolean add(int key) {
+        if (key == 0) {
+            if (hasZeroKey) return false;
+            hasZeroKey = true;
+            modCount++;
+            return true;
+        }
+        final int[] keys = this.keys;
+        final int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        int existing;
+        while ((existing = keys[slot]) != 0) {
+            if (existing == key) return false;
+            slot = (slot + 1) & mask;
+        }
+        insertAt(slot, key);
+        return true;
+    }
+
+    /**
+     * Adds all the specified elements to this set.
+     *
+     * @param keys elements to be added to this set
+     * @return this
+     * @throws IllegalStateException when the set can't grow any more
+     */
+    public IntHashSet addAll(int... keys) {
+        ensureCapacity(size() + keys.length);
+        for (int key : keys)
+            add(key);
+        return this;
+    }
+
+    /**
+     * Removes the specified element from this set if it is present.
+     *
+     * @param key element to be removed from this set
+     * @return <tt>true</tt> if this set contained the element
+     */
+    public boolean remove(int key) {
+        if (key == 0) {
+            if (!hasZeroKey) return false;
+            hasZeroKey = false;
+            modCount++;
+            return true;
+        }
+        int slot = slotOf(key);
+        if (slot < 0) return false;
+        shiftConflictingKeys(slot);
+        assigned--;
+        modCount++;
+        return true;
+    }
+
+    /**
+     * Removes all of the elements from this set. The slots are kept.
+     *
+     * @return this
+     */
+    public IntHashSet clear() {
+        Arrays.fill(keys, 0);
+        assigned = 0;
+        hasZeroKey = false;
+        modCount++;
+        return this;
+    }
+
+    /**
+     * Increases the slots of this set, if necessary, to ensure that it can hold
+     * the expected size of elements without growing.
+     *
+     * @param expectedSize the expected size of elements
+     * @return this
+     * @throws IllegalArgumentException when the expectedSize is negative
+     */
+    public IntHashSet ensureCapacity(int expectedSize) {
+        if (expectedSize < 0) throw new IllegalArgumentException("expectedSize");
+        int capacity = tableSize(expectedSize, loadFactor);
+        if (capacity > keys.length) rehash(capacity);
+        return this;
+    }
+
+    /**
+     * Returns all the elements in this set in no particular order.
+     *
+     * @return an array of the elements
+     */
+    public int[] toArray() {
+        int[] result = new int[size()];
+        int i = 0;
+        if (hasZeroKey) result[i++] = 0;
+        for (int k : keys)
+            if (k != 0) result[i++] = k;
+        return result;
+    }
+
+    /**
+     * Returns a cursor over the elements of this set. The cursor can be reused by
+     * {@link Cursor#reset()} so that repeated traversal allocates nothing.
+     *
+     * @return a cursor before the first element
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Returns a copy of this set instance.
+     *
+     * @return a clone of this set instance
+     */
+    @Override
+    public IntHashSet clone() {
+        try {
+            IntHashSet v = (IntHashSet) super.clone();
+            v.keys = keys.clone();
+            v.modCount = 0;
+            return v;
+        } catch (CloneNotSupportedException e) {
+            // this shouldn't happen, since we are Cloneable
+            throw new InternalError(e);
+        }
+    }
+
+    /**
+     * Compares the specified object with this set for equality. Returns
+     * {@code true} if and only if the specified object is also an
+     * {@link IntHashSet} with the same elements.
+     *
+     * @param o the object to be compared for equality with this set
+     * @return {@code true} if the specified object is equal to this set
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof IntHashSet)) return false;
+        IntHashSet other = (IntHashSet) o;
+        if (size() != other.size()) return false;
+        if (hasZeroKey != other.hasZeroKey) return false;
+        for (int key : keys)
+            if (key != 0 && other.slotOf(key) < 0) return false;
+        return true;
+    }
+
+    /**
+     * Returns the hash code value for this set, which is the sum of the
+     * elements. It equals to the hash code of a
+     * {@link HashSet HashSet&lt;Integer&gt;} in the same elements.
+     *
+     * @return the hash code value for this set
+     */
+    @Override
+    public int hashCode() {
+        int h = 0;
+        for (int key : keys)
+            h += key;
+        return h;
+    }
+
+    /**
+     * Create the string of this set. Cast this set to string as [1,2,3].
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append('[');
+        if (hasZeroKey) sb.append(0).append(',');
+        for (int key : keys)
+            if (key != 0) sb.append(key).append(',');
+        if (sb.length() > 1) sb.setLength(sb.length() - 1);
+        sb.append(']');
+        return sb.toString();
+    }
+
+    /**
+     * Save the state of the set instance to a stream (that is, serialize it).
+     *
+     * @serialData The size and then each element.
+     */
+    private void writeObject(java.io.ObjectOutputStream s) throws java.io.IOException {
+        s.defaultWriteObject();
+        s.writeInt(size());
+        if (hasZeroKey) s.writeInt(0);
+        for (int key : keys)
+            if (key != 0) s.writeInt(key);
+    }
+
+    /**
+     * Reconstitute the set instance from a stream (that is, deserialize it).
+     */
+    private void readObject(java.io.ObjectInputStream s) throws java.io.IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        if (!(loadFactor > 0f && loadFactor < 1f)) throw new java.io.InvalidObjectException("loadFactor");
+        int size = s.readInt();
+        if (size < 0) throw new java.io.InvalidObjectException("size");
+        allocate(tableSize(size, loadFactor));
+        for (int i = 0; i < size; i++)
+            add(s.readInt());
+    }
+
+    /**
+     * Returns the slot of the key, or <code>-1</code> if not found. The key must
+     * not be <code>0</code>.
+     */
+    private int slotOf(int key) {
+        final int[] keys = this.keys;
+        final int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        int existing;
+        while ((existing = keys[slot]) != 0) {
+            if (existing == key) return slot;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Put a new key into the free slot found, where the table may grow first.
+     */
+    private void insertAt(int slot, int key) {
+        if (assigned == resizeAt) {
+            if (keys.length == MAX_CAPACITY) throw new IllegalStateException("Set is full");
+            rehash(keys.length << 1);
+            final int mask = keys.length - 1;
+            slot = hash(key) & mask;
+            while (keys[slot] != 0)
+                slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        assigned++;
+        modCount++;
+    }
+
+    /**
+     * Remove the key in the slot by shifting the following keys in the probe
+     * chain backward, so that no tombstone is left.
+     */
+    private void shiftConflictingKeys(int gapSlot) {
+        final int[] keys = this.keys;
+        final int mask = keys.length - 1;
+        int distance = 0;
+        while (true) {
+            final int slot = (gapSlot + (++distance)) & mask;
+            final int existing = keys[slot];
+            if (existing == 0) break;
+            final int shift = (slot - hash(existing)) & mask;
+            if (shift >= distance) {
+                // The key can move to the gap without leaving its probe chain
+                keys[gapSlot] = existing;
+                gapSlot = slot;
+                distance = 0;
+            }
+        }
+        keys[gapSlot] = 0;
+    }
+
+    /**
+     * Reallocate the slots and put all the keys into them again.
+     */
+    private void rehash(int capacity) {
+        final int[] oldKeys = this.keys;
+        allocate(capacity);
+        final int[] keys = this.keys;
+        final int mask = capacity - 1;
+        for (int key : oldKeys) {
+            if (key == 0) continue;
+            int slot = hash(key) & mask;
+            while (keys[slot] != 0)
+                slot = (slot + 1) & mask;
+            keys[slot] = key;
+        }
+        modCount++;
+    }
+
+    /**
+     * Allocate empty slots in a power of two capacity.
+     */
+    private void allocate(int capacity) {
+        this.keys = new int[capacity];
+        // Always keep a free slot to end the probing
+        this.resizeAt = capacity == MAX_CAPACITY ? capacity - 1 : Math.min(capacity - 1, (int) Math.ceil(capacity * loadFactor));
+    }
+
+    /**
+     * Returns the power of two slots to hold the expected size of elements.
+     */
+    private static int tableSize(int expectedSize, float loadFactor) {
+        long required = (long) Math.ceil(expectedSize / (double) loadFactor) + 1L;
+        if (required >= MAX_CAPACITY) return MAX_CAPACITY;
+        return Math.max(MIN_CAPACITY, Integer.highestOneBit((int) required - 1) << 1);
+    }
+
+    /**
+     * Spread the bits of the key so that sequential keys don't cluster.
+     */
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * A cursor over the elements of an {@link IntHashSet}. It starts before the
+     * first element and {@link #advance()} moves it to the next one, so a
+     * traversal looks like:
+     *
+     * <pre>
+     * {@code
+     *     IntHashSet.Cursor c = set.cursor();
+     *     while (c.advance())
+     *         use(c.value());
+     * }
+     * </pre>
+     * <p>
+     * The elements are visited in no particular order. The cursor fails with a
+     * {@link ConcurrentModificationException} when an element of the set is added
+     * or removed during the traversal.
+     *
+     * @author XuYanhang
+     */
+    public final class Cursor {
+        /**
+         * Current slot, where <code>-1</code> is before the first and the length of
+         * the slots stands for the element <code>0</code>.
+         */
+        private int slot;
+        private int expectedModCount;
+
+        private Cursor() {
+            super();
+            reset();
+        }
+
+        /**
+         * Move this cursor back before the first element.
+         *
+         * @return this
+         */
+        public Cursor reset() {
+            this.slot = -1;
+            this.expectedModCount = IntHashSet.this.modCount;
+            return this;
+        }
+
+        /**
+         * Move this cursor to the next element.
+         *
+         * @return <tt>true</tt> if an element is reached or <tt>false</tt> if the
+         * traversal is finished
+         * @throws ConcurrentModificationException when the elements of the set
+         *                                         changed
+         */
+        public boolean advance() {
+            if (this.expectedModCount != IntHashSet.this.modCount) throw new ConcurrentModificationException();
+            final int[] keys = IntHashSet.this.keys;
+            int s = this.slot;
+            while (++s < keys.length) {
+                if (keys[s] != 0) {
+                    this.slot = s;
+                    return true;
+                }
+            }
+            if (s == keys.length && hasZeroKey) {
+                this.slot = s;
+                return true;
+            }
+            this.slot = keys.length + 1;
+            return false;
+        }
+
+        /**
+         * Returns the current element.
+         *
+         * @return the element
+         * @throws NoSuchElementException when the cursor is not on an element
+         */
+        public int value() {
+            if (this.expectedModCount != IntHashSet.this.modCount) throw new ConcurrentModificationException();
+            final int zeroSlot = keys.length;
+            if (slot < 0 || slot > zeroSlot) throw new NoSuchElementException();
+            return slot == zeroSlot ? 0 : keys[slot];
+        }
+    }
+}
@@ -0,0 +1,720 @@
+/*
+ * Copyright (c) 2020-2023 XuYanhang
+ */
+
+package org.xuyh.container;
+
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.HashMap;
+import java.util.NoSuchElementException;
+
+/**
+ * This map is a hash map from primitive integer keys to primitive integer
+ * values. It works like a {@link HashMap HashMap&lt;Integer, Integer&gt;} but
+ * never boxes a key or a value, and keeps no entry object for a mapping.
+ * <p>
+ * The keys and the values are stored in two parallel arrays whose length is a
+ * power of two, and a collision is resolved by linear probing. The key
+ * <code>0</code> marks a free slot, so the mapping of the key <code>0</code>
+ * is kept aside from the arrays. A removal shifts the following keys of the
+ * probe chain backward instead of leaving a tombstone, so the lookup never
+ * degrades after many removals.
+ * <p>
+ * The map grows to double slots when the used slots reaches the load factor.
+ * A smaller load factor makes the probe chains shorter in more memory. The
+ * mappings can be traversed by a reusable {@link Cursor} without any
+ * allocation. This map is not thread-safe.
+ *
+ * @author XuYanhang
+ * @see HashMap
+ * @since 2020-10-06
+ */
+public class IntIntMap implements Cloneable, java.io.Serializable {
+    /**
+     * Serializable
+     */
+    private static final long serialVersionUID = -2406197285312493762L;
+
+    /**
+     * Default expected size of mappings.
+     */
+    public static final int DEFAULT_EXPECTED_SIZE = 16;
+
+    /**
+     * Default load factor.
+     */
+    public static final float DEFAULT_LOAD_FACTOR = 0.75f;
+
+    /**
+     * Minimum slots of the table.
+     */
+    private static final int MIN_CAPACITY = 4;
+
+    /**
+     * Maximum slots of the table.
+     */
+    private static final int MAX_CAPACITY = 1 << 30;
+
+    /**
+     * The load factor of the table.
+     *
+     * @serial
+     */
+    private final float loadFactor;
+
+    /**
+     * The keys in slots, the <code>0</code> value means a free slot.
+     */
+    private transient int[] keys;
+
+    /**
+     * The values in slots.
+     */
+    private transient int[] values;
+
+    /**
+     * Whether the key <code>0</code> is mapped.
+     */
+    private transient boolean hasZeroKey;
+
+    /**
+     * The value mapped by the key <code>0</code>.
+     */
+    private transient int zeroValue;
+
+    /**
+     * Count of the used slots, which excludes the key <code>0</code>.
+     */
+    private transient int assigned;
+
+    /**
+     * The used slots to grow the table at.
+     */
+    private transient int resizeAt;
+
+    /**
+     * The number of times this map has been <i>structurally modified</i>.
+     * Structural modifications are those that change the keys of the map.
+     */
+    protected transient int modCount = 0;
+
+    /**
+     * Create an empty map in default expected size and load factor.
+     */
+    public IntIntMap() {
+        this(DEFAULT_EXPECTED_SIZE, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Create an empty map holding the expected size of mappings without growing.
+     *
+     * @param expectedSize the expected size of mappings
+     * @throws IllegalArgumentException when the expectedSize is negative
+     */
+    public IntIntMap(int expectedSize) {
+        this(expectedSize, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Create an empty map holding the expected size of mappings without growing.
+     *
+     * @param expectedSize the expected size of mappings
+     * @param loadFactor   the load factor between <code>0</code> and
+     *                     <code>1</code>, both exclusive
+     * @throws IllegalArgumentException when the expectedSize is negative or the
+     *                                  loadFactor is out of range
+     */
+    public IntIntMap(int expectedSize, float loadFactor) {
+        super();
+        if (expectedSize < 0) throw new IllegalArgumentException("expectedSize");
+        if (!(loadFactor > 0f && loadFactor < 1f)) throw new IllegalArgumentException("loadFactor");
+        this.loadFactor = loadFactor;
+        allocate(tableSize(expectedSize, loadFactor));
+    }
+
+    /**
+     * Returns the load factor of this map.
+     *
+     * @return the load factor
+     */
+    public float loadFactor() {
+        return loadFactor;
+    }
+
+    /**
+     * Returns the number of mappings in this map.
+     *
+     * @return the number of mappings in this map
+     */
+    public int size() {
+        return hasZeroKey ? assigned + 1 : assigned;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map contains no mappings.
+     *
+     * @return <tt>true</tt> if this map contains no mappings
+     */
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map contains a mapping for the specified key.
+     *
+     * @param key key whose presence in this map is to be tested
+     * @return <tt>true</tt> if this map contains a mapping for the specified key
+     */
+    public boolean containsKey(int key) {
+        if (key == 0) return hasZeroKey;
+        return slotOf(key) >= 0;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or <code>0</code>
+     * if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the value mapped or <code>0</code>
+     * @see #getOrDefault(int, int)
+     */
+    public int get(int key) {
+        return getOrDefault(key, 0);
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or the
+     * defaultValue if this map contains no mapping for the key.
+     *
+     * @param key          the key whose associated value is to be returned
+     * @param defaultValue the default mapping of the key
+     * @return the value mapped or the defaultValue
+     */
+    public int getOrDefault(int key, int defaultValue) {
+        if (key == 0) return hasZeroKey ? zeroValue : defaultValue;
+        final int[] keys = this.keys;
+        final int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        int existing;
+        while ((existing = keys[slot]) != 0) {
+            if (existing == key) return values[slot];
+            slot = (slot + 1) & mask;
+        }
+        return defaultValue;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     *
+     * @param key   key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value mapped by the key, or <code>0</code> if there
+     * was no mapping for the key
+     * @throws IllegalStateException when the map can't grow any more
+     */
+    public int put(int key, int value) {
+        if (key == 0) {
+            int previous = zeroValue;
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                modCount++;
+            }
+            zeroValue = value;
+            return previous;
+        }
+        final int[] keys = this.keys;
+        final int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        int existing;
+        while ((existing = keys[slot]) != 0) {
+            if (existing == key) {
+                int previous = values[slot];
+                values[slot] = value;
+                return previous;
+            }
+            slot = (slot + 1) & mask;
+        }
+        insertAt(slot, key, value);
+        return 0;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map only if
+     * the key is not mapped yet.
+     *
+     * @param key   key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return <tt>true</tt> if the value is put
+     * @throws IllegalStateException when the map can't grow any more
+     */
+    public boolean putIfAbsent(int key, int value) {
+        if (containsKey(key)) return false;
+        put(key, value);
+        return true;
+    }
+
+    /**
+     * Adds the delta to the value mapped by the key, where a missing key is
+     * taken as mapped to <code>0</code>. It's the counting operation without a
+     * second lookup.
+     *
+     * @param key   key whose value is to be added
+     * @param delta the value to add
+     * @return the new value mapped by the key
+     * @throws IllegalStateException when the map can't grow any more
+     */
+    public int addTo(int key, int delta) {
+        if (key == 0) {
+            if (!hasZeroKey) {
+                hasZeroKey = true;
+                zeroValue = 0;
+                modCount++;
+            }
+            return zeroValue += delta;
+        }
+        final int[] keys = this.keys;
+        final int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        int existing;
+        while ((existing = keys[slot]) != 0) {
+            if (existing == key) return values[slot] += delta;
+            slot = (slot + 1) & mask;
+        }
+        insertAt(slot, key, delta);
+        return delta;
+    }
+
+    /**
+     * Removes the mapping for a key from this map if it is present.
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @return the previous value mapped by the key, or <code>0</code> if there
+     * was no mapping for the key
+     */
+    public int remove(int key) {
+        if (key == 0) {
+            if (!hasZeroKey) return 0;
+            int previous = zeroValue;
+            hasZeroKey = false;
+            zeroValue = 0;
+            modCount++;
+            return previous;
+        }
+        int slot = slotOf(key);
+        if (slot < 0) return 0;
+        int previous = values[slot];
+        shiftConflictingKeys(slot);
+        assigned--;
+        modCount++;
+        return previous;
+    }
+
+    /**
+     * Removes all of the mappings from this map. The slots are kept.
+     *
+     * @return this
+     */
+    public IntIntMap clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(values, 0);
+        assigned = 0;
+        hasZeroKey = false;
+        zeroValue = 0;
+        modCount++;
+        return this;
+    }
+
+    /**
+     * Increases the slots of this map, if necessary, to ensure that it can hold
+     * the expected size of mappings without growing.
+     *
+     * @param expectedSize the expected size of mappings
+     * @return this
+     * @throws IllegalArgumentException when the expectedSize is negative
+     */
+    public IntIntMap ensureCapacity(int expectedSize) {
+        if (expectedSize < 0) throw new IllegalArgumentException("expectedSize");
+        int capacity = tableSize(expectedSize, loadFactor);
+        if (capacity > keys.length) rehash(capacity);
+        return this;
+    }
+
+    /**
+     * Returns all the keys in this map in no particular order.
+     *
+     * @return an array of the keys
+     */
+    public int[] keyArray() {
+        int[] result = new int[size()];
+        int i = 0;
+        if (hasZeroKey) result[i++] = 0;
+        for (int k : keys)
+            if (k != 0) result[i++] = k;
+        return result;
+    }
+
+    /**
+     * Returns all the values in this map in the same order of the
+     * {@link #keyArray()}.
+     *
+     * @return an array of the values
+     */
+    public int[] valueArray() {
+        int[] result = new int[size()];
+        int i = 0;
+        if (hasZeroKey) result[i++] = zeroValue;
+        final int[] keys = this.keys;
+        for (int slot = 0; slot < keys.length; slot++)
+            if (keys[slot] != 0) result[i++] = values[slot];
+        return result;
+    }
+
+    /**
+     * Returns a cursor over the mappings of this map. The cursor can be reused by
+     * {@link Cursor#reset()} so that repeated traversal allocates nothing.
+     *
+     * @return a cursor before the first mapping
+     */
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    /**
+     * Returns a copy of this map instance.
+     *
+     * @return a clone of this map instance
+     */
+    @Override
+    public IntIntMap clone() {
+        try {
+            IntIntMap v = (IntIntMap) super.clone();
+            v.keys = keys.clone();
+            v.values = values.clone();
+            v.modCount = 0;
+            return v;
+        } catch (CloneNotSupportedException e) {
+            // this shouldn't happen, since we are Cloneable
+            throw new InternalError(e);
+        }
+    }
+
+    /**
+     * Compares the specified object with this map for equality. Returns
+     * {@code true} if and only if the specified object is also an
+     * {@link IntIntMap} with the same mappings.
+     *
+     * @param o the object to be compared for equality with this map
+     * @return {@code true} if the specified object is equal to this map
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof IntIntMap)) return false;
+        IntIntMap other = (IntIntMap) o;
+        if (size() != other.size()) return false;
+        if (hasZeroKey && !(other.hasZeroKey && other.zeroValue == zeroValue)) return false;
+        final int[] keys = this.keys;
+        for (int slot = 0; slot < keys.length; slot++) {
+            int key = keys[slot];
+            if (key == 0) continue;
+            int otherSlot = other.slotOf(key);
+            if (otherSlot < 0 || other.values[otherSlot] != values[slot]) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the hash code value for this map, which is the sum of
+     * <code>key ^ value</code> of each mapping. It equals to the hash code of a
+     * {@link HashMap HashMap&lt;Integer, Integer&gt;} in the same mappings.
+     *
+     * @return the hash code value for this map
+     */
+    @Override
+    public int hashCode() {
+        int h = hasZeroKey ? zeroValue : 0;
+        final int[] keys = this.keys;
+        for (int slot = 0; slot < keys.length; slot++)
+            if (keys[slot] != 0) h += keys[slot] ^ values[slot];
+        return h;
+    }
+
+    /**
+     * Create the string of this map. Cast this map to string as {1=2,3=4}.
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append('{');
+        if (hasZeroKey) sb.append(0).append('=').append(zeroValue).append(',');
+        final int[] keys = this.keys;
+        for (int slot = 0; slot < keys.length; slot++)
+            if (keys[slot] != 0) sb.append(keys[slot]).append('=').append(values[slot]).append(',');
+        if (sb.length() > 1) sb.setLength(sb.length() - 1);
+        sb.append('}');
+        return sb.toString();
+    }
+
+    /**
+     * Save the state of the map instance to a stream (that is, serialize it).
+     *
+     * @serialData The size and then the key and value of each mapping.
+     */
+    private void writeObject(java.io.ObjectOutputStream s) throws java.io.IOException {
+        s.defaultWriteObject();
+        s.writeInt(size());
+        if (hasZeroKey) {
+            s.writeInt(0);
+            s.writeInt(zeroValue);
+        }
+        final int[] keys = this.keys;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != 0) {
+                s.writeInt(keys[slot]);
+                s.writeInt(values[slot]);
+            }
+        }
+    }
+
+    /**
+     * Reconstitute the map instance from a stream (that is, deserialize it).
+     */
+    private void readObject(java.io.ObjectInputStream s) throws java.io.IOException, ClassNotFoundException {
+        s.defaultReadObject();
+        if (!(loadFactor > 0f && loadFactor < 1f)) throw new java.io.InvalidObjectException("loadFactor");
+        int size = s.readInt();
+        if (size < 0) throw new java.io.InvalidObjectException("size");
+        allocate(tableSize(size, loadFactor));
+        for (int i = 0; i < size; i++)
+            put(s.readInt(), s.readInt());
+    }
+
+    /**
+     * Returns the slot of the key, or <code>-1</code> if not found. The key must
+     * not be <code>0</code>.
+     */
+    private int slotOf(int key) {
+        final int[] keys = this.keys;
+        final int mask = keys.length - 1;
+        int slot = hash(key) & mask;
+        int existing;
+        while ((existing = keys[slot]) != 0) {
+            if (existing == key) return slot;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Put a new key into the free slot found, where the table may grow first.
+     */
+    private void insertAt(int slot, int key, int value) {
+        if (assigned == resizeAt) {
+            if (keys.length == MAX_CAPACITY) throw new IllegalStateException("Map is full");
+            rehash(keys.length << 1);
+            final int mask = keys.length - 1;
+            slot = hash(key) & mask;
+            while (keys[slot] != 0)
+                slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        assigned++;
+        modCount++;
+    }
+
+    /**
+     * Remove the key in the slot by shifting the following keys in the probe
+     * chain backward, so that no tombstone is left.
+     */
+    private void shiftConflictingKeys(int gapSlot) {
+        final int[] keys = this.keys;
+        final int[] values = this.values;
+        final int mask = keys.length - 1;
+        int distance = 0;
+        while (true) {
+            final int slot = (gapSlot + (++distance)) & mask;
+            final int existing = keys[slot];
+            if (existing == 0) break;
+            final int shift = (slot - hash(existing)) & mask;
+            if (shift >= distance) {
+                // The key can move to the gap without leaving its probe chain
+                keys[gapSlot] = existing;
+                values[gapSlot] = values[slot];
+                gapSlot = slot;
+                distance = 0;
+            }
+        }
+        keys[gapSlot] = 0;
+        values[gapSlot] = 0;
+    }
+
+    /**
+     * Reallocate the slots and put all the keys into them again.
+     */
+    private void rehash(int capacity) {
+        final int[] oldKeys = this.keys;
+        final int[] oldValues = this.values;
+        allocate(capacity);
+        final int[] keys = this.keys;
+        final int[] values = this.values;
+        final int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            int key = oldKeys[i];
+            if (key == 0) continue;
+            int slot = hash(key) & mask;
+            while (keys[slot] != 0)
+                slot = (slot + 1) & mask;
+            keys[slot] = key;
+            values[slot] = oldValues[i];
+        }
+        modCount++;
+    }
+
+    /**
+     * Allocate empty slots in a power of two capacity.
+     */
+    private void allocate(int capacity) {
+        this.keys = new int[capacity];
+        this.values = new int[capacity];
+        // Always keep a free slot to end the probing
+        this.resizeAt = capacity == MAX_CAPACITY ? capacity - 1 : Math.min(capacity - 1, (int) Math.ceil(capacity * loadFactor));
+    }
+
+    /**
+     * Returns the power of two slots to hold the expected size of mappings.
+     */
+    private static int tableSize(int expectedSize, float loadFactor) {
+        long required = (long) Math.ceil(expectedSize / (double) loadFactor) + 1L;
+        if (required >= MAX_CAPACITY) return MAX_CAPACITY;
+        return Math.max(MIN_CAPACITY, Integer.highestOneBit((int) required - 1) << 1);
+    }
+
+    /**
+     * Spread the bits of the key so that sequential keys don't cluster.
+     */
+    private static int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * A cursor over the mappings of an {@link IntIntMap}. It starts before the
+     * first mapping and {@link #advance()} moves it to the next one, so a
+     * traversal looks like:
+     *
+     * <pre>
+     * {@code
+     *     IntIntMap.Cursor c = map.cursor();
+     *     while (c.advance())
+     *         use(c.key(), c.value());
+     * }
+     * </pre>
+     * <p>
+     * The mappings are visited in no particular order. The cursor fails with a
+     * {@link ConcurrentModificationException} when a key of the map is added or
+     * removed during the traversal, while updating the values is allowed.
+     *
+     * @author XuYanhang
+     */
+    public final class Cursor {
+        /**
+         * Current slot, where <code>-1</code> is before the first and the length of
+         * the slots stands for the key <code>0</code>.
+         */
+        private int slot;
+        private int expectedModCount;
+
+        private Cursor() {
+            super();
+            reset();
+        }
+
+        /**
+         * Move this cursor back before the first mapping.
+         *
+         * @return this
+         */
+        public Cursor reset() {
+            this.slot = -1;
+            this.expectedModCount = IntIntMap.this.modCount;
+            return this;
+        }
+
+        /**
+         * Move this cursor to the next mapping.
+         *
+         * @return <tt>true</tt> if a mapping is reached or <tt>false</tt> if the
+         * traversal is finished
+         * @throws ConcurrentModificationException when the keys of the map changed
+         */
+        public boolean advance() {
+            if (this.expectedModCount != IntIntMap.this.modCount) throw new ConcurrentModificationException();
+            final int[] keys = IntIntMap.this.keys;
+            int s = this.slot;
+            while (++s < keys.length) {
+                if (keys[s] != 0) {
+                    this.slot = s;
+                    return true;
+                }
+            }
+            if (s == keys.length && hasZeroKey) {
+                this.slot = s;
+                return true;
+            }
+            this.slot = keys.length + 1;
+            return false;
+        }
+
+        /**
+         * Returns the key of current mapping.
+         *
+         * @return the key
+         * @throws NoSuchElementException when the cursor is not on a mapping
+         */
+        public int key() {
+            return slot == checkSlot() ? 0 : keys[slot];
+        }
+
+        /**
+         * Returns the value of current mapping.
+         *
+         * @return the value
+         * @throws NoSuchElementException when the cursor is not on a mapping
+         */
+        public int value() {
+            return slot == checkSlot() ? zeroValue : values[slot];
+        }
+
+        /**
+         * Replace the value of current mapping.
+         *
+         * @param value the new value
+         * @return the previous value
+         * @throws NoSuchElementException when the cursor is not on a mapping
+         */
+        public int setValue(int value) {
+            int previous;
+            if (slot == checkSlot()) {
+                previous = zeroValue;
+                zeroValue = value;
+            } else {
+                previous = values[slot];
+                values[slot] = value;
+            }
+            return previous;
+        }
+
+        /**
+         * Check the cursor is on a mapping and returns the slot of the key
+         * <code>0</code>.
+         */
+        private int checkSlot() {
+            if (this.expectedModCount != IntIntMap.this.modCount) throw new ConcurrentModificationException();
+            final int zeroSlot = keys.length;
+            if (slot < 0 || slot > zeroSlot) throw new NoSuchElementException();
+            return zeroSlot;
+        }
+    }
+}
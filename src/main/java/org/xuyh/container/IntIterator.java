@@ -2,6 +2,8 @@
  * Copyright (c) 2020-2023 XuYanhang
  */
 
+// Generated from src/template/container/Iterator.template by PrimitiveListGenerator, do not edit.
+
 package org.xuyh.container;
 
 import java.util.NoSuchElementException;
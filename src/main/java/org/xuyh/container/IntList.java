@@ -2,11 +2,15 @@
  * Copyright (c) 2020-2023 XuYanhang
  */
 
+// Generated from src/template/container/List.template by PrimitiveListGenerator, do not edit.
+
 package org.xuyh.container;
 
 import java.util.Collection;
 import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.function.IntConsumer;
 import java.util.function.IntPredicate;
 import java.util.stream.IntStream;
 
@@ -303,6 +307,130 @@ public interface IntList extends Iterable<Integer> {
      */
     IntStream stream();
 
+    /**
+     * Returns the sum of all elements in this list. The sum is counted in long so
+     * that it never overflows for a list of integers.
+     *
+     * @return the sum of the elements, or <code>0</code> for an empty list
+     */
+    default long sum() {
+        long sum = 0L;
+        IntIterator ite = intIterator(0);
+        while (ite.hasNext()) sum += ite.next();
+        return sum;
+    }
+
+    /**
+     * Returns the minimum element in this list.
+     *
+     * @return the minimum element
+     * @throws NoSuchElementException when the list is empty
+     */
+    default int min() {
+        IntIterator ite = intIterator(0);
+        int min = ite.next();
+        while (ite.hasNext()) min = Math.min(min, ite.next());
+        return min;
+    }
+
+    /**
+     * Returns the maximum element in this list.
+     *
+     * @return the maximum element
+     * @throws NoSuchElementException when the list is empty
+     */
+    default int max() {
+        IntIterator ite = intIterator(0);
+        int max = ite.next();
+        while (ite.hasNext()) max = Math.max(max, ite.next());
+        return max;
+    }
+
+    /**
+     * Searches this list for the specified value using the binary search
+     * algorithm. The list must be sorted as by the {@link #sort()} prior to
+     * making this call, or the result is undefined.
+     *
+     * @param value the value to be searched for
+     * @return index of the search value, if it is contained in the list;
+     * otherwise, <tt>(-(<i>insertion point</i>) - 1)</tt>
+     * @see java.util.Arrays#binarySearch(int[], int)
+     */
+    default int binarySearch(int value) {
+        int low = 0, high = size() - 1;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            int midVal = get(mid);
+            if (midVal < value)
+                low = mid + 1;
+            else if (midVal > value)
+                high = mid - 1;
+            else
+                return mid;
+        }
+        return -(low + 1);
+    }
+
+    /**
+     * Replace each element in this list by the sum of itself and all elements
+     * before it. For example, the list of [1, 2, 3, 4] would be changed as [1, 3,
+     * 6, 10]. The sums overflow like the integer addition.
+     *
+     * @return this
+     */
+    default IntList prefixSum() {
+        IntIterator ite = intIterator(0);
+        int sum = 0;
+        while (ite.hasNext()) ite.set(sum += ite.next());
+        return this;
+    }
+
+    /**
+     * Count the elements in this list by buckets of the same width. The element
+     * <code>v</code> is counted in the bucket of
+     * <code>(v - origin) / bucketWidth</code>, and the elements out of all the
+     * buckets are ignored.
+     *
+     * @param origin      the lower bound of the first bucket, inclusive
+     * @param bucketWidth the width of each bucket, must be positive
+     * @param bucketCount the count of buckets, must not be negative
+     * @return the counts of the buckets
+     * @throws IllegalArgumentException when the bucketWidth or bucketCount is out
+     *                                  of range
+     */
+    default int[] histogram(int origin, int bucketWidth, int bucketCount) {
+        if (bucketWidth <= 0) throw new IllegalArgumentException("bucketWidth");
+        if (bucketCount < 0) throw new IllegalArgumentException("bucketCount");
+        int[] counts = new int[bucketCount];
+        IntIterator ite = intIterator(0);
+        while (ite.hasNext()) {
+            long offset = (long) ite.next() - origin;
+            // Skipped before the division, who truncates toward zero
+            if (offset < 0L) continue;
+            long bucket = offset / bucketWidth;
+            if (bucket < bucketCount) counts[(int) bucket]++;
+        }
+        return counts;
+    }
+
+    /**
+     * Performs the given action for each element in the range of this list in
+     * order.
+     *
+     * @param fromIndex the index of the first element, inclusive
+     * @param toIndex   the index of the last element, exclusive
+     * @param action    The action to be performed for each element
+     * @throws IndexOutOfBoundsException when the range is out of this list
+     * @throws NullPointerException      if the specified action is null
+     */
+    default void forEachRange(int fromIndex, int toIndex, IntConsumer action) {
+        if (fromIndex < 0 || toIndex > size() || fromIndex > toIndex)
+            throw new IndexOutOfBoundsException("fromIndex=" + fromIndex + ", toIndex=" + toIndex);
+        if (null == action) throw new NullPointerException("action");
+        IntIterator ite = intIterator(fromIndex);
+        for (int i = fromIndex; i < toIndex; i++) action.accept(ite.next());
+    }
+
     /**
      * Compares the specified object with this list for equality. Returns
      * {@code true} if and only if the specified object is also a list, both lists
@@ -75,6 +75,27 @@ public interface ObjectPool<T> extends AutoCloseable {
      */
     int readIdleObjectAmount();
 
+    /**
+     * Returns the count of borrows who got an idle object from the pool.
+     *
+     * @return the count of borrows served by the idle objects, or
+     * <code>-1</code> if not counted by the pool
+     */
+    default long readHitCount() {
+        return -1L;
+    }
+
+    /**
+     * Returns the count of borrows who found no idle object in the pool and had
+     * to get a new one.
+     *
+     * @return the count of borrows not served by the idle objects, or
+     * <code>-1</code> if not counted by the pool
+     */
+    default long readMissCount() {
+        return -1L;
+    }
+
     /**
      * Clear all pooled objects in the pool.
      */
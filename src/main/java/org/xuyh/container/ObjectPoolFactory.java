@@ -12,6 +12,8 @@ import java.util.function.Supplier;
  * <p>
  * Interface {@link ObjectPool}<br>
  * Implementation for a easy way {@link SimpleObjectPool}<br>
+ * Implementation for a high concurrent way {@link StripedObjectPool}<br>
+ * Implementation for a strict bounded way {@link BoundedObjectPool}<br>
  * 
  * @author XuYanhang
  * @since 2020-08-15
@@ -35,6 +37,43 @@ public class ObjectPoolFactory {
 		return new SimpleObjectPool<>(objectFactory, capacity);
 	}
 
+	/**
+	 * Build an {@link ObjectPool} in the way of {@link StripedObjectPool}, where
+	 * each thread keeps a magazine of idle objects in front of a shared depot.
+	 * 
+	 * @param objectFactory factory to produce objects, <code>null</code> value not
+	 *                      allowed
+	 * @param capacity      capacity of the shared depot, negative value rejected
+	 * @param magazineSize  maximum idle objects kept by each thread, negative value
+	 *                      rejected
+	 * @throws NullPointerException     when the input objectFactory value is
+	 *                                  <code>null</code>
+	 * @throws IllegalArgumentException when the input capacity or magazineSize is a
+	 *                                  negative value
+	 * @return the built {@link ObjectPool}
+	 */
+	public static <T> ObjectPool<T> buildStripedPool(Supplier<T> objectFactory, int capacity, int magazineSize) {
+		return new StripedObjectPool<>(objectFactory, capacity, magazineSize);
+	}
+
+	/**
+	 * Build an {@link ObjectPool} in the way of {@link BoundedObjectPool}, who never
+	 * holds more than a max total of objects.
+	 * 
+	 * @param objectFactory factory to produce objects, <code>null</code> value not
+	 *                      allowed
+	 * @param config        configuration of the pool, <code>null</code> value not
+	 *                      allowed
+	 * @throws NullPointerException     when the input objectFactory or config value
+	 *                                  is <code>null</code>
+	 * @throws IllegalArgumentException when the config is illegal
+	 * @return the built {@link ObjectPool}
+	 */
+	public static <T> BoundedObjectPool<T> buildBoundedPool(Supplier<T> objectFactory,
+			BoundedObjectPool.Config<T> config) {
+		return new BoundedObjectPool<>(objectFactory, config);
+	}
+
 	/**
 	 * This factory should be open to outer caller.
 	 */
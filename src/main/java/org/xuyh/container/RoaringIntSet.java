@@ -0,0 +1,1109 @@
+/*
+ * Copyright (c) 2020-2023 XuYanhang
+ */
+
+package org.xuyh.container;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * This set is a compressed set of primitive integer values in the way of the
+ * Roaring bitmap. The values are grouped by their high 16 bits, and the low 16
+ * bits of each group are kept in the smallest one of three containers:
+ * <ul>
+ * <li>an array container keeps up to {@value #ARRAY_MAX_SIZE} sorted values in
+ * two bytes each;</li>
+ * <li>a bitmap container keeps a group of more values in 8KB fixed;</li>
+ * <li>a run container keeps the continuous ranges of values in four bytes each
+ * range.</li>
+ * </ul>
+ * A group switches between the array and the bitmap container by its
+ * cardinality automatically. The run containers are created by
+ * {@link #runOptimize()}, or by {@link #addRange(int, int)} for a large range,
+ * and keep absorbing the values next to their ranges.
+ * <p>
+ * The values are iterated in ASC order. The continuous ranges can be visited
+ * by {@link #forEachRange(RangeConsumer)} without visiting each value. The
+ * {@link #union(RoaringIntSet)} and {@link #intersection(RoaringIntSet)} work
+ * group by group, and word by word on the bitmaps. This set is not
+ * thread-safe.
+ *
+ * @author XuYanhang
+ * @see IntHashSet
+ * @since 2020-10-06
+ */
+public class RoaringIntSet {
+    /**
+     * Maximum cardinality of an array container, over which it changes to a
+     * bitmap container.
+     */
+    static final int ARRAY_MAX_SIZE = 4096;
+
+    /**
+     * Maximum runs of a run container, over which it takes more memory than a
+     * bitmap container.
+     */
+    static final int RUN_MAX_SIZE = 2047;
+
+    /**
+     * Count of values in a group.
+     */
+    private static final int GROUP_SIZE = 1 << 16;
+
+    /**
+     * The high 16 bits of each group in ASC order, where the sign bit is flipped
+     * so that the unsigned order of the keys is the order of the values.
+     */
+    private char[] keys;
+
+    /**
+     * The containers of each group.
+     */
+    private Container[] containers;
+
+    /**
+     * Count of the groups.
+     */
+    private int groups;
+
+    /**
+     * Index of the group visited last, which makes the sequential access quick.
+     */
+    private int lastGroup;
+
+    /**
+     * Create an empty set.
+     */
+    public RoaringIntSet() {
+        super();
+        this.keys = new char[4];
+        this.containers = new Container[4];
+        this.groups = 0;
+        this.lastGroup = 0;
+    }
+
+    /**
+     * Create a set of the values in an integer list.
+     *
+     * @param o the list to copy values from
+     * @throws NullPointerException if the list is <code>null</code>
+     */
+    public RoaringIntSet(IntList o) {
+        this();
+        addAll(o);
+    }
+
+    /**
+     * Create a set of the values.
+     *
+     * @param values the values in the set
+     * @return a new set
+     */
+    public static RoaringIntSet of(int... values) {
+        RoaringIntSet set = new RoaringIntSet();
+        for (int v : values)
+            set.add(v);
+        return set;
+    }
+
+    /**
+     * Returns the number of values in this set.
+     *
+     * @return the number of values in this set
+     */
+    public long cardinality() {
+        long cardinality = 0L;
+        for (int i = 0; i < groups; i++)
+            cardinality += containers[i].cardinality();
+        return cardinality;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this set contains no values.
+     *
+     * @return <tt>true</tt> if this set contains no values
+     */
+    public boolean isEmpty() {
+        return groups == 0;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this set contains the specified value.
+     *
+     * @param value value whose presence in this set is to be tested
+     * @return <tt>true</tt> if this set contains the specified value
+     */
+    public boolean contains(int value) {
+        int i = groupIndex(highOf(value));
+        return i >= 0 && containers[i].contains(lowOf(value));
+    }
+
+    /**
+     * Adds the specified value to this set if it is not already present.
+     *
+     * @param value value to be added to this set
+     * @return <tt>true</tt> if this set did not already contain the value
+     */
+    public boolean add(int value) {
+        char high = highOf(value);
+        char low = lowOf(value);
+        int i = groupIndex(high);
+        if (i < 0) {
+            i = -i - 1;
+            insertGroup(i, high, new ArrayContainer().add(low));
+            return true;
+        }
+        Container c = containers[i];
+        if (c.contains(low)) return false;
+        containers[i] = c.add(low);
+        return true;
+    }
+
+    /**
+     * Adds all the values in a range to this set.
+     *
+     * @param fromValue the lower bound of the range, inclusive
+     * @param toValue   the upper bound of the range, inclusive
+     * @return this
+     * @throws IllegalArgumentException when the fromValue is larger than the
+     *                                  toValue
+     */
+    public RoaringIntSet addRange(int fromValue, int toValue) {
+        if (fromValue > toValue) throw new IllegalArgumentException("fromValue > toValue");
+        char fromHigh = highOf(fromValue), toHigh = highOf(toValue);
+        for (int high = fromHigh; high <= toHigh; high++) {
+            int lower = high == fromHigh ? lowOf(fromValue) : 0;
+            int upper = high == toHigh ? lowOf(toValue) : GROUP_SIZE - 1;
+            int i = groupIndex((char) high);
+            if (i < 0) {
+                RunContainer run = new RunContainer();
+                run.appendRun(lower, upper);
+                insertGroup(-i - 1, (char) high, run.optimize());
+            } else {
+                containers[i] = containers[i].addRange(lower, upper);
+            }
+        }
+        return this;
+    }
+
+    /**
+     * Adds all the values in an integer list to this set.
+     *
+     * @param o the list whose values are to be added
+     * @return this
+     * @throws NullPointerException if the list is <code>null</code>
+     */
+    public RoaringIntSet addAll(IntList o) {
+        IntIterator ite = o.intIterator(0);
+        while (ite.hasNext())
+            add(ite.next());
+        return this;
+    }
+
+    /**
+     * Removes the specified value from this set if it is present.
+     *
+     * @param value value to be removed from this set
+     * @return <tt>true</tt> if this set contained the value
+     */
+    public boolean remove(int value) {
+        int i = groupIndex(highOf(value));
+        if (i < 0) return false;
+        char low = lowOf(value);
+        Container c = containers[i];
+        if (!c.contains(low)) return false;
+        c = c.remove(low);
+        if (c.cardinality() == 0)
+            removeGroup(i);
+        else
+            containers[i] = c;
+        return true;
+    }
+
+    /**
+     * Removes all of the values from this set.
+     *
+     * @return this
+     */
+    public RoaringIntSet clear() {
+        Arrays.fill(containers, 0, groups, null);
+        groups = 0;
+        lastGroup = 0;
+        return this;
+    }
+
+    /**
+     * Change each container to the smallest form of an array, a bitmap or runs.
+     * It's mostly useful for a set of long continuous ranges.
+     *
+     * @return this
+     */
+    public RoaringIntSet runOptimize() {
+        for (int i = 0; i < groups; i++)
+            containers[i] = containers[i].optimize();
+        return this;
+    }
+
+    /**
+     * Returns a new set of the values in this set or the other set.
+     *
+     * @param o the other set
+     * @return the union of the two sets
+     * @throws NullPointerException if the other set is <code>null</code>
+     */
+    public RoaringIntSet union(RoaringIntSet o) {
+        RoaringIntSet result = new RoaringIntSet();
+        int i = 0, j = 0;
+        while (i < groups || j < o.groups) {
+            int k1 = i < groups ? keys[i] : GROUP_SIZE;
+            int k2 = j < o.groups ? o.keys[j] : GROUP_SIZE;
+            if (k1 < k2) {
+                result.appendGroup(keys[i], containers[i++].copy());
+            } else if (k1 > k2) {
+                result.appendGroup(o.keys[j], o.containers[j++].copy());
+            } else {
+                result.appendGroup(keys[i], containers[i++].or(o.containers[j++]));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Returns a new set of the values in both this set and the other set.
+     *
+     * @param o the other set
+     * @return the intersection of the two sets
+     * @throws NullPointerException if the other set is <code>null</code>
+     */
+    public RoaringIntSet intersection(RoaringIntSet o) {
+        RoaringIntSet result = new RoaringIntSet();
+        int i = 0, j = 0;
+        while (i < groups && j < o.groups) {
+            char k1 = keys[i], k2 = o.keys[j];
+            if (k1 < k2) {
+                i++;
+            } else if (k1 > k2) {
+                j++;
+            } else {
+                Container c = containers[i++].and(o.containers[j++]);
+                if (c.cardinality() != 0) result.appendGroup(k1, c);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Performs the given action for each value in this set in ASC order.
+     *
+     * @param action The action to be performed for each value
+     * @throws NullPointerException if the specified action is null
+     */
+    public void forEach(IntConsumer action) {
+        if (null == action) throw new NullPointerException("action");
+        for (int i = 0; i < groups; i++)
+            containers[i].forEach(baseOf(keys[i]), action);
+    }
+
+    /**
+     * Performs the given action for each continuous range of values in this set
+     * in ASC order. The ranges crossing the groups are merged, so the action
+     * receives each maximal range once, like <code>1~3,5,6~9</code> is visited as
+     * <code>(1,3),(5,9)</code>.
+     *
+     * @param action The action to be performed for each range
+     * @throws NullPointerException if the specified action is null
+     */
+    public void forEachRange(RangeConsumer action) {
+        if (null == action) throw new NullPointerException("action");
+        RangeMerger merger = new RangeMerger(action);
+        for (int i = 0; i < groups; i++)
+            containers[i].forEachRun(baseOf(keys[i]), merger);
+        merger.flush();
+    }
+
+    /**
+     * Returns an iterator over the values in this set in ASC order.
+     *
+     * @return an iterator over the values
+     */
+    public PrimitiveIterator.OfInt intIterator() {
+        return new PrimitiveIterator.OfInt() {
+            int group = 0;
+            int low = 0;
+
+            @Override
+            public boolean hasNext() {
+                while (group < groups) {
+                    if (low < GROUP_SIZE) {
+                        int next = containers[group].nextValue(low);
+                        if (next >= 0) {
+                            low = next;
+                            return true;
+                        }
+                    }
+                    group++;
+                    low = 0;
+                }
+                return false;
+            }
+
+            @Override
+            public int nextInt() {
+                if (!hasNext()) throw new NoSuchElementException("next");
+                return baseOf(keys[group]) | low++;
+            }
+        };
+    }
+
+    /**
+     * Creates an ordered {@link IntStream} over the values in this set.
+     *
+     * @return the stream of this set
+     */
+    public IntStream stream() {
+        long cardinality = cardinality();
+        return StreamSupport.intStream(Spliterators.spliterator(intIterator(), cardinality,
+                Spliterator.ORDERED | Spliterator.SORTED | Spliterator.DISTINCT | Spliterator.NONNULL), false);
+    }
+
+    /**
+     * Returns an array containing all the values in this set in ASC order.
+     *
+     * @return an array of the values
+     * @throws IllegalStateException when the cardinality is more than an array
+     *                               can hold
+     */
+    public int[] toArray() {
+        long cardinality = cardinality();
+        if (cardinality > Integer.MAX_VALUE - 8) throw new IllegalStateException("Too large for an array: " + cardinality);
+        int[] array = new int[(int) cardinality];
+        int[] position = {0};
+        forEach(v -> array[position[0]++] = v);
+        return array;
+    }
+
+    /**
+     * Returns an {@link IntArrayList} containing all the values in this set in
+     * ASC order.
+     *
+     * @return a list of the values
+     */
+    public IntArrayList toIntList() {
+        return new IntArrayList(toArray());
+    }
+
+    /**
+     * Compares the specified object with this set for equality. Returns
+     * {@code true} if and only if the specified object is also a
+     * {@link RoaringIntSet} with the same values, whatever the containers are.
+     *
+     * @param o the object to be compared for equality with this set
+     * @return {@code true} if the specified object is equal to this set
+     */
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof RoaringIntSet)) return false;
+        RoaringIntSet other = (RoaringIntSet) o;
+        if (groups != other.groups) return false;
+        for (int i = 0; i < groups; i++) {
+            if (keys[i] != other.keys[i]) return false;
+            Container c1 = containers[i], c2 = other.containers[i];
+            if (c1.cardinality() != c2.cardinality() || c1.and(c2).cardinality() != c1.cardinality()) return false;
+        }
+        return true;
+    }
+
+    /**
+     * Returns the hash code value for this set, which is the sum of the values.
+     *
+     * @return the hash code value for this set
+     */
+    @Override
+    public int hashCode() {
+        int[] h = {0};
+        forEachRange((lower, upper) -> {
+            // Sum of the range in the integer overflow way
+            long n = (long) upper - lower + 1;
+            long triangle = (n & 1) == 0 ? (n >> 1) * (n - 1) : n * ((n - 1) >> 1);
+            h[0] += (int) (n * lower + triangle);
+        });
+        return h[0];
+    }
+
+    /**
+     * Create the string of this set in ranges like [1~3,5,6~9].
+     */
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append('[');
+        forEachRange((lower, upper) -> {
+            if (sb.length() > 1) sb.append(',');
+            sb.append(lower);
+            if (lower != upper) sb.append('~').append(upper);
+        });
+        sb.append(']');
+        return sb.toString();
+    }
+
+    /**
+     * Find the index of the group, or <code>(-(insertion point) - 1)</code>.
+     */
+    private int groupIndex(char high) {
+        int last = lastGroup;
+        if (last < groups && keys[last] == high) return last;
+        int i = Arrays.binarySearch(keys, 0, groups, high);
+        if (i >= 0) lastGroup = i;
+        return i;
+    }
+
+    private void insertGroup(int i, char high, Container c) {
+        if (groups == keys.length) {
+            int length = Math.min(GROUP_SIZE, groups + (groups >> 1) + 1);
+            keys = Arrays.copyOf(keys, length);
+            containers = Arrays.copyOf(containers, length);
+        }
+        System.arraycopy(keys, i, keys, i + 1, groups - i);
+        System.arraycopy(containers, i, containers, i + 1, groups - i);
+        keys[i] = high;
+        containers[i] = c;
+        groups++;
+        lastGroup = i;
+    }
+
+    private void appendGroup(char high, Container c) {
+        insertGroup(groups, high, c);
+    }
+
+    private void removeGroup(int i) {
+        System.arraycopy(keys, i + 1, keys, i, groups - i - 1);
+        System.arraycopy(containers, i + 1, containers, i, groups - i - 1);
+        containers[--groups] = null;
+        lastGroup = 0;
+    }
+
+    private static char highOf(int value) {
+        return (char) ((value >>> 16) ^ 0x8000);
+    }
+
+    private static char lowOf(int value) {
+        return (char) value;
+    }
+
+    private static int baseOf(char high) {
+        return (high ^ 0x8000) << 16;
+    }
+
+    /**
+     * Represents an operation that accepts a continuous range of integer values.
+     *
+     * @author XuYanhang
+     */
+    @FunctionalInterface
+    public interface RangeConsumer {
+        /**
+         * Performs this operation on the range.
+         *
+         * @param lower the lower value of the range, inclusive
+         * @param upper the upper value of the range, inclusive
+         */
+        void accept(int lower, int upper);
+    }
+
+    /**
+     * Merges the runs of the containers who touch each other into one range.
+     *
+     * @author XuYanhang
+     */
+    private static final class RangeMerger implements RangeConsumer {
+        private final RangeConsumer action;
+        private boolean pending;
+        private int lower;
+        private int upper;
+
+        RangeMerger(RangeConsumer action) {
+            super();
+            this.action = action;
+        }
+
+        @Override
+        public void accept(int lower, int upper) {
+            if (pending && this.upper != Integer.MAX_VALUE && this.upper + 1 == lower) {
+                this.upper = upper;
+                return;
+            }
+            flush();
+            this.pending = true;
+            this.lower = lower;
+            this.upper = upper;
+        }
+
+        void flush() {
+            if (pending) {
+                pending = false;
+                action.accept(lower, upper);
+            }
+        }
+    }
+
+    /**
+     * The values of a group in their low 16 bits. A modification returns the
+     * container to keep, which may be another form of container.
+     *
+     * @author XuYanhang
+     */
+    private abstract static class Container {
+        abstract int cardinality();
+
+        abstract boolean contains(char x);
+
+        abstract Container add(char x);
+
+        abstract Container remove(char x);
+
+        /**
+         * Returns the smallest value not less than the from value, or -1.
+         */
+        abstract int nextValue(int from);
+
+        abstract void forEach(int base, IntConsumer action);
+
+        abstract void forEachRun(int base, RangeConsumer action);
+
+        abstract BitmapContainer toBitmap();
+
+        abstract Container copy();
+
+        Container addRange(int lower, int upper) {
+            BitmapContainer bitmap = this instanceof BitmapContainer ? (BitmapContainer) this : toBitmap();
+            bitmap.setRange(lower, upper);
+            return bitmap.optimize();
+        }
+
+        Container or(Container o) {
+            BitmapContainer result = toBitmap();
+            if (result == this) result = (BitmapContainer) result.copy();
+            if (o instanceof BitmapContainer) {
+                long[] w1 = result.words, w2 = ((BitmapContainer) o).words;
+                for (int i = 0; i < w1.length; i++)
+                    w1[i] |= w2[i];
+                result.recount();
+            } else {
+                BitmapContainer r = result;
+                o.forEachRun(0, r::setRangeQuietly);
+                result.recount();
+            }
+            return result.shrink();
+        }
+
+        Container and(Container o) {
+            if (o instanceof ArrayContainer && !(this instanceof ArrayContainer)) return o.and(this);
+            BitmapContainer b1 = toBitmap(), b2 = o.toBitmap();
+            BitmapContainer result = new BitmapContainer();
+            for (int i = 0; i < result.words.length; i++)
+                result.words[i] = b1.words[i] & b2.words[i];
+            result.recount();
+            return result.shrink();
+        }
+
+        int numberOfRuns() {
+            int[] runs = {0};
+            forEachRun(0, (lower, upper) -> runs[0]++);
+            return runs[0];
+        }
+
+        /**
+         * Change to the form who takes the least memory.
+         */
+        Container optimize() {
+            int cardinality = cardinality();
+            int runs = numberOfRuns();
+            int runBytes = 4 * runs;
+            int arrayBytes = cardinality <= ARRAY_MAX_SIZE ? 2 * cardinality : Integer.MAX_VALUE;
+            int bitmapBytes = GROUP_SIZE >> 3;
+            if (runBytes < arrayBytes && runBytes < bitmapBytes) {
+                if (this instanceof RunContainer) return this;
+                RunContainer run = new RunContainer();
+                forEachRun(0, run::appendRun);
+                return run;
+            }
+            if (arrayBytes <= bitmapBytes) return this instanceof ArrayContainer ? this : toBitmap().toArrayContainer();
+            return this instanceof BitmapContainer ? this : toBitmap();
+        }
+    }
+
+    /**
+     * Container of sorted values.
+     *
+     * @author XuYanhang
+     */
+    private static final class ArrayContainer extends Container {
+        char[] values;
+        int size;
+
+        ArrayContainer() {
+            this(new char[4], 0);
+        }
+
+        ArrayContainer(char[] values, int size) {
+            super();
+            this.values = values;
+            this.size = size;
+        }
+
+        @Override
+        int cardinality() {
+            return size;
+        }
+
+        @Override
+        boolean contains(char x) {
+            return Arrays.binarySearch(values, 0, size, x) >= 0;
+        }
+
+        @Override
+        Container add(char x) {
+            int i;
+            // Appending in order is the common case
+            if (size == 0 || values[size - 1] < x)
+                i = size;
+            else if ((i = Arrays.binarySearch(values, 0, size, x)) >= 0)
+                return this;
+            else
+                i = -i - 1;
+            if (size == ARRAY_MAX_SIZE) return toBitmap().add(x);
+            if (size == values.length) values = Arrays.copyOf(values, Math.min(ARRAY_MAX_SIZE, size + (size >> 1) + 1));
+            System.arraycopy(values, i, values, i + 1, size - i);
+            values[i] = x;
+            size++;
+            return this;
+        }
+
+        @Override
+        Container remove(char x) {
+            int i = Arrays.binarySearch(values, 0, size, x);
+            if (i >= 0) {
+                System.arraycopy(values, i + 1, values, i, size - i - 1);
+                size--;
+            }
+            return this;
+        }
+
+        @Override
+        int nextValue(int from) {
+            int i = Arrays.binarySearch(values, 0, size, (char) from);
+            if (i < 0) i = -i - 1;
+            return i < size ? values[i] : -1;
+        }
+
+        @Override
+        void forEach(int base, IntConsumer action) {
+            for (int i = 0; i < size; i++)
+                action.accept(base | values[i]);
+        }
+
+        @Override
+        void forEachRun(int base, RangeConsumer action) {
+            int i = 0;
+            while (i < size) {
+                int start = values[i], end = start;
+                while (++i < size && values[i] == end + 1)
+                    end++;
+                action.accept(base | start, base | end);
+            }
+        }
+
+        @Override
+        BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < size; i++)
+                bitmap.words[values[i] >>> 6] |= 1L << values[i];
+            bitmap.cardinality = size;
+            return bitmap;
+        }
+
+        @Override
+        Container copy() {
+            return new ArrayContainer(Arrays.copyOf(values, Math.max(1, size)), size);
+        }
+
+        @Override
+        Container or(Container o) {
+            if (!(o instanceof ArrayContainer) || size + o.cardinality() > ARRAY_MAX_SIZE) {
+                return o instanceof BitmapContainer ? o.or(this) : super.or(o);
+            }
+            ArrayContainer other = (ArrayContainer) o;
+            char[] merged = new char[Math.max(1, size + other.size)];
+            int i = 0, j = 0, k = 0;
+            while (i < size && j < other.size) {
+                char a = values[i], b = other.values[j];
+                if (a < b) {
+                    merged[k++] = a;
+                    i++;
+                } else if (a > b) {
+                    merged[k++] = b;
+                    j++;
+                } else {
+                    merged[k++] = a;
+                    i++;
+                    j++;
+                }
+            }
+            while (i < size) merged[k++] = values[i++];
+            while (j < other.size) merged[k++] = other.values[j++];
+            return new ArrayContainer(merged, k);
+        }
+
+        @Override
+        Container and(Container o) {
+            char[] result = new char[Math.max(1, size)];
+            int k = 0;
+            for (int i = 0; i < size; i++)
+                if (o.contains(values[i])) result[k++] = values[i];
+            return new ArrayContainer(result, k);
+        }
+    }
+
+    /**
+     * Container of a bit for each value.
+     *
+     * @author XuYanhang
+     */
+    private static final class BitmapContainer extends Container {
+        final long[] words;
+        int cardinality;
+
+        BitmapContainer() {
+            super();
+            this.words = new long[GROUP_SIZE >>> 6];
+            this.cardinality = 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        boolean contains(char x) {
+            return (words[x >>> 6] & (1L << x)) != 0;
+        }
+
+        @Override
+        Container add(char x) {
+            long w = words[x >>> 6];
+            long nw = w | (1L << x);
+            if (w != nw) {
+                words[x >>> 6] = nw;
+                cardinality++;
+            }
+            return this;
+        }
+
+        @Override
+        Container remove(char x) {
+            long w = words[x >>> 6];
+            long nw = w & ~(1L << x);
+            if (w != nw) {
+                words[x >>> 6] = nw;
+                cardinality--;
+            }
+            return cardinality <= ARRAY_MAX_SIZE ? toArrayContainer() : this;
+        }
+
+        @Override
+        int nextValue(int from) {
+            int i = from >>> 6;
+            long w = words[i] & (-1L << from);
+            while (true) {
+                if (w != 0) return (i << 6) + Long.numberOfTrailingZeros(w);
+                if (++i == words.length) return -1;
+                w = words[i];
+            }
+        }
+
+        /**
+         * Returns the smallest unset value not less than the from value, or the
+         * group size.
+         */
+        int nextClear(int from) {
+            int i = from >>> 6;
+            long w = ~words[i] & (-1L << from);
+            while (true) {
+                if (w != 0) return (i << 6) + Long.numberOfTrailingZeros(w);
+                if (++i == words.length) return GROUP_SIZE;
+                w = ~words[i];
+            }
+        }
+
+        @Override
+        void forEach(int base, IntConsumer action) {
+            for (int i = 0; i < words.length; i++) {
+                long w = words[i];
+                while (w != 0) {
+                    action.accept(base | (i << 6) + Long.numberOfTrailingZeros(w));
+                    w &= w - 1;
+                }
+            }
+        }
+
+        @Override
+        void forEachRun(int base, RangeConsumer action) {
+            int start = nextValue(0);
+            while (start >= 0) {
+                int end = nextClear(start);
+                action.accept(base | start, base | (end - 1));
+                if (end == GROUP_SIZE) return;
+                start = nextValue(end);
+            }
+        }
+
+        @Override
+        BitmapContainer toBitmap() {
+            return this;
+        }
+
+        @Override
+        Container copy() {
+            BitmapContainer c = new BitmapContainer();
+            System.arraycopy(words, 0, c.words, 0, words.length);
+            c.cardinality = cardinality;
+            return c;
+        }
+
+        void setRange(int lower, int upper) {
+            setRangeQuietly(lower, upper);
+            recount();
+        }
+
+        /**
+         * Set the bits of the range without counting the cardinality again.
+         */
+        void setRangeQuietly(int lower, int upper) {
+            int first = lower >>> 6, last = upper >>> 6;
+            long firstMask = -1L << lower, lastMask = -1L >>> (63 - (upper & 63));
+            if (first == last) {
+                words[first] |= firstMask & lastMask;
+            } else {
+                words[first] |= firstMask;
+                for (int i = first + 1; i < last; i++)
+                    words[i] = -1L;
+                words[last] |= lastMask;
+            }
+        }
+
+        void recount() {
+            int c = 0;
+            for (long w : words)
+                c += Long.bitCount(w);
+            cardinality = c;
+        }
+
+        Container shrink() {
+            return cardinality <= ARRAY_MAX_SIZE ? toArrayContainer() : this;
+        }
+
+        ArrayContainer toArrayContainer() {
+            char[] values = new char[Math.max(1, cardinality)];
+            int k = 0;
+            for (int i = 0; i < words.length; i++) {
+                long w = words[i];
+                while (w != 0) {
+                    values[k++] = (char) ((i << 6) + Long.numberOfTrailingZeros(w));
+                    w &= w - 1;
+                }
+            }
+            return new ArrayContainer(values, k);
+        }
+    }
+
+    /**
+     * Container of continuous ranges. Each range takes the start value and the
+     * length minus one.
+     *
+     * @author XuYanhang
+     */
+    private static final class RunContainer extends Container {
+        char[] runs;
+        int count;
+
+        RunContainer() {
+            super();
+            this.runs = new char[8];
+            this.count = 0;
+        }
+
+        private int start(int i) {
+            return runs[i << 1];
+        }
+
+        private int end(int i) {
+            return runs[i << 1] + runs[(i << 1) + 1];
+        }
+
+        private void setRun(int i, int start, int end) {
+            runs[i << 1] = (char) start;
+            runs[(i << 1) + 1] = (char) (end - start);
+        }
+
+        /**
+         * Returns the index of the last run whose start is not larger than x, or
+         * -1.
+         */
+        private int floorRun(int x) {
+            int low = 0, high = count - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                int s = start(mid);
+                if (s < x)
+                    low = mid + 1;
+                else if (s > x)
+                    high = mid - 1;
+                else
+                    return mid;
+            }
+            return low - 1;
+        }
+
+        private void insertRun(int i, int start, int end) {
+            if ((count + 1) << 1 > runs.length) runs = Arrays.copyOf(runs, runs.length << 1);
+            System.arraycopy(runs, i << 1, runs, (i + 1) << 1, (count - i) << 1);
+            count++;
+            setRun(i, start, end);
+        }
+
+        private void removeRun(int i) {
+            System.arraycopy(runs, (i + 1) << 1, runs, i << 1, (count - i - 1) << 1);
+            count--;
+        }
+
+        void appendRun(int start, int end) {
+            if (count > 0 && end(count - 1) + 1 == start)
+                setRun(count - 1, start(count - 1), end);
+            else
+                insertRun(count, start, end);
+        }
+
+        @Override
+        int cardinality() {
+            int c = 0;
+            for (int i = 0; i < count; i++)
+                c += runs[(i << 1) + 1] + 1;
+            return c;
+        }
+
+        @Override
+        boolean contains(char x) {
+            int i = floorRun(x);
+            return i >= 0 && x <= end(i);
+        }
+
+        @Override
+        Container add(char x) {
+            int i = floorRun(x);
+            if (i >= 0 && x <= end(i)) return this;
+            boolean joinPrev = i >= 0 && end(i) + 1 == x;
+            boolean joinNext = i + 1 < count && start(i + 1) == x + 1;
+            if (joinPrev && joinNext) {
+                setRun(i, start(i), end(i + 1));
+                removeRun(i + 1);
+            } else if (joinPrev) {
+                setRun(i, start(i), x);
+            } else if (joinNext) {
+                setRun(i + 1, x, end(i + 1));
+            } else {
+                insertRun(i + 1, x, x);
+                if (count > RUN_MAX_SIZE) return toBitmap();
+            }
+            return this;
+        }
+
+        @Override
+        Container remove(char x) {
+            int i = floorRun(x);
+            if (i < 0 || x > end(i)) return this;
+            int start = start(i), end = end(i);
+            if (start == end) {
+                removeRun(i);
+            } else if (x == start) {
+                setRun(i, start + 1, end);
+            } else if (x == end) {
+                setRun(i, start, end - 1);
+            } else {
+                setRun(i, start, x - 1);
+                insertRun(i + 1, x + 1, end);
+                if (count > RUN_MAX_SIZE) return toBitmap();
+            }
+            return this;
+        }
+
+        @Override
+        Container addRange(int lower, int upper) {
+            // Replace the runs touching the range by one run
+            int first = floorRun(lower);
+            if (first < 0 || end(first) + 1 < lower) first++;
+            int last = floorRun(upper + 1);
+            if (first <= last) {
+                lower = Math.min(lower, start(first));
+                upper = Math.max(upper, end(last));
+                System.arraycopy(runs, (last + 1) << 1, runs, (first + 1) << 1, (count - last - 1) << 1);
+                count -= last - first;
+                setRun(first, lower, upper);
+            } else {
+                insertRun(first, lower, upper);
+                if (count > RUN_MAX_SIZE) return toBitmap();
+            }
+            return this;
+        }
+
+        @Override
+        int nextValue(int from) {
+            int i = floorRun(from);
+            if (i >= 0 && from <= end(i)) return from;
+            return i + 1 < count ? start(i + 1) : -1;
+        }
+
+        @Override
+        void forEach(int base, IntConsumer action) {
+            for (int i = 0; i < count; i++)
+                for (int v = start(i), end = end(i); v <= end; v++)
+                    action.accept(base | v);
+        }
+
+        @Override
+        void forEachRun(int base, RangeConsumer action) {
+            for (int i = 0; i < count; i++)
+                action.accept(base | start(i), base | end(i));
+        }
+
+        @Override
+        int numberOfRuns() {
+            return count;
+        }
+
+        @Override
+        BitmapContainer toBitmap() {
+            BitmapContainer bitmap = new BitmapContainer();
+            for (int i = 0; i < count; i++)
+                bitmap.setRangeQuietly(start(i), end(i));
+            bitmap.recount();
+            return bitmap;
+        }
+
+        @Override
+        Container copy() {
+            RunContainer c = new RunContainer();
+            c.runs = Arrays.copyOf(runs, Math.max(2, count << 1));
+            c.count = count;
+            return c;
+        }
+    }
+}
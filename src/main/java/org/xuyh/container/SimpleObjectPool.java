@@ -4,14 +4,15 @@
 
 package org.xuyh.container;
 
+import java.util.concurrent.atomic.LongAdder;
 import java.util.function.Supplier;
 
 /**
  * This is a simple and concurrent safe but non-strict {@link ObjectPool}, while
  * implements all the optional methods from {@link ObjectPool}. The
  * {@link SimpleObjectPool} provides a quick way to manage the objects in the
- * pool by {@link LinkedStack} so that the operated elements are always newest
- * ones.
+ * pool by {@link ConcurrentLinkedStack} so that the operated elements are
+ * always newest ones, and no lock is held when borrowing or returning objects.
  *
  * @param <T> Generic type
  * @author XuYanhang
@@ -26,7 +27,17 @@ public class SimpleObjectPool<T> implements ObjectPool<T> {
     /**
      * Container to manage these objects
      */
-    private final LinkedStack<T> manager;
+    private final ConcurrentLinkedStack<T> manager;
+
+    /**
+     * Count of borrows served by the idle objects
+     */
+    private final LongAdder hitCount;
+
+    /**
+     * Count of borrows who created new objects
+     */
+    private final LongAdder missCount;
 
     /**
      * Initialize an instance of the {@link SimpleObjectPool}.
@@ -45,7 +56,9 @@ public class SimpleObjectPool<T> implements ObjectPool<T> {
         if (null == objectFactory) throw new NullPointerException("objectFactory");
         if (capacity < 0) throw new IllegalArgumentException("capacity");
         this.objectFactory = objectFactory;
-        this.manager = new LinkedStack<>(capacity);
+        this.manager = new ConcurrentLinkedStack<>(capacity);
+        this.hitCount = new LongAdder();
+        this.missCount = new LongAdder();
     }
 
     /**
@@ -59,7 +72,12 @@ public class SimpleObjectPool<T> implements ObjectPool<T> {
     @Override
     public T borrowObject() {
         T obj = manager.pop();
-        return null == obj ? objectFactory.get() : obj;
+        if (null != obj) {
+            hitCount.increment();
+            return obj;
+        }
+        missCount.increment();
+        return objectFactory.get();
     }
 
     /**
@@ -107,6 +125,27 @@ public class SimpleObjectPool<T> implements ObjectPool<T> {
         return (int) manager.size();
     }
 
+    /**
+     * Returns the count of borrows who got an idle object from the pool.
+     *
+     * @return the count of borrows served by the idle objects
+     */
+    @Override
+    public long readHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * Returns the count of borrows who found no idle object in the pool and
+     * created a new one by the {@link #objectFactory}.
+     *
+     * @return the count of borrows not served by the idle objects
+     */
+    @Override
+    public long readMissCount() {
+        return missCount.sum();
+    }
+
     /**
      * Clear the objects in the pool.
      */
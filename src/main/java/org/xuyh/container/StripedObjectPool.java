@@ -0,0 +1,372 @@
+/*
+ * Copyright (c) 2020-2023 XuYanhang
+ */
+
+package org.xuyh.container;
+
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * This is a concurrent safe but non-strict {@link ObjectPool} who keeps a small
+ * magazine of idle objects for each thread in front of a shared depot. The
+ * depot is a {@link ConcurrentLinkedStack}, and the magazine is only visited by
+ * its owner thread, so a borrow or a return mostly touches no shared state.
+ * <p>
+ * When the magazine of a thread is empty, half a magazine of objects are moved
+ * from the depot in one go, and when it is full, half of it is flushed back to
+ * the depot. So objects mostly stay on the thread who used them last, while the
+ * depot balances them between threads. Objects are created by the factory only
+ * when both the magazine and the depot are empty.
+ * <p>
+ * The {@link #readPoolCapacity() capacity} bounds the objects in the depot.
+ * Besides it, each thread keeps at most {@link #readMagazineSize()} objects in
+ * its magazine. The hit and miss counters from {@link #readHitCount()},
+ * {@link #readMissCount()} and {@link #readMagazineHitCount()} help to size the
+ * magazine.
+ *
+ * @param <T> Generic type
+ * @author XuYanhang
+ * @see SimpleObjectPool
+ * @since 2020-08-15
+ */
+public class StripedObjectPool<T> implements ObjectPool<T> {
+    /**
+     * Default size of the magazine for each thread
+     */
+    public static final int DEFAULT_MAGAZINE_SIZE = 16;
+
+    /**
+     * Factory to produce objects
+     */
+    private final Supplier<T> objectFactory;
+
+    /**
+     * Shared container of the objects flushed from the magazines
+     */
+    private final ConcurrentLinkedStack<T> depot;
+
+    /**
+     * Maximum objects in the magazine of each thread
+     */
+    private final int magazineSize;
+
+    /**
+     * Magazine of the current thread
+     */
+    private final ThreadLocal<Magazine<T>> magazines;
+
+    /**
+     * All magazines created, for counting the idle objects and draining them on
+     * close
+     */
+    private final ConcurrentLinkedQueue<WeakReference<Magazine<T>>> allMagazines;
+
+    /**
+     * Generation of the pool content. Each {@link #clear()} steps it so that the
+     * magazines on other threads are dropped on their next use.
+     */
+    private final AtomicInteger generation;
+
+    /**
+     * Count of borrows served by the idle objects
+     */
+    private final LongAdder hitCount;
+
+    /**
+     * Count of borrows served by the magazine of the borrowing thread
+     */
+    private final LongAdder magazineHitCount;
+
+    /**
+     * Count of borrows who created new objects
+     */
+    private final LongAdder missCount;
+
+    /**
+     * Initialize an instance of the {@link StripedObjectPool} with the
+     * {@link #DEFAULT_MAGAZINE_SIZE default magazine size}.
+     *
+     * @param objectFactory factory to produce objects, <code>null</code> value not
+     *                      allowed
+     * @param capacity      capacity of the shared depot, negative value rejected
+     * @throws NullPointerException     when the input objectFactory value is
+     *                                  <code>null</code>
+     * @throws IllegalArgumentException when the input capacity is a negative value
+     */
+    public StripedObjectPool(Supplier<T> objectFactory, int capacity) {
+        this(objectFactory, capacity, DEFAULT_MAGAZINE_SIZE);
+    }
+
+    /**
+     * Initialize an instance of the {@link StripedObjectPool}.
+     *
+     * @param objectFactory factory to produce objects, <code>null</code> value not
+     *                      allowed
+     * @param capacity      capacity of the shared depot, negative value rejected
+     * @param magazineSize  maximum idle objects kept by each thread, negative value
+     *                      rejected and <code>zero</code> means no magazine
+     * @throws NullPointerException     when the input objectFactory value is
+     *                                  <code>null</code>
+     * @throws IllegalArgumentException when the input capacity or magazineSize is a
+     *                                  negative value
+     */
+    public StripedObjectPool(Supplier<T> objectFactory, int capacity, int magazineSize) {
+        super();
+        if (null == objectFactory) throw new NullPointerException("objectFactory");
+        if (capacity < 0) throw new IllegalArgumentException("capacity");
+        if (magazineSize < 0) throw new IllegalArgumentException("magazineSize");
+        this.objectFactory = objectFactory;
+        this.depot = new ConcurrentLinkedStack<>(capacity);
+        this.magazineSize = magazineSize;
+        this.allMagazines = new ConcurrentLinkedQueue<>();
+        this.generation = new AtomicInteger();
+        this.magazines = ThreadLocal.withInitial(() -> {
+            Magazine<T> m = new Magazine<>(this.magazineSize, this.generation.get());
+            this.allMagazines.add(new WeakReference<>(m));
+            return m;
+        });
+        this.hitCount = new LongAdder();
+        this.magazineHitCount = new LongAdder();
+        this.missCount = new LongAdder();
+    }
+
+    /**
+     * Borrow an object from the pool. The result will be first fetched from the
+     * magazine of current thread, then from the shared depot with a refill of the
+     * magazine. While nothing get(no idle objects) then directly create a new
+     * object by the {@link #objectFactory} and return it to caller.
+     *
+     * @return the borrowed object in the pool
+     */
+    @Override
+    public T borrowObject() {
+        Magazine<T> m = currentMagazine();
+        T obj = m.pop();
+        if (null != obj) {
+            magazineHitCount.increment();
+            hitCount.increment();
+            return obj;
+        }
+        obj = depot.pop();
+        if (null == obj) {
+            missCount.increment();
+            return objectFactory.get();
+        }
+        hitCount.increment();
+        // Refill half of the magazine so that next borrows stay local
+        for (int i = magazineSize >> 1; i > 0; i--) {
+            T more = depot.pop();
+            if (null == more) break;
+            m.push(more);
+        }
+        return obj;
+    }
+
+    /**
+     * Return an object into the pool. The object goes into the magazine of current
+     * thread. If the magazine is full, half of it is flushed into the shared depot
+     * first, and the objects who can't be held by a full depot are dropped. A
+     * <code>null</code> object is ignored.
+     *
+     * @param obj the object to return into the pool
+     */
+    @Override
+    public void returnObject(T obj) {
+        if (null == obj) return;
+        if (magazineSize == 0) {
+            depot.push(obj);
+            return;
+        }
+        Magazine<T> m = currentMagazine();
+        if (m.isFull()) {
+            for (int i = (magazineSize + 1) >> 1; i > 0; i--) {
+                T flushed = m.pop();
+                // Drained by a close, or dropped when the depot is full
+                if (null == flushed || !depot.tryPush(flushed)) break;
+            }
+        }
+        m.push(obj);
+    }
+
+    /**
+     * Invalidate an object of the pool. For this pool, no action needs when the
+     * {@link #returnObject(Object)} never use for it.
+     *
+     * @param obj the object to invalidate
+     * @see #returnObject(Object)
+     */
+    @Override
+    public void invalidateObject(T obj) {
+    }
+
+    /**
+     * Returns capacity of the shared depot in the pool.
+     *
+     * @return the pool capacity
+     */
+    @Override
+    public int readPoolCapacity() {
+        return (int) depot.capacity();
+    }
+
+    /**
+     * Returns the maximum idle objects kept by each thread.
+     *
+     * @return the magazine size
+     */
+    public int readMagazineSize() {
+        return magazineSize;
+    }
+
+    /**
+     * Returns the amount of the idle objects in the pool. The magazines of other
+     * threads are counted without synchronization so that the result is an
+     * estimation.
+     *
+     * @return the amount of the idle objects in the pool
+     */
+    @Override
+    public int readIdleObjectAmount() {
+        long amount = depot.size();
+        int gen = generation.get();
+        Iterator<WeakReference<Magazine<T>>> ite = allMagazines.iterator();
+        while (ite.hasNext()) {
+            Magazine<T> m = ite.next().get();
+            if (null == m)
+                ite.remove();
+            else if (m.generation == gen)
+                amount += m.count;
+        }
+        return (int) Long.min(amount, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Returns the count of borrows who got an idle object from the magazine or
+     * the depot.
+     *
+     * @return the count of borrows served by the idle objects
+     */
+    @Override
+    public long readHitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * Returns the count of borrows who got an idle object from the magazine of
+     * the borrowing thread without touching the depot.
+     *
+     * @return the count of borrows served by the magazines
+     */
+    public long readMagazineHitCount() {
+        return magazineHitCount.sum();
+    }
+
+    /**
+     * Returns the count of borrows who found no idle object in the pool and
+     * created a new one by the {@link #objectFactory}.
+     *
+     * @return the count of borrows not served by the idle objects
+     */
+    @Override
+    public long readMissCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * Clear the objects in the pool. The magazines of other threads are dropped
+     * on their next use.
+     */
+    @Override
+    public void clear() {
+        generation.incrementAndGet();
+        depot.clear();
+        currentMagazine();
+    }
+
+    /**
+     * Close the pool by clear the objects, and drain the magazines of all the
+     * threads, who may never use the pool again to drop them.
+     *
+     * @see #clear()
+     */
+    @Override
+    public void close() {
+        clear();
+        magazines.remove();
+        Iterator<WeakReference<Magazine<T>>> ite = allMagazines.iterator();
+        while (ite.hasNext()) {
+            Magazine<T> m = ite.next().get();
+            if (null == m)
+                ite.remove();
+            else
+                m.drop();
+        }
+    }
+
+    /**
+     * Returns the magazine of current thread, whose objects are dropped if the
+     * pool was cleared since last use.
+     */
+    private Magazine<T> currentMagazine() {
+        Magazine<T> m = magazines.get();
+        int gen = generation.get();
+        if (m.generation != gen) {
+            m.drop();
+            m.generation = gen;
+        }
+        return m;
+    }
+
+    /**
+     * The idle objects kept by a single thread. Only the owner thread updates
+     * it, and other threads only read the count as an estimation, except the
+     * drain on close, after which the owner may pop a <code>null</code>. It holds
+     * no reference to the pool, so the entry of a thread local never keeps the
+     * pool reachable.
+     *
+     * @author XuYanhang
+     */
+    private static final class Magazine<T> {
+        final Object[] items;
+        int count;
+        int generation;
+
+        Magazine(int size, int generation) {
+            super();
+            this.items = new Object[size];
+            this.count = 0;
+            this.generation = generation;
+        }
+
+        boolean isFull() {
+            return count == items.length;
+        }
+
+        void push(T obj) {
+            int c = count;
+            items[c] = obj;
+            count = c + 1;
+        }
+
+        @SuppressWarnings("unchecked")
+        T pop() {
+            int c = count;
+            if (c == 0) return null;
+            T obj = (T) items[--c];
+            items[c] = null;
+            count = c;
+            return obj;
+        }
+
+        void drop() {
+            for (int i = count - 1; i >= 0; i--)
+                items[i] = null;
+            count = 0;
+        }
+    }
+}
@@ -14,7 +14,12 @@ import org.springframework.core.env.Environment;
 import org.springframework.core.env.PropertyResolver;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestMethod;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.xuyh.concurrent.AutoPoolScheduler;
+import org.xuyh.concurrent.ObjectLock;
+import org.xuyh.concurrent.ObjectLockMetrics;
+import org.xuyh.concurrent.Runnables;
 import org.xuyh.net.LocalInetAddress;
 
 import io.swagger.annotations.Api;
@@ -82,6 +87,39 @@ public class ApplicationController extends HttpRestControllerHandler implements
 		return new AppEnvirMemory();
 	}
 
+	@RequestMapping(value = "/jvm/locks", // PATH
+			method = RequestMethod.GET, // METHOD
+			produces = { "application/json" })
+	@ApiOperation(tags = "List object lock contention", value = "List object lock contention")
+	public AppLockMetrics getAppJVMLocks(HttpServletRequest request) throws Throwable {
+		return new AppLockMetrics(ObjectLock.metrics());
+	}
+
+	@RequestMapping(value = "/jvm/locks", // PATH
+			method = RequestMethod.POST, // METHOD
+			produces = {})
+	@ApiOperation(tags = "Enable object lock contention", value = "Enable object lock contention")
+	public void enableAppJVMLocks(HttpServletRequest request, @RequestParam("enable") boolean enable)
+			throws Throwable {
+		ObjectLock.metrics().setEnabled(enable);
+	}
+
+	@RequestMapping(value = "/jvm/locks/reset", // PATH
+			method = RequestMethod.POST, // METHOD
+			produces = {})
+	@ApiOperation(tags = "Reset object lock contention", value = "Reset object lock contention")
+	public void resetAppJVMLocks(HttpServletRequest request) throws Throwable {
+		ObjectLock.metrics().reset();
+	}
+
+	@RequestMapping(value = "/jvm/async", // PATH
+			method = RequestMethod.GET, // METHOD
+			produces = { "application/json" })
+	@ApiOperation(tags = "List asynchronous task queue", value = "List asynchronous task queue")
+	public AppAsyncMetrics getAppJVMAsync(HttpServletRequest request) throws Throwable {
+		return new AppAsyncMetrics(Runnables.readAsyncScheduler());
+	}
+
 	@RequestMapping(value = "/jvm/gc", // PATH
 			method = RequestMethod.POST, // METHOD
 			produces = {})
@@ -197,4 +235,86 @@ public class ApplicationController extends HttpRestControllerHandler implements
 		}
 	}
 
+	/**
+	 * Object lock contention monitor
+	 */
+	public static class AppLockMetrics {
+
+		private ObjectLockMetrics metrics;
+
+		public AppLockMetrics(ObjectLockMetrics metrics) {
+			super();
+			this.metrics = metrics;
+		}
+
+		public boolean isEnabled() {
+			return metrics.isEnabled();
+		}
+
+		public long getAcquisitions() {
+			return metrics.getAcquisitions();
+		}
+
+		public long getTimeouts() {
+			return metrics.getTimeouts();
+		}
+
+		public double getAcquisitionsPerSecond() {
+			return metrics.getAcquisitionsPerSecond();
+		}
+
+		public long[] getHistogramBoundsMicros() {
+			return metrics.getHistogramBoundsMicros();
+		}
+
+		public long[] getWaitTimeHistogram() {
+			return metrics.getWaitTimeHistogram();
+		}
+
+		public long[] getHoldTimeHistogram() {
+			return metrics.getHoldTimeHistogram();
+		}
+
+		public List<ObjectLockMetrics.HotKey> getHotKeys() {
+			return metrics.getHotKeys();
+		}
+
+		public List<ObjectLockMetrics.QueuedKey> getQueuedKeys() {
+			return metrics.getQueuedKeys();
+		}
+	}
+
+	/**
+	 * Asynchronous task queue monitor
+	 */
+	public static class AppAsyncMetrics {
+
+		private AutoPoolScheduler scheduler;
+
+		public AppAsyncMetrics(AutoPoolScheduler scheduler) {
+			super();
+			this.scheduler = scheduler;
+		}
+
+		public int getQueueDepth() {
+			return scheduler.readQueueDepth();
+		}
+
+		public int getPoolSize() {
+			return scheduler.readPoolSize();
+		}
+
+		public long getRejectedCount() {
+			return scheduler.readRejectedCount();
+		}
+
+		public long getCallerRunsCount() {
+			return scheduler.readCallerRunsCount();
+		}
+
+		public long getDroppedCount() {
+			return scheduler.readDroppedCount();
+		}
+	}
+
 }
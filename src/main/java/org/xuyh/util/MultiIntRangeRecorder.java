@@ -3,24 +3,34 @@
  */
 package org.xuyh.util;
 
-import java.util.ArrayList;
-import java.util.SortedSet;
-import java.util.TreeSet;
+import org.xuyh.container.RoaringIntSet;
 
 /**
- * Recorder to record ranged regions like 1~3,5,6,8~12
+ * Recorder to record ranged regions like 1~3,5,6,8~12. The values are kept in
+ * a {@link RoaringIntSet}, so that the continuous values cost little memory.
+ * The set is run-optimized after every {@value #OPTIMIZE_INTERVAL} new values
+ * and before the ranges are listed, so that continuous values are held and
+ * streamed as runs rather than as arrays or bitmaps.
  *
  * @author XuYanhang
  * @since 2023-03-13
  */
 public class MultiIntRangeRecorder {
-    private final SortedSet<Integer> values;
+    /**
+     * Number of new values recorded between two run-optimizations, which is
+     * the size where an array container turns into a bitmap.
+     */
+    private static final int OPTIMIZE_INTERVAL = 4096;
+
+    private final RoaringIntSet values;
+
+    private int unoptimized;
 
     /**
      * Create a instance.
      */
     public MultiIntRangeRecorder() {
-        values = new TreeSet<>();
+        values = new RoaringIntSet();
     }
 
     /**
@@ -29,7 +39,9 @@ public class MultiIntRangeRecorder {
      * @param value value to record
      */
     public void record(int value) {
-        values.add(value);
+        if (values.add(value) && ++unoptimized >= OPTIMIZE_INTERVAL) {
+            optimize();
+        }
     }
 
     /**
@@ -38,44 +50,40 @@ public class MultiIntRangeRecorder {
      * @return ranges string
      */
     public String toRangeString() {
-        if (values.isEmpty()) {
-            return "";
-        }
-        ArrayList<String> ranges = new ArrayList<>();
-        int lower = 0;
-        int upper = 0;
-        boolean begin = false;
-        for (Integer value : new TreeSet<>(values)) {
-            if (!begin) {
-                lower = value;
-                upper = value;
-                begin = true;
-                continue;
+        optimize();
+        StringBuilder sb = new StringBuilder();
+        values.forEachRange((lower, upper) -> {
+            if (sb.length() > 0) {
+                sb.append(',');
             }
-            if (upper + 1 == value) {
-                upper = value;
-                continue;
-            }
-            ranges.add(toRangeString(lower, upper));
-            lower = value;
-            upper = value;
+            appendRange(sb, lower, upper);
+        });
+        return sb.toString();
+    }
+
+    /**
+     * Change the containers of the values to runs where they are smaller.
+     */
+    private void optimize() {
+        if (unoptimized > 0) {
+            values.runOptimize();
+            unoptimized = 0;
         }
-        ranges.add(toRangeString(lower, upper));
-        return String.join(",", ranges);
     }
 
     /**
-     * Create a continuous range string.
+     * Append a continuous range string.
      *
+     * @param sb    the builder to append to
      * @param lower the lower value
      * @param upper the upper value
-     * @return range string
      */
-    private static String toRangeString(int lower, int upper) {
+    private static void appendRange(StringBuilder sb, int lower, int upper) {
+        sb.append(lower);
         if (lower == upper) {
-            return String.valueOf(lower);
+            return;
         }
         char split = lower + 1 == upper ? ',' : '~';
-        return String.valueOf(lower) + split + upper;
+        sb.append(split).append(upper);
     }
 }
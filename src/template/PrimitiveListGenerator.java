@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2020-2023 XuYanhang
+ */
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Generator of the primitive lists in <code>org.xuyh.container</code>. Each
+ * template in <code>src/template/container</code> is written out once for each
+ * of the element types <code>int</code>, <code>long</code>,
+ * <code>double</code>, <code>short</code> and <code>byte</code>, as the source
+ * file of the capitalized type name followed by the template name, like
+ * <code>LongArrayList.java</code> from <code>ArrayList.template</code>. Run it
+ * from the root of the project after a template is changed:
+ *
+ * <pre>
+ *     javac -d target/template src/template/PrimitiveListGenerator.java
+ *     java -cp target/template PrimitiveListGenerator
+ * </pre>
+ * <p>
+ * The templates are Java sources with two kinds of markups:
+ * <ul>
+ * <li><code>${key}</code> is replaced by the value of the key on the type, see
+ * {@link #TYPES}.</li>
+ * <li>The lines between <code>//#if type...</code> and <code>//#endif</code>,
+ * with an optional <code>//#else</code>, are kept only for the types listed,
+ * or only for the other types after <code>//#else</code>. The blocks may
+ * nest, and the lines of the markups are dropped.</li>
+ * </ul>
+ *
+ * @author XuYanhang
+ * @since 2020-10-06
+ */
+public final class PrimitiveListGenerator {
+    /**
+     * The keys of the values on each type
+     */
+    private static final String[] KEYS = {"type", "Type", "Boxed", "name", "a", "A", "Predicate", "Consumer",
+            "Stream", "Spliterator", "streamOf", "Sum", "zero", "cast", "serialVersionUID"};
+
+    /**
+     * The values of the {@link #KEYS} on each element type
+     */
+    private static final String[][] TYPES = {
+            {"int", "Int", "Integer", "integer", "an", "An", "IntPredicate", "IntConsumer",
+                    "IntStream", "OfInt", "intStream", "long", "0L", "", "4545675543813079249L"},
+            {"long", "Long", "Long", "long", "a", "A", "LongPredicate", "LongConsumer",
+                    "LongStream", "OfLong", "longStream", "long", "0L", "", "-6386021794286733145L"},
+            {"double", "Double", "Double", "double", "a", "A", "DoublePredicate", "DoubleConsumer",
+                    "DoubleStream", "OfDouble", "doubleStream", "double", "0.0", "", "2735170915216423950L"},
+            {"short", "Short", "Short", "short", "a", "A", "IntPredicate", "IntConsumer",
+                    "IntStream", "OfInt", "intStream", "long", "0L", "(short) ", "-858934470185123370L"},
+            {"byte", "Byte", "Byte", "byte", "a", "A", "IntPredicate", "IntConsumer",
+                    "IntStream", "OfInt", "intStream", "long", "0L", "(byte) ", "7063851429963015328L"}};
+
+    private static final String[] TEMPLATES = {"List", "ArrayList", "Iterator"};
+
+    private static final Pattern PLACEHOLDER = Pattern.compile("\\$\\{(\\w+)}");
+
+    private static final Pattern DIRECTIVE = Pattern.compile("\\s*//#(if|else|endif)\\b(.*)");
+
+    private PrimitiveListGenerator() {
+        super();
+    }
+
+    /**
+     * Write out the sources.
+     *
+     * @param args the directory of the templates and the directory of the
+     *             package to write to, <code>src/template/container</code> and
+     *             <code>src/main/java/org/xuyh/container</code> in default
+     * @throws IOException on failure of reading or writing a file
+     */
+    public static void main(String[] args) throws IOException {
+        Path from = Paths.get(args.length > 0 ? args[0] : "src/template/container");
+        Path to = Paths.get(args.length > 1 ? args[1] : "src/main/java/org/xuyh/container");
+        for (String template : TEMPLATES) {
+            List<String> lines = Files.readAllLines(from.resolve(template + ".template"), StandardCharsets.UTF_8);
+            for (String[] type : TYPES) {
+                Map<String, String> values = new HashMap<>();
+                for (int i = 0; i < KEYS.length; i++)
+                    values.put(KEYS[i], type[i]);
+                Path target = to.resolve(values.get("Type") + template + ".java");
+                Files.write(target, generate(lines, values).getBytes(StandardCharsets.UTF_8));
+                System.out.println(target);
+            }
+        }
+    }
+
+    /**
+     * Generate the source of a type from the lines of a template.
+     *
+     * @param lines  the lines of the template
+     * @param values the values of the keys on the type
+     * @return the source in CRLF line endings
+     * @throws IllegalArgumentException if the template is malformed
+     */
+    static String generate(List<String> lines, Map<String, String> values) {
+        StringBuilder sb = new StringBuilder();
+        // Whether the lines are kept in each enclosing block, and in the current one
+        Deque<Boolean> blocks = new ArrayDeque<>();
+        boolean keep = true;
+        for (int n = 0; n < lines.size(); n++) {
+            String line = lines.get(n);
+            Matcher directive = DIRECTIVE.matcher(line);
+            if (directive.matches()) {
+                switch (directive.group(1)) {
+                    case "if":
+                        blocks.push(keep);
+                        List<String> types = Arrays.asList(directive.group(2).trim().split("\\s+"));
+                        keep = keep && types.contains(values.get("type"));
+                        break;
+                    case "else":
+                        if (blocks.isEmpty()) throw new IllegalArgumentException("Unexpected #else at line " + (n + 1));
+                        keep = blocks.peek() && !keep;
+                        break;
+                    default:
+                        if (blocks.isEmpty()) throw new IllegalArgumentException("Unexpected #endif at line " + (n + 1));
+                        keep = blocks.pop();
+                }
+                continue;
+            }
+            if (!keep) continue;
+            Matcher placeholder = PLACEHOLDER.matcher(line);
+            StringBuffer out = new StringBuffer();
+            while (placeholder.find()) {
+                String value = values.get(placeholder.group(1));
+                if (null == value)
+                    throw new IllegalArgumentException("Unknown ${" + placeholder.group(1) + "} at line " + (n + 1));
+                placeholder.appendReplacement(out, Matcher.quoteReplacement(value));
+            }
+            placeholder.appendTail(out);
+            sb.append(out).append("\r\n");
+        }
+        if (!blocks.isEmpty()) throw new IllegalArgumentException("Missing #endif");
+        return sb.toString();
+    }
+}